@@ -0,0 +1,73 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.io.Serializable;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.tools.serial.BasicSerial;
+
+/**
+ * BasicSerial.toBytes() and toObject() of a text of m_payloadSize characters;
+ * the larger sizes are above BasicSerial.getCompressMinLength() and are compressed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BasicSerialBenchmark
+{
+	private static final String			SERIAL_NAME			= BasicSerialBenchmark.class.getSimpleName();
+	private static final String			ALPHABET			= "abcdefghijklmnopqrstuvwxyz ";
+
+	@Param({ "10", "1000", "100000" })
+	public int							m_payloadSize;
+
+	private String						m_object;
+	private byte[]						m_bytes;
+
+	@Setup
+	public void setUp() throws BasicException
+	{
+		// Random words, which compress about as well as real text.
+		Random				random			= new Random(m_payloadSize);
+		StringBuilder		sb				= new StringBuilder(m_payloadSize);
+		for (int i = 0; i < m_payloadSize; i++)
+		{
+			sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		m_object = sb.toString();
+		m_bytes = BasicSerial.toBytes(SERIAL_NAME, m_object);
+	}
+
+	@Benchmark
+	public byte[] toBytes() throws BasicException
+	{
+		return BasicSerial.toBytes(SERIAL_NAME, m_object);
+	}
+
+	@Benchmark
+	public Serializable toObject() throws BasicException
+	{
+		return BasicSerial.toObject(SERIAL_NAME, m_bytes);
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.expedia.echox3.basics.tools.misc.BasicTools;
+
+/**
+ * Runs the benchmarks once per thread count and writes the results of each run to a file (JSON by default),
+ * so that the results of two releases, or two servers, can be compared.
+ *
+ * 		java -jar EchoX3-Benchmarks.jar [JMH options, e.g. LocalObjectCache -p m_payloadSize=100]
+ *
+ * The thread counts come from -t, or from -Dechox3.benchmark.threads=1,4,16 (default: 1 and the number of cores).
+ * The results go to EchoX3Benchmarks-&lt;threads&gt;T.json,
+ * or to the file named by -rff, with the thread count added before its extension.
+ * -h and -l are passed as-is to JMH.
+ */
+public class BenchmarkMain
+{
+	public static final String		SETTING_THREAD_LIST			= "echox3.benchmark.threads";
+	public static final String		RESULT_NAME_DEFAULT			= "EchoX3Benchmarks";
+
+	/**
+	 * Private constructor that is NEVER called, as this is a utility class (static only).
+	 */
+	private BenchmarkMain()
+	{
+		// Nothing to do
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions		commandLine		= new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList())
+		{
+			Main.main(args);
+			return;
+		}
+
+		ResultFormatType		resultFormat	= commandLine.getResultFormat().orElse(ResultFormatType.JSON);
+		String					resultName		= commandLine.getResult().orElse(RESULT_NAME_DEFAULT);
+		for (int threadCount : getThreadCountList(commandLine))
+		{
+			Options				options			= new OptionsBuilder()
+					.parent(commandLine)
+					.threads(threadCount)
+					.resultFormat(resultFormat)
+					.result(getResultFilename(resultName, threadCount, resultFormat))
+					.build();
+			new Runner(options).run();
+		}
+	}
+
+	private static List<Integer> getThreadCountList(CommandLineOptions commandLine)
+	{
+		List<Integer>			threadCountList		= new ArrayList<>();
+		if (commandLine.getThreads().hasValue())
+		{
+			threadCountList.add(commandLine.getThreads().get());
+		}
+		else
+		{
+			String				defaultText			= String.format("1,%d", BasicTools.getNumberOfProcessors());
+			for (String text : System.getProperty(SETTING_THREAD_LIST, defaultText).split(","))
+			{
+				int				threadCount			= Integer.parseInt(text.trim());
+				if (!threadCountList.contains(threadCount))
+				{
+					threadCountList.add(threadCount);
+				}
+			}
+		}
+		return threadCountList;
+	}
+
+	private static String getResultFilename(String resultName, int threadCount, ResultFormatType resultFormat)
+	{
+		int				indexDot		= resultName.lastIndexOf('.');
+		String			baseName		= -1 == indexDot ? resultName : resultName.substring(0, indexDot);
+		String			extension		= -1 == indexDot
+				? resultFormat.toString().toLowerCase() : resultName.substring(indexDot + 1);
+		return String.format("%s-%dT.%s", baseName, threadCount, extension);
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.expedia.echox3.basics.thread.EchoThreadPool;
+
+/**
+ * EchoThreadPool.execute() of a batch of TASK_COUNT empty tasks, until they have all run:
+ * the cost of the queue and of waking up the threads of the pool, per task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EchoThreadPoolBenchmark
+{
+	private static final int			TASK_COUNT			= 100;
+	private static final int			QUEUE_SIZE_MAX		= 100 * 1000;
+
+	@Param({ "1", "4" })
+	public int							m_poolSize;
+
+	private EchoThreadPool				m_threadPool;
+
+	@Setup
+	public void setUp()
+	{
+		m_threadPool = new EchoThreadPool("Benchmark", m_poolSize, QUEUE_SIZE_MAX);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		m_threadPool.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TASK_COUNT)
+	public void execute() throws InterruptedException
+	{
+		CountDownLatch		latch		= new CountDownLatch(TASK_COUNT);
+		for (int i = 0; i < TASK_COUNT; i++)
+		{
+			m_threadPool.execute(latch::countDown);
+		}
+		latch.await();
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.net.URL;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.expedia.echox3.basics.configuration.FileConfigurationProvider;
+import com.expedia.echox3.basics.file.FileFinder;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.tools.serial.BasicSerial;
+import com.expedia.echox3.internal.store.cache.LocalObjectCache;
+import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
+
+/**
+ * readOnly()/writeOnly() of a simple cache (data/TestSimple.ObjectCache.properties), one key and bulk,
+ * on random keys of a cache filled with m_keyCount values of m_payloadSize bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalObjectCacheBenchmark
+{
+	private static final String			CACHE_NAME			= LocalObjectCacheBenchmark.class.getSimpleName();
+	private static final String			FILENAME			= "data/TestSimple.ObjectCache.properties";
+	private static final int			BULK_SIZE			= 100;
+
+	@Param({ "1000", "100000" })
+	public int							m_keyCount;
+
+	@Param({ "10", "1000" })
+	public int							m_payloadSize;
+
+	private LocalObjectCache			m_cache;
+	private byte[][]					m_keyList;
+	private byte[][]					m_bulkKeyList;
+	private byte[]						m_value;
+
+	@Setup
+	public void setUp() throws BasicException
+	{
+		URL							url				= FileFinder.findUrlOnClasspath(FILENAME);
+		ObjectCacheConfiguration	configuration	=
+				new ObjectCacheConfiguration(CACHE_NAME, new FileConfigurationProvider(url));
+		m_cache = new LocalObjectCache(configuration);
+
+		m_value = new byte[m_payloadSize];
+		ThreadLocalRandom.current().nextBytes(m_value);
+		m_keyList = new byte[m_keyCount][];
+		for (int i = 0; i < m_keyCount; i++)
+		{
+			m_keyList[i] = BasicSerial.toBytes(CACHE_NAME, String.format("Key-%d", i));
+			m_cache.writeOnly(m_keyList[i], m_value);
+		}
+		m_bulkKeyList = new byte[BULK_SIZE][];
+		for (int i = 0; i < BULK_SIZE; i++)
+		{
+			m_bulkKeyList[i] = getRandomKey();
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		m_cache.close();
+	}
+
+	private byte[] getRandomKey()
+	{
+		return m_keyList[ThreadLocalRandom.current().nextInt(m_keyCount)];
+	}
+
+	@Benchmark
+	public byte[] readOnly() throws BasicException
+	{
+		return m_cache.readOnly(getRandomKey(), null);
+	}
+
+	@Benchmark
+	public void writeOnly() throws BasicException
+	{
+		m_cache.writeOnly(getRandomKey(), m_value);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BULK_SIZE)
+	public byte[][] readOnlyBulk() throws BasicException
+	{
+		return m_cache.readOnly(m_bulkKeyList, (byte[]) null);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BULK_SIZE)
+	public void writeOnlyBulk() throws BasicException
+	{
+		m_cache.writeOnly(m_bulkKeyList, m_value);
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.expedia.echox3.basics.configuration.MemoryConfigurationProvider;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.tools.serial.BasicSerial;
+import com.expedia.echox3.internal.store.cache.LocalObjectCache;
+import com.expedia.echox3.visible.application.simplecache.SimpleCacheObjectFactory;
+import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
+
+/**
+ * writeOnly() of a simple cache with its LocalObjectWriteLog, per SyncPolicy (and without a log, for reference).
+ * The sample time shows the added latency (percentiles) of the group commit; run with several threads
+ * (see BenchmarkMain), the threads share the writes and forces of the log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalObjectWriteLogBenchmark
+{
+	private static final String			CACHE_NAME			= LocalObjectWriteLogBenchmark.class.getSimpleName();
+	private static final int			KEY_COUNT			= 100 * 1000;
+
+	@Param({ "Off", "None", "Periodic", "Commit" })
+	public String						m_syncPolicy;
+
+	@Param({ "100" })
+	public int							m_payloadSize;
+
+	private File						m_folder;
+	private MemoryConfigurationProvider	m_provider;
+	private LocalObjectCache			m_cache;
+	private byte[][]					m_keyList;
+	private byte[]						m_value;
+
+	@Setup
+	public void setUp() throws BasicException, IOException
+	{
+		m_folder = Files.createTempDirectory(CACHE_NAME).toFile();
+		m_provider = new MemoryConfigurationProvider(CACHE_NAME);
+		m_provider.addSetting("FactoryClassName", SimpleCacheObjectFactory.class.getName());
+		m_provider.addSetting("SnapshotFolder", m_folder.getAbsolutePath());
+		m_provider.addSetting("WriteLogEnabled", Boolean.toString(!"Off".equals(m_syncPolicy)));
+		m_provider.addSetting("WriteLogSync", m_syncPolicy);
+		m_cache = new LocalObjectCache(new ObjectCacheConfiguration(CACHE_NAME, m_provider));
+
+		m_value = new byte[m_payloadSize];
+		ThreadLocalRandom.current().nextBytes(m_value);
+		m_keyList = new byte[KEY_COUNT][];
+		for (int i = 0; i < KEY_COUNT; i++)
+		{
+			m_keyList[i] = BasicSerial.toBytes(CACHE_NAME, String.format("Key-%d", i));
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		m_cache.close();
+		m_provider.close();
+		deleteFolder(m_folder);
+	}
+	private static void deleteFolder(File folder)
+	{
+		File[]				fileList		= folder.listFiles();
+		for (int i = 0; null != fileList && i < fileList.length; i++)
+		{
+			deleteFolder(fileList[i]);
+		}
+		if (!folder.delete())
+		{
+			System.err.println("Unable to delete " + folder.getAbsolutePath());
+		}
+	}
+
+	@Benchmark
+	public void writeOnly() throws BasicException
+	{
+		m_cache.writeOnly(m_keyList[ThreadLocalRandom.current().nextInt(KEY_COUNT)], m_value);
+	}
+}
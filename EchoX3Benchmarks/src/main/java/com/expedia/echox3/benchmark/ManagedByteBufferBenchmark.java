@@ -0,0 +1,53 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.expedia.echox3.internal.transport.buffer.ManagedByteBuffer;
+import com.expedia.echox3.internal.transport.buffer.ManagedByteBufferManager;
+
+/**
+ * ManagedByteBufferManager.get() + release() of a buffer of m_byteCount bytes,
+ * compared to allocating the ByteBuffer (left to the garbage collector).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManagedByteBufferBenchmark
+{
+	@Param({ "100", "10000", "1000000" })
+	public int							m_byteCount;
+
+	@Benchmark
+	public ManagedByteBuffer getRelease()
+	{
+		ManagedByteBuffer		buffer		= ManagedByteBufferManager.get(m_byteCount);
+		buffer.release();
+		return buffer;
+	}
+
+	@Benchmark
+	public ByteBuffer allocate()
+	{
+		return ByteBuffer.allocate(m_byteCount);
+	}
+}
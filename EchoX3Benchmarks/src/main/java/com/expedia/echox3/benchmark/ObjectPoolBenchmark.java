@@ -0,0 +1,73 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.expedia.echox3.basics.collection.simple.ObjectPool;
+import com.expedia.echox3.basics.collection.simple.StringGroup;
+
+/**
+ * ObjectPool.get() + release(), compared to allocating the object (left to the garbage collector).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectPoolBenchmark
+{
+	private ObjectPool<PooledItem>		m_pool;
+
+	@Setup
+	public void setUp()
+	{
+		m_pool = new ObjectPool<>(new StringGroup("Benchmark.ObjectPool"), PooledItem::new);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		m_pool.release();
+	}
+
+	@Benchmark
+	public PooledItem getRelease()
+	{
+		PooledItem		item		= m_pool.get();
+		item.release();
+		return item;
+	}
+
+	@Benchmark
+	public PooledItem allocate()
+	{
+		return new PooledItem();
+	}
+
+	public static class PooledItem extends ObjectPool.AbstractPooledObject
+	{
+		private final byte[]		m_bytes		= new byte[64];
+
+		public byte[] getBytes()
+		{
+			return m_bytes;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.expedia.echox3.basics.collection.simple.StringGroup;
+import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
+import com.expedia.echox3.basics.tools.locks.AbstractReadWriteLock;
+import com.expedia.echox3.basics.tools.locks.AtomicReadWriteLock;
+import com.expedia.echox3.basics.tools.locks.FastReadWriteLock;
+import com.expedia.echox3.basics.tools.locks.LockCounterFamily;
+
+/**
+ * AtomicReadWriteLock (with its counters) vs FastReadWriteLock, around a short critical section:
+ * readers only, writers only, and 3 readers for 1 writer (readWrite).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadWriteLockBenchmark
+{
+	private static final int			WORK_TOKEN_COUNT		= 10;
+
+	@Param({ "Atomic", "Fast" })
+	public String						m_lockType;
+
+	private AbstractReadWriteLock		m_lock;
+
+	@Setup
+	public void setUp()
+	{
+		m_lock = "Atomic".equals(m_lockType)
+				? new AtomicReadWriteLock(new LockCounterFamily(new StringGroup("Benchmark.ReadWriteLock")))
+				: new FastReadWriteLock();
+	}
+
+	@Benchmark
+	public void read()
+	{
+		IOperationContext		context		= m_lock.lockRead();
+		Blackhole.consumeCPU(WORK_TOKEN_COUNT);
+		m_lock.unlockRead(context, true);
+	}
+
+	@Benchmark
+	public void write()
+	{
+		IOperationContext		context		= m_lock.lockWrite();
+		Blackhole.consumeCPU(WORK_TOKEN_COUNT);
+		m_lock.unlockWrite(context, true);
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(3)
+	public void readWriteReader()
+	{
+		read();
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(1)
+	public void readWriteWriter()
+	{
+		write();
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark.load;
+
+import com.expedia.echox3.basics.collection.histogram.LogarithmicHistogram;
+import com.expedia.echox3.basics.collection.histogram.LogarithmicHistogram.Precision;
+
+/**
+ * The latencies (in microseconds) of the requests of one message type.
+ *
+ * The latency of a request is measured from the time it was meant to be sent, not the time it was sent,
+ * so that a stall of the client or of the transport shows in the latency of all the requests it delayed
+ * (i.e. corrected for coordinated omission).
+ * The percentiles are the top of the histogram bin (i.e. within a few percent); the max is exact.
+ */
+public class LatencyRecorder
+{
+	private static final double			LATENCY_MIN_US		= 1.0;
+	private static final double			LATENCY_MAX_US		= 60.0 * 1000 * 1000;
+
+	private final String				m_name;
+	private final LogarithmicHistogram	m_histogram			=
+			new LogarithmicHistogram(LATENCY_MIN_US, LATENCY_MAX_US, Precision.Fine);
+	private long						m_countSuccess		= 0;
+	private long						m_countFailure		= 0;
+	private double						m_maxUS				= 0;
+
+	public LatencyRecorder(String name)
+	{
+		m_name = name;
+	}
+
+	public String getName()
+	{
+		return m_name;
+	}
+
+	public synchronized void record(boolean isSuccess, long latencyNS)
+	{
+		if (isSuccess)
+		{
+			double		latencyUS		= latencyNS / 1000.0;
+			m_histogram.record(latencyUS);
+			m_maxUS = Math.max(m_maxUS, latencyUS);
+			m_countSuccess++;
+		}
+		else
+		{
+			m_countFailure++;
+		}
+	}
+
+	public synchronized long getCountSuccess()
+	{
+		return m_countSuccess;
+	}
+
+	public synchronized long getCountFailure()
+	{
+		return m_countFailure;
+	}
+
+	public synchronized double getPercentileUS(double fraction)
+	{
+		return 0 == m_countSuccess ? 0 : m_histogram.getWaterMarkValue(fraction).getMax();
+	}
+
+	public synchronized double getMaxUS()
+	{
+		return m_maxUS;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%s: %,d success; %,d failure)",
+				getClass().getSimpleName(), m_name, getCountSuccess(), getCountFailure());
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark.load;
+
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.internal.store.cache.LocalObjectCache;
+import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
+import com.expedia.echox3.internal.transport.message.AbstractMessage;
+import com.expedia.echox3.internal.transport.message.ReceiveMessage;
+import com.expedia.echox3.internal.transport.request.DestMessageHandlerBase;
+import com.expedia.echox3.internal.transport.request.MessageType;
+import com.expedia.echox3.internal.transport.request.dest.AbstractDestRequest;
+
+/**
+ * In-process stand-in for the dispatcher (and the store behind it), serving ObjectCacheProviderRemote
+ * from a LocalObjectCache, on top of the Echo and Work messages of DestMessageHandlerBase:
+ *
+ * 		GetDispatcherListForCache		Answers the address of this server, whatever the cache
+ * 		UserReadOnlySingle				readOnly() of the LocalObjectCache
+ * 		UserWriteOnlySingle				writeOnly() of the LocalObjectCache
+ *
+ * The key list messages (Multiple, Bulk) and the reduce are not served (i.e. answered as UnknownMessageType).
+ */
+public class LoopbackCacheMessageHandler extends DestMessageHandlerBase
+{
+	private final LocalObjectCache			m_cache;
+	private final String[]					m_dispatcherList;
+
+	/**
+	 * @param name				Name of the message handler
+	 * @param cache				The cache serving the user requests
+	 * @param serverAddress		The address of this server, as sent back to the client (see ComputerAddress.toString())
+	 */
+	public LoopbackCacheMessageHandler(String name, LocalObjectCache cache, String serverAddress)
+	{
+		super(name);
+
+		m_cache = cache;
+		m_dispatcherList = new String[] { serverAddress };
+
+		setObjectPool(DispatcherUserSourceMessageHandler.GetDispatcherListForCache,	DispatcherListDestRequest::new);
+		setObjectPool(DispatcherUserSourceMessageHandler.UserReadOnlySingle,		ReadOnlyDestRequest::new);
+		setObjectPool(DispatcherUserSourceMessageHandler.UserWriteOnlySingle,		WriteOnlyDestRequest::new);
+	}
+
+	private class DispatcherListDestRequest extends AbstractDestRequest
+	{
+		public DispatcherListDestRequest()
+		{
+			super(MessageType.Success);
+		}
+
+		@Override
+		public boolean composeTransmitMessage()
+		{
+			if (super.composeTransmitMessage())
+			{
+				return true;
+			}
+
+			// Same format as AbstractMessage.getAddressList()
+			int		variableSize		= AbstractMessage.getStringListSize(m_dispatcherList);
+			initTransmitMessage(getReceiveMessage().getClientContext(), variableSize);
+			getTransmitMessage().putStringList(m_dispatcherList);
+
+			return true;
+		}
+
+		@Override
+		public void runInternal()
+		{
+			markResponseReady();
+		}
+	}
+
+	// The cache name, key and request of a single key message (see UserReadOnlySingleSourceRequest).
+	private abstract class SingleKeyDestRequest extends AbstractDestRequest
+	{
+		private String			m_cacheName;
+		private byte[]			m_key;
+		private byte[]			m_request;
+
+		public SingleKeyDestRequest()
+		{
+			super(MessageType.Success);
+		}
+
+		@Override
+		public void release()
+		{
+			m_cacheName	= null;
+			m_key		= null;
+			m_request	= null;
+
+			super.release();
+		}
+
+		@Override
+		public boolean setReceiveMessage(ReceiveMessage receiveMessage)
+		{
+			if (!super.setReceiveMessage(receiveMessage))
+			{
+				return false;
+			}
+
+			// Parse the request
+			m_cacheName	= receiveMessage.getString();
+			m_key		= receiveMessage.getByteArrayCopy();
+			m_request	= receiveMessage.getByteArrayCopy();
+			return true;
+		}
+
+		@Override
+		public void runInternal()
+		{
+			try
+			{
+				if (!m_cache.getCacheName().equals(m_cacheName))
+				{
+					throw new BasicException(BasicEvent.EVENT_UNKNOWN_CACHE,
+							"Cache %s is not served by the loopback server, only %s",
+							m_cacheName, m_cache.getCacheName());
+				}
+				process(m_key, m_request);
+			}
+			catch (BasicException exception)
+			{
+				setException(exception);
+				return;
+			}
+			markResponseReady();
+		}
+		protected abstract void process(byte[] key, byte[] request) throws BasicException;
+	}
+
+	private class ReadOnlyDestRequest extends SingleKeyDestRequest
+	{
+		private byte[]			m_response;
+
+		@Override
+		public void release()
+		{
+			m_response = null;
+
+			super.release();
+		}
+
+		@Override
+		protected void process(byte[] key, byte[] request) throws BasicException
+		{
+			m_response = m_cache.readOnly(key, request);
+		}
+
+		@Override
+		public boolean composeTransmitMessage()
+		{
+			if (super.composeTransmitMessage())
+			{
+				return true;
+			}
+
+			// null (i.e. no object) is transmitted as an empty array.
+			initTransmitMessage(getReceiveMessage().getClientContext(), AbstractMessage.getByteArraySize(m_response));
+			getTransmitMessage().putByteArray(m_response);
+
+			return true;
+		}
+	}
+
+	private class WriteOnlyDestRequest extends SingleKeyDestRequest
+	{
+		@Override
+		protected void process(byte[] key, byte[] request) throws BasicException
+		{
+			m_cache.writeOnly(key, request);
+		}
+
+		@Override
+		public boolean composeTransmitMessage()
+		{
+			if (super.composeTransmitMessage())
+			{
+				return true;
+			}
+
+			initTransmitMessage(getReceiveMessage().getClientContext(), 0);
+
+			return true;
+		}
+	}
+}
@@ -0,0 +1,415 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.benchmark.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.expedia.echox3.basics.configuration.MemoryConfigurationProvider;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.tools.misc.BasicTools;
+import com.expedia.echox3.internal.provider.ObjectCacheProviderRemote;
+import com.expedia.echox3.internal.store.cache.LocalObjectCache;
+import com.expedia.echox3.internal.transport.protocol.DestProtocolHandler;
+import com.expedia.echox3.internal.transport.protocol.SourceProtocolHandler;
+import com.expedia.echox3.internal.transport.request.DestMessageHandlerBase;
+import com.expedia.echox3.internal.transport.request.MessageType;
+import com.expedia.echox3.internal.transport.request.SourceMessageHandlerBase;
+import com.expedia.echox3.internal.transport.request.source.AbstractSourceRequest;
+import com.expedia.echox3.internal.transport.request.source.EchoSourceRequest;
+import com.expedia.echox3.internal.transport.request.source.WorkSourceRequest;
+import com.expedia.echox3.internal.transport.socket.ComputerAddress;
+import com.expedia.echox3.internal.transport.socket.ComputerAddressGroup;
+import com.expedia.echox3.internal.transport.socket.SourceTransportHighway;
+import com.expedia.echox3.visible.application.simplecache.SimpleCacheObjectFactory;
+import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
+
+/**
+ * Drives a load from a client to a DestProtocolHandler listening on 127.0.0.1, both in this process,
+ * and reports the throughput and the latency percentiles of each type of request:
+ *
+ * 		Read, Write		readOnlyAsync()/writeOnlyAsync() of a single key through ObjectCacheProviderRemote,
+ * 						served by a LocalObjectCache of simple objects (see LoopbackCacheMessageHandler);
+ * 		Echo, Work		The messages of the transport itself, sent by a SourceProtocolHandler.
+ *
+ * 		java -cp EchoX3-Benchmarks.jar -Dechox3.load.rate=20000 \
+ * 			com.expedia.echox3.benchmark.load.LoopbackLoadGenerator
+ *
+ * The load is open-loop: the requests are sent at a constant rate whatever the response time,
+ * and the latency of each request is measured from the time it was meant to be sent (see LatencyRecorder).
+ * The options are system properties (echox3.load.*, see the SETTING_ constants);
+ * the properties named com.expedia.echox3.* are passed to the configuration as-is, e.g. to tune the transport:
+ *
+ * 		-Dcom.expedia.echox3.internal.transport.protocol.SourceProtocolHandler.Loopback.TcpNoDelay=false
+ */
+public class LoopbackLoadGenerator
+{
+	public static final String		PROTOCOL_NAME				= "Loopback";
+
+	public static final String		SETTING_PREFIX				= "echox3.load.";
+	public static final String		SETTING_RATE				= SETTING_PREFIX + "rate";
+	public static final String		SETTING_DURATION_SEC		= SETTING_PREFIX + "durationSec";
+	public static final String		SETTING_WARMUP_SEC			= SETTING_PREFIX + "warmupSec";
+	public static final String		SETTING_TYPE_LIST			= SETTING_PREFIX + "types";
+	public static final String		SETTING_PAYLOAD_SIZE		= SETTING_PREFIX + "payloadSize";
+	public static final String		SETTING_BURN_US				= SETTING_PREFIX + "burnUS";
+	public static final String		SETTING_SLEEP_MS			= SETTING_PREFIX + "sleepMS";
+	public static final String		SETTING_PORT				= SETTING_PREFIX + "port";
+	public static final String		SETTING_LANE_COUNT			= SETTING_PREFIX + "laneCount";
+	public static final String		SETTING_KEY_COUNT			= SETTING_PREFIX + "keyCount";
+
+	private static final String		CONFIGURATION_PREFIX		= "com.expedia.echox3.";
+	private static final String		CACHE_NAME					= "LoopbackLoad";
+	private static final String		BOOTSTRAP_PREFIX			=
+			ObjectCacheProviderRemote.class.getName() + ".bootstrap.dispatcher." + PROTOCOL_NAME;
+	private static final long		CONNECT_WAIT_MS				= 10 * 1000;
+	private static final long		DRAIN_WAIT_MS				= 30 * 1000;
+	private static final long		SPIN_MAX_NS					= TimeUnit.MICROSECONDS.toNanos(100);
+	private static final double[]	PERCENTILE_LIST				= { 0.50, 0.99, 0.999 };
+
+	private final int						m_rate;
+	private final int						m_durationSec;
+	private final int						m_warmupSec;
+	private final LoadType[]				m_typeList;
+	private final byte[]					m_payload;
+	private final byte[][]					m_keyList;
+	private final int						m_burnUS;
+	private final int						m_sleepMS;
+	private final LatencyRecorder[]			m_recorderList;
+	private final AtomicLong				m_countComplete		= new AtomicLong(0);
+
+	private MemoryConfigurationProvider		m_configurationProvider;
+	private DestProtocolHandler				m_serverProtocolHandler;
+	private MemoryConfigurationProvider		m_cacheConfigurationProvider;
+	private LocalObjectCache				m_cache;
+	private DestMessageHandlerBase			m_serverMessageHandler;
+	private SourceProtocolHandler			m_clientProtocolHandler;
+	private SourceMessageHandlerBase		m_clientMessageHandler;
+	private SourceTransportHighway			m_transportHighway;
+	private ObjectCacheProviderRemote		m_cacheProvider;
+
+	// The types of requests: the object cache reads and writes, and the transport's own Echo and Work messages.
+	private enum LoadType
+	{
+		Read,
+		Write,
+		Echo,
+		Work
+	}
+
+	public LoopbackLoadGenerator()
+	{
+		m_rate			= Integer.getInteger(SETTING_RATE, 10 * 1000);
+		m_durationSec	= Integer.getInteger(SETTING_DURATION_SEC, 10);
+		m_warmupSec		= Integer.getInteger(SETTING_WARMUP_SEC, 2);
+		m_payload		= new byte[Integer.getInteger(SETTING_PAYLOAD_SIZE, 100)];
+		m_burnUS		= Integer.getInteger(SETTING_BURN_US, 0);
+		m_sleepMS		= Integer.getInteger(SETTING_SLEEP_MS, 0);
+
+		m_keyList		= new byte[Integer.getInteger(SETTING_KEY_COUNT, 10 * 1000)][];
+		for (int i = 0; i < m_keyList.length; i++)
+		{
+			m_keyList[i] = String.format("Key-%d", i).getBytes();
+		}
+
+		String[]		typeNameList	= System.getProperty(SETTING_TYPE_LIST, "Read,Write").split(",");
+		m_typeList		= new LoadType[typeNameList.length];
+		m_recorderList	= new LatencyRecorder[typeNameList.length];
+		for (int i = 0; i < typeNameList.length; i++)
+		{
+			String		typeName		= typeNameList[i].trim();
+			try
+			{
+				m_typeList[i] = LoadType.valueOf(typeName);
+			}
+			catch (IllegalArgumentException exception)
+			{
+				throw new IllegalArgumentException(String.format(
+						"Unsupported request type %s, expecting Read, Write, Echo and/or Work", typeName), exception);
+			}
+			m_recorderList[i] = new LatencyRecorder(typeName);
+			for (int j = 0; j < i; j++)
+			{
+				if (m_typeList[j] == m_typeList[i])		// NOPMD The types are singletons
+				{
+					m_recorderList[i] = m_recorderList[j];
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) throws BasicException
+	{
+		LoopbackLoadGenerator		generator		= new LoopbackLoadGenerator();
+		generator.start();
+		try
+		{
+			generator.run();
+			generator.report();
+		}
+		finally
+		{
+			generator.shutdown();
+		}
+	}
+
+	public void start() throws BasicException
+	{
+		int				port			= Integer.getInteger(SETTING_PORT, 47100);
+		int				laneCount		= Integer.getInteger(SETTING_LANE_COUNT, 2);
+		String			serverPrefix	= DestProtocolHandler.class.getName() + "." + PROTOCOL_NAME;
+		String			clientPrefix	= SourceProtocolHandler.class.getName() + "." + PROTOCOL_NAME;
+
+		m_configurationProvider = new MemoryConfigurationProvider(getClass().getSimpleName());
+		for (String prefix : new String[] { serverPrefix, clientPrefix, BOOTSTRAP_PREFIX })
+		{
+			m_configurationProvider.addSetting(prefix + ComputerAddress.SETTING_NAME_ADDRESS, "127.0.0.1");
+			m_configurationProvider.addSetting(prefix + ComputerAddress.SETTING_NAME_PORT, Integer.toString(port));
+			m_configurationProvider.addSetting(
+					prefix + ComputerAddress.SETTING_NAME_LANE_COUNT, Integer.toString(laneCount));
+		}
+		for (Map.Entry<Object, Object> entry : System.getProperties().entrySet())
+		{
+			String		name		= entry.getKey().toString();
+			if (name.startsWith(CONFIGURATION_PREFIX))
+			{
+				m_configurationProvider.addSetting(name, entry.getValue().toString());
+			}
+		}
+
+		m_serverProtocolHandler = new DestProtocolHandler(PROTOCOL_NAME, "In-process server of the load generator");
+		m_serverProtocolHandler.updateConfiguration();
+		m_cacheConfigurationProvider = new MemoryConfigurationProvider(CACHE_NAME);
+		m_cacheConfigurationProvider.addSetting("FactoryClassName", SimpleCacheObjectFactory.class.getName());
+		m_cache = new LocalObjectCache(new ObjectCacheConfiguration(CACHE_NAME, m_cacheConfigurationProvider));
+		m_serverMessageHandler = new LoopbackCacheMessageHandler(getClass().getSimpleName(), m_cache,
+				new ComputerAddress("127.0.0.1", port, laneCount).toString());
+		m_serverProtocolHandler.registerMessageHandler(m_serverMessageHandler);
+
+		m_clientProtocolHandler = new SourceProtocolHandler(PROTOCOL_NAME, "Client of the load generator");
+		m_clientProtocolHandler.updateConfiguration();
+		m_clientMessageHandler = new SourceMessageHandlerBase(getClass().getSimpleName(), m_clientProtocolHandler);
+
+		ComputerAddressGroup	addressGroup	= new ComputerAddressGroup(PROTOCOL_NAME);
+		ComputerAddress			address			= new ComputerAddress(clientPrefix);
+		address.resolve();
+		addressGroup.addAddress(address);
+		m_clientProtocolHandler.addAddressGroup(addressGroup);
+
+		long			timeEndMS		= System.currentTimeMillis() + CONNECT_WAIT_MS;
+		while (null == address.getSourceHighway() || !address.getSourceHighway().isActive())
+		{
+			if (System.currentTimeMillis() > timeEndMS)
+			{
+				throw new IllegalStateException(String.format("Could not connect to %s", address));
+			}
+			BasicTools.sleepMS(100);
+		}
+		m_transportHighway = (SourceTransportHighway) address.getSourceHighway();
+
+		// The bootstrap dispatcher (i.e. the server) answers its own address for the cache.
+		m_cacheProvider = new ObjectCacheProviderRemote();
+		m_cacheProvider.connectToCache(CACHE_NAME);
+		long			timeCacheEndMS	= System.currentTimeMillis() + CONNECT_WAIT_MS;
+		while (true)
+		{
+			try
+			{
+				m_cacheProvider.getNextTransportHighway(CACHE_NAME);
+				break;
+			}
+			catch (BasicException exception)
+			{
+				if (System.currentTimeMillis() > timeCacheEndMS)
+				{
+					throw exception;
+				}
+				BasicTools.sleepMS(100);
+			}
+		}
+		// So the reads find their object.
+		for (byte[] keyBytes : m_keyList)
+		{
+			m_cacheProvider.writeOnly(CACHE_NAME, keyBytes, m_payload);
+		}
+	}
+
+	/**
+	 * Sends the requests at their intended time (start + i / rate), without waiting for the responses.
+	 * When the sender falls behind, it sends immediately until it catches up;
+	 * the requests of the warm-up period are sent but not recorded.
+	 */
+	public void run()
+	{
+		long			timeBeginNS		= System.nanoTime();
+		long			timeMeasureNS	= timeBeginNS + TimeUnit.SECONDS.toNanos(m_warmupSec);
+		long			timeEndNS		= timeMeasureNS + TimeUnit.SECONDS.toNanos(m_durationSec);
+		double			intervalNS		= (double) TimeUnit.SECONDS.toNanos(1) / m_rate;
+
+		long			countSent		= 0;
+		long			intendedNS		= timeBeginNS;
+		while (intendedNS < timeEndNS)
+		{
+			waitUntil(intendedNS);
+
+			int					typeIndex		= (int) (countSent % m_typeList.length);
+			LatencyRecorder		recorder		= intendedNS < timeMeasureNS ? null : m_recorderList[typeIndex];
+			send(m_typeList[typeIndex], m_keyList[(int) (countSent % m_keyList.length)],
+					new PendingRequest(recorder, intendedNS));
+			countSent++;
+			intendedNS = timeBeginNS + (long) (countSent * intervalNS);
+		}
+
+		// The requests not answered are completed (as failures) by the timeout of the transport.
+		long			timeDrainMS		= System.currentTimeMillis() + DRAIN_WAIT_MS;
+		while (m_countComplete.get() < countSent && System.currentTimeMillis() < timeDrainMS)
+		{
+			BasicTools.sleepMS(10);
+		}
+	}
+
+	private static void waitUntil(long timeNS)
+	{
+		long			waitNS			= timeNS - System.nanoTime();
+		while (0 < waitNS)
+		{
+			if (SPIN_MAX_NS < waitNS)
+			{
+				LockSupport.parkNanos(waitNS - SPIN_MAX_NS);
+			}
+			waitNS = timeNS - System.nanoTime();
+		}
+	}
+
+	private void send(LoadType type, byte[] keyBytes, PendingRequest pendingRequest)
+	{
+		if (LoadType.Read == type || LoadType.Write == type)
+		{
+			CompletableFuture<?>	future		= LoadType.Read == type
+					? m_cacheProvider.readOnlyAsync(CACHE_NAME, keyBytes, null)
+					: m_cacheProvider.writeOnlyAsync(CACHE_NAME, keyBytes, m_payload);
+			future.whenComplete((response, exception) -> pendingRequest.complete(null == exception));
+			return;
+		}
+
+		AbstractSourceRequest	request;
+		if (LoadType.Echo == type)
+		{
+			request = (AbstractSourceRequest) m_clientMessageHandler.getRequest(MessageType.Echo);
+			((EchoSourceRequest) request).setObject(m_payload);
+		}
+		else
+		{
+			request = (AbstractSourceRequest) m_clientMessageHandler.getRequest(MessageType.Work);
+			((WorkSourceRequest) request).set(m_burnUS, m_sleepMS);
+		}
+		try
+		{
+			m_clientMessageHandler.transmitRequest(m_transportHighway, request, pendingRequest);
+		}
+		catch (BasicException exception)
+		{
+			// Not transmitted, hence not pending: a failure now.
+			request.release();
+			pendingRequest.complete(false);
+		}
+	}
+
+	@SuppressWarnings("PMD.SystemPrintln")		// This IS a command line application!
+	public void report()
+	{
+		System.out.println(String.format("%s: %,d msg/s for %,d sec (after %,d sec warm-up) on %s",
+				getClass().getSimpleName(), m_rate, m_durationSec, m_warmupSec, m_transportHighway));
+		System.out.println(String.format("%-8s %12s %10s %12s %10s %10s %10s %10s",
+				"Type", "Success", "Failure", "msg/s", "p50 us", "p99 us", "p99.9 us", "max us"));
+		List<LatencyRecorder>	recorderList	= new ArrayList<>();
+		for (LatencyRecorder recorder : m_recorderList)
+		{
+			if (!recorderList.contains(recorder))
+			{
+				recorderList.add(recorder);
+			}
+		}
+		for (LatencyRecorder recorder : recorderList)
+		{
+			StringBuilder		sb				= new StringBuilder(100);
+			sb.append(String.format("%-8s %,12d %,10d %,12.0f", recorder.getName(),
+					recorder.getCountSuccess(), recorder.getCountFailure(),
+					(double) recorder.getCountSuccess() / m_durationSec));
+			for (double percentile : PERCENTILE_LIST)
+			{
+				sb.append(String.format(" %,10.0f", recorder.getPercentileUS(percentile)));
+			}
+			sb.append(String.format(" %,10.0f", recorder.getMaxUS()));
+			System.out.println(sb.toString());
+		}
+	}
+
+	public void shutdown()
+	{
+		if (null != m_cacheProvider)
+		{
+			m_cacheProvider.close(CACHE_NAME);
+			m_cacheProvider.closePermanent();
+		}
+		if (null != m_clientProtocolHandler)
+		{
+			m_clientProtocolHandler.shutdown();
+		}
+		if (null != m_serverMessageHandler)
+		{
+			m_serverMessageHandler.close();
+		}
+		if (null != m_serverProtocolHandler)
+		{
+			m_serverProtocolHandler.shutdown();
+		}
+		if (null != m_cache)
+		{
+			m_cache.close();
+		}
+		if (null != m_cacheConfigurationProvider)
+		{
+			m_cacheConfigurationProvider.close();
+		}
+		m_configurationProvider.close();
+	}
+
+	private class PendingRequest implements AbstractSourceRequest.IRequestCompleteListener
+	{
+		private final LatencyRecorder	m_recorder;
+		private final long				m_intendedNS;
+
+		public PendingRequest(LatencyRecorder recorder, long intendedNS)
+		{
+			m_recorder = recorder;
+			m_intendedNS = intendedNS;
+		}
+
+		@Override
+		public void processCompletedRequest(AbstractSourceRequest clientRequest)
+		{
+			boolean		isSuccess		= null == clientRequest.getException();
+			clientRequest.release();
+			complete(isSuccess);
+		}
+
+		public void complete(boolean isSuccess)
+		{
+			long		latencyNS		= System.nanoTime() - m_intendedNS;
+			if (null != m_recorder)
+			{
+				m_recorder.record(isSuccess, latencyNS);
+			}
+			m_countComplete.incrementAndGet();
+		}
+	}
+}
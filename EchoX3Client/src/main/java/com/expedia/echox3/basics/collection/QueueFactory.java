@@ -10,6 +10,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import com.expedia.echox3.basics.collection.ring.ConcurrentRingBufferQueue;
 import com.expedia.echox3.basics.collection.ring.RingBufferQueue;
 
 public class QueueFactory<T>
@@ -26,6 +27,12 @@ public class QueueFactory<T>
 		}
 	}
 
+	/**
+	 * The queue for a hot path, shared by many producers and consumers that do not need to block on the queue.
+	 *
+	 * @param size	0 for an unbound queue
+	 * @return		A thread-safe queue, lock-free if bounded
+	 */
 	public Queue<T> getQueue(int size)
 	{
 		if (0 == size)
@@ -34,7 +41,7 @@ public class QueueFactory<T>
 		}
 		else
 		{
-			return getArrayBlockingQueue(size);
+			return getConcurrentRingBufferQueue(size);
 		}
 	}
 
@@ -52,4 +59,9 @@ public class QueueFactory<T>
 	{
 		return new RingBufferQueue<>(size);
 	}
+
+	public Queue<T> getConcurrentRingBufferQueue(int size)
+	{
+		return new ConcurrentRingBufferQueue<>(size);
+	}
 }
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.collection.ring;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bounded multi-producer/multi-consumer ring buffer (D. Vyukov's algorithm).
+ *
+ * Each slot carries a sequence number, which tells a producer (resp. consumer) at position p
+ * whether the slot is free for it (resp. holds its value); the producers and the consumers claim
+ * a position with a CAS on their own counter, so that neither takes a lock nor allocates.
+ * A slot claimed but not yet filled (resp. freed) is waited for, rather than reported as empty (resp. full),
+ * unless the counters show that the queue really is empty (resp. full).
+ * The two counters are far apart in the same AtomicLongArray, to avoid false sharing between producers and consumers.
+ *
+ * The capacity is rounded-up to a power of 2.
+ * Null values are not allowed (poll() returns null when the queue is empty).
+ * The iterator is a weakly consistent snapshot (see iterator()).
+ *
+ * @param <T>	Type of object to place in the queue
+ */
+public class ConcurrentRingBufferQueue<T> extends AbstractQueue<T>
+{
+	private static final int					CAPACITY_MAX		= 1 << 30;
+	// 128 bytes (i.e. 2 cache lines, for the adjacent-line prefetch) between the counters and around them
+	private static final int					PAD_COUNT			= 16;
+	private static final int					INDEX_TAIL			= PAD_COUNT;			// Next position to put
+	private static final int					INDEX_HEAD			= 2 * PAD_COUNT;		// Next position to take
+
+	private final AtomicLongArray				m_counterList		= new AtomicLongArray(3 * PAD_COUNT);
+	private final AtomicLongArray				m_sequenceList;
+	private final AtomicReferenceArray<T>		m_valueList;
+	private final int							m_mask;
+
+	public ConcurrentRingBufferQueue(int count)
+	{
+		int		capacity		= Math.min(CAPACITY_MAX, Math.max(2, count));
+		capacity = Integer.highestOneBit(capacity - 1) << 1;
+
+		m_mask = capacity - 1;
+		m_sequenceList = new AtomicLongArray(capacity);
+		m_valueList = new AtomicReferenceArray<>(capacity);
+		for (int i = 0; i < capacity; i++)
+		{
+			m_sequenceList.set(i, i);
+		}
+	}
+
+	public int getCapacity()
+	{
+		return m_mask + 1;
+	}
+
+	@Override
+	public boolean offer(T value)
+	{
+		if (null == value)
+		{
+			throw new NullPointerException("Null values are not allowed.");
+		}
+
+		while (true)
+		{
+			long		position		= m_counterList.get(INDEX_TAIL);
+			int			index			= (int) position & m_mask;
+			long		delta			= m_sequenceList.get(index) - position;
+			if (0 == delta)
+			{
+				if (m_counterList.compareAndSet(INDEX_TAIL, position, position + 1))
+				{
+					m_valueList.set(index, value);
+					m_sequenceList.lazySet(index, position + 1);		// Publishes the value to the consumer
+					return true;
+				}
+			}
+			else if (delta < 0 && position - getCapacity() >= m_counterList.get(INDEX_HEAD))
+			{
+				return false;		// The slot still holds the value of the previous lap: full
+			}
+			// else another producer took this position (try the next one),
+			// or a consumer of the previous lap has not yet freed the slot (wait for it).
+		}
+	}
+
+	@Override
+	public T poll()
+	{
+		while (true)
+		{
+			long		position		= m_counterList.get(INDEX_HEAD);
+			int			index			= (int) position & m_mask;
+			long		delta			= m_sequenceList.get(index) - (position + 1);
+			if (0 == delta)
+			{
+				if (m_counterList.compareAndSet(INDEX_HEAD, position, position + 1))
+				{
+					T		value		= m_valueList.get(index);
+					m_valueList.lazySet(index, null);
+					m_sequenceList.lazySet(index, position + m_mask + 1);	// Frees the slot for the next lap
+					return value;
+				}
+			}
+			else if (delta < 0 && position >= m_counterList.get(INDEX_TAIL))
+			{
+				return null;		// The slot is not yet filled: empty
+			}
+			// else another consumer took this position (try the next one),
+			// or a producer has claimed the slot but not yet filled it (wait for it).
+		}
+	}
+
+	@Override
+	public T peek()
+	{
+		long		position		= m_counterList.get(INDEX_HEAD);
+		int			index			= (int) position & m_mask;
+		return m_sequenceList.get(index) == position + 1 ? m_valueList.get(index) : null;
+	}
+
+	/**
+	 * @return	A snapshot of the number of values, exact only when there is no concurrent operation
+	 */
+	@Override
+	public int size()
+	{
+		long		head		= m_counterList.get(INDEX_HEAD);
+		long		tail		= m_counterList.get(INDEX_TAIL);
+		return (int) Math.max(0, Math.min(getCapacity(), tail - head));
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return m_counterList.get(INDEX_TAIL) <= m_counterList.get(INDEX_HEAD);
+	}
+
+	/**
+	 * Weakly consistent, as the iterators of java.util.concurrent: a snapshot of the values in the queue
+	 * when it is created, those put or taken concurrently may or may not be included.
+	 * The iterator does not support remove().
+	 *
+	 * @return	An iterator on a copy of the values, from the head to the tail of the queue
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		long		head		= m_counterList.get(INDEX_HEAD);
+		long		tail		= m_counterList.get(INDEX_TAIL);
+		List<T>		valueList	= new ArrayList<>((int) Math.max(0, Math.min(getCapacity(), tail - head)));
+		for (long position = Math.max(head, tail - getCapacity()); position < tail; position++)
+		{
+			int			index		= (int) position & m_mask;
+			T			value		= m_valueList.get(index);
+			// The sequence, read after the value, tells whether the value is the one put at this position.
+			if (null != value && m_sequenceList.get(index) == position + 1)
+			{
+				valueList.add(value);
+			}
+		}
+		return Collections.unmodifiableList(valueList).iterator();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%,d of %,d)", getClass().getSimpleName(), size(), getCapacity());
+	}
+}
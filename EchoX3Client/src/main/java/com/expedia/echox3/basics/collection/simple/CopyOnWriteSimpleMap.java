@@ -5,6 +5,8 @@
 
 package com.expedia.echox3.basics.collection.simple;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -34,6 +36,14 @@ public class CopyOnWriteSimpleMap<K, V>
 		return previous;
 	}
 
+	/**
+	 * @return	A read-only view of the values; as the map is copied on write, iterating it is always safe.
+	 */
+	public Collection<V> values()
+	{
+		return Collections.unmodifiableCollection(m_map.values());
+	}
+
 	public V remove(K key)
 	{
 		Map<K, V>		map			= new HashMap<>();
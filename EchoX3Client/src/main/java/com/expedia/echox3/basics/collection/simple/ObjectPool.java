@@ -5,9 +5,11 @@
 
 package com.expedia.echox3.basics.collection.simple;
 
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 
 import com.expedia.echox3.basics.configuration.ConfigurationManager;
@@ -39,6 +41,16 @@ import com.expedia.echox3.basics.tools.pubsub.Publisher;
  *
  * The pool will grow automatically as needed from the initial size (it never shrinks).
  *
+ * Each thread has a small cache (magazine) of blank objects in front of the shared pool,
+ * so that most get()/release() are plain array operations, without the lock of the pool.
+ * The magazine is refilled from (resp. returned to) the shared pool by half a magazine at a time.
+ * The objects in the magazines are at most a quarter of maxSize (a thread is without magazine beyond that),
+ * and a release() goes to the shared pool while a thread waits in get(): a thread waiting for a blank
+ * always has objects in use to wait for.
+ * The magazine of a thread that has ended goes back to the shared pool (see ObjectPoolCleanupThread),
+ * it no longer counts against the quarter of maxSize.
+ * For the MBean, the objects in the magazines are blank, not outstanding.
+ *
  * NOTE:		The pooled object MUST extend AbstractPooledObject, as this class maintains the IOperationContext.
  */
 @SuppressWarnings("unchecked")
@@ -47,12 +59,14 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 	public static final String SETTING_PREFIX					= ObjectPool.class.getName() + ".%s";
 	public static final String SETTING_INITIAL_SIZE				= SETTING_PREFIX + ".initialSize";
 	public static final String SETTING_MAX_SIZE					= SETTING_PREFIX + ".maxSize";
+	public static final String SETTING_THREAD_CACHE_SIZE		= SETTING_PREFIX + ".threadCacheSize";
 
 	// OBJECT_POOL_LIST maintained to walk the pools when looking for excessive number of objects in the list.
 	// and reset the list size when m_outstandingCount is too high.
 	private static final List<ObjectPool>		OBJECT_POOL_LIST		= new LinkedList<>();
 
 	private static final int					DEFAULT_INITIAL_SIZE			= 10;
+	private static final int					DEFAULT_THREAD_CACHE_SIZE		= 16;
 	private static final ConfigurationManager	CONFIGURATION_MANAGER			= ConfigurationManager.getInstance();
 	private static final BasicLogger			LOGGER							= new BasicLogger(ObjectPool.class);
 
@@ -87,11 +101,15 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 	private T[]								m_blankList;
 	private int								m_initialSize;
 	private int								m_blankCount;
-	private int								m_waitingCount;
+	private volatile int					m_waitingCount;
 	private int								m_outstandingCount;
 	private int								m_outstandingCountMax		= 0;
 	private long							m_notifyCount				= 0;
 
+	private final int						m_threadCacheSize;
+	private final ThreadLocal<ThreadCache>	m_threadCache				= new ThreadLocal<>();
+	private final List<ThreadCache>			m_threadCacheList			= new CopyOnWriteArrayList<>();
+
 	static
 	{
 		new ObjectPoolCleanupThread();
@@ -109,6 +127,8 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 				getSettingName(SETTING_MAX_SIZE), Integer.toString(m_blankCount * 10));
 		m_blankList					= (T[]) new AbstractPooledObject[m_blankCount];
 		m_outstandingCount			= 0;
+		m_threadCacheSize			= Math.max(0, CONFIGURATION_MANAGER.getInt(
+				getSettingName(SETTING_THREAD_CACHE_SIZE), Integer.toString(DEFAULT_THREAD_CACHE_SIZE)));
 
 		m_supplier = supplier;
 		for (int i = 0; i < m_blankCount; i++)
@@ -158,13 +178,30 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 	@Override
 	public int getOutstandingCount()
 	{
-		return m_outstandingCount;
+		return m_outstandingCount - getThreadCacheCount();
 	}
 
 	@Override
 	public int getBlankCount()
 	{
-		return m_blankCount;
+		return m_blankCount + getThreadCacheCount();
+	}
+
+	@Override
+	public int getThreadCacheCount()
+	{
+		int			count		= 0;
+		for (ThreadCache threadCache : m_threadCacheList)
+		{
+			count += threadCache.m_count;
+		}
+		return count;
+	}
+
+	@Override
+	public int getThreadCacheSize()
+	{
+		return m_threadCacheSize;
 	}
 
 	@Override
@@ -203,6 +240,23 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 	}
 
 	public T get()
+	{
+		ThreadCache		threadCache		= getThreadCache();
+		if (null != threadCache)
+		{
+			if (0 == threadCache.m_count)
+			{
+				fillThreadCache(threadCache);
+			}
+			if (0 != threadCache.m_count)
+			{
+				return (T) threadCache.pop();
+			}
+		}
+
+		return getShared();
+	}
+	private T getShared()
 	{
 		T		object;
 
@@ -277,21 +331,94 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 
 	private void release(T object)
 	{
-		synchronized (this)
+		ThreadCache		threadCache		= m_threadCache.get();
+		if (null != threadCache && 0 != threadCache.m_list.length && 0 == m_waitingCount)
 		{
-			m_outstandingCount--;
-			if(m_blankCount >= 0)		// Let it become garbage if no room for it -> Due to setMaxSize shrinking.
+			if (threadCache.m_list.length == threadCache.m_count)
 			{
-				m_blankList[m_blankCount] = object;
-				if (0 != m_waitingCount)
+				emptyThreadCache(threadCache);
+			}
+			threadCache.push(object);
+		}
+		else
+		{
+			synchronized (this)
+			{
+				releaseLocked(object);
+			}
+		}
+	}
+	// The caller is responsible to ensure this is called within a synchronized.
+	private void releaseLocked(T object)
+	{
+		m_outstandingCount--;
+		if(m_blankCount >= 0)		// Let it become garbage if no room for it -> Due to setMaxSize shrinking.
+		{
+			m_blankList[m_blankCount] = object;
+			if (0 != m_waitingCount)
+			{
+				// Notify is expensive, notify() only if someone is actually waiting
+				//noinspection CallToNotifyInsteadOfNotifyAll
+				this.notify();
+				m_notifyCount++;
+			}
+		}
+		m_blankCount++;
+	}
+
+	// null if the thread has no magazine (disabled or over the budget of the pool)
+	private ThreadCache getThreadCache()
+	{
+		ThreadCache		threadCache		= m_threadCache.get();
+		if (null == threadCache)
+		{
+			synchronized (this)
+			{
+				int		cacheCount		= m_threadCacheList.size() + 1;
+				threadCache = (0 != m_threadCacheSize && (cacheCount * m_threadCacheSize) <= (m_maxSize / 4))
+						? new ThreadCache(m_threadCacheSize) : new ThreadCache(0);
+				if (0 != threadCache.m_list.length)
 				{
-					// Notify is expensive, notify() only if someone is actually waiting
-					//noinspection CallToNotifyInsteadOfNotifyAll
-					this.notify();
-					m_notifyCount++;
+					m_threadCacheList.add(threadCache);
 				}
 			}
-			m_blankCount++;
+			m_threadCache.set(threadCache);
+		}
+		return 0 == threadCache.m_list.length ? null : threadCache;
+	}
+	private void fillThreadCache(ThreadCache threadCache)
+	{
+		synchronized (this)
+		{
+			if (0 != m_waitingCount)
+			{
+				return;		// Leave the blanks to the waiting threads
+			}
+			if (0 >= m_blankCount)
+			{
+				grow(2 * getAllocatedCount());
+			}
+
+			int		count		= Math.min(threadCache.m_list.length / 2, m_blankCount);
+			for (int i = 0; i < count; i++)
+			{
+				--m_blankCount;
+				threadCache.push(m_blankList[m_blankCount]);
+				m_blankList[m_blankCount] = null;
+				m_outstandingCount++;
+			}
+			m_outstandingCountMax = Math.max(m_outstandingCountMax, m_outstandingCount);
+		}
+	}
+	private void emptyThreadCache(ThreadCache threadCache)
+	{
+		synchronized (this)
+		{
+			int		count		= threadCache.m_list.length / 2;
+			for (int i = 0; i < count; i++)
+			{
+				releaseLocked((T) threadCache.pop());
+			}
 		}
 	}
 
@@ -327,6 +454,13 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 	{
 		synchronized (this)
 		{
+			// The objects in the magazine of the calling thread become blank; those of other threads stay outstanding.
+			ThreadCache		threadCache		= m_threadCache.get();
+			while (null != threadCache && 0 != threadCache.m_count)
+			{
+				releaseLocked((T) threadCache.pop());
+			}
+
 			int			prevCount		= m_blankList.length;
 			newCount = Math.max(m_initialSize, newCount);		// Don't shrink smaller than initial size.
 			newCount = Math.max(m_outstandingCount, newCount);	// Never shrink to less than how many are outstanding
@@ -393,6 +527,7 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 
 	private void cleanup()
 	{
+		sweepThreadCacheList();
 		if (m_outstandingCountMax > (10 * m_outstandingCount))
 		{
 			shrink(m_outstandingCount * 3);
@@ -402,6 +537,59 @@ public class ObjectPool<T extends ObjectPool.AbstractPooledObject> implements Ob
 
 
 
+	// The objects in the magazine of a thread that has ended become blank in the shared pool.
+	private void sweepThreadCacheList()
+	{
+		for (ThreadCache threadCache : m_threadCacheList)
+		{
+			if (!threadCache.isOwnerAlive())
+			{
+				synchronized (this)
+				{
+					while (0 != threadCache.m_count)
+					{
+						releaseLocked((T) threadCache.pop());
+					}
+					m_threadCacheList.remove(threadCache);
+				}
+			}
+		}
+	}
+
+	// Only ever accessed by its thread, except for the (racy) read of m_count by the MBean,
+	// and once the thread has ended, by sweepThreadCacheList().
+	private static class ThreadCache
+	{
+		private final AbstractPooledObject[]	m_list;
+		private final WeakReference<Thread>		m_owner;
+		private int								m_count			= 0;
+
+		private ThreadCache(int size)
+		{
+			m_list = new AbstractPooledObject[size];
+			m_owner = new WeakReference<>(Thread.currentThread());
+		}
+
+		// The magazine must not keep its thread from being collected.
+		private boolean isOwnerAlive()
+		{
+			Thread		owner		= m_owner.get();
+			return null != owner && owner.isAlive();
+		}
+
+		private void push(AbstractPooledObject object)
+		{
+			m_list[m_count++] = object;
+		}
+
+		private AbstractPooledObject pop()
+		{
+			AbstractPooledObject		object		= m_list[--m_count];
+			m_list[m_count] = null;
+			return object;
+		}
+	}
+
 	private static class ObjectPoolCleanupThread extends AbstractScheduledThread
 	{
 		public ObjectPoolCleanupThread()
@@ -13,6 +13,8 @@ public interface ObjectPoolMBean
 	int			getWaitingCount();
 	int			getMaxCount();
 	long		getNotifyCount();
+	int			getThreadCacheCount();
+	int			getThreadCacheSize();
 
 	void		reset();
 }
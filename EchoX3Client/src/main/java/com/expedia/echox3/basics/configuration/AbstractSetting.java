@@ -0,0 +1,50 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.configuration;
+
+/**
+ * A setting bound once (typically as a static final field) and kept up to date by ConfigurationManager,
+ * so that reading it is a single field read instead of a lookup through the providers.
+ *
+ * The value is updated by the thread that changes the configuration, before the change is published:
+ * the listeners of the ConfigurationManager publisher see the new value.
+ */
+public abstract class AbstractSetting
+{
+	private final String		m_settingName;
+
+	protected AbstractSetting(String settingName)
+	{
+		m_settingName = settingName;
+	}
+
+	// Must be called at the end of the constructor of the concrete class, once its default value is set.
+	protected final void register()
+	{
+		ConfigurationManager.getInstance().addSetting(this);
+	}
+
+	public String getSettingName()
+	{
+		return m_settingName;
+	}
+
+	/**
+	 * Reads the value of the setting from the current snapshot of the configuration.
+	 * Synchronized, so that the last update always reads the latest snapshot.
+	 *
+	 * @param configurationManager		The source of the value
+	 */
+	protected abstract void updateConfiguration(ConfigurationManager configurationManager);
+
+	public abstract String getValueAsString();
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%s = %s)", getClass().getSimpleName(), m_settingName, getValueAsString());
+	}
+}
@@ -12,6 +12,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Level;
 
@@ -66,6 +68,11 @@ public class ConfigurationManager
 	private Publisher								m_publisher;
 	private long									m_lastModifiedTime	= 0;
 
+	// The settings as resolved since the last change, replaced (not modified) when the configuration changes.
+	private final AtomicLong						m_snapshotVersion	= new AtomicLong(0);
+	private volatile ConfigurationSnapshot			m_snapshot			= new ConfigurationSnapshot(0);
+	private final List<AbstractSetting>				m_settingList		= new CopyOnWriteArrayList<>();
+
 	static
 	{
 		// 1. Classpath provider
@@ -173,12 +180,40 @@ public class ConfigurationManager
 
 	public void postChangeEvent(String reason, IConfigurationProvider provider)
 	{
+		// In this thread, so that the listeners of the publisher (and all the readers from now on) see the change.
+		m_snapshot = new ConfigurationSnapshot(m_snapshotVersion.incrementAndGet());
+		for (AbstractSetting setting : m_settingList)
+		{
+			setting.updateConfiguration(this);
+		}
+
 		if (null != m_publisher)
 		{
 			m_publisher.post(String.format("%s from %s", reason, provider.toString()));
 		}
 	}
 
+	public ConfigurationSnapshot getSnapshot()
+	{
+		return m_snapshot;
+	}
+
+	/**
+	 * Keeps the setting up to date from now on, see AbstractSetting.
+	 *
+	 * @param setting		The setting, with its current value read at once
+	 */
+	public void addSetting(AbstractSetting setting)
+	{
+		m_settingList.add(setting);
+		setting.updateConfiguration(this);
+	}
+
+	public List<AbstractSetting> getSettingList()
+	{
+		return m_settingList;
+	}
+
 	protected AbstractReadWriteLock getProviderMapLock()
 	{
 		return m_providerMapLock;
@@ -228,6 +263,17 @@ public class ConfigurationManager
 	}
 
 	public String getSettingInternal(String settingName, String defaultValue)
+	{
+		// The snapshot is read once: a value resolved while the configuration changes stays in the old snapshot.
+		String		settingValue		= m_snapshot.getSetting(settingName, this::resolveSetting);
+		if (null == settingValue)
+		{
+			settingValue = defaultValue;
+		}
+
+		return settingValue;
+	}
+	private String resolveSetting(String settingName)
 	{
 		String					settingValue	= null;
 		IOperationContext		context			= getProviderMapLock().lockRead();
@@ -261,11 +307,6 @@ public class ConfigurationManager
 			getProviderMapLock().unlockRead(context, true);
 		}
 
-		if (null == settingValue)
-		{
-			settingValue = defaultValue;
-		}
-
 		return settingValue;
 	}
 	public String getSettingInternalSimple(String settingName)
@@ -311,7 +352,7 @@ public class ConfigurationManager
 		{
 			getLogger().error(BasicEvent.EVENT_CONFIGURATION_PARSE_ERROR,
 					FAILED_PARSE_FORMAT, settingName, settingValue, Integer.class.getSimpleName(), defaultValue);
-			value = Integer.parseInt(defaultValue);
+			value = Integer.parseInt(defaultValue.replace(COMMA, "").trim());
 		}
 		return value;
 	}
@@ -332,7 +373,7 @@ public class ConfigurationManager
 		{
 			getLogger().error(BasicEvent.EVENT_CONFIGURATION_PARSE_ERROR,
 					FAILED_PARSE_FORMAT, settingName, settingValue, Long.class.getSimpleName(), defaultValue);
-			value = Integer.parseInt(defaultValue);
+			value = Long.parseLong(defaultValue.replace(COMMA, "").trim());
 		}
 		return value;
 	}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.configuration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The settings resolved (across all the providers, with the prefix fallback) for one version of the configuration.
+ *
+ * A snapshot is never modified once a value is resolved: each setting is resolved the first time it is read,
+ * then read from the snapshot without lock until the configuration changes,
+ * when ConfigurationManager replaces the whole snapshot with a new (empty) version.
+ * The missing settings are remembered as well, so that a default value does not walk the providers again.
+ */
+public class ConfigurationSnapshot
+{
+	private static final String					NULL_VALUE		= new String("<null>");		// NOPMD Compared by identity
+
+	private final long							m_version;
+	private final Map<String, String>			m_settingMap	= new ConcurrentHashMap<>();
+
+	public ConfigurationSnapshot(long version)
+	{
+		m_version = version;
+	}
+
+	public long getVersion()
+	{
+		return m_version;
+	}
+
+	public int getSettingCount()
+	{
+		return m_settingMap.size();
+	}
+
+	/**
+	 * Returns the value of the setting, resolving it (once) with the resolver if it is not yet in the snapshot.
+	 *
+	 * @param settingName	Name of the setting
+	 * @param resolver		Looks up the setting in the providers, returns null if it is not found
+	 * @return				The value of the setting, null if it is not set
+	 */
+	public String getSetting(String settingName, Function<String, String> resolver)
+	{
+		String		value		= m_settingMap.get(settingName);
+		if (null == value)
+		{
+			value = resolver.apply(settingName);
+			if (null == value)
+			{
+				value = NULL_VALUE;
+			}
+			m_settingMap.putIfAbsent(settingName, value);
+		}
+		return NULL_VALUE == value ? null : value;		// NOPMD Looking for exactly this object
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(version %,d; %,d settings)", getClass().getSimpleName(), m_version, getSettingCount());
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.configuration;
+
+/**
+ * An int setting, see AbstractSetting.
+ * The value is parsed as ConfigurationManager.getInt() does (e.g. "2,000" is 2000).
+ */
+public class IntSetting extends AbstractSetting
+{
+	private final String		m_defaultValue;
+	private volatile int		m_value;
+
+	public IntSetting(String settingName, int defaultValue)
+	{
+		this(settingName, Integer.toString(defaultValue));
+	}
+	public IntSetting(String settingName, String defaultValue)
+	{
+		super(settingName);
+
+		m_defaultValue = defaultValue;
+		register();
+	}
+
+	@Override
+	protected synchronized void updateConfiguration(ConfigurationManager configurationManager)
+	{
+		m_value = configurationManager.getInt(getSettingName(), m_defaultValue);
+	}
+
+	public int getValue()
+	{
+		return m_value;
+	}
+
+	@Override
+	public String getValueAsString()
+	{
+		return Integer.toString(m_value);
+	}
+}
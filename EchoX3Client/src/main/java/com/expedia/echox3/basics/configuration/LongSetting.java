@@ -0,0 +1,45 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.configuration;
+
+/**
+ * An long setting, see AbstractSetting.
+ * The value is parsed as ConfigurationManager.getLong() does (e.g. "2,000" is 2000).
+ */
+public class LongSetting extends AbstractSetting
+{
+	private final String		m_defaultValue;
+	private volatile long		m_value;
+
+	public LongSetting(String settingName, long defaultValue)
+	{
+		this(settingName, Long.toString(defaultValue));
+	}
+	public LongSetting(String settingName, String defaultValue)
+	{
+		super(settingName);
+
+		m_defaultValue = defaultValue;
+		register();
+	}
+
+	@Override
+	protected synchronized void updateConfiguration(ConfigurationManager configurationManager)
+	{
+		m_value = configurationManager.getLong(getSettingName(), m_defaultValue);
+	}
+
+	public long getValue()
+	{
+		return m_value;
+	}
+
+	@Override
+	public String getValueAsString()
+	{
+		return Long.toString(m_value);
+	}
+}
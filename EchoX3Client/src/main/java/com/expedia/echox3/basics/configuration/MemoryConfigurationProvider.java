@@ -4,6 +4,9 @@
  */
 package com.expedia.echox3.basics.configuration;
 
+import java.util.Map;
+import java.util.Properties;
+
 public class MemoryConfigurationProvider extends AbstractConfigurationProvider
 {
 	public MemoryConfigurationProvider(String name)
@@ -23,6 +26,33 @@ public class MemoryConfigurationProvider extends AbstractConfigurationProvider
 		return isChanged;
 	}
 
+	@Override
+	protected boolean setSettingMap(Map<String, String> settingMap)
+	{
+		return postChange(super.setSettingMap(settingMap));
+	}
+
+	@Override
+	protected boolean setSettingMap(Properties properties)
+	{
+		return postChange(super.setSettingMap(properties));
+	}
+
+	@Override
+	protected boolean addSettingMap(Map<String, String> settingMap)
+	{
+		return postChange(super.addSettingMap(settingMap));
+	}
+
+	private boolean postChange(boolean isChanged)
+	{
+		if (isChanged)
+		{
+			ConfigurationManager.getInstance().postChangeEvent(ConfigurationManager.REASON_PROVIDER_CHANGE, this);
+		}
+		return isChanged;
+	}
+
 	@Override
 	public void close()
 	{
@@ -9,4 +9,12 @@ package com.expedia.echox3.basics.monitoring.counter;
 public interface IOperationCounter extends IBaseCounter
 {
 	public IOperationContext		begin();
+
+	/**
+	 * Same as begin(), without any object: the caller keeps the returned time and passes it to end().
+	 *
+	 * @return	The begin time (System.nanoTime()), 0 if the counter is disabled
+	 */
+	public long						beginNS();
+	public double					end(long timeBeginNS, boolean isSuccess);		// returns durationMS
 }
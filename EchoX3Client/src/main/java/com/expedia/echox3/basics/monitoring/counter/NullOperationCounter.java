@@ -22,6 +22,18 @@ public class NullOperationCounter extends BaseCounter implements IOperationCount
 		return IOperationContext.NULL_CONTEXT;
 	}
 
+	@Override
+	public long beginNS()
+	{
+		return 0;
+	}
+
+	@Override
+	public double end(long timeBeginNS, boolean isSuccess)
+	{
+		return 0;
+	}
+
 	@Override
 	public void doBeanUpdate(long durationMS)
 	{
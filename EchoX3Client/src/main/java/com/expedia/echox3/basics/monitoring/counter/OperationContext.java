@@ -5,31 +5,23 @@
 
 package com.expedia.echox3.basics.monitoring.counter;
 
-
-import com.expedia.echox3.basics.collection.simple.ObjectPool;
-
-public class OperationContext extends ObjectPool.AbstractPooledObject implements IOperationContext
+/**
+ * Immutable and not pooled: the JIT eliminates the allocation when begin() and end() are in the same method.
+ * Code that must keep the context in a field can use IOperationCounter.beginNS()/end(long, boolean) instead.
+ */
+public class OperationContext implements IOperationContext
 {
-	private long				m_timeBeginNS;
-	private OperationCounter	m_operation;
+	private final OperationCounter		m_operation;
+	private final long					m_timeBeginNS;
 
-	public OperationContext()
-	{
-	}
-
-	public void setOperation(OperationCounter operation)
+	public OperationContext(OperationCounter operation, long timeBeginNS)
 	{
 		m_operation = operation;
-		m_timeBeginNS = System.nanoTime();
+		m_timeBeginNS = timeBeginNS;
 	}
 
 	public double end(boolean isSuccess)
 	{
-		long		timeEndNS		= System.nanoTime();
-		double		durationMS		= (timeEndNS - m_timeBeginNS) / (1000.0 * 1000);
-		m_operation.end(isSuccess, durationMS);
-		this.release();
-
-		return durationMS;
+		return m_operation.end(m_timeBeginNS, isSuccess);
 	}
 }
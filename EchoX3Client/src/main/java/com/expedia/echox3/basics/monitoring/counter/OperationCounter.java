@@ -5,19 +5,32 @@
 
 package com.expedia.echox3.basics.monitoring.counter;
 
-import java.util.function.Supplier;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.expedia.echox3.basics.collection.histogram.IHistogram;
 import com.expedia.echox3.basics.collection.simple.IAccumulator;
-import com.expedia.echox3.basics.collection.simple.ObjectPool;
 import com.expedia.echox3.basics.collection.simple.SimpleAccumulator;
 import com.expedia.echox3.basics.collection.simple.StringGroup;
 import com.expedia.echox3.basics.monitoring.event.BasicLogger;
 
+/**
+ * The live counter never takes a shared lock:
+ * the counts are LongAdder (striped cells) and the durations are recorded in a shard (accumulator + histogram)
+ * selected by the id of the calling thread, under the (almost always uncontended) lock of the shard.
+ * The shards are merged into the JMX and Log clones by doBeanUpdate()/doLogUpdate().
+ */
 public class OperationCounter extends BaseCounter implements IOperationCounter, OperationCounterMBean
 {
-	private final ObjectPool<OperationContext> m_contextPool;
+	private static final int	SHARD_COUNT				=
+			Math.min(32, Integer.highestOneBit(2 * Runtime.getRuntime().availableProcessors() - 1) << 1);
 
+	// Live instance only...
+	private final LongAdder		m_adderBegin;
+	private final LongAdder		m_adderSuccess;
+	private final LongAdder		m_adderFailure;
+	private final Shard[]		m_shardList;
+
+	// Apply only to the clones...
 	private long				m_countBegin			= 0;
 	private long				m_countSuccess			= 0;
 	private long				m_countFailure			= 0;
@@ -47,9 +60,14 @@ public class OperationCounter extends BaseCounter implements IOperationCounter,
 		m_logClone = new OperationCounter(nameList, CounterVisibility.Log);
 		m_logClone.m_histogramTimeMS = m_histogramTimeMS.getBlankClone();		// Have something to start with.
 
-		StringGroup						contextName		= new StringGroup(nameList.getStringArray());
-		contextName.prepend(OperationCounter.class.getSimpleName());
-		m_contextPool = new ObjectPool<>(contextName, OperationContext::new);
+		m_adderBegin = new LongAdder();
+		m_adderSuccess = new LongAdder();
+		m_adderFailure = new LongAdder();
+		m_shardList = new Shard[SHARD_COUNT];
+		for (int i = 0; i < m_shardList.length; i++)
+		{
+			m_shardList[i] = new Shard(m_accumulatorTimeMS.getBlankClone(), m_histogramTimeMS.getBlankClone());
+		}
 
 		addCounter(getName().toString(), this);
 	}
@@ -57,12 +75,15 @@ public class OperationCounter extends BaseCounter implements IOperationCounter,
 	{
 		super(name, visibility);
 
-		m_contextPool = null;
+		m_adderBegin = null;
+		m_adderSuccess = null;
+		m_adderFailure = null;
+		m_shardList = null;
 	}
 
-	public ObjectPool<OperationContext> getContextPool()
+	public static int getShardCount()
 	{
-		return m_contextPool;
+		return SHARD_COUNT;
 	}
 
 	@Override
@@ -74,10 +95,6 @@ public class OperationCounter extends BaseCounter implements IOperationCounter,
 		{
 			m_beanClone.close();
 		}
-		if (null != m_contextPool)
-		{
-			m_contextPool.release();
-		}
 	}
 
 	@Override
@@ -113,45 +130,66 @@ public class OperationCounter extends BaseCounter implements IOperationCounter,
 			m_countBegin	= 0;
 			m_countSuccess	= 0;
 			m_countFailure	= 0;
+
+			if (null != m_shardList)
+			{
+				m_adderBegin.reset();
+				m_adderSuccess.reset();
+				m_adderFailure.reset();
+				for (Shard shard : m_shardList)
+				{
+					shard.reset();
+				}
+			}
 		}
 	}
 
+	@Override
 	public IOperationContext begin()
+	{
+		long		timeBeginNS		= beginNS();
+		return 0 == timeBeginNS ? IOperationContext.NULL_CONTEXT : new OperationContext(this, timeBeginNS);
+	}
+
+	@Override
+	public long beginNS()
 	{
 		if (!isEnabled())
 		{
-			return IOperationContext.NULL_CONTEXT;
+			return 0;
 		}
 
-		synchronized (this)
+		m_adderBegin.increment();
+		return System.nanoTime();
+	}
+
+	@Override
+	public double end(long timeBeginNS, boolean isSuccess)
+	{
+		if (0 == timeBeginNS)
 		{
-			m_countBegin++;
+			return 0;
 		}
 
-		OperationContext		context		= getContextPool().get();
-		context.setOperation(this);
-		return context;
+		double		durationMS		= (System.nanoTime() - timeBeginNS) / (1000.0 * 1000);
+		end(isSuccess, durationMS);
+		return durationMS;
 	}
 
 	void end(boolean isSuccess, double durationMS)
 	{
-		synchronized (this)
+		if (isSuccess)
 		{
-			if (isSuccess)
-			{
-				m_countSuccess++;
-			}
-			else
-			{
-				m_countFailure++;
-			}
-
-			m_accumulatorTimeMS.record(durationMS);
-			if (null != m_histogramTimeMS)
-			{
-				m_histogramTimeMS.record(durationMS);
-			}
+			m_adderSuccess.increment();
+		}
+		else
+		{
+			m_adderFailure.increment();
 		}
+
+		// Thread ids are sequential: the threads of a pool land on distinct shards.
+		Shard		shard		= m_shardList[(int) Thread.currentThread().getId() & (m_shardList.length - 1)];
+		shard.record(durationMS);
 	}
 
 	public void doBeanUpdate(long durationMS)
@@ -160,28 +198,39 @@ public class OperationCounter extends BaseCounter implements IOperationCounter,
 
 		synchronized (this)
 		{
-			m_beanClone.m_rateBegin = (m_countBegin - m_beanClone.m_countBegin) * 1000.0 / durationMS;
-			m_beanClone.m_rateSuccess = (m_countSuccess - m_beanClone.m_countSuccess) * 1000.0 / durationMS;
-			m_beanClone.m_rateFailure = (m_countFailure - m_beanClone.m_countFailure) * 1000.0 / durationMS;
-
-			m_beanClone.m_countBegin = m_countBegin;
-			m_beanClone.m_countSuccess = m_countSuccess;
-			m_beanClone.m_countFailure = m_countFailure;
-			m_accumulatorTimeMS.cloneAndReset(m_beanClone.m_accumulatorTimeMS);
+			long		countBegin		= m_adderBegin.sum();
+			long		countSuccess	= m_adderSuccess.sum();
+			long		countFailure	= m_adderFailure.sum();
+			m_beanClone.m_rateBegin = (countBegin - m_beanClone.m_countBegin) * 1000.0 / durationMS;
+			m_beanClone.m_rateSuccess = (countSuccess - m_beanClone.m_countSuccess) * 1000.0 / durationMS;
+			m_beanClone.m_rateFailure = (countFailure - m_beanClone.m_countFailure) * 1000.0 / durationMS;
+
+			m_beanClone.m_countBegin = countBegin;
+			m_beanClone.m_countSuccess = countSuccess;
+			m_beanClone.m_countFailure = countFailure;
+
+			m_beanClone.m_accumulatorTimeMS.reset();
+			m_beanClone.m_histogramTimeMS.reset();
+			for (Shard shard : m_shardList)
+			{
+				shard.moveTo(m_beanClone.m_accumulatorTimeMS, m_beanClone.m_histogramTimeMS);
+			}
 			m_logClone.m_accumulatorTimeMS.record(m_beanClone.m_accumulatorTimeMS);
-
-			m_histogramTimeMS.cloneAndReset(m_beanClone.m_histogramTimeMS);
 			m_logClone.m_histogramTimeMS.record(m_beanClone.m_histogramTimeMS);
 		}
 	}
 
 	public void doLogUpdate(BasicLogger logger, long durationMS)
 	{
-		// Synchronization done inside IHistogram.cloneAndReset!
-		m_accumulatorTimeMS.cloneAndReset(m_beanClone.m_accumulatorTimeMS);
-		m_logClone.m_accumulatorTimeMS.record(m_beanClone.m_accumulatorTimeMS);
-
-		IHistogram		histogram		= m_logClone.m_histogramTimeMS.cloneAndReset();
+		IHistogram		histogram;
+		synchronized (this)
+		{
+			for (Shard shard : m_shardList)
+			{
+				shard.moveTo(m_logClone.m_accumulatorTimeMS, m_logClone.m_histogramTimeMS);
+			}
+			histogram = m_logClone.m_histogramTimeMS.cloneAndReset();
+		}
 		logHistogram(logger, durationMS, histogram);
 	}
 
@@ -191,22 +240,22 @@ public class OperationCounter extends BaseCounter implements IOperationCounter,
 	//	**************************************************
 	public long getCountBegin()
 	{
-		return m_countBegin;
+		return null == m_adderBegin ? m_countBegin : m_adderBegin.sum();
 	}
 
 	public long getCountSuccess()
 	{
-		return m_countSuccess;
+		return null == m_adderSuccess ? m_countSuccess : m_adderSuccess.sum();
 	}
 
 	public long getCountFailure()
 	{
-		return m_countFailure;
+		return null == m_adderFailure ? m_countFailure : m_adderFailure.sum();
 	}
 
 	public long getCountOutstanding()
 	{
-		return m_countBegin - (m_countSuccess + m_countFailure);
+		return getCountBegin() - (getCountSuccess() + getCountFailure());
 	}
 
 	public double getRateBeginQPS()
@@ -250,4 +299,42 @@ public class OperationCounter extends BaseCounter implements IOperationCounter,
 	{
 		return String.format("%s(%s)", getClass().getSimpleName(), getName());
 	}
+
+
+
+
+
+	private static class Shard
+	{
+		private final IAccumulator		m_accumulatorTimeMS;
+		private final IHistogram		m_histogramTimeMS;
+
+		private Shard(IAccumulator accumulatorTimeMS, IHistogram histogramTimeMS)
+		{
+			m_accumulatorTimeMS = accumulatorTimeMS;
+			m_histogramTimeMS = histogramTimeMS;
+		}
+
+		private synchronized void record(double durationMS)
+		{
+			m_accumulatorTimeMS.record(durationMS);
+			m_histogramTimeMS.record(durationMS);
+		}
+
+		private synchronized void moveTo(IAccumulator accumulatorTimeMS, IHistogram histogramTimeMS)
+		{
+			if (0 != m_accumulatorTimeMS.getCount())
+			{
+				accumulatorTimeMS.record(m_accumulatorTimeMS);
+				histogramTimeMS.record(m_histogramTimeMS);
+				reset();
+			}
+		}
+
+		private synchronized void reset()
+		{
+			m_accumulatorTimeMS.reset();
+			m_histogramTimeMS.reset();
+		}
+	}
 }
@@ -58,6 +58,9 @@ public class BasicEvent implements Serializable
 	public static final BasicEvent	EVENT_SERIAL_UNKNOWN_SERIALIZATION			= new BasicEvent( 1153, "UnknownSerialization");
 	public static final BasicEvent	EVENT_SERIAL_JAVA_DESERIAL_FAILED			= new BasicEvent( 1150, "de-SerializationFailed");
 	public static final BasicEvent	EVENT_SERIAL_DECOMPRESS_FAILED				= new BasicEvent( 1151, "de-CompressionFailed");
+	public static final BasicEvent	EVENT_SERIAL_BINARY_SERIAL_FAILED			= new BasicEvent( 1154, "BinarySerializationFailed");
+	public static final BasicEvent	EVENT_SERIAL_BINARY_DESERIAL_FAILED			= new BasicEvent( 1155, "de-BinarySerializationFailed");
+	public static final BasicEvent	EVENT_SERIAL_TYPE_CHANGE					= new BasicEvent( 1156, "SerialTypeChange");
 	public static final BasicEvent	EVENT_CLASS_LOADER_CLASS_NOT_FOUND			= new BasicEvent( 1160, "ClassNotFound");
 	public static final BasicEvent	EVENT_CLASS_LOADER_DEFINE_CLASS_FAILED		= new BasicEvent( 1161, "DefineClassFailed");
 	public static final BasicEvent	EVENT_CLASS_LOADER_INCOMPATIBLE_DEFINITION	= new BasicEvent( 1162, "IncompatibleClassDef");
@@ -141,6 +144,7 @@ public class BasicEvent implements Serializable
 	public static final BasicEvent	EVENT_UNKNOWN_CACHE							= new BasicEvent( 2003, "Cache not found");
 	public static final BasicEvent	EVENT_NO_FACTORY_CONSTRUCTOR				= new BasicEvent( 2004, "No factory constructor");
 	public static final BasicEvent	EVENT_FACTORY_CHANGE						= new BasicEvent( 2005, "Factory changed");
+	public static final BasicEvent	EVENT_NO_REDUCER_CONSTRUCTOR				= new BasicEvent( 2009, "No reducer constructor");
 	public static final BasicEvent	EVENT_CACHE_COUNTERS_STATUS					= new BasicEvent( 2006, "CounterStatus");
 	public static final BasicEvent	EVENT_PROTECTION_OOM_PERCENT_LEVEL			= new BasicEvent( 2007, "OomPercentLevel");
 	public static final BasicEvent	EVENT_PROTECTION_OOM						= new BasicEvent( 2008, "OomLevelExceeded");
@@ -158,12 +162,22 @@ public class BasicEvent implements Serializable
 	public static final BasicEvent	EVENT_CACHE_OBJECT_EXCEPTION_READ			= new BasicEvent( 2032, "ObjectException Read");
 	public static final BasicEvent	EVENT_CACHE_OBJECT_EXCEPTION_MAINTENANCE	= new BasicEvent( 2033, "ObjectException Maintenance");
 	public static final BasicEvent	EVENT_CACHE_OBJECT_EXCEPTION_UPGRADE		= new BasicEvent( 2034, "ObjectException Upgrade");
+	public static final BasicEvent	EVENT_CACHE_OBJECT_EXCEPTION_REDUCE			= new BasicEvent( 2035, "ObjectException Reduce");
 
 	public static final BasicEvent	EVENT_BUCKET_COUNT_CHANGE					= new BasicEvent( 2040, "Bucket count changed");
 	public static final BasicEvent	EVENT_BIN_COUNT_CHANGE						= new BasicEvent( 2045, "Bin count changed");
 
 	public static final BasicEvent	EVENT_VERSION_LOAD_FAILED					= new BasicEvent( 2050, "VersionLoadFailed");
 
+	public static final BasicEvent	EVENT_CACHE_SNAPSHOT_WRITE					= new BasicEvent( 2060, "Snapshot written");
+	public static final BasicEvent	EVENT_CACHE_SNAPSHOT_LOAD					= new BasicEvent( 2061, "Snapshot loaded");
+	public static final BasicEvent	EVENT_CACHE_SNAPSHOT_WRITE_FAILED			= new BasicEvent( 2062, "Snapshot write failed");
+	public static final BasicEvent	EVENT_CACHE_SNAPSHOT_LOAD_FAILED			= new BasicEvent( 2063, "Snapshot load failed");
+	public static final BasicEvent	EVENT_CACHE_SNAPSHOT_INVALID				= new BasicEvent( 2064, "Snapshot invalid");
+	public static final BasicEvent	EVENT_CACHE_WRITE_LOG_REPLAY				= new BasicEvent( 2065, "Write log replayed");
+	public static final BasicEvent	EVENT_CACHE_WRITE_LOG_FAILED				= new BasicEvent( 2066, "Write log failed");
+	public static final BasicEvent	EVENT_CACHE_WRITE_LOG_INVALID				= new BasicEvent( 2067, "Write log invalid");
+
 	// 2990-2999 Reserved for TrellisClientWrapper
 	public static final BasicEvent	EVENT_WRAPPER_TYPE_CHANGED					= new BasicEvent( 2990, "WrapperTypeChange");
 	public static final BasicEvent	EVENT_WRAPPER_TYPE_UNKNOWN					= new BasicEvent( 2991, "WrapperTypeUnknown");
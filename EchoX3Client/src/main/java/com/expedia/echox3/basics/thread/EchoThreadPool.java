@@ -8,16 +8,16 @@ package com.expedia.echox3.basics.thread;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.expedia.echox3.basics.collection.QueueFactory;
 import com.expedia.echox3.basics.collection.histogram.LogarithmicHistogram;
-import com.expedia.echox3.basics.collection.ring.RingBufferQueue;
 import com.expedia.echox3.basics.collection.simple.ObjectPool;
 import com.expedia.echox3.basics.collection.simple.ObjectPool.AbstractPooledObject;
 import com.expedia.echox3.basics.collection.simple.StringGroup;
 import com.expedia.echox3.basics.monitoring.counter.CounterFactory;
-import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
 import com.expedia.echox3.basics.monitoring.counter.IOperationCounter;
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicLogger;
@@ -27,6 +27,7 @@ import com.expedia.echox3.basics.tools.misc.BasicTools;
 public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEventListener
 {
 	private static final BasicLogger			LOGGER					= new BasicLogger(EchoThreadPool.class);
+	private static final QueueFactory<Runnable>	QUEUE_FACTORY			= new QueueFactory<>();
 
 	private final String					m_name;
 
@@ -42,8 +43,11 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 
 	// Initialize to some ARBITRARY small size to facilitate startup and avoid null check everywhere,
 	// especially in the getRunnable() method.
+	// The queue is lock-free: execute() and the threads take the lock of the pool only to wake-up/put to sleep.
 	private int								m_queueSizeMax			= 10;
-	private RingBufferQueue<Runnable>		m_runnableList			= new RingBufferQueue<>(10);
+	private volatile Queue<Runnable>		m_runnableList			= QUEUE_FACTORY.getConcurrentRingBufferQueue(10);
+	// After a resize, an execute() that got the previous queue may still put its Runnable there.
+	private volatile Queue<Runnable>		m_runnableListPrevious	= null;
 
 	/**
 	 * Initializes the Thread pool.
@@ -217,16 +221,18 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 			int							sizeCurrent		= getQueueSize();
 			size = Math.max(size, sizeCurrent);			// Cannot shrink to lower than current size without loss
 
-			RingBufferQueue<Runnable>	runnableList	= new RingBufferQueue<>(size);
+			Queue<Runnable>				runnableList	= QUEUE_FACTORY.getConcurrentRingBufferQueue(size);
+			Queue<Runnable>				runnableListPrevious	= m_runnableList;
+			m_runnableListPrevious = runnableListPrevious;
+			m_runnableList = runnableList;
 			Runnable					runnable;
-			while (null != (runnable = m_runnableList.poll()))
+			while (null != (runnable = runnableListPrevious.poll()))
 			{
 				runnableList.offer(runnable);
 			}
 
 			m_wrapperObjectPool.setMaxSize(size);
 			m_queueSizeMax = size;
-			m_runnableList = runnableList;
 		}
 
 		getLogger().info(BasicEvent.EVENT_THREAD_POOL_CONFIGURATION_CHANGE,
@@ -248,12 +254,15 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 		RunnableWrapper			wrapper			= m_wrapperObjectPool.get();
 		wrapper.setOperationCounter(m_executionOperationCounter);
 		wrapper.setRunnable(runnable);
-		IOperationContext		context			= m_queueOperationCounter.begin();
 
 		try
 		{
-			wrapper.setQueueContext(context);
-			m_runnableList.offer(wrapper);
+			wrapper.setQueueBegin(m_queueOperationCounter, m_queueOperationCounter.beginNS());
+			if (!m_runnableList.offer(wrapper))
+			{
+				throw new RejectedExecutionException(String.format("%s(%s) queue is full (%,d).",
+						getClass().getSimpleName(), getName(), m_queueSizeMax));
+			}
 		}
 		catch (RuntimeException exception)
 		{
@@ -264,6 +273,12 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 		// If any are sleeping, wake-up the next one
 		// Operations under the lock of the Running/Sleeping lists.
 		// Find the next one to wake-up...
+		// A thread going to sleep looks at the queue again after it is counted as sleeping (see waitForRunnable()),
+		// hence it is safe to skip the lock when none is sleeping, which is the case under load.
+		if (0 == m_sleepingCount.get())
+		{
+			return;
+		}
 		EchoPooledThread thread			= null;
 		synchronized (this)
 		{
@@ -322,10 +337,40 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 		// Put it in the sleeping list
 		m_sleepingThreadList[m_sleepingCount.getAndIncrement()] = thread;
 	}
+	// DANGER DANGER DANGER: The caller is responsible to ensure the call is done under synchronized(this).
+	private void makeActive(EchoPooledThread thread)
+	{
+		int			actualIndex		= 0;
+		boolean		isFound			= false;
+		for (int i = 0; i < m_sleepingCount.get(); i++)
+		{
+			if (m_sleepingThreadList[i] != thread)		// NOPMD Looking for exactly this object
+			{
+				m_sleepingThreadList[actualIndex++] = m_sleepingThreadList[i];
+			}
+			else
+			{
+				isFound = true;
+			}
+		}
+
+		if (isFound)
+		{
+			m_sleepingThreadList[actualIndex] = null;
+			m_sleepingCount.decrementAndGet();
+			m_activeThreadList[m_activeCount.getAndIncrement()] = thread;
+		}
+	}
 
 	private Runnable getRunnable()
 	{
-		return m_runnableList.poll();
+		Runnable				runnable				= m_runnableList.poll();
+		Queue<Runnable>			runnableListPrevious	= m_runnableListPrevious;
+		if (null == runnable && null != runnableListPrevious)
+		{
+			runnable = runnableListPrevious.poll();
+		}
+		return runnable;
 	}
 
 	@Override
@@ -343,7 +388,8 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 	@Override
 	public int getQueueSize()
 	{
-		return m_runnableList.size();
+		Queue<Runnable>			runnableListPrevious	= m_runnableListPrevious;
+		return m_runnableList.size() + (null == runnableListPrevious ? 0 : runnableListPrevious.size());
 	}
 
 	public int getActiveCount()
@@ -389,9 +435,11 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 
 	public static class RunnableWrapper extends AbstractPooledObject implements Runnable
 	{
+		// No context object per Runnable: the begin times are kept in the (pooled) wrapper.
 		private Runnable				m_wrappedRunnable;
-		private IOperationContext		m_queueContext		= null;
-		private IOperationCounter m_operationCounter;
+		private IOperationCounter		m_queueCounter		= null;
+		private long					m_queueBeginNS		= 0;
+		private IOperationCounter		m_operationCounter;
 
 		public RunnableWrapper()
 		{
@@ -405,11 +453,7 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 		}
 		public void release(boolean isSuccess)
 		{
-			if (null != m_queueContext)
-			{
-				m_queueContext.end(isSuccess);
-				m_queueContext = null;
-			}
+			endQueue(isSuccess);
 			m_wrappedRunnable = null;
 			super.release();
 		}
@@ -419,9 +463,18 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 			m_operationCounter = operationCounter;
 		}
 
-		private void setQueueContext(IOperationContext queueContext)
+		private void setQueueBegin(IOperationCounter queueCounter, long queueBeginNS)
+		{
+			m_queueCounter = queueCounter;
+			m_queueBeginNS = queueBeginNS;
+		}
+		private void endQueue(boolean isSuccess)
 		{
-			m_queueContext = queueContext;
+			if (null != m_queueCounter)
+			{
+				m_queueCounter.end(m_queueBeginNS, isSuccess);
+				m_queueCounter = null;
+			}
 		}
 
 		private void setRunnable(Runnable wrappedRunnable)
@@ -432,13 +485,9 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 		@Override
 		public void run()
 		{
-			if (null != m_queueContext)
-			{
-				m_queueContext.end(true);
-				m_queueContext = null;
-			}
+			endQueue(true);
 
-			IOperationContext	executeContext	= m_operationCounter.begin();
+			long				executeBeginNS	= m_operationCounter.beginNS();
 			boolean				isSuccess		= false;
 			try
 			{
@@ -447,7 +496,7 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 			}
 			finally
 			{
-				executeContext.end(isSuccess);
+				m_operationCounter.end(executeBeginNS, isSuccess);
 				release(true);
 			}
 		}
@@ -461,7 +510,7 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 	{
 		private final EchoThreadPool		m_threadPool;
 
-		private ThreadStatus				m_threadStatus		= ThreadStatus.Starting;
+		private volatile ThreadStatus		m_threadStatus		= ThreadStatus.Starting;
 
 		 private EchoPooledThread(EchoThreadPool threadPool, String name)
 		{
@@ -489,54 +538,78 @@ public class EchoThreadPool implements IEchoThreadPool//, PublisherManager.IEven
 			}
 		}
 
-		@Override
-		public void run()
+		// Returns null when the thread is requested to exit.
+		private Runnable waitForRunnable()
 		{
-			setThreadStatus(ThreadStatus.Running);
-
-			while (true)
+			Runnable runnable;
+			synchronized (this)
 			{
-				Runnable runnable;
-				synchronized (this)
+				while (true)
 				{
-					while (true)
+					synchronized (m_threadPool)
 					{
-						synchronized (m_threadPool)
+						if (ThreadStatus.ExitRequested.equals(m_threadStatus))
 						{
-							if (ThreadStatus.ExitRequested.equals(m_threadStatus))
-							{
-								m_threadStatus = ThreadStatus.Terminated;
-								return;
-							}
+							m_threadStatus = ThreadStatus.Terminated;
+							return null;
+						}
+
+						// Get the Runnable inside the list lock, for proper synchronization with execute() above.
+						// Otherwise, a Runnable could be inserted between the get and the makeSleeping.
+						runnable = m_threadPool.getRunnable();
+						if (null == runnable && !ThreadStatus.Waiting.equals(m_threadStatus))
+						{
+							setThreadStatus(ThreadStatus.Waiting);
+							makeSleeping(this);
 
-							// Get the Runnable inside the list lock, for proper synchronization with execute() above.
-							// Otherwise, a Runnable could be inserted between the get and the makeSleeping.
+							// execute() does not look for a sleeping thread if none was sleeping after its offer,
+							// look again at the queue now that this thread is counted as sleeping.
 							runnable = m_threadPool.getRunnable();
-							if (null == runnable && !ThreadStatus.Waiting.equals(m_threadStatus))
+							if (null != runnable)
 							{
-								setThreadStatus(ThreadStatus.Waiting);
-								makeSleeping(this);
+								setThreadStatus(ThreadStatus.Running);
+								makeActive(this);
 							}
 						}
+					}
 
-						if (null != runnable)
-						{
-							// This is the "normal" case where there is something in the queue
-							break;
-						}
+					if (null != runnable)
+					{
+						// This is the "normal" case where there is something in the queue
+						return runnable;
+					}
 
-						try
-						{
-							// This is the "normal" case where the queue is empty
-							wait();
-						}
-						catch (InterruptedException e)
-						{
-							// Keep waiting
-						}
+					try
+					{
+						// This is the "normal" case where the queue is empty
+						wait();
+					}
+					catch (InterruptedException e)
+					{
+						// Keep waiting
 					}
 				}
+			}
+		}
 
+		@Override
+		public void run()
+		{
+			setThreadStatus(ThreadStatus.Running);
+
+			while (true)
+			{
+				// Without any lock while there is work in the queue...
+				Runnable runnable		= ThreadStatus.Running.equals(m_threadStatus)
+												? m_threadPool.getRunnable() : null;
+				if (null == runnable)
+				{
+					runnable = waitForRunnable();
+					if (null == runnable)
+					{
+						return;
+					}
+				}
 
 				try
 				{
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.thread;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+
+/**
+ * Glue between the BasicException (checked) world and CompletableFuture.
+ *
+ * A future returned by the async API completes exceptionally with the original BasicException;
+ * CompletableFuture.get() reports it as the cause of the ExecutionException.
+ */
+public final class FutureTools
+{
+	private FutureTools()
+	{
+		// Private constructor that is NEVER called: An instance of this class cannot be created.
+		// Every method of this class is static.
+	}
+
+	public static <T> CompletableFuture<T> failed(Throwable throwable)
+	{
+		CompletableFuture<T>	future		= new CompletableFuture<>();
+		future.completeExceptionally(throwable);
+		return future;
+	}
+
+	/**
+	 * Runs the supplier in the calling thread and returns an already completed future.
+	 * Used where the work is local (e.g. ObjectCacheProviderLocal), so no thread is ever parked.
+	 */
+	public static <T> CompletableFuture<T> supply(IBasicSupplier<T> supplier)
+	{
+		try
+		{
+			return CompletableFuture.completedFuture(supplier.get());
+		}
+		catch (BasicException | RuntimeException exception)
+		{
+			return failed(exception);
+		}
+	}
+
+	/**
+	 * Runs the supplier (which typically starts an async operation) in the calling thread;
+	 * a synchronous failure (e.g. serialization) is returned as a failed future instead of being thrown.
+	 */
+	public static <T> CompletableFuture<T> compose(IBasicSupplier<CompletableFuture<T>> supplier)
+	{
+		try
+		{
+			return supplier.get();
+		}
+		catch (BasicException | RuntimeException exception)
+		{
+			return failed(exception);
+		}
+	}
+
+	/**
+	 * Waits for the future; the synchronous API built on top of the async one.
+	 * A failure is re-thrown as the original BasicException.
+	 */
+	public static <T> T get(CompletableFuture<T> future) throws BasicException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+			throw new BasicException(BasicEvent.EVENT_TODO, exception, "Interrupted while waiting for a response");
+		}
+		catch (ExecutionException exception)
+		{
+			Throwable		cause		= exception.getCause();
+			if (cause instanceof BasicException)
+			{
+				throw (BasicException) cause;
+			}
+			throw new BasicException(BasicEvent.EVENT_TODO, cause, "Unexpected failure of an asynchronous call");
+		}
+	}
+
+	/**
+	 * @return	A Function usable in thenApply(), which propagates a BasicException as the failure of the stage.
+	 */
+	public static <T, R> Function<T, R> wrap(IBasicFunction<T, R> function)
+	{
+		return (value) ->
+		{
+			try
+			{
+				return function.apply(value);
+			}
+			catch (BasicException exception)
+			{
+				throw new CompletionException(exception);
+			}
+		};
+	}
+
+	@FunctionalInterface
+	public interface IBasicSupplier<T>
+	{
+		T get() throws BasicException;
+	}
+
+	@FunctionalInterface
+	public interface IBasicFunction<T, R>
+	{
+		R apply(T value) throws BasicException;
+	}
+}
@@ -21,7 +21,8 @@ public abstract class HashUtil
 		Fnv64,
 		JKOne32,
 		Jenkins32,
-		Jenkins64
+		Jenkins64,
+		Xx64
 	}
 
 	public static final Algorithm[]		VALUES					= Algorithm.values();
@@ -30,6 +31,9 @@ public abstract class HashUtil
 	private static final int 			BITMASK_POSITIVE_32		= ~0x80000000;
 	private static final long			BITMASK_POSITIVE_64		= ~0x8000000000000000L;
 
+	// Consumes the hashes computed by measure(), so that the JIT cannot skip computing them.
+	private static volatile long		s_sink;
+
 	public static IHashProvider getHashProvider()
 	{
 		return FnvHash.get();
@@ -129,6 +133,11 @@ public abstract class HashUtil
 		return JenkinsHash.hash64(byteList) & BITMASK_POSITIVE_64;
 	}
 
+	public static long hashXx64(byte[] byteList)
+	{
+		return XxHash.hash64(byteList) & BITMASK_POSITIVE_64;
+	}
+
 	/**
 	 * Composes the 3 Jenkins hash variables into an array of int
 	 *
@@ -169,6 +178,9 @@ public abstract class HashUtil
 			return hashJenkins32(bytes);
 		case Jenkins64:
 			return hashJenkins64(bytes);
+
+		case Xx64:
+			return hashXx64(bytes);
 		}
 	}
 
@@ -286,85 +298,114 @@ public abstract class HashUtil
 			return measureJenkins32(keyList);
 		case Jenkins64:
 			return measureJenkins64(keyList);
+
+		case Xx64:
+			return measureXx64(keyList);
 		}
 	}
 
 	private static long measureJava32(byte[][] keyList)
 	{
+		long		sum		= 0;
 		long		t1		= System.nanoTime();
 		for (byte[] key : keyList)
 		{
-			hashJava32(key);
+			sum += hashJava32(key);
 		}
 		long		t2		= System.nanoTime();
+		s_sink = sum;
 
 		return (t2 - t1);
 	}
 	private static long measureJava64(byte[][] keyList)
 	{
+		long		sum		= 0;
 		long		t1		= System.nanoTime();
 		for (byte[] key : keyList)
 		{
-			hashJava64(key);
+			sum += hashJava64(key);
 		}
 		long		t2		= System.nanoTime();
+		s_sink = sum;
 
 		return (t2 - t1);
 	}
 	private static long measureFnv32(byte[][] keyList)
 	{
+		long		sum		= 0;
 		long		t1		= System.nanoTime();
 		for (byte[] key : keyList)
 		{
-			hashFnv32(key);
+			sum += hashFnv32(key);
 		}
 		long		t2		= System.nanoTime();
+		s_sink = sum;
 
 		return (t2 - t1);
 	}
 	private static long measureFnv64(byte[][] keyList)
 	{
+		long		sum		= 0;
 		long		t1		= System.nanoTime();
 		for (byte[] key : keyList)
 		{
-			hashFnv64(key);
+			sum += hashFnv64(key);
 		}
 		long		t2		= System.nanoTime();
+		s_sink = sum;
 
 		return (t2 - t1);
 	}
 	private static long measureJenkinsOne32(byte[][] keyList)
 	{
+		long		sum		= 0;
 		long		t1		= System.nanoTime();
 		for (byte[] key : keyList)
 		{
-			hashJenkinsOne32(key);
+			sum += hashJenkinsOne32(key);
 		}
 		long		t2		= System.nanoTime();
+		s_sink = sum;
 
 		return (t2 - t1);
 	}
 	private static long measureJenkins32(byte[][] keyList)
 	{
+		long		sum		= 0;
 		long		t1		= System.nanoTime();
 		for (byte[] key : keyList)
 		{
-			hashJenkins32(key);
+			sum += hashJenkins32(key);
 		}
 		long		t2		= System.nanoTime();
+		s_sink = sum;
 
 		return (t2 - t1);
 	}
 	private static long measureJenkins64(byte[][] keyList)
 	{
+		long		sum		= 0;
 		long		t1		= System.nanoTime();
 		for (byte[] key : keyList)
 		{
-			hashJenkins64(key);
+			sum += hashJenkins64(key);
 		}
 		long		t2		= System.nanoTime();
+		s_sink = sum;
 
 		return (t2 - t1);
 	}
-}
+	private static long measureXx64(byte[][] keyList)
+	{
+		long		sum		= 0;
+		long		t1		= System.nanoTime();
+		for (byte[] key : keyList)
+		{
+			sum += hashXx64(key);
+		}
+		long		t2		= System.nanoTime();
+		s_sink = sum;
 
+		return (t2 - t1);
+	}
+}
@@ -62,11 +62,13 @@ public class AtomicReadWriteLock extends AbstractReadWriteLock
 	public IOperationContext lockRead()
 	{
 		IOperationContext		context		= getCounterFamily().beginReadWait();
-//		long					loopCount	=
-											  acquireReadLock();
+		long					loopCount	= acquireReadLock();
 		getCounterFamily().end(context, true);
 		wakeupAsNeeded();
-//		getCounterFamily().recordRead(loopCount);
+		if (0 != loopCount)
+		{
+			getCounterFamily().recordReadContended();
+		}
 
 		return getCounterFamily().beginReadHold();
 	}
@@ -83,11 +85,13 @@ public class AtomicReadWriteLock extends AbstractReadWriteLock
 	public IOperationContext lockWrite()
 	{
 		IOperationContext		context		= getCounterFamily().beginWriteWait();
-//		long					loopCount	=
-											  acquireWriteLock();
+		long					loopCount	= acquireWriteLock();
 		getCounterFamily().end(context, true);
 //		wakeupAsNeeded();		// Nobody to wakeup when acquiring the write lock
-//		getCounterFamily().recordWrite(loopCount);
+		if (0 != loopCount)
+		{
+			getCounterFamily().recordWriteContended();
+		}
 
 		return getCounterFamily().beginWriteHold();
 	}
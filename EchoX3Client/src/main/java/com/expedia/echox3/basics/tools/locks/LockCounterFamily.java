@@ -8,6 +8,7 @@ package com.expedia.echox3.basics.tools.locks;
 import com.expedia.echox3.basics.collection.histogram.LogarithmicHistogram;
 import com.expedia.echox3.basics.collection.simple.StringGroup;
 import com.expedia.echox3.basics.monitoring.counter.CounterFactory;
+import com.expedia.echox3.basics.monitoring.counter.IIncrementCounter;
 import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
 import com.expedia.echox3.basics.monitoring.counter.IOperationCounter;
 //import com.expedia.echox3.basics.monitoring.counter.IValueCounter;
@@ -23,6 +24,9 @@ public class LockCounterFamily
 	private final IOperationCounter		m_writeWaitCounter;
 	private final IOperationCounter		m_readHoldCounter;
 	private final IOperationCounter		m_writeHoldCounter;
+	// Number of acquisitions that had to wait, e.g. to measure the false contention of a ReadWriteLockStripeTable.
+	private final IIncrementCounter		m_readContendedCounter;
+	private final IIncrementCounter		m_writeContendedCounter;
 
 	// Temporary commented out while we determine if these counters are really needed.
 //	private final IValueCounter			m_readSpinCounter;
@@ -37,6 +41,8 @@ public class LockCounterFamily
 			m_writeWaitCounter	= new NullOperationCounter(null);
 			m_readHoldCounter	= new NullOperationCounter(null);
 			m_writeHoldCounter	= new NullOperationCounter(null);
+			m_readContendedCounter	= null;
+			m_writeContendedCounter	= null;
 //			m_readSpinCounter	= new NullValueCounter(null);
 //			m_writeSpinCounter	= new NullValueCounter(null);
 		}
@@ -65,6 +71,13 @@ public class LockCounterFamily
 					LogarithmicHistogram.Precision.Normal, CounterFactory.CounterRange.us,
 					"Lock contention: Time spent holding the WRITE lock.");
 
+			counterName.set(getCounterName("ReadContended"));
+			m_readContendedCounter = CounterFactory.getInstance().getIncrementCounter(counterName,
+					"Lock contention: Number of READ lock acquisitions that had to wait.");
+
+			counterName.set(getCounterName("WriteContended"));
+			m_writeContendedCounter = CounterFactory.getInstance().getIncrementCounter(counterName,
+					"Lock contention: Number of WRITE lock acquisitions that had to wait.");
 
 /*			counterName.set(getCounterName("ReadSpinCount"));
 			m_readSpinCounter = CounterFactory.getInstance().getValueCounter(counterName,
@@ -89,6 +102,11 @@ public class LockCounterFamily
 		m_readHoldCounter.setEnabled(isEnabled);
 		m_writeWaitCounter.setEnabled(isEnabled);
 		m_writeHoldCounter.setEnabled(isEnabled);
+		if (null != m_readContendedCounter)
+		{
+			m_readContendedCounter.setEnabled(isEnabled);
+			m_writeContendedCounter.setEnabled(isEnabled);
+		}
 
 //		m_readSpinCounter.setEnabled(isEnabled);
 //		m_writeSpinCounter.setEnabled(isEnabled);
@@ -118,6 +136,22 @@ public class LockCounterFamily
 	{
 		context.end(isSuccess);
 	}
+
+	public void recordReadContended()
+	{
+		if (null != m_readContendedCounter)
+		{
+			m_readContendedCounter.increment();
+		}
+	}
+
+	public void recordWriteContended()
+	{
+		if (null != m_writeContendedCounter)
+		{
+			m_writeContendedCounter.increment();
+		}
+	}
 /*
 	public void recordRead(long count)
 	{
@@ -139,6 +173,11 @@ public class LockCounterFamily
 		m_readHoldCounter.close();
 		m_writeWaitCounter.close();
 		m_writeHoldCounter.close();
+		if (null != m_readContendedCounter)
+		{
+			m_readContendedCounter.close();
+			m_writeContendedCounter.close();
+		}
 
 //		m_readSpinCounter.close();
 //		m_writeSpinCounter.close();
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.tools.locks;
+
+/**
+ * Fixed-size table of ReadWriteLocks shared by many objects, the object is mapped to its lock by its 64 bits hash.
+ * This replaces a lock per object (4 or 5 AtomicInteger each) with a reference to a shared lock,
+ * at the cost of (rare) false contention between the objects sharing a stripe.
+ *
+ * The stripe is selected by the HIGH bits of the hash, after a Fibonacci multiplication
+ * (the high bits of an FNV hash barely change between similar keys, and ObjectKey clears the sign bit).
+ * Sorting objects with compareHash() also sorts them by stripe: code locking multiple objects at once
+ * (e.g. reduce) does so in this order and skips a stripe it already holds, as the locks are NOT reentrant.
+ */
+public class ReadWriteLockStripeTable
+{
+	public static final int						STRIPE_COUNT_MAX		= 1 << 20;
+	private static final long					FIBONACCI_64			= 0x9E3779B97F4A7C15L;
+
+	private final AbstractReadWriteLock[]		m_lockList;
+	private final int							m_bitCount;
+
+	/**
+	 * @param stripeCount		Rounded-up to a power of 2, at most STRIPE_COUNT_MAX
+	 * @param counterFamily		Shared by all the stripes (see AbstractReadWriteLock.createReadWriteLock())
+	 */
+	public ReadWriteLockStripeTable(int stripeCount, LockCounterFamily counterFamily)
+	{
+		stripeCount = Math.min(STRIPE_COUNT_MAX, Math.max(1, stripeCount));
+		m_bitCount = 32 - Integer.numberOfLeadingZeros(stripeCount - 1);
+		m_lockList = new AbstractReadWriteLock[1 << m_bitCount];
+		for (int i = 0; i < m_lockList.length; i++)
+		{
+			m_lockList[i] = AbstractReadWriteLock.createReadWriteLock(counterFamily);
+		}
+	}
+
+	public int getStripeCount()
+	{
+		return m_lockList.length;
+	}
+
+	// A bijection: only equal hashes are equal after the mix.
+	private static long mix(long hash64)
+	{
+		return hash64 * FIBONACCI_64;
+	}
+
+	public static int compareHash(long hash64a, long hash64b)
+	{
+		return Long.compareUnsigned(mix(hash64a), mix(hash64b));
+	}
+
+	public int getStripeIndex(long hash64)
+	{
+		// NOTE: >>> 64 is >>> 0 in Java, hence the special case of a single stripe.
+		return 0 == m_bitCount ? 0 : (int) (mix(hash64) >>> (64 - m_bitCount));
+	}
+
+	public AbstractReadWriteLock getLock(long hash64)
+	{
+		return m_lockList[getStripeIndex(hash64)];
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%,d stripes)", getClass().getSimpleName(), getStripeCount());
+	}
+}
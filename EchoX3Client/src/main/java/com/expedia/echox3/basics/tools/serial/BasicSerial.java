@@ -20,12 +20,15 @@ import com.expedia.echox3.basics.collection.simple.CopyOnWriteSimpleMap;
 import com.expedia.echox3.basics.collection.simple.ObjectPool;
 import com.expedia.echox3.basics.collection.simple.StringGroup;
 import com.expedia.echox3.basics.configuration.ConfigurationManager;
+import com.expedia.echox3.basics.configuration.IntSetting;
 import com.expedia.echox3.basics.file.BaseFileHandler;
 import com.expedia.echox3.basics.monitoring.counter.CounterFactory;
 import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
 import com.expedia.echox3.basics.monitoring.counter.IOperationCounter;
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.monitoring.event.BasicLogger;
+import com.expedia.echox3.basics.monitoring.event.BasicRuntimeException;
 
 import com.expedia.echox3.basics.collection.histogram.LogarithmicHistogram;
 import com.expedia.echox3.basics.tools.pubsub.PublisherManager;
@@ -35,12 +38,14 @@ public class BasicSerial
 	public static final String			CHARSET_NAME						= "UTF8";
 	public static final Charset			CHARSET								= Charset.forName(CHARSET_NAME);
 
-	private enum SerialType
+	// The ordinal is written in byte[0]: only ever add at the end.
+	public enum SerialType
 	{
 		none,				// e.g. byte[] as input
 		serialDefault,
 		java,
-		javaString
+		javaString,
+		binary				// ISerialCodec, BinarySerialCodec by default
 	}
 	public enum CompressType
 	{
@@ -56,11 +61,19 @@ public class BasicSerial
 	public static final String			SETTING_PREFIX							= BasicSerial.class.getName();
 	public static final String			SETTING_NAME_COMPRESS_MIN_LENGTH		= SETTING_PREFIX + ".compressMinLength";
 	public static final String			SETTING_DEFAULT_COMPRESS_MIN_LENGTH		= "2,000";
+	// SerialType used to write objects: <prefix>.<name>.serialType, defaults to <prefix>.serialType, then java.
+	public static final String			SETTING_NAME_SERIAL_TYPE				= "serialType";
+	public static final SerialType		SERIAL_TYPE_DEFAULT						= SerialType.java;
+
+	private static final BasicLogger					LOGGER									= new BasicLogger(BasicSerial.class);
+	// Codec of the SerialType that are not built-in, indexed by ordinal; see setCodec().
+	private static final ISerialCodec[]					CODEC_LIST								= createCodecList();
 
 	private static final CopyOnWriteSimpleMap<String, BasicSerial>
 															SERIAL_MAP				= new CopyOnWriteSimpleMap<>();
 	private static final BasicSerial					UNNAMED_SERIAL							= new BasicSerial();
-	private static int									s_compressMinLength						= 1234;		// Will be overwritten at startup with the default
+	private static final IntSetting						COMPRESS_MIN_LENGTH						=
+			new IntSetting(SETTING_NAME_COMPRESS_MIN_LENGTH, SETTING_DEFAULT_COMPRESS_MIN_LENGTH);
 
 	private static final ObjectPool<InflaterPooledObject>					INFLATER_POOL;
 	private static final ObjectPool<DeflaterPooledObject>					DEFLATER_POOL;
@@ -70,6 +83,7 @@ public class BasicSerial
 
 	private String					m_name;
 	private BasicClassLoader		m_classLoader;
+	private volatile SerialType		m_serialType			= SERIAL_TYPE_DEFAULT;
 
 	private IOperationCounter		m_counterSerialize;
 	private IOperationCounter		m_counterDeflate;
@@ -154,6 +168,74 @@ public class BasicSerial
 		m_counterToObject = CounterFactory.getInstance().getLogarithmicOperationCounter(nameList,
 				LogarithmicHistogram.Precision.Normal, CounterFactory.CounterRange.us,
 				"Complete transformation of byte[] to Object");
+
+		updateSerialType();
+	}
+
+	private static ISerialCodec[] createCodecList()
+	{
+		ISerialCodec[]		codecList		= new ISerialCodec[SERIAL_TYPE_LIST.length];
+		codecList[SerialType.binary.ordinal()] = new BinarySerialCodec();
+		return codecList;
+	}
+
+	/**
+	 * Plugs (or replaces) the codec of a SerialType that is not built-in (i.e. binary).
+	 * The reader uses the codec matching byte[0], so the same codec must be plugged on the writer and the reader.
+	 *
+	 * @param serialType	The SerialType handled by the codec
+	 * @param codec			The codec
+	 */
+	public static void setCodec(SerialType serialType, ISerialCodec codec)
+	{
+		switch (serialType)
+		{
+		case none:
+		case serialDefault:
+		case java:
+		case javaString:
+			throw new BasicRuntimeException(BasicEvent.EVENT_SERIAL_UNKNOWN_SERIALIZATION,
+					"SerialType %s is built-in, its codec cannot be replaced.", serialType.name());
+		default:
+			CODEC_LIST[serialType.ordinal()] = codec;
+			break;
+		}
+	}
+
+	public SerialType getSerialType()
+	{
+		return m_serialType;
+	}
+
+	private void updateSerialType()
+	{
+		ConfigurationManager	manager				= ConfigurationManager.getInstance();
+		String					defaultText			= manager.getSetting(
+				SETTING_PREFIX + "." + SETTING_NAME_SERIAL_TYPE, SERIAL_TYPE_DEFAULT.name());
+		String					serialTypeText		= manager.getSetting(
+				SETTING_PREFIX + "." + m_name + "." + SETTING_NAME_SERIAL_TYPE, defaultText);
+
+		SerialType				serialType;
+		try
+		{
+			serialType = SerialType.valueOf(serialTypeText.trim());
+		}
+		catch (IllegalArgumentException exception)
+		{
+			serialType = SERIAL_TYPE_DEFAULT;
+		}
+		if (!SerialType.java.equals(serialType) && null == CODEC_LIST[serialType.ordinal()])
+		{
+			// Only java and the plugged codecs can write objects.
+			serialType = SERIAL_TYPE_DEFAULT;
+		}
+
+		if (!serialType.equals(m_serialType))
+		{
+			LOGGER.info(BasicEvent.EVENT_SERIAL_TYPE_CHANGE, "Serial %s now serializes objects using %s (was %s).",
+					m_name, serialType.name(), m_serialType.name());
+			m_serialType = serialType;
+		}
 	}
 
 	public static byte[][] toBytesArray(String name, Serializable[] objectList) throws BasicException
@@ -175,6 +257,37 @@ public class BasicSerial
 		return toBytes(name, object, CompressType.compressDefault);
 	}
 	public static byte[] toBytes(String name, Serializable object, CompressType compressType) throws BasicException
+	{
+		return toBytes(name, object, compressType, null);
+	}
+
+	/**
+	 * Serializes the keys of a cache: byte[] and String as toBytes(), any other object with Java serialization,
+	 * never with the codec of the serialType, nor compressed.
+	 * The bytes of a key are hashed and compared to find the object; they must not change with the serialType,
+	 * which can be changed at any time (hot configuration).
+	 *
+	 * @param name				The name of the cache, for its ClassLoader and counters
+	 * @param key				The key
+	 * @return					The bytes of the key, null for a null key
+	 * @throws BasicException	When the key cannot be serialized
+	 */
+	public static byte[] toKeyBytes(String name, Serializable key) throws BasicException
+	{
+		return toBytes(name, key, CompressType.none, SerialType.java);
+	}
+	public static byte[][] toKeyBytesArray(String name, Serializable[] keyList) throws BasicException
+	{
+		byte[][]		bytesList		= new byte[keyList.length][];
+		for (int i = 0; i < keyList.length; i++)
+		{
+			bytesList[i] = toKeyBytes(name, keyList[i]);
+		}
+		return bytesList;
+	}
+	// serialTypeObject: The SerialType of the objects other than byte[] and String, null for the configured one.
+	private static byte[] toBytes(String name, Serializable object, CompressType compressType,
+			SerialType serialTypeObject) throws BasicException
 	{
 		if (null == object)
 		{
@@ -204,8 +317,20 @@ public class BasicSerial
 			}
 			else
 			{
-				serialBytes = serial.serializeJava(object);
-				serialType = (byte) SerialType.java.ordinal();
+				SerialType		serialTypeCodec		=
+						null == serialTypeObject ? serial.m_serialType : serialTypeObject;
+				serialBytes = null;
+				if (!SerialType.java.equals(serialTypeCodec))
+				{
+					serialBytes = serial.serializeCodec(object, serialTypeCodec);
+				}
+				if (null == serialBytes)
+				{
+					// The codec does not support this object, fall back to Java serialization.
+					serialBytes = serial.serializeJava(object);
+					serialTypeCodec = SerialType.java;
+				}
+				serialType = (byte) serialTypeCodec.ordinal();
 				compressTypeObject = CompressType.deflate;
 			}
 			if (CompressType.compressDefault.equals(compressType))
@@ -286,7 +411,7 @@ public class BasicSerial
 
 	public static int getCompressMinLength()
 	{
-		return s_compressMinLength;
+		return COMPRESS_MIN_LENGTH.getValue();
 	}
 
 	public String getName()
@@ -344,6 +469,24 @@ public class BasicSerial
 		}
 	}
 
+	private byte[] serializeCodec(Serializable object, SerialType serialType) throws BasicException
+	{
+		IOperationContext					context				= m_counterSerialize.begin();
+		byte[]								bytes				= null;
+		try
+		{
+			bytes = CODEC_LIST[serialType.ordinal()].serialize(object);
+		}
+		finally
+		{
+			if (null != context)
+			{
+				context.end(null != bytes);
+			}
+		}
+		return bytes;
+	}
+
 	private byte[] serializeJava(Serializable object) throws BasicException
 	{
 		IOperationContext					context				= m_counterSerialize.begin();
@@ -584,6 +727,15 @@ public class BasicSerial
 			case java:
 				object = deserializeJava(bytesIn);
 				break;
+			default:
+				ISerialCodec		codec		= CODEC_LIST[ordinal];
+				if (null == codec)
+				{
+					throw new BasicException(BasicEvent.EVENT_SERIAL_UNKNOWN_SERIALIZATION,
+							"No codec is plugged for serialization type %s.", serialType.name());
+				}
+				object = codec.deserialize(bytesIn, m_classLoader);
+				break;
 			}
 		}
 		finally
@@ -667,7 +819,7 @@ public class BasicSerial
 	}
 
 	/*
-	 * Object to listen to config change for s_compressMinLength
+	 * Object to listen to config change for the SerialType of each serial
 	 */
 	private static class ConfigurationChangeListener
 	{
@@ -680,8 +832,10 @@ public class BasicSerial
 		@SuppressWarnings("PMD.UnusedFormalParameter")
 		private void updateConfiguration(String publisherName, long timeMS, Object event)
 		{
-			s_compressMinLength = ConfigurationManager.getInstance().getInt(
-										SETTING_NAME_COMPRESS_MIN_LENGTH, SETTING_DEFAULT_COMPRESS_MIN_LENGTH);
+			for (BasicSerial serial : SERIAL_MAP.values())
+			{
+				serial.updateSerialType();
+			}
 		}
 	}
 
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.tools.serial;
+
+import java.io.Serializable;
+
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+
+/**
+ * The reading counterpart of BinaryWriter; re-used (per thread) by the BinarySerialCodec.
+ * Reading past the end of the buffer throws an ArrayIndexOutOfBoundsException,
+ * reported by the codec as a de-serialization failure.
+ */
+public class BinaryReader
+{
+	private byte[]					m_buffer;
+	private int						m_position;
+	private boolean					m_isInUse				= false;
+
+	/* package */ boolean acquire(byte[] buffer)
+	{
+		if (m_isInUse)
+		{
+			return false;
+		}
+		m_isInUse = true;
+		m_buffer = buffer;
+		m_position = 0;
+		return true;
+	}
+	/* package */ void release()
+	{
+		m_buffer = null;
+		m_isInUse = false;
+	}
+
+	public int getRemaining()
+	{
+		return m_buffer.length - m_position;
+	}
+
+	public byte readByte()
+	{
+		return m_buffer[m_position++];
+	}
+
+	public boolean readBoolean()
+	{
+		return 0 != readByte();
+	}
+
+	public int readInt()
+	{
+		long		value		= readVarLong();
+		return (int) ((value >>> 1) ^ -(value & 1));
+	}
+
+	public long readLong()
+	{
+		long		value		= readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+	private long readVarLong()
+	{
+		long		value		= 0;
+		int			shift		= 0;
+		byte		b;
+		do
+		{
+			b = m_buffer[m_position++];
+			value |= ((long) (b & 0x7F)) << shift;
+			shift += 7;
+		}
+		while (0 != (b & 0x80));
+		return value;
+	}
+
+	public long readFixedLong()
+	{
+		long		value		= 0;
+		for (int i = 0; i < 8; i++)
+		{
+			value = (value << 8) | (m_buffer[m_position++] & 0xFF);
+		}
+		return value;
+	}
+
+	public double readDouble()
+	{
+		return Double.longBitsToDouble(readFixedLong());
+	}
+
+	public float readFloat()
+	{
+		return Float.intBitsToFloat(readInt());
+	}
+
+	public byte[] readBytes()
+	{
+		int			length		= readInt();
+		if (-1 == length)
+		{
+			return null;
+		}
+		byte[]		bytes		= new byte[length];
+		System.arraycopy(m_buffer, m_position, bytes, 0, length);
+		m_position += length;
+		return bytes;
+	}
+
+	public String readString()
+	{
+		int			length		= readInt();
+		if (-1 == length)
+		{
+			return null;
+		}
+		char[]		charList	= new char[length];
+		for (int i = 0; i < length; i++)
+		{
+			int		b		= m_buffer[m_position++] & 0xFF;
+			if (b < 0x80)
+			{
+				charList[i] = (char) b;
+			}
+			else if (b < 0xE0)
+			{
+				charList[i] = (char) (((b & 0x1F) << 6) | (m_buffer[m_position++] & 0x3F));
+			}
+			else
+			{
+				int		b2		= m_buffer[m_position++] & 0x3F;
+				int		b3		= m_buffer[m_position++] & 0x3F;
+				charList[i] = (char) (((b & 0x0F) << 12) | (b2 << 6) | b3);
+			}
+		}
+		return new String(charList);
+	}
+
+	public Serializable readObject() throws BasicException
+	{
+		byte		tag			= readByte();
+		switch (tag)
+		{
+		case BinarySerialCodec.TAG_NULL:
+			return null;
+		case BinarySerialCodec.TAG_REGISTERED:
+			IBinarySerializable		object		= BinarySerialCodec.createObject(readInt());
+			object.readBinary(this);
+			return object;
+		case BinarySerialCodec.TAG_STRING:
+			return readString();
+		case BinarySerialCodec.TAG_INTEGER:
+			return readInt();
+		case BinarySerialCodec.TAG_LONG:
+			return readLong();
+		case BinarySerialCodec.TAG_DOUBLE:
+			return readDouble();
+		case BinarySerialCodec.TAG_BOOLEAN:
+			return readBoolean();
+		case BinarySerialCodec.TAG_BYTE_ARRAY:
+			return readBytes();
+		case BinarySerialCodec.TAG_SHORT:
+			return (short) readInt();
+		case BinarySerialCodec.TAG_FLOAT:
+			return readFloat();
+		case BinarySerialCodec.TAG_BYTE:
+			return readByte();
+		case BinarySerialCodec.TAG_CHARACTER:
+			return (char) readInt();
+		default:
+			throw new BasicException(BasicEvent.EVENT_SERIAL_BINARY_DESERIAL_FAILED,
+					"Unknown tag %d at position %,d", tag, m_position - 1);
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.tools.serial;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import com.expedia.echox3.basics.collection.simple.CopyOnWriteSimpleMap;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.monitoring.event.BasicRuntimeException;
+
+/**
+ * Compact binary codec (BasicSerial.SerialType.binary), based on class registration.
+ *
+ * Supported objects are the boxed primitives, String, byte[]
+ * and the classes implementing IBinarySerializable registered with register().
+ * A registered object is written as its class id (1 or 2 bytes) followed by its own fields,
+ * instead of the class descriptor of Java serialization.
+ * Other objects are refused (serialize returns null) and BasicSerial falls back to Java serialization.
+ *
+ * Each thread re-uses its own BinaryWriter/BinaryReader: no stream is constructed per call.
+ */
+public class BinarySerialCodec implements ISerialCodec
+{
+	/* package */ static final byte			TAG_NULL				= 0;
+	/* package */ static final byte			TAG_REGISTERED			= 1;
+	/* package */ static final byte			TAG_STRING				= 2;
+	/* package */ static final byte			TAG_INTEGER				= 3;
+	/* package */ static final byte			TAG_LONG				= 4;
+	/* package */ static final byte			TAG_DOUBLE				= 5;
+	/* package */ static final byte			TAG_BOOLEAN				= 6;
+	/* package */ static final byte			TAG_BYTE_ARRAY			= 7;
+	/* package */ static final byte			TAG_SHORT				= 8;
+	/* package */ static final byte			TAG_FLOAT				= 9;
+	/* package */ static final byte			TAG_BYTE				= 10;
+	/* package */ static final byte			TAG_CHARACTER			= 11;
+
+	private static final CopyOnWriteSimpleMap<Class<?>, Integer>	CLASS_ID_MAP	= new CopyOnWriteSimpleMap<>();
+	private static volatile Supplier<?>[]							s_supplierList	= new Supplier<?>[0];
+
+	private static final ThreadLocal<BinaryWriter>		WRITER		= ThreadLocal.withInitial(BinaryWriter::new);
+	private static final ThreadLocal<BinaryReader>		READER		= ThreadLocal.withInitial(BinaryReader::new);
+
+	/**
+	 * Registers a class, with the same id, on both the writer and the reader side.
+	 * Registering the same class again with the same id is harmless.
+	 *
+	 * @param classId		Small positive number, unique for the JVM
+	 * @param clazz			The class to register
+	 * @param supplier		Creates a blank object, filled by IBinarySerializable.readBinary()
+	 */
+	public static synchronized <T extends IBinarySerializable> void register(
+			int classId, Class<T> clazz, Supplier<T> supplier)
+	{
+		Integer		idPrevious		= CLASS_ID_MAP.get(clazz);
+		if (null != idPrevious && classId != idPrevious)
+		{
+			throw new BasicRuntimeException(BasicEvent.EVENT_SERIAL_BINARY_SERIAL_FAILED,
+					"Class %s is already registered with id %d", clazz.getName(), idPrevious);
+		}
+		if (classId < s_supplierList.length && null != s_supplierList[classId] && null == idPrevious)
+		{
+			throw new BasicRuntimeException(BasicEvent.EVENT_SERIAL_BINARY_SERIAL_FAILED,
+					"Id %d is already used by another class than %s", classId, clazz.getName());
+		}
+
+		Supplier<?>[]	supplierList	= Arrays.copyOf(s_supplierList, Math.max(s_supplierList.length, classId + 1));
+		supplierList[classId] = supplier;
+		s_supplierList = supplierList;
+		CLASS_ID_MAP.put(clazz, classId);
+	}
+
+	/* package */ static int getClassId(Class<?> clazz)
+	{
+		Integer		classId		= CLASS_ID_MAP.get(clazz);
+		return null == classId ? -1 : classId;
+	}
+
+	/* package */ static IBinarySerializable createObject(int classId) throws BasicException
+	{
+		Supplier<?>[]	supplierList	= s_supplierList;
+		if (classId < 0 || classId >= supplierList.length || null == supplierList[classId])
+		{
+			throw new BasicException(BasicEvent.EVENT_SERIAL_BINARY_DESERIAL_FAILED,
+					"No class registered with id %d", classId);
+		}
+		return (IBinarySerializable) supplierList[classId].get();
+	}
+
+	public static boolean isSupported(Serializable object)
+	{
+		if (object instanceof IBinarySerializable)
+		{
+			return -1 != getClassId(object.getClass());
+		}
+		return object instanceof String
+				|| object instanceof Integer
+				|| object instanceof Long
+				|| object instanceof Double
+				|| object instanceof Boolean
+				|| object instanceof byte[]
+				|| object instanceof Short
+				|| object instanceof Float
+				|| object instanceof Byte
+				|| object instanceof Character;
+	}
+
+	@Override
+	public byte[] serialize(Serializable object) throws BasicException
+	{
+		if (!isSupported(object))
+		{
+			return null;
+		}
+
+		BinaryWriter		writer			= WRITER.get();
+		if (!writer.acquire())
+		{
+			// Re-entrant call (e.g. from a writeBinary), use a private writer.
+			writer = new BinaryWriter();
+			writer.acquire();
+		}
+		try
+		{
+			writer.writeObject(object);
+			return writer.toByteArray();
+		}
+		catch (RuntimeException exception)
+		{
+			throw new BasicException(BasicEvent.EVENT_SERIAL_BINARY_SERIAL_FAILED, exception,
+					"Binary serialization failed on object of class %s", object.getClass().getName());
+		}
+		finally
+		{
+			writer.release();
+		}
+	}
+
+	@Override
+	public Serializable deserialize(byte[] bytes, ClassLoader classLoader) throws BasicException
+	{
+		BinaryReader		reader			= READER.get();
+		if (!reader.acquire(bytes))
+		{
+			reader = new BinaryReader();
+			reader.acquire(bytes);
+		}
+		try
+		{
+			return reader.readObject();
+		}
+		catch (RuntimeException exception)
+		{
+			throw new BasicException(BasicEvent.EVENT_SERIAL_BINARY_DESERIAL_FAILED, exception,
+					"Binary de-serialization of %,d bytes failed.", bytes.length);
+		}
+		finally
+		{
+			reader.release();
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.tools.serial;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+
+/**
+ * Compact binary output used by the BinarySerialCodec, writing into a re-usable (per thread) buffer.
+ * int/long are written as zig-zag var-int (1 byte for small values), strings as length + UTF-8.
+ */
+public class BinaryWriter
+{
+	private static final int		BUFFER_SIZE_START		= 4 * 1024;
+	private static final int		BUFFER_SIZE_KEEP		= 256 * 1024;
+
+	private byte[]					m_buffer				= new byte[BUFFER_SIZE_START];
+	private int						m_position				= 0;
+	private boolean					m_isInUse				= false;
+
+	/* package */ boolean acquire()
+	{
+		if (m_isInUse)
+		{
+			return false;
+		}
+		m_isInUse = true;
+		m_position = 0;
+		return true;
+	}
+	/* package */ void release()
+	{
+		if (m_buffer.length > BUFFER_SIZE_KEEP)
+		{
+			// Do not hold on to the memory of an unusually large object.
+			m_buffer = new byte[BUFFER_SIZE_START];
+		}
+		m_isInUse = false;
+	}
+
+	public int getPosition()
+	{
+		return m_position;
+	}
+
+	public byte[] toByteArray()
+	{
+		return Arrays.copyOf(m_buffer, m_position);
+	}
+
+	private void ensureCapacity(int count)
+	{
+		if (m_position + count > m_buffer.length)
+		{
+			m_buffer = Arrays.copyOf(m_buffer, Math.max(m_buffer.length * 2, m_position + count));
+		}
+	}
+
+	public void writeByte(byte value)
+	{
+		ensureCapacity(1);
+		m_buffer[m_position++] = value;
+	}
+
+	public void writeBoolean(boolean value)
+	{
+		writeByte(value ? (byte) 1 : (byte) 0);
+	}
+
+	public void writeInt(int value)
+	{
+		writeVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+	}
+
+	public void writeLong(long value)
+	{
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+	private void writeVarLong(long value)
+	{
+		ensureCapacity(10);
+		while (0 != (value & ~0x7FL))
+		{
+			m_buffer[m_position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		m_buffer[m_position++] = (byte) value;
+	}
+
+	public void writeFixedLong(long value)
+	{
+		ensureCapacity(8);
+		for (int i = 56; i >= 0; i -= 8)
+		{
+			m_buffer[m_position++] = (byte) (value >>> i);
+		}
+	}
+
+	public void writeDouble(double value)
+	{
+		writeFixedLong(Double.doubleToRawLongBits(value));
+	}
+
+	public void writeFloat(float value)
+	{
+		writeInt(Float.floatToRawIntBits(value));
+	}
+
+	public void writeBytes(byte[] bytes)
+	{
+		if (null == bytes)
+		{
+			writeInt(-1);
+			return;
+		}
+		writeInt(bytes.length);
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, m_buffer, m_position, bytes.length);
+		m_position += bytes.length;
+	}
+
+	/**
+	 * Writes the char count followed by the chars encoded as UTF-8 (surrogates are encoded individually).
+	 */
+	public void writeString(String text)
+	{
+		if (null == text)
+		{
+			writeInt(-1);
+			return;
+		}
+		int		length		= text.length();
+		writeInt(length);
+		ensureCapacity(length * 3);
+		for (int i = 0; i < length; i++)
+		{
+			char	c		= text.charAt(i);
+			if (c < 0x80)
+			{
+				m_buffer[m_position++] = (byte) c;
+			}
+			else if (c < 0x800)
+			{
+				m_buffer[m_position++] = (byte) (0xC0 | (c >> 6));
+				m_buffer[m_position++] = (byte) (0x80 | (c & 0x3F));
+			}
+			else
+			{
+				m_buffer[m_position++] = (byte) (0xE0 | (c >> 12));
+				m_buffer[m_position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				m_buffer[m_position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Writes a tagged value: null, a boxed primitive, String, byte[] or a registered IBinarySerializable.
+	 */
+	public void writeObject(Serializable object) throws BasicException
+	{
+		if (null == object)
+		{
+			writeByte(BinarySerialCodec.TAG_NULL);
+		}
+		else if (object instanceof IBinarySerializable)
+		{
+			int			classId		= BinarySerialCodec.getClassId(object.getClass());
+			if (-1 == classId)
+			{
+				throw new BasicException(BasicEvent.EVENT_SERIAL_BINARY_SERIAL_FAILED,
+						"Class %s is not registered with the BinarySerialCodec", object.getClass().getName());
+			}
+			writeByte(BinarySerialCodec.TAG_REGISTERED);
+			writeInt(classId);
+			((IBinarySerializable) object).writeBinary(this);
+		}
+		else if (object instanceof String)
+		{
+			writeByte(BinarySerialCodec.TAG_STRING);
+			writeString((String) object);
+		}
+		else if (object instanceof Integer)
+		{
+			writeByte(BinarySerialCodec.TAG_INTEGER);
+			writeInt((Integer) object);
+		}
+		else if (object instanceof Long)
+		{
+			writeByte(BinarySerialCodec.TAG_LONG);
+			writeLong((Long) object);
+		}
+		else if (object instanceof Double)
+		{
+			writeByte(BinarySerialCodec.TAG_DOUBLE);
+			writeDouble((Double) object);
+		}
+		else if (object instanceof Boolean)
+		{
+			writeByte(BinarySerialCodec.TAG_BOOLEAN);
+			writeBoolean((Boolean) object);
+		}
+		else if (object instanceof byte[])
+		{
+			writeByte(BinarySerialCodec.TAG_BYTE_ARRAY);
+			writeBytes((byte[]) object);
+		}
+		else if (object instanceof Short)
+		{
+			writeByte(BinarySerialCodec.TAG_SHORT);
+			writeInt((Short) object);
+		}
+		else if (object instanceof Float)
+		{
+			writeByte(BinarySerialCodec.TAG_FLOAT);
+			writeFloat((Float) object);
+		}
+		else if (object instanceof Byte)
+		{
+			writeByte(BinarySerialCodec.TAG_BYTE);
+			writeByte((Byte) object);
+		}
+		else if (object instanceof Character)
+		{
+			writeByte(BinarySerialCodec.TAG_CHARACTER);
+			writeInt((Character) object);
+		}
+		else
+		{
+			throw new BasicException(BasicEvent.EVENT_SERIAL_BINARY_SERIAL_FAILED,
+					"Class %s is not supported by the BinarySerialCodec", object.getClass().getName());
+		}
+	}
+}
@@ -14,6 +14,7 @@ public class ByteArrayWrapper extends AbstractPooledObject
 	private byte[]		m_byteArray		= null;		// Not owned by this object, owned by the caller
 	private int			m_indexMin;					// Inclusive
 	private int			m_length;					// Exclusive
+	private byte[]		m_ownedArray	= null;		// Owned, re-used, for a ByteBuffer without an array (i.e. direct)
 
 	public ByteArrayWrapper()
 	{
@@ -27,8 +28,24 @@ public class ByteArrayWrapper extends AbstractPooledObject
 	}
 	public void set(ByteBuffer byteBuffer, int indexMin, int length)
 	{
-		m_byteArray = byteBuffer.array();
-		m_indexMin = indexMin;
+		if (byteBuffer.hasArray())
+		{
+			m_byteArray = byteBuffer.array();
+			m_indexMin = byteBuffer.arrayOffset() + indexMin;
+		}
+		else
+		{
+			// A direct buffer cannot be wrapped, copy its content into an array re-used as long as it is large enough.
+			if (null == m_ownedArray || m_ownedArray.length < length)
+			{
+				m_ownedArray = new byte[length];
+			}
+			ByteBuffer		duplicate		= byteBuffer.duplicate();
+			duplicate.position(indexMin);
+			duplicate.get(m_ownedArray, 0, length);
+			m_byteArray = m_ownedArray;
+			m_indexMin = 0;
+		}
 		m_length = length;
 	}
 
@@ -0,0 +1,23 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.tools.serial;
+
+import java.io.Serializable;
+
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+
+/**
+ * Implemented by the classes serialized by the BinarySerialCodec.
+ * The class must be registered (same id on the writer and the reader) with BinarySerialCodec.register().
+ * The class remains Serializable, so Java serialization is still available as the fallback.
+ *
+ * readBinary() must read exactly what writeBinary() has written, in the same order.
+ */
+public interface IBinarySerializable extends Serializable
+{
+	void			writeBinary(BinaryWriter writer) throws BasicException;
+	void			readBinary(BinaryReader reader) throws BasicException;
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.basics.tools.serial;
+
+import java.io.Serializable;
+
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+
+/**
+ * Serialization engine plugged into BasicSerial for a given BasicSerial.SerialType,
+ * see BasicSerial.setCodec().
+ *
+ * The SerialType is written in the first byte of the serialized bytes,
+ * so the reader always uses the codec matching the writer, whatever the local configuration.
+ * Implementations must be thread-safe.
+ */
+public interface ISerialCodec
+{
+	/**
+	 * @param object		The object to serialize, never null.
+	 * @return				The serialized form, or null if the codec does not support this object;
+	 * 						BasicSerial then falls back to Java serialization.
+	 * @throws BasicException	When the object is supported, but its serialization failed.
+	 */
+	byte[]			serialize(Serializable object) throws BasicException;
+
+	/**
+	 * @param bytes			Exactly the bytes returned by serialize()
+	 * @param classLoader	The class loader of the named BasicSerial
+	 * @return				The de-serialized object
+	 * @throws BasicException	Something can always go wrong
+	 */
+	Serializable	deserialize(byte[] bytes, ClassLoader classLoader) throws BasicException;
+}
@@ -7,6 +7,7 @@ package com.expedia.echox3.internal.provider;
 
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.monitoring.version.ManifestWrapper;
@@ -34,5 +35,19 @@ public interface IObjectCacheProvider
 	byte[][]				readOnly	(String cacheName, byte[][] keyList, byte[][] requestList)
 																throws BasicException;
 
-	byte[]					reduce		(String cacheName, byte[][] keyList, byte[] request);
+	// Returns the answer of each server (keyList null or empty for the whole cache).
+	byte[][]				reduce		(String cacheName, String reducerClassName, byte[][] keyList, byte[] request)
+																throws BasicException;
+
+	// Asynchronous flavor of the above; the caller is never parked waiting for the response.
+	// A failure is reported as an exceptional completion with the BasicException.
+	//CHECKSTYLE:OFF
+	CompletableFuture<Void>		writeOnlyAsync	(String cacheName, byte[] key, byte[] request);
+	CompletableFuture<Void>		writeOnlyAsync	(String cacheName, byte[][] keyList, byte[] request);
+	CompletableFuture<Void>		writeOnlyAsync	(String cacheName, byte[][] keyList, byte[][] requestList);
+
+	CompletableFuture<byte[]>	readOnlyAsync	(String cacheName, byte[] key, byte[] request);
+	CompletableFuture<byte[][]>	readOnlyAsync	(String cacheName, byte[][] keyList, byte[] request);
+	CompletableFuture<byte[][]>	readOnlyAsync	(String cacheName, byte[][] keyList, byte[][] requestList);
+	//CHECKSTYLE:ON
 }
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.provider;
+
+import java.util.Arrays;
+
+import com.expedia.echox3.basics.tools.hash.HashUtil;
+
+/**
+ * Splits a key list into one part per destination (e.g. TransportHighway), so a bulk call is transmitted
+ * as one message per destination, and scatters the responses of each part back in the order of the key list.
+ *
+ * A key goes to the destination selected by the high 32 bits of its hash64,
+ * the same bits used by the director to select the bucket (see ObjectKey);
+ * destinations without any key are not part of the split.
+ *
+ * @param <D>	The destination type
+ */
+public class KeyListSplit<D>
+{
+	private final int				m_keyCount;
+	private final Object[]			m_destinationList;			// [part]
+	private final int[][]			m_indexList;				// [part][i] = index in the key list
+
+	public KeyListSplit(D[] destinationList, byte[][] keyList)
+	{
+		m_keyCount = keyList.length;
+
+		int			destinationCount	= destinationList.length;
+		int[]		destinationIndex	= new int[keyList.length];
+		int[]		countList			= new int[destinationCount];
+		for (int i = 0; i < keyList.length; i++)
+		{
+			int			index		= 1 == destinationCount ? 0 : getDestinationIndex(keyList[i], destinationCount);
+			destinationIndex[i] = index;
+			countList[index]++;
+		}
+
+		int			partCount			= 0;
+		for (int count : countList)
+		{
+			partCount += 0 == count ? 0 : 1;
+		}
+
+		m_destinationList = new Object[partCount];
+		m_indexList = new int[partCount][];
+		int[]		partOfDestination	= new int[destinationCount];
+		int			part				= 0;
+		for (int d = 0; d < destinationCount; d++)
+		{
+			if (0 != countList[d])
+			{
+				m_destinationList[part] = destinationList[d];
+				m_indexList[part] = new int[countList[d]];
+				partOfDestination[d] = part++;
+			}
+		}
+
+		int[]		fillList			= new int[partCount];
+		for (int i = 0; i < keyList.length; i++)
+		{
+			int			p			= partOfDestination[destinationIndex[i]];
+			m_indexList[p][fillList[p]++] = i;
+		}
+	}
+
+	public static int getDestinationIndex(byte[] key, int destinationCount)
+	{
+		int			hash		= (int) (HashUtil.hash64(key) >>> 32);
+		return Math.abs(hash % destinationCount);
+	}
+
+	public int getKeyCount()
+	{
+		return m_keyCount;
+	}
+
+	public int getPartCount()
+	{
+		return m_destinationList.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public D getDestination(int part)
+	{
+		return (D) m_destinationList[part];
+	}
+
+	/**
+	 * @param part		The part
+	 * @param list		A list parallel to the key list (e.g. the key list itself or the request list)
+	 * @return			The items of the part, in the order of the key list
+	 */
+	public byte[][] select(int part, byte[][] list)
+	{
+		int[]		indexList		= m_indexList[part];
+		if (indexList.length == list.length)
+		{
+			return list;		// Only one part, nothing to select.
+		}
+
+		byte[][]	partList		= new byte[indexList.length][];
+		for (int i = 0; i < indexList.length; i++)
+		{
+			partList[i] = list[indexList[i]];
+		}
+		return partList;
+	}
+
+	/**
+	 * @param part			The part
+	 * @param partList		The responses of the part, in the order of select(part)
+	 * @param fullList		The responses of the whole key list, partially filled by each part
+	 */
+	public void scatter(int part, byte[][] partList, byte[][] fullList)
+	{
+		int[]		indexList		= m_indexList[part];
+		for (int i = 0; i < indexList.length; i++)
+		{
+			fullList[indexList[i]] = partList[i];
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		int[]		countList		= new int[m_indexList.length];
+		for (int part = 0; part < countList.length; part++)
+		{
+			countList[part] = m_indexList[part].length;
+		}
+		return String.format("%,d keys split as %s", m_keyCount, Arrays.toString(countList));
+	}
+}
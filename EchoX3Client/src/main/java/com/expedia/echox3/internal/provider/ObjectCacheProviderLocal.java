@@ -6,6 +6,7 @@
 package com.expedia.echox3.internal.provider;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.expedia.echox3.basics.collection.simple.CopyOnWriteSimpleMap;
 import com.expedia.echox3.basics.configuration.ConfigurationManager;
@@ -14,6 +15,7 @@ import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.monitoring.event.BasicLogger;
 import com.expedia.echox3.basics.monitoring.version.ManifestWrapper;
+import com.expedia.echox3.basics.thread.FutureTools;
 import com.expedia.echox3.basics.tools.misc.BasicTools;
 import com.expedia.echox3.basics.tools.pubsub.Publisher;
 import com.expedia.echox3.internal.store.cache.LocalObjectCache;
@@ -167,10 +169,7 @@ public class ObjectCacheProviderLocal implements IObjectCacheProvider
 		ensureMemory();
 
 		LocalObjectCache cache			= getCache(cacheName);
-		for (int i = 0; i < keyBytesList.length; i++)
-		{
-			cache.writeOnly(keyBytesList[i], requestBytes);
-		}
+		cache.writeOnly(keyBytesList, requestBytes);
 	}
 
 	@Override
@@ -179,10 +178,7 @@ public class ObjectCacheProviderLocal implements IObjectCacheProvider
 		ensureMemory();
 
 		LocalObjectCache cache			= getCache(cacheName);
-		for (int i = 0; i < keyBytesList.length; i++)
-		{
-			cache.writeOnly(keyBytesList[i], requestBytesList[i]);
-		}
+		cache.writeOnly(keyBytesList, requestBytesList);
 	}
 
 	@Override
@@ -197,33 +193,76 @@ public class ObjectCacheProviderLocal implements IObjectCacheProvider
 	public byte[][] readOnly(String cacheName, byte[][] keyBytesList, byte[] requestBytes) throws BasicException
 	{
 		LocalObjectCache cache			= getCache(cacheName);
-
-		byte[][]			responseList	= new byte[keyBytesList.length][];
-		for (int i = 0; i < keyBytesList.length; i++)
-		{
-			responseList[i] = cache.readOnly(keyBytesList[i], requestBytes);
-		}
-		return responseList;
+		return cache.readOnly(keyBytesList, requestBytes);
 	}
 
 	@Override
 	public byte[][] readOnly(String cacheName, byte[][] keyBytesList, byte[][] requestBytesList) throws BasicException
 	{
 		LocalObjectCache cache			= getCache(cacheName);
+		return cache.readOnly(keyBytesList, requestBytesList);
+	}
+
+
+	@Override
+	public byte[][] reduce(String cacheName, String reducerClassName, byte[][] keyBytesList, byte[] requestBytes)
+			throws BasicException
+	{
+		LocalObjectCache cache			= getCache(cacheName);
+		byte[]					answerBytes		= cache.reduce(reducerClassName, keyBytesList, requestBytes);
+		return new byte[][] { answerBytes };
+	}
 
-		byte[][]			responseList		= new byte[keyBytesList.length][];
-		for (int i = 0; i < keyBytesList.length; i++)
+
+	// The local cache does not block on I/O: the work is done in the calling thread,
+	// and an already completed future is returned.
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, byte[] keyBytes, byte[] requestBytes)
+	{
+		return FutureTools.supply(() ->
 		{
-			responseList[i] = cache.readOnly(keyBytesList[i], requestBytesList[i]);
-		}
-		return responseList;
+			writeOnly(cacheName, keyBytes, requestBytes);
+			return null;
+		});
 	}
 
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, byte[][] keyBytesList, byte[] requestBytes)
+	{
+		return FutureTools.supply(() ->
+		{
+			writeOnly(cacheName, keyBytesList, requestBytes);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, byte[][] keyBytesList, byte[][] requestBytesList)
+	{
+		return FutureTools.supply(() ->
+		{
+			writeOnly(cacheName, keyBytesList, requestBytesList);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<byte[]> readOnlyAsync(String cacheName, byte[] keyBytes, byte[] requestBytes)
+	{
+		return FutureTools.supply(() -> readOnly(cacheName, keyBytes, requestBytes));
+	}
+
+	@Override
+	public CompletableFuture<byte[][]> readOnlyAsync(String cacheName, byte[][] keyBytesList, byte[] requestBytes)
+	{
+		return FutureTools.supply(() -> readOnly(cacheName, keyBytesList, requestBytes));
+	}
 
 	@Override
-	public byte[] reduce(String cacheName, byte[][] keyList, byte[] request)
+	public CompletableFuture<byte[][]> readOnlyAsync(
+			String cacheName, byte[][] keyBytesList, byte[][] requestBytesList)
 	{
-		return new byte[0];
+		return FutureTools.supply(() -> readOnly(cacheName, keyBytesList, requestBytesList));
 	}
 
 
@@ -6,20 +6,28 @@
 package com.expedia.echox3.internal.provider;
 
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.monitoring.event.BasicLogger;
 import com.expedia.echox3.basics.monitoring.version.ManifestWrapper;
+import com.expedia.echox3.basics.thread.FutureTools;
 import com.expedia.echox3.basics.tools.locks.AbstractReadWriteLock;
 import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
 import com.expedia.echox3.internal.transport.protocol.SourceProtocolHandler;
+import com.expedia.echox3.internal.transport.socket.ComputerAddress;
 import com.expedia.echox3.internal.transport.socket.ComputerAddressGroup;
 import com.expedia.echox3.internal.transport.socket.ComputerAddressGroupByConfiguration;
 import com.expedia.echox3.internal.transport.socket.ComputerAddressLoadBalancer;
 import com.expedia.echox3.internal.transport.socket.SourceTransportHighway;
+import com.expedia.echox3.internal.transport.socket.TransportHighway;
 import com.expedia.echox3.visible.trellis.ClientFactory;
 
 public class ObjectCacheProviderRemote implements IObjectCacheProvider
@@ -32,6 +40,7 @@ public class ObjectCacheProviderRemote implements IObjectCacheProvider
 	//CHECKSTYLE:ON
 
 	private static final String			PERMANENT_ADDRESS_GROUP_NAME			= "PermanentAddressGroupName";
+	private static final long			CONNECT_WAIT_MS							= 5 * 1000;
 
 	private ComputerAddressGroup						m_bootstrapDispatcherGroup		= null;
 
@@ -121,12 +130,30 @@ public class ObjectCacheProviderRemote implements IObjectCacheProvider
 		return loadBalancer;
 	}
 
-	public SourceTransportHighway getNextTransportHighway(String cacheName) throws BasicException
+	private ComputerAddressLoadBalancer getConnectedLoadBalancer(String cacheName) throws BasicException
 	{
 		ComputerAddressLoadBalancer		loadBalancer		= getAddressGroupLoadBalancer(cacheName);
+		if (null == loadBalancer)
+		{
+			throw new BasicException(BasicEvent.EVENT_UNKNOWN_CACHE,
+					"Not connected to cache %s, call connectToCache() first.", cacheName);
+		}
+		return loadBalancer;
+	}
+
+	public SourceTransportHighway getNextTransportHighway(String cacheName) throws BasicException
+	{
+		ComputerAddressLoadBalancer		loadBalancer		= getConnectedLoadBalancer(cacheName);
 		return (SourceTransportHighway) loadBalancer.getNextTransportHighway();
 	}
 
+	/* package */ KeyListSplit<TransportHighway> splitKeyList(String cacheName, byte[][] keyBytesList)
+			throws BasicException
+	{
+		ComputerAddressLoadBalancer		loadBalancer		= getConnectedLoadBalancer(cacheName);
+		return new KeyListSplit<>(loadBalancer.getActiveTransportHighwayList(), keyBytesList);
+	}
+
 	public DispatcherUserSourceMessageHandler getClientMessageHandler()
 	{
 		return m_clientMessageHandler;
@@ -136,13 +163,37 @@ public class ObjectCacheProviderRemote implements IObjectCacheProvider
 	@Override
 	public void connectToCache(String cacheName) throws BasicException
 	{
-		// NYI
+		if (null != getAddressGroupLoadBalancer(cacheName))
+		{
+			// already connected
+			return;
+		}
+
+		// The bootstrap dispatchers know which dispatchers serve the cache.
+		connectToPermanent();
+		ComputerAddressLoadBalancer		permanent		= getConnectedLoadBalancer(PERMANENT_ADDRESS_GROUP_NAME);
+		SourceTransportHighway			highway			=
+				(SourceTransportHighway) permanent.waitForNextTransportHighway(CONNECT_WAIT_MS);
+		List<ComputerAddress>			addressList		=
+				m_clientMessageHandler.getDispatcherListForCache(highway, cacheName);
+
+		ComputerAddressGroup			addressGroup	= new ComputerAddressGroup(cacheName);
+		for (ComputerAddress address : addressList)
+		{
+			addressGroup.addAddress(address);
+		}
+		getProtocolHandler().addAddressGroup(addressGroup);
+		addAddressGroupLoadBalancer(cacheName, addressGroup);
 	}
 
 	@Override
 	public void close(String cacheName)
 	{
-		// NYI
+		ComputerAddressLoadBalancer		loadBalancer	= removeAddressGroupLoadBalancer(cacheName);
+		if (null != loadBalancer)
+		{
+			getProtocolHandler().removeAddressGroup(loadBalancer.getAddressGroup());
+		}
 	}
 
 	@Override
@@ -165,51 +216,176 @@ public class ObjectCacheProviderRemote implements IObjectCacheProvider
 
 
 	// Methods common to both IHiper*Client
+	// A single key goes to the next highway of the load balancer.
+	// A key list is split per destination highway (see KeyListSplit); each part is transmitted as one message,
+	// all parts in parallel, and the responses are re-assembled in the order of the key list.
+	// The synchronous list versions wait on the asynchronous ones.
 	@Override
 	public void flush(String cacheName, int durationMS) throws BasicException
 	{
-		// NYI
+		m_clientMessageHandler.flush(getNextTransportHighway(cacheName), cacheName, durationMS);
 	}
 
 	@Override
 	public void writeOnly(String cacheName, byte[] keyBytes, byte[] requestBytes) throws BasicException
 	{
-		return;
+		m_clientMessageHandler.writeOnly(getNextTransportHighway(cacheName), cacheName, keyBytes, requestBytes);
 	}
 
 	@Override
 	public void writeOnly(String cacheName, byte[][] keyBytesList, byte[] requestBytes) throws BasicException
 	{
-		return;
+		FutureTools.get(writeOnlyAsync(cacheName, keyBytesList, requestBytes));
 	}
 
 	@Override
 	public void writeOnly(String cacheName, byte[][] keyBytesList, byte[][] requestBytesList) throws BasicException
 	{
-		return;
+		FutureTools.get(writeOnlyAsync(cacheName, keyBytesList, requestBytesList));
 	}
 
 	@Override
 	public byte[] readOnly(String cacheName, byte[] keyBytes, byte[] requestBytes) throws BasicException
 	{
-		return null;
+		return m_clientMessageHandler.readOnly(getNextTransportHighway(cacheName), cacheName, keyBytes, requestBytes);
 	}
 
 	@Override
 	public byte[][] readOnly(String cacheName, byte[][] keyBytesList, byte[] requestBytes) throws BasicException
 	{
-		return null;
+		return FutureTools.get(readOnlyAsync(cacheName, keyBytesList, requestBytes));
 	}
 
 	@Override
 	public byte[][] readOnly(String cacheName, byte[][] keyBytesList, byte[][] requestBytesList) throws BasicException
 	{
-		return null;
+		return FutureTools.get(readOnlyAsync(cacheName, keyBytesList, requestBytesList));
 	}
 
 	@Override
-	public byte[] reduce(String cacheName, byte[][] keyList, byte[] request)
+	public byte[][] reduce(String cacheName, String reducerClassName, byte[][] keyBytesList, byte[] requestBytes)
+			throws BasicException
 	{
-		return new byte[0];
+		return FutureTools.get(FutureTools.compose(() ->
+		{
+			if (null == keyBytesList || 0 == keyBytesList.length)
+			{
+				// The dispatcher scatters the reduce to all the servers of the cache and gathers their answers.
+				return m_clientMessageHandler.reduceAsync(
+						getNextTransportHighway(cacheName), cacheName, reducerClassName, null, requestBytes);
+			}
+
+			KeyListSplit<TransportHighway>	split			= splitKeyList(cacheName, keyBytesList);
+			byte[][][]						answerListList	= new byte[split.getPartCount()][][];
+			CompletableFuture<?>[]			futureList		= new CompletableFuture<?>[split.getPartCount()];
+			for (int part = 0; part < futureList.length; part++)
+			{
+				final int		partFinal		= part;
+				futureList[part] = m_clientMessageHandler.reduceAsync(
+						(SourceTransportHighway) split.getDestination(part), cacheName, reducerClassName,
+						split.select(part, keyBytesList), requestBytes)
+						.thenAccept((answerList) -> answerListList[partFinal] = answerList);
+			}
+			return CompletableFuture.allOf(futureList).thenApply((ignored) -> concatenate(answerListList));
+		}));
+	}
+	private static byte[][] concatenate(byte[][][] answerListList)
+	{
+		List<byte[]>		answerList		= new ArrayList<>();
+		for (byte[][] partList : answerListList)
+		{
+			Collections.addAll(answerList, partList);
+		}
+		return answerList.toArray(new byte[answerList.size()][]);
+	}
+
+
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, byte[] keyBytes, byte[] requestBytes)
+	{
+		return FutureTools.compose(() -> m_clientMessageHandler.writeOnlyAsync(
+				getNextTransportHighway(cacheName), cacheName, keyBytes, requestBytes));
+	}
+
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, byte[][] keyBytesList, byte[] requestBytes)
+	{
+		return FutureTools.compose(() ->
+		{
+			KeyListSplit<TransportHighway>	split			= splitKeyList(cacheName, keyBytesList);
+			CompletableFuture<?>[]			futureList		= new CompletableFuture<?>[split.getPartCount()];
+			for (int part = 0; part < futureList.length; part++)
+			{
+				futureList[part] = m_clientMessageHandler.writeOnlyAsync(
+						(SourceTransportHighway) split.getDestination(part), cacheName,
+						split.select(part, keyBytesList), requestBytes);
+			}
+			return CompletableFuture.allOf(futureList);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, byte[][] keyBytesList, byte[][] requestBytesList)
+	{
+		return FutureTools.compose(() ->
+		{
+			KeyListSplit<TransportHighway>	split			= splitKeyList(cacheName, keyBytesList);
+			CompletableFuture<?>[]			futureList		= new CompletableFuture<?>[split.getPartCount()];
+			for (int part = 0; part < futureList.length; part++)
+			{
+				futureList[part] = m_clientMessageHandler.writeOnlyAsync(
+						(SourceTransportHighway) split.getDestination(part), cacheName,
+						split.select(part, keyBytesList), split.select(part, requestBytesList));
+			}
+			return CompletableFuture.allOf(futureList);
+		});
+	}
+
+	@Override
+	public CompletableFuture<byte[]> readOnlyAsync(String cacheName, byte[] keyBytes, byte[] requestBytes)
+	{
+		return FutureTools.compose(() -> m_clientMessageHandler.readOnlyAsync(
+				getNextTransportHighway(cacheName), cacheName, keyBytes, requestBytes));
+	}
+
+	@Override
+	public CompletableFuture<byte[][]> readOnlyAsync(String cacheName, byte[][] keyBytesList, byte[] requestBytes)
+	{
+		return FutureTools.compose(() ->
+		{
+			KeyListSplit<TransportHighway>	split			= splitKeyList(cacheName, keyBytesList);
+			byte[][]						responseList	= new byte[keyBytesList.length][];
+			CompletableFuture<?>[]			futureList		= new CompletableFuture<?>[split.getPartCount()];
+			for (int part = 0; part < futureList.length; part++)
+			{
+				final int		partFinal		= part;
+				futureList[part] = m_clientMessageHandler.readOnlyAsync(
+						(SourceTransportHighway) split.getDestination(part), cacheName,
+						split.select(part, keyBytesList), requestBytes)
+						.thenAccept((partList) -> split.scatter(partFinal, partList, responseList));
+			}
+			return CompletableFuture.allOf(futureList).thenApply((ignored) -> responseList);
+		});
+	}
+
+	@Override
+	public CompletableFuture<byte[][]> readOnlyAsync(
+			String cacheName, byte[][] keyBytesList, byte[][] requestBytesList)
+	{
+		return FutureTools.compose(() ->
+		{
+			KeyListSplit<TransportHighway>	split			= splitKeyList(cacheName, keyBytesList);
+			byte[][]						responseList	= new byte[keyBytesList.length][];
+			CompletableFuture<?>[]			futureList		= new CompletableFuture<?>[split.getPartCount()];
+			for (int part = 0; part < futureList.length; part++)
+			{
+				final int		partFinal		= part;
+				futureList[part] = m_clientMessageHandler.readOnlyAsync(
+						(SourceTransportHighway) split.getDestination(part), cacheName,
+						split.select(part, keyBytesList), split.select(part, requestBytesList))
+						.thenAccept((partList) -> split.scatter(partFinal, partList, responseList));
+			}
+			return CompletableFuture.allOf(futureList).thenApply((ignored) -> responseList);
+		});
 	}
 }
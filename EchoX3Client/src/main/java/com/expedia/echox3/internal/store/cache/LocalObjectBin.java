@@ -5,17 +5,14 @@
 
 package com.expedia.echox3.internal.store.cache;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
-
 import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.monitoring.event.BasicLogger;
 import com.expedia.echox3.basics.tools.locks.AbstractReadWriteLock;
+import com.expedia.echox3.basics.tools.time.WallClock;
 import com.expedia.echox3.internal.store.counter.ItemCounterFamily;
+import com.expedia.echox3.internal.store.expiration.ExpirationWheel;
 import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
 import com.expedia.echox3.internal.store.wrapper.ObjectKey;
 import com.expedia.echox3.internal.store.wrapper.TrackingObjects;
@@ -31,8 +28,9 @@ public class LocalObjectBin
 	private final ObjectCacheConfiguration m_configuration;
 	private final TrackingObjects						m_trackingObjects;
 	private final String								m_binName;
+	// The map lock only serializes the walks (flush, upgrade, maintenance, resize); get/delete are lock-free.
 	private final AbstractReadWriteLock					m_mapLock;
-	private final Map<ObjectKey, ObjectWrapper>			m_entryMap		= new HashMap<>();
+	private final LocalObjectTable						m_entryTable	= new LocalObjectTable();
 
 	public LocalObjectBin(
 			ObjectCacheConfiguration configuration, TrackingObjects trackingObjects, String bucketName, int number)
@@ -67,27 +65,41 @@ public class LocalObjectBin
 		return m_mapLock;
 	}
 
-	protected Map<ObjectKey, ObjectWrapper> getEntryMap()
+	protected LocalObjectTable getEntryTable()
 	{
-		return m_entryMap;
+		return m_entryTable;
 	}
 	public int getItemCount()
 	{
-		return getEntryMap().size();
+		return getEntryTable().size();
 	}
 
-	public ObjectWrapper getEntry(ObjectKey key, LocalObjectFactoryWrapper factory) throws BasicException
+	/**
+	 * Snapshot of the entries of this bin, taken under the read lock of the map (i.e. between walks).
+	 *
+	 * @return	The entries currently in this bin
+	 */
+	public ObjectWrapper[] getWrapperList()
 	{
-		ObjectWrapper		entry;
+		IOperationContext		context			= getMapLock().lockRead();
+		try
+		{
+			return getEntryTable().toArray();
+		}
+		finally
+		{
+			getMapLock().unlockRead(context, true);
+		}
+	}
 
-		// Must use synchronized here, because this is always a possible read/write operation.
-		IOperationContext		readContext		= getMapLock().lockRead();
-		entry = getEntryMap().get(key);
-		getMapLock().unlockRead(readContext, true);
+	public ObjectWrapper getEntry(ObjectKey key, LocalObjectFactoryWrapper factory) throws BasicException
+	{
+		// Lock-free read, this is by far the most frequent case.
+		ObjectWrapper		entry		= getEntryTable().get(key);
 		if (null == entry)
  		{
-			// Create the object outside any lock, then write it SAFELY inside the write lock.
-			// This ensures safety and minimal lock duration at the cost of possibly creating the same object
+			// Create the object outside any lock, then insert it SAFELY with putIfAbsent.
+			// This ensures safety and no lock at the cost of possibly creating the same object
 			// multiple times in very rare cases.
 			// However, the cost is small and the algorithm guarantees the object is written only once.
 			ICacheObject cacheObject		= null;
@@ -99,58 +111,180 @@ public class LocalObjectBin
 			{
 				// The input key is a TEMPORARY one, create a permanent one for the map.
 				// Package the gridObject into a HiperItemEntry
-				entry = new ObjectWrapper(key, cacheObject);
-				entry.createLock(getTrackingObjects().getItemLockCounter());
+				ObjectWrapper		entryNew		= new ObjectWrapper(key, cacheObject);
+				entryNew.setLock(getTrackingObjects().getItemLock(entryNew.getHash64()));
 
-				IOperationContext		writeContext		= getMapLock().lockWrite();
-				ObjectWrapper			entryPrev			= getEntryMap().get(entry);
-				if (null == entryPrev)		// If the entry is still not present (i.e. not written by another thread)
+				entry = getEntryTable().putIfAbsent(entryNew);
+				if (entry == entryNew)		// NOPMD Looking for exactly this object
 				{
 					// Was still not there, a new entry has been created
-					getEntryMap().put(entry, entry);
 					getCounterFamily().recordCreate(entry);
 				}
-				else
-				{
-					// is present... was created by another thread between unlockRead and lockWrite
-					// Use the existing entry, throw away the superfluous entry created by this thread.
-					entry = entryPrev;
-				}
-				getMapLock().unlockWrite(writeContext, true);
+				// else is present... was created by another thread since the get above.
+				// Use the existing entry, throw away the superfluous entry created by this thread.
 			}
 		}
 		return entry;
 	}
 
 	/**
-	 * Used when changing the number of buckets (or bins?) to move an item into this bin.
+	 * Inserts an entry read from a snapshot (see LocalObjectSnapshot), as writeOnly() would have created it.
+	 * An entry already present (i.e. the same key twice in the snapshot) is kept.
+	 *
+	 * @param entryNew		the entry, with its object
+	 * @return				true if the entry has been inserted
+	 */
+	public boolean loadEntry(ObjectWrapper entryNew)
+	{
+		entryNew.setLock(getTrackingObjects().getItemLock(entryNew.getHash64()));
+		if (entryNew != getEntryTable().putIfAbsent(entryNew))		// NOPMD Looking for exactly this object
+		{
+			return false;
+		}
+		getCounterFamily().recordCreate(entryNew);
+		scheduleExpiration(entryNew);
+		getTrackingObjects().getEvictionPolicy().recordWrite(entryNew);
+		return true;
+	}
+
+	/**
+	 * Moves an entry of this bin into binTo, used by the incremental resize (see LocalObjectMigration).
+	 * The entry is inserted in binTo before being removed from this bin, so readers always find it.
 	 *
-	 * @param objectWrapper		object to move into this bin
+	 * @param objectWrapper		entry of this bin
+	 * @param binTo				the bin where the entry now belongs
+	 * @return					true if the entry has been moved
 	 */
 	// NOTE: No counter operation as the item stays in the same cache.
-	public void moveEntryInto(ObjectWrapper objectWrapper)
+	public boolean moveEntryTo(ObjectWrapper objectWrapper, LocalObjectBin binTo)
 	{
-		IOperationContext		writeContext		= getMapLock().lockWrite();
-		getEntryMap().put(objectWrapper, objectWrapper);
-		getMapLock().unlockWrite(writeContext, true);
+		ObjectWrapper			entry				= binTo.getEntryTable().putIfAbsent(objectWrapper);
+		if (entry != objectWrapper)		// NOPMD Looking for exactly this object
+		{
+			// The key has been re-created in binTo while the resize was in progress, the newer entry wins.
+			if (getEntryTable().remove(objectWrapper))
+			{
+				getCounterFamily().recordRemove(objectWrapper);
+				getTrackingObjects().getEvictionPolicy().recordRemove(objectWrapper);
+			}
+			return false;
+		}
+		if (!getEntryTable().remove(objectWrapper))
+		{
+			// Deleted by another thread since the insert in binTo, do not resurrect it.
+			binTo.getEntryTable().remove(objectWrapper);
+			return false;
+		}
+		return true;
 	}
 
 	public void deleteEntry(ObjectKey key)
 	{
-		IOperationContext		writeContext		= getMapLock().lockWrite();
-
-		ObjectWrapper			wrapper				= getEntryMap().remove(key);
+		ObjectWrapper			wrapper				= getEntryTable().remove(key);
 		if (null != wrapper)
 		{
 			// Only if an entry was actually removed.
 			// Can be called with no entry deleted when resizing bucketList or binList.
 			getCounterFamily().recordRemove(wrapper);
+			getTrackingObjects().getEvictionPolicy().recordRemove(wrapper);
 		}
 		// Do NOT close the lock on the Wrapper, as it is associated with a global ItemCounterFamily
 		// Closing the lock would close the ItemCounterFamily.
 		// The lock object itself is released as garbage when the ObjectWrapper (extends ObjectKey) is released.
+	}
+
+	/**
+	 * Removes exactly this entry, selected as a victim by the eviction policy (which has already forgotten it).
+	 * A newer entry with the same key is left alone.
+	 * As when it expires, the object releases its data under its lock (e.g. its chunk of the SlabStore),
+	 * through doMaintenance() at a memory level of 0, i.e. nothing is to be kept.
+	 *
+	 * @param wrapper	the victim
+	 * @return			true if the entry was in this bin
+	 */
+	public boolean evictEntry(ObjectWrapper wrapper)
+	{
+		ICacheObject			cacheObject			= wrapper.getTrellisObject();
+		IOperationContext		objectContext		= wrapper.getLock().lockWrite();
+		boolean					isSuccess			= false;
+		boolean					isRemoved			= false;
+		try
+		{
+			if (getEntryTable().remove(wrapper))
+			{
+				getCounterFamily().recordRemove(wrapper);
+				getCounterFamily().recordEvict();
+				isRemoved = true;
+				cacheObject.doMaintenance(WallClock.getCurrentTimeMS(), 0);
+			}
+			isSuccess = true;
+		}
+		catch (Exception exception)
+		{
+			getLogger().warn(BasicEvent.EVENT_CACHE_OBJECT_EXCEPTION_MAINTENANCE, exception,
+					"Unexpected exception processing doMaintenance() on object %s", cacheObject.toString());
+		}
+		finally
+		{
+			wrapper.getLock().unlockWrite(objectContext, isSuccess);
+		}
+		return isRemoved;
+	}
 
-		getMapLock().unlockWrite(writeContext, true);
+	// True if this exact entry is in this bin.
+	public boolean containsEntry(ObjectWrapper wrapper)
+	{
+		return wrapper == getEntryTable().get(wrapper);		// NOPMD Looking for exactly this entry
+	}
+
+	/**
+	 * Runs the maintenance of a single entry of this bin, due according to the ExpirationWheel of the cache.
+	 * Its expiration may have moved later since it was scheduled, it is then scheduled again.
+	 *
+	 * @param wrapper		an entry of this bin
+	 * @param timeNowMS		the time of the maintenance pass
+	 * @return				true if the entry has been removed
+	 */
+	public boolean expireEntry(ObjectWrapper wrapper, long timeNowMS)
+	{
+		ICacheObject			cacheObject			= wrapper.getTrellisObject();
+		IOperationContext		objectContext		= wrapper.getLock().lockWrite();
+		boolean					isSuccess			= false;
+		boolean					isRemoved			= false;
+		try
+		{
+			cacheObject.doMaintenance(timeNowMS, 100);
+			if (!cacheObject.canDelete())
+			{
+				scheduleExpiration(wrapper);
+			}
+			else if (getEntryTable().remove(wrapper))
+			{
+				getCounterFamily().recordRemove(wrapper);
+				getTrackingObjects().getEvictionPolicy().recordRemove(wrapper);
+				getCounterFamily().recordExpire();
+				isRemoved = true;
+			}
+			isSuccess = true;
+		}
+		catch (Exception exception)
+		{
+			getLogger().warn(BasicEvent.EVENT_CACHE_OBJECT_EXCEPTION_MAINTENANCE, exception,
+					"Unexpected exception processing doMaintenance() on object %s", cacheObject.toString());
+		}
+		finally
+		{
+			wrapper.getLock().unlockWrite(objectContext, isSuccess);
+		}
+		return isRemoved;
+	}
+	private void scheduleExpiration(ObjectWrapper wrapper)
+	{
+		ExpirationWheel			expirationWheel		= getTrackingObjects().getExpirationWheel();
+		if (null != expirationWheel)
+		{
+			expirationWheel.schedule(wrapper);
+		}
 	}
 
 	public void flush(long nowMS, long flushStartMS, long durationMS)
@@ -168,34 +302,42 @@ public class LocalObjectBin
 	{
 		IOperationContext							context		= getMapLock().lockWrite();
 
-		for (Entry<ObjectKey, ObjectWrapper> entry : m_entryMap.entrySet())
+		for (ObjectWrapper wrapper : m_entryTable.toArray())
 		{
-			getCounterFamily().recordRemove(entry.getKey());
-			getCounterFamily().recordFlush();
+			if (m_entryTable.remove(wrapper))
+			{
+				getCounterFamily().recordRemove(wrapper);
+				getTrackingObjects().getEvictionPolicy().recordRemove(wrapper);
+				getCounterFamily().recordFlush();
+			}
 		}
-		m_entryMap.clear();
 		getMapLock().unlockWrite(context, true);
 	}
 	public void flushSlow(long nowMS, long flushStartMS, long durationMS)
 	{
 		IOperationContext							context		= getMapLock().lockWrite();
 
-		int											count		= m_entryMap.size();
-		Iterator<Entry<ObjectKey, ObjectWrapper>>	iterator	= m_entryMap.entrySet().iterator();
-		int											iItem		= 0;
-		while (iterator.hasNext())
+		ObjectWrapper[]								wrapperList	= m_entryTable.toArray();
+		int											count		= wrapperList.length;
+		for (int iItem = 0; iItem < count; iItem++)
 		{
-			Entry<ObjectKey, ObjectWrapper>		entry			= iterator.next();
-			long								timeItemMS		= flushStartMS + ((durationMS * iItem++) / count);
-			ObjectWrapper						wrapper			= entry.getValue();
+			long								timeItemMS		= flushStartMS + ((durationMS * iItem) / count);
+			ObjectWrapper						wrapper			= wrapperList[iItem];
 			ICacheObject trellisObject	= wrapper.getTrellisObject();
 			trellisObject.flush(nowMS, timeItemMS);
 			if (trellisObject.canDelete())
 			{
-				iterator.remove();
-				ObjectKey						key				= entry.getKey();
-				getCounterFamily().recordRemove(key);
-				getCounterFamily().recordFlush();
+				if (m_entryTable.remove(wrapper))
+				{
+					getCounterFamily().recordRemove(wrapper);
+					getTrackingObjects().getEvictionPolicy().recordRemove(wrapper);
+					getCounterFamily().recordFlush();
+				}
+			}
+			else
+			{
+				// The object now expires at timeItemMS, earlier than when it is scheduled.
+				scheduleExpiration(wrapper);
 			}
 		}
 
@@ -207,9 +349,8 @@ public class LocalObjectBin
 		IOperationContext		context		= getMapLock().lockWrite();
 
 		// By definition, if the read lock is available, m_bucketCountCurrent allows the walk through all the buckets.
-		for (Map.Entry<ObjectKey, ObjectWrapper> entry : m_entryMap.entrySet())
+		for (ObjectWrapper wrapper : m_entryTable)
 		{
-			ObjectWrapper			wrapper			= entry.getValue();
 			ICacheObject cacheObject		= wrapper.getTrellisObject();
 			// Compare class name, as the same classNameFrom "may" exist in different ClassLoader
 			// and potentially show-up as different Class. It would still show-up as the same class name.
@@ -235,62 +376,87 @@ public class LocalObjectBin
 	}
 
 
+	/**
+	 * Runs the maintenance of the objects of this bin, in slices of at most maintenanceRequest.getBinBudgetNS(),
+	 * so that the map lock is never held for long, whatever the number of objects or the cost of their maintenance.
+	 * The objects are those present at the beginning of the pass; those created since are left to the next pass.
+	 * The map lock is released (and other threads get a chance at it) between the slices.
+	 *
+	 * @param maintenanceRequest	The parameters of the pass
+	 * @param maintenanceResponse	Where to accumulate the results of this bin
+	 */
 	public void doMaintenance(MaintenanceRequest maintenanceRequest, MaintenanceResponse maintenanceResponse)
 	{
 		long					keptCount				= 0;
 		long					removedCount			= 0;
 		long					size					= 0;
 
-		IOperationContext		mapContext				= getMapLock().lockWrite();
-		boolean					isSuccessMap			= true;
-		try
+		ObjectWrapper[]			wrapperList				= getWrapperList();
+		int						index					= 0;
+		while (index < wrapperList.length)
 		{
-			Iterator<Entry<ObjectKey, ObjectWrapper>> iterator		= getEntryMap().entrySet().iterator();
-			while (iterator.hasNext())
+			// Read the memory level once per slice, it may be lowered by the other bins of the pass.
+			long					sliceEndNS				= System.nanoTime() + maintenanceRequest.getBinBudgetNS();
+			int						memoryLevelPercent		= maintenanceRequest.getMemoryLevelPercent();
+			IOperationContext		mapContext				= getMapLock().lockWrite();
+			boolean					isSuccessMap			= true;
+			try
 			{
-				Map.Entry<ObjectKey, ObjectWrapper>		entry				= iterator.next();
-				ObjectWrapper							objectWrapper		= entry.getValue();
-				ICacheObject cacheObject			= objectWrapper.getTrellisObject();
-				IOperationContext						objectContext		= objectWrapper.getLock().lockWrite();
-				boolean									isSuccessObject		= false;
-				try
+				// At least one object per slice, the budget is checked after each object.
+				do
 				{
-					if (maintenanceRequest.isDirty())
+					ObjectWrapper							objectWrapper		= wrapperList[index++];
+					ICacheObject							cacheObject			= objectWrapper.getTrellisObject();
+					IOperationContext						objectContext		= objectWrapper.getLock().lockWrite();
+					boolean									isSuccessObject		= false;
+					try
 					{
-						cacheObject.updateConfiguration(getConfiguration());
+						if (maintenanceRequest.isDirty())
+						{
+							cacheObject.updateConfiguration(getConfiguration());
+						}
+
+						cacheObject.doMaintenance(maintenanceRequest.getTimeNowMS(), memoryLevelPercent);
+						if (cacheObject.canDelete())
+						{
+							// Only count it if it has not been removed by another thread in the meantime.
+							if (getEntryTable().remove(objectWrapper))
+							{
+								getCounterFamily().recordRemove(objectWrapper);
+								getTrackingObjects().getEvictionPolicy().recordRemove(objectWrapper);
+								getCounterFamily().recordExpire();
+								removedCount++;
+							}
+						}
+						else
+						{
+							keptCount++;
+							size += cacheObject.getSize();
+							scheduleExpiration(objectWrapper);
+						}
+						isSuccessObject = true;
 					}
-
-					cacheObject.doMaintenance(
-							maintenanceRequest.getTimeNowMS(), maintenanceRequest.getMemoryLevelPercent());
-					if (cacheObject.canDelete())
+					catch (Exception exception)
 					{
-						iterator.remove();
-						getCounterFamily().recordRemove(entry.getKey());
-						getCounterFamily().recordExpire();
-						removedCount++;
+						getLogger().warn(BasicEvent.EVENT_CACHE_OBJECT_EXCEPTION_MAINTENANCE, exception,
+								"Unexpected exception processing doMaintenance() on object %s", cacheObject.toString());
 					}
-					else
+					finally
 					{
-						keptCount++;
-						size += cacheObject.getSize();
+						objectWrapper.getLock().unlockWrite(objectContext, isSuccessObject);
+						isSuccessMap &= isSuccessObject;
 					}
-					isSuccessObject = true;
-				}
-				catch (Exception exception)
-				{
-					getLogger().warn(BasicEvent.EVENT_CACHE_OBJECT_EXCEPTION_MAINTENANCE, exception,
-							"Unexpected exception processing doMaintenance() on object %s", cacheObject.toString());
-				}
-				finally
-				{
-					objectWrapper.getLock().unlockWrite(objectContext, isSuccessObject);
-					isSuccessMap &= isSuccessObject;
 				}
+				while (index < wrapperList.length && System.nanoTime() < sliceEndNS);
+			}
+			finally
+			{
+				getMapLock().unlockWrite(mapContext, isSuccessMap);
+			}
+			if (index < wrapperList.length)
+			{
+				Thread.yield();
 			}
-		}
-		finally
-		{
-			getMapLock().unlockWrite(mapContext, isSuccessMap);
 		}
 
 		maintenanceResponse.incrementKeptCount(keptCount);
@@ -301,6 +467,6 @@ public class LocalObjectBin
 	@Override
 	public String toString()
 	{
-		return String.format("Bin %s: %,d items", m_binName, m_entryMap.size());
+		return String.format("Bin %s: %,d items", m_binName, m_entryTable.size());
 	}
 }
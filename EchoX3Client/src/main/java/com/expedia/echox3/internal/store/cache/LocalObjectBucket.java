@@ -5,15 +5,12 @@
 
 package com.expedia.echox3.internal.store.cache;
 
-import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 
 import com.expedia.echox3.basics.collection.simple.CopyOnSizeArray;
-import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.monitoring.event.BasicLogger;
-import com.expedia.echox3.basics.tools.misc.BasicTools;
 import com.expedia.echox3.basics.tools.time.TimeUnits;
 import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
 import com.expedia.echox3.internal.store.wrapper.ObjectKey;
@@ -36,6 +33,7 @@ public class LocalObjectBucket        // Bin type
 	private CopyOnSizeArray<LocalObjectBin>		m_binList;
 	private volatile int						m_binCountCurrent;
 	private volatile int						m_binCountPrevious			= 0;
+	private volatile LocalObjectMigration		m_binMigration				= null;
 
 	public LocalObjectBucket(ObjectCacheConfiguration configuration, TrackingObjects trackingObjects, int bucketNumber)
 	{
@@ -92,145 +90,119 @@ public class LocalObjectBucket        // Bin type
 		return new LocalObjectBin(getConfiguration(), getTrackingObjects(), getBucketName(), binNumber);
 	}
 
-	public void resize(int binCount)
+	/**
+	 * Starts an incremental resize of the bin list, the entries are moved by resizeStep().
+	 * Until the resize is complete, the entries are looked-up in both their previous and their current bin.
+	 *
+	 * @param binCount		The new number of bins
+	 * @param statistics	Where to record the resize steps
+	 * @return				false if there is nothing to do or a resize is already in progress
+	 */
+	public boolean startResize(int binCount, LocalObjectMigration.Statistics statistics)
 	{
-		if (m_binList.length() == binCount)
+		if (null != m_binMigration || m_binCountCurrent == binCount)
 		{
-			// No change!
-			return;
+			return false;
 		}
 
 		int		binCountPrevious	= m_binCountCurrent;
 		int		binCountCurrent		= binCount;
-		if (binCount > m_binList.length())
+		int		binCountAllocated	= m_binList.length();
+		if (binCount > binCountAllocated)
 		{
 			// Adjust the m_binList at the beginning if going bigger...
+			// the bins left past the current count by a previous shrink are empty and reused as-is.
 			m_binList.resize(binCount);
-			fillBinList(m_binList, binCountPrevious, binCountCurrent);
+			fillBinList(m_binList, binCountAllocated, binCountCurrent);
+		}
+
+		LocalObjectBin[]	binFromList		= new LocalObjectBin[binCountPrevious];
+		for (int i = 0; i < binCountPrevious; i++)
+		{
+			binFromList[i] = m_binList.get(i);
 		}
 
+		// Previous first, so a reader never looks only at a bin the entry has not yet been moved to.
 		m_binCountPrevious	= binCountPrevious;
 		m_binCountCurrent	= binCountCurrent;
+		m_binMigration		= new LocalObjectMigration(getBucketName(), binFromList, this::getBinCurrent, statistics);
+		return true;
+	}
 
-		long					t1				= System.nanoTime();
-		long					itemCount		= 0;
-		for (int i = 0; i < m_binCountPrevious; i++)
+	/**
+	 * Runs a bounded step of the resize in progress, if any.
+	 *
+	 * @param itemCountMax	Bound on the number of entries walked by this step
+	 * @return				true when no resize is in progress anymore
+	 */
+	public boolean resizeStep(int itemCountMax)
+	{
+		LocalObjectMigration		migration		= m_binMigration;
+		if (null == migration)
 		{
-			LocalObjectBin binFrom			= m_binList.get(i);
-			// Lock the map of the bin for write, as items are moved out of this map
-			IOperationContext				contextMap		= binFrom.getMapLock().lockWrite();
-			Map<ObjectKey, ObjectWrapper>	itemMap			= binFrom.getEntryMap();
-			{
-				Iterator<Map.Entry<ObjectKey, ObjectWrapper>> iterator	= itemMap.entrySet().iterator();
-				while (iterator.hasNext())
-				{
-					itemCount++;
-					Map.Entry<ObjectKey, ObjectWrapper>		entry		= iterator.next();
-					ObjectKey								itemKey		= entry.getKey();
-					int										hash		= itemKey.getKeyForBin();
-					int										binIndex	= hash % m_binCountCurrent;
-					if (binIndex != i)
-					{
-						// Need to lock the bin where the write is taking place
-						ObjectWrapper		objectWrapper	= entry.getValue();
-						LocalObjectBin bin				= m_binList.get(binIndex);
-						bin.moveEntryInto(objectWrapper);		// into the appropriate bin of this bucket
-						iterator.remove();		// Remove only after put, so other thread can always find the item.
-					}
-//						else
-//						{
-//							continue;	// Already in the correct bin
-//						}
-				}
-			}
-			binFrom.getMapLock().unlockWrite(contextMap, true);
-
-			// TODO  Magic number (75): Set to Eviction level
-			// Apply pacing to avoid triggering an old gen GC.
-			// i.e. Do not free objects (e.g. from old HashMap) faster than GC can keep-up with.
-			while (75 < BasicTools.getHeapPercent(false))
-			{
-				BasicTools.sleepMS(1000);
-			}
+			return true;
+		}
+		if (!migration.step(itemCountMax))
+		{
+			return false;
 		}
 
-		long				t2				= System.nanoTime();
-		long				durationNS		= t2 - t1;
 		getLogger().info(BasicEvent.EVENT_BIN_COUNT_CHANGE,
-				"Bucket %s (%,d items) resized from %,d bins to %,d bins in %s",
-				getBucketName(), itemCount, m_binCountPrevious, m_binCountCurrent,
-				TimeUnits.formatNS(durationNS));
+				"Bucket %s (Moved %,d items) resized from %,d bins to %,d bins in %s",
+				getBucketName(), migration.getItemCountMoved(), m_binCountPrevious, m_binCountCurrent,
+				TimeUnits.formatNS(migration.getDurationNS()));
+
+		m_binCountPrevious = 0;		// All items are where they belong
+		// When going smaller, the m_binList is NOT shrunk: a reader may still hold the previous count.
+		// The bins past the current count are empty and are reused by the next resize going bigger.
+		m_binMigration = null;
+		return true;
+	}
 
-		// Adjust the m_binList at the end if going smaller...
-		if (binCount < m_binList.length())
-		{
-			m_binList.resize(binCount);
-		}
+	public LocalObjectMigration getBinMigration()
+	{
+		return m_binMigration;
 	}
 
 	/**
-	 * Request from the cache to re-distribute the items in this bucket amongst
-	 * presumably newly created buckets in the (presumably the owner of this bucket)
-	 * cache specified as the parameter.
-	 * Typically called when changing the number of buckets.
-	 *
-	 * NOTE: No counter operation as the item stays in the same cache.
+	 * The bins of this bucket, for the incremental move of the items to other buckets,
+	 * when the number of buckets changes (see LocalObjectCache.multiplyBucketCount()).
+	 * Never called while a resize of the bins is in progress.
 	 *
-	 * @param cacheTo    cache where the items are going.
+	 * @return	The bins of this bucket
 	 */
-	public long moveItems(LocalObjectCache cacheTo)
+	public LocalObjectBin[] getBinList()
 	{
-		// Move the items one bin at a time...
-		// The bin list must be locked during the move.
-		// ok to be in the middle of a bin resize, but the bin resize is interrupted
-		long		itemCount		= 0;
-		for (int iBin = 0; iBin < m_binCountCurrent; iBin++)
+		LocalObjectBin[]	binList		= new LocalObjectBin[m_binList.length()];
+		for (int i = 0; i < binList.length; i++)
 		{
-			LocalObjectBin bin				= m_binList.get(iBin);
-			IOperationContext		binContext		= bin.getMapLock().lockWrite();
-
-			Iterator<Map.Entry<ObjectKey, ObjectWrapper>>
-									iterator		= bin.getEntryMap().entrySet().iterator();
-			while (iterator.hasNext())
-			{
-				Map.Entry<ObjectKey, ObjectWrapper>
-									entry				= iterator.next();
-				ObjectKey			key					= entry.getKey();
-				int					bucketNumber		= key.getKeyForMap() % cacheTo.getBucketCountCurrent();
-				if (bucketNumber != m_bucketNumber)
-				{
-					itemCount++;
-					ObjectWrapper		objectWrapper	= entry.getValue();
-					LocalObjectBucket	bucket			= cacheTo.getBucketList().get(bucketNumber);
-					bucket.moveEntryIntoBin(objectWrapper);		// into the appropriate bin of the other bucket
-					iterator.remove();
-				}
-			}
-			bin.getMapLock().unlockWrite(binContext, true);
+			binList[i] = m_binList.get(i);
 		}
-		return itemCount;
+		return binList;
 	}
-	// NOTE: No counter operation as the item stays in the same cache.
-	private void moveEntryIntoBin(ObjectWrapper objectWrapper)
+
+	// The bin where an entry belongs, with the current number of bins.
+	public LocalObjectBin getBinCurrent(ObjectKey key)
 	{
-		int					binIndex		= objectWrapper.getKeyForBin() % m_binCountCurrent;
-		LocalObjectBin bin				= m_binList.get(binIndex);
-		bin.moveEntryInto(objectWrapper);
+		return m_binList.get(key.getKeyForBin() % m_binCountCurrent);
 	}
 
 	public ObjectWrapper getEntry(ObjectKey key, LocalObjectFactoryWrapper factory) throws BasicException
 	{
 		ObjectWrapper		entry		= null;
 		int					hash		= key.getKeyForBin();
-		if (0 != m_binCountPrevious)	// In case the # of bins is in the middle of a resize
+		// Current first, startResize() publishes previous first: a new current always comes with its previous.
+		int					binCountCurrent		= m_binCountCurrent;
+		int					binCountPrevious	= m_binCountPrevious;
+		if (0 != binCountPrevious)	// In case the # of bins is in the middle of a resize
 		{
-			int				binIndex	= hash % m_binCountPrevious;
+			int				binIndex	= hash % binCountPrevious;
 			LocalObjectBin bin			= m_binList.get(binIndex);
 			entry = bin.getEntry(key, null);
 		}
 		if (null == entry)
 		{
-			int				binIndex	= hash % m_binCountCurrent;
+			int				binIndex	= hash % binCountCurrent;
 			LocalObjectBin bin			= m_binList.get(binIndex);
 			entry = bin.getEntry(key, factory);
 		}
@@ -241,22 +213,54 @@ public class LocalObjectBucket        // Bin type
 	{
 		// Note that although bin.deleteEntry is called twice, the entry will only exist in one of the bins.
 
-		if (0 != m_binCountPrevious)
+		int					hash				= key.getKeyForBin();
+		int					binCountCurrent		= m_binCountCurrent;
+		int					binCountPrevious	= m_binCountPrevious;
+		if (0 != binCountPrevious)
 		{
 			// if applicable, remove it from the previous bin (do this first, so it does not  get move under us
-			int					hash		= key.getKeyForBin();
-			int					binIndex	= hash % m_binCountPrevious;
+			int					binIndex	= hash % binCountPrevious;
 			LocalObjectBin bin			= m_binList.get(binIndex);
 			bin.deleteEntry(key);
 		}
 
 		// Remove it from the current bin
-		int hash = key.getKeyForBin();
-		int binIndex = hash % m_binCountCurrent;
+		int binIndex = hash % binCountCurrent;
 		LocalObjectBin bin = m_binList.get(binIndex);
 		bin.deleteEntry(key);
 	}
 
+	// The victim is in the previous bin if it has not been moved yet, or in the current bin.
+	public boolean evictEntry(ObjectWrapper wrapper)
+	{
+		int					hash				= wrapper.getKeyForBin();
+		int					binCountCurrent		= m_binCountCurrent;
+		int					binCountPrevious	= m_binCountPrevious;
+		if (0 != binCountPrevious && m_binList.get(hash % binCountPrevious).evictEntry(wrapper))
+		{
+			return true;
+		}
+		return m_binList.get(hash % binCountCurrent).evictEntry(wrapper);
+	}
+
+	// The bin holding exactly this entry, null if it is no longer in this bucket.
+	public LocalObjectBin getBin(ObjectWrapper wrapper)
+	{
+		int					hash				= wrapper.getKeyForBin();
+		int					binCountCurrent		= m_binCountCurrent;
+		int					binCountPrevious	= m_binCountPrevious;
+		if (0 != binCountPrevious)
+		{
+			LocalObjectBin		bin			= m_binList.get(hash % binCountPrevious);
+			if (bin.containsEntry(wrapper))
+			{
+				return bin;
+			}
+		}
+		LocalObjectBin		bin			= m_binList.get(hash % binCountCurrent);
+		return bin.containsEntry(wrapper) ? bin : null;
+	}
+
 	public long getItemCount()
 	{
 		long					count		= 0;
@@ -272,6 +276,14 @@ public class LocalObjectBucket        // Bin type
 		return m_binCountCurrent;
 	}
 
+	public void addBinListTo(List<LocalObjectBin> binList)
+	{
+		for (int i = 0; i < m_binList.length(); i++)
+		{
+			binList.add(m_binList.get(i));
+		}
+	}
+
 
 	public void flush(long nowMS, long flushStartMS, long durationMS)
 	{
@@ -296,7 +308,7 @@ public class LocalObjectBucket        // Bin type
 
 	public void doMaintenance(MaintenanceRequest maintenanceRequest, MaintenanceResponse maintenanceResponse)
 	{
-		maintenanceResponse.incrementBinCount(m_binList.length());
+		maintenanceResponse.incrementBinCount(m_binCountCurrent);
 
 		for (int i = 0; i < m_binList.length(); i++)
 		{
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.cache;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+
+/**
+ * Runs the keys of a bulk readOnly()/writeOnly() of a LocalObjectCache, in chunks of KEY_CHUNK_SIZE keys
+ * (also the segments of a snapshot, see LocalObjectSnapshot).
+ *
+ * The chunks run in the calling thread, or in parallel on a fork-join pool shared by all the caches
+ * when the request has enough keys (see ObjectCacheConfiguration.getBulkParallelKeyMin()).
+ * The first exception stops the chunks not yet started and is thrown to the caller.
+ */
+public class LocalObjectBulk
+{
+	public static final int						KEY_CHUNK_SIZE		= 256;
+
+	private static final ForkJoinPool			BULK_POOL			= new ForkJoinPool(
+			Runtime.getRuntime().availableProcessors(), LocalObjectBulk::createThread, null, false);
+
+	/**
+	 * Private constructor that is NEVER called, as this is a utility class (static only).
+	 */
+	private LocalObjectBulk()
+	{
+		// Nothing to do
+	}
+
+	private static ForkJoinWorkerThread createThread(ForkJoinPool pool)
+	{
+		ForkJoinWorkerThread		thread		= ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName(String.format("%s-%d", LocalObjectBulk.class.getSimpleName(), thread.getPoolIndex()));
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@FunctionalInterface
+	public interface IChunkProcessor
+	{
+		void processChunk(int indexMin, int indexMax) throws BasicException;
+	}
+
+	/**
+	 * Processes the keys 0 to keyCount, by chunk.
+	 *
+	 * @param keyCount		The number of keys of the request
+	 * @param isParallel	true to run the chunks on the pool, false to run them in the calling thread
+	 * @param processor		Processes a range of keys
+	 * @throws BasicException	The first exception thrown by the processor
+	 */
+	public static void process(int keyCount, boolean isParallel, IChunkProcessor processor) throws BasicException
+	{
+		process(keyCount, KEY_CHUNK_SIZE, isParallel, processor);
+	}
+	/**
+	 * Same as process(int, boolean, IChunkProcessor), in chunks of chunkSize (e.g. 1 for a few large items).
+	 *
+	 * @param keyCount		The number of items
+	 * @param chunkSize		The number of items per chunk
+	 * @param isParallel	true to run the chunks on the pool, false to run them in the calling thread
+	 * @param processor		Processes a range of items
+	 * @throws BasicException	The first exception thrown by the processor
+	 */
+	public static void process(int keyCount, int chunkSize, boolean isParallel, IChunkProcessor processor)
+			throws BasicException
+	{
+		int				chunkCount		= (keyCount + chunkSize - 1) / chunkSize;
+		if (!isParallel || 1 >= chunkCount)
+		{
+			// Not worth a trip through the pool.
+			processor.processChunk(0, keyCount);
+			return;
+		}
+
+		BulkJob			job				= new BulkJob(keyCount, chunkSize, processor);
+		BULK_POOL.invoke(new BulkTask(job, 0, chunkCount));
+		if (null != job.m_exception.get())
+		{
+			throw job.m_exception.get();
+		}
+	}
+
+	private static class BulkJob
+	{
+		private final int								m_keyCount;
+		private final int								m_chunkSize;
+		private final IChunkProcessor					m_processor;
+		private final AtomicReference<BasicException>	m_exception		= new AtomicReference<>();
+
+		public BulkJob(int keyCount, int chunkSize, IChunkProcessor processor)
+		{
+			m_keyCount = keyCount;
+			m_chunkSize = chunkSize;
+			m_processor = processor;
+		}
+
+		public void processChunk(int chunkIndex)
+		{
+			if (null != m_exception.get())
+			{
+				return;			// No point in continuing, the request has already failed.
+			}
+
+			int			indexMin		= chunkIndex * m_chunkSize;
+			int			indexMax		= Math.min(m_keyCount, indexMin + m_chunkSize);
+			try
+			{
+				m_processor.processChunk(indexMin, indexMax);
+			}
+			catch (BasicException exception)
+			{
+				m_exception.compareAndSet(null, exception);
+			}
+		}
+	}
+
+	private static class BulkTask extends RecursiveAction
+	{
+		private static final long		serialVersionUID		= 1L;
+
+		private final transient BulkJob		m_job;
+		private final int					m_indexMin;
+		private final int					m_indexMax;
+
+		public BulkTask(BulkJob job, int indexMin, int indexMax)
+		{
+			m_job = job;
+			m_indexMin = indexMin;
+			m_indexMax = indexMax;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (1 == (m_indexMax - m_indexMin))
+			{
+				m_job.processChunk(m_indexMin);
+			}
+			else
+			{
+				int			indexMiddle		= (m_indexMin + m_indexMax) >>> 1;
+				invokeAll(new BulkTask(m_job, m_indexMin, indexMiddle),
+						new BulkTask(m_job, indexMiddle, m_indexMax));
+			}
+		}
+	}
+}
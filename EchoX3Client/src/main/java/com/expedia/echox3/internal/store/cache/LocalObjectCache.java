@@ -6,14 +6,24 @@
 package com.expedia.echox3.internal.store.cache;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Level;
 
 import com.expedia.echox3.basics.collection.simple.CopyOnSizeArray;
+import com.expedia.echox3.basics.collection.simple.CopyOnWriteSimpleMap;
 import com.expedia.echox3.basics.collection.simple.ObjectPool;
 import com.expedia.echox3.basics.collection.simple.StringGroup;
 import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
@@ -28,10 +38,15 @@ import com.expedia.echox3.basics.tools.serial.BasicSerial;
 import com.expedia.echox3.basics.tools.time.TimeUnits;
 import com.expedia.echox3.basics.tools.time.WallClock;
 import com.expedia.echox3.internal.store.counter.ItemCounterFamily;
+import com.expedia.echox3.internal.store.eviction.AbstractEvictionPolicy;
+import com.expedia.echox3.internal.store.eviction.IEvictionPolicy;
+import com.expedia.echox3.internal.store.eviction.IEvictionPolicy.PolicyType;
+import com.expedia.echox3.internal.store.expiration.ExpirationWheel;
 import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
 import com.expedia.echox3.internal.store.wrapper.ObjectKey;
 import com.expedia.echox3.internal.store.wrapper.TrackingObjects;
 import com.expedia.echox3.visible.trellis.ICacheObject;
+import com.expedia.echox3.visible.trellis.IObjectCacheClient.ITrellisReducer;
 import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
 
 public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
@@ -46,10 +61,12 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		Flush,
 		Resize,
 		Transmit,
-		Receive
+		Receive,
+		Snapshot
 	}
 
 	private static final BasicLogger LOGGER				= new BasicLogger(LocalObjectCache.class);
+	private static final long			EXPIRATION_TICK_MS	= 1000;
 
 	private final ObjectPool<ObjectKey>				m_keyPool;
 
@@ -61,17 +78,40 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 	private CopyOnSizeArray<LocalObjectBucket>		m_bucketList;
 	private volatile int							m_bucketCountCurrent;
 	private volatile int							m_bucketCountPrevious			= 0;
+	// Resize: written by the maintenance thread only, except m_bucketMultiplierPending.
+	private volatile int							m_bucketMultiplierPending		= 0;
+	private volatile LocalObjectMigration			m_bucketMigration				= null;
+	private final LocalObjectMigration.Statistics	m_resizeStatistics				=
+			new LocalObjectMigration.Statistics();
+	// Set by a flush, the maintenance thread then drops the removed entries from the ExpirationWheel.
+	private final AtomicBoolean						m_isExpirationPurgeNeeded		= new AtomicBoolean(false);
 
 	private final StringGroup						m_mbeanName;
 	private final MaintenanceThread					m_maintenanceThread;
 
 	private boolean									m_isSimpleCache					= false;
 	private final LocalObjectFactoryWrapper m_factoryWrapper;
+	// Server singleton of each reducer class, re-created after a flush, as new class definitions may have been pushed.
+	private volatile CopyOnWriteSimpleMap<String, ITrellisReducer>	m_reducerMap	= new CopyOnWriteSimpleMap<>();
+	// null when the cache is not persisted; the last snapshot is written by the maintenance thread or close().
+	private final LocalObjectSnapshot				m_snapshot;
+	private volatile long							m_snapshotTimeMS;
+	// null when the writes are not logged; the log is kept with the snapshot and compacted by it.
+	private final LocalObjectWriteLog				m_writeLog;
 
 	public LocalObjectCache(ObjectCacheConfiguration configuration)
 	{
 		m_configuration = configuration;
 		m_trackingObjects = new TrackingObjects(configuration.getCacheName());
+		m_trackingObjects.setItemLockStripeCount(configuration.getItemLockStripeCount());
+		m_trackingObjects.setEvictionPolicy(
+				AbstractEvictionPolicy.createPolicy(configuration.getEvictionPolicy(), configuration.getSizeMax()));
+		if (configuration.isSimpleCache())
+		{
+			// The objects of the simple cache only expire, the maintenance visits them when they are due.
+			m_trackingObjects.setExpirationWheel(
+					new ExpirationWheel(EXPIRATION_TICK_MS, WallClock.getCurrentTimeMS()));
+		}
 
 		String[]		nameList		= new String[2];
 		nameList[0] = ObjectKey.class.getSimpleName();
@@ -88,6 +128,20 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		getLogger().info(BasicEvent.EVENT_CACHE_CREATE,
 				"Creating cache %s.", configuration.getCacheName());
 
+		// Warm restart: the objects of the last snapshot are loaded before the cache is available.
+		String			snapshotFolder	= m_configuration.getSnapshotFolder();
+		m_snapshot = snapshotFolder.isEmpty() ? null : new LocalObjectSnapshot(getCacheName(), new File(snapshotFolder));
+		m_snapshotTimeMS = WallClock.getCurrentTimeMS();
+		m_writeLog = createWriteLog(snapshotFolder);
+		if (null != m_snapshot)
+		{
+			loadSnapshot();
+		}
+		if (null != m_writeLog)
+		{
+			openWriteLog();
+		}
+
 		m_maintenanceThread = new MaintenanceThread(this);
 
 		m_mbeanName = new StringGroup(new String[]
@@ -105,7 +159,23 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 	{
 		getLogger().info(BasicEvent.EVENT_CACHE_CLOSE,
 				"Closing cache %s.", getConfiguration().getCacheName());
-		flush(0);
+		if (null != m_snapshot)
+		{
+			try
+			{
+				writeSnapshot();
+			}
+			catch (BasicException exception)
+			{
+				getLogger().error(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED, exception,
+						"Cache %s: The snapshot could not be written, the cache will restart empty.", getCacheName());
+			}
+		}
+		if (null != m_writeLog)
+		{
+			m_writeLog.close();
+		}
+		flushEntries(0);		// Only to release the objects, not logged
 		m_keyPool.release();
 		m_maintenanceThread.terminate();
 		m_factoryWrapper.close();
@@ -187,6 +257,8 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		// Deal with the factory ...
 		getFactoryWrapper().updateConfiguration();
 		m_isSimpleCache = m_configuration.isSimpleCache();
+		// The policy itself is chosen when the cache is created, only its maximum size can change.
+		getTrackingObjects().getEvictionPolicy().setSizeMax(m_configuration.getSizeMax());
 
 		// Tell the maintenance thread to do the required update...
 		//	- Update its schedule
@@ -200,6 +272,21 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		return getConfiguration().getFactoryClassName();
 	}
 
+	@Override
+	public String getEvictionPolicy()
+	{
+		return getTrackingObjects().getEvictionPolicy().getPolicyType().name();
+	}
+	@Override
+	public long getEvictionSize()
+	{
+		return getTrackingObjects().getEvictionPolicy().getSize();
+	}
+	private boolean isEvictionPolicyActive()
+	{
+		return PolicyType.None != getTrackingObjects().getEvictionPolicy().getPolicyType();
+	}
+
 	@Override
 	public String getMaintenancePeriod()
 	{
@@ -238,53 +325,183 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 	 * Multiply the number of buckets by 3. There are now 12 buckets (0, 1, 2, ..., 11)
 	 * The buckets on this server (there should be 3) are now 2, 6 and 10.
 	 *
+	 * The items are moved incrementally, by the maintenance thread, in bounded steps (see LocalObjectMigration).
+	 *
 	 * @param multiplicationFactor	Integer multiplier to the number of buckets
 	 */
 	public void multiplyBucketCount(int multiplicationFactor)
 	{
-		// TODO Manage cache mode...
-		setCacheMode(CacheMode.Resize);
-
+		// The items are moved incrementally by the maintenance thread, see startResize().
+		m_bucketMultiplierPending = multiplicationFactor;
+		m_maintenanceThread.requestImmediateRun();
+	}
+	private void startBucketMigration(int multiplicationFactor)
+	{
 		// Create newly needed buckets
-		int		bucketCountPrevious		= m_bucketList.length();
-		int		bucketCountCurrent		= m_bucketCountPrevious * multiplicationFactor;
+		int		bucketCountPrevious		= m_bucketCountCurrent;
+		int		bucketCountCurrent		= bucketCountPrevious * multiplicationFactor;
 		m_bucketList.resize(bucketCountCurrent);
-		m_bucketCountPrevious	= bucketCountPrevious;
-		m_bucketCountCurrent	= bucketCountCurrent;
 
-		long					t1				= System.nanoTime();
-		for (int iMult = 1; iMult < multiplicationFactor; iMult++)		// Note the start at 1, not 0
+		List<LocalObjectBin>		binFromList		= new ArrayList<>();
+		for (int iBucket = 0; iBucket < bucketCountPrevious; iBucket++)
 		{
-			for (int iBucket = 0; iBucket < m_bucketCountPrevious; iBucket++)
+			// Only if there is a corresponding ACTIVE bucket in the original bucket list
+			LocalObjectBucket		bucket			= m_bucketList.get(iBucket);
+			if (null != bucket)
 			{
-				// This is a new bucket to create, only if there is a corresponding ACTIVE bucket
-				// in the original bucket list
-				if (null != m_bucketList.get(iBucket))
+				Collections.addAll(binFromList, bucket.getBinList());
+				for (int iMult = 1; iMult < multiplicationFactor; iMult++)		// Note the start at 1, not 0
 				{
-					int		bucketIndex		= (iMult * m_bucketCountPrevious) + iBucket;
+					int		bucketIndex		= (iMult * bucketCountPrevious) + iBucket;
 					m_bucketList.set(bucketIndex, createBucket(bucketIndex));
 				}
 			}
 		}
 
-		// Move the items from the previous list of buckets to the newly created buckets as needed...
-		long					itemCount		= 0;
-		for (int iBucket = 0; iBucket < m_bucketCountPrevious; iBucket++)
+		// Previous first, so a reader never looks only at a bucket the entry has not yet been moved to.
+		m_bucketCountPrevious	= bucketCountPrevious;
+		m_bucketCountCurrent	= bucketCountCurrent;
+		m_bucketMigration		= new LocalObjectMigration(getCacheName(),
+				binFromList.toArray(new LocalObjectBin[binFromList.size()]), this::getBinCurrent, m_resizeStatistics);
+	}
+	// The bin where an entry belongs, with the current number of buckets.
+	private LocalObjectBin getBinCurrent(ObjectKey key)
+	{
+		return m_bucketList.get(key.getKeyForBucket() % m_bucketCountCurrent).getBinCurrent(key);
+	}
+
+	// Called by the maintenance thread: a resize of the buckets waits for the resizes of bins to complete.
+	private void startResize()
+	{
+		if (null != m_bucketMigration)
 		{
-			LocalObjectBucket bucket		= m_bucketList.get(iBucket);
-			itemCount += bucket.moveItems(this);
+			return;
 		}
 
-		long				t2				= System.nanoTime();
-		long				durationNS		= t2 - t1;
-		getLogger().info(BasicEvent.EVENT_BUCKET_COUNT_CHANGE,
-				"Cache %s (Moved %,d items) multiplied by %,d from %,d buckets to %,d buckets in %s",
-				getCacheName(), itemCount, multiplicationFactor, m_bucketCountPrevious, m_bucketCountCurrent,
-				TimeUnits.formatNS(durationNS));
+		int			multiplicationFactor	= m_bucketMultiplierPending;
+		if (0 != multiplicationFactor)
+		{
+			if (!isBinResizeInProgress())
+			{
+				m_bucketMultiplierPending = 0;
+				startBucketMigration(multiplicationFactor);
+			}
+			return;
+		}
 
-		setCacheMode(CacheMode.Nominal);
-		m_bucketCountPrevious = 0;		// All items are where they belong
+		// As needed, adjust the number of bins in each bucket, as needed...
+		for (int i = 0; i < m_bucketList.length(); i++)
+		{
+			LocalObjectBucket bucket	= m_bucketList.get(i);
+			if (null == bucket)
+			{
+				// This bucket is not on this server
+				continue;
+			}
+			long		itemCount		= bucket.getItemCount();
+			int			binCount		= bucket.getBinCountCurrent();
+			int			itemPerBin		= (int) (itemCount / binCount);
+			if (itemPerBin > getConfiguration().getBinItemMax())
+			{
+				// The bucket has too many items per bin, resize it
+				// Note the new size is  dependent on the CURRENT number of items in the bucket.
+				// This makes the new number of buckets variable and not a constant series.
+				int		itemPerBinTarget	= getConfiguration().getBinItemMax() / 7;
+				int		binCountTarget		= (int) itemCount / itemPerBinTarget;
+				binCount = PrimeNumbers.nextPrime(binCountTarget);
+				bucket.startResize(binCount, m_resizeStatistics);
+			}
+		}
 	}
+	private boolean isBinResizeInProgress()
+	{
+		for (int i = 0; i < m_bucketList.length(); i++)
+		{
+			LocalObjectBucket		bucket		= m_bucketList.get(i);
+			if (null != bucket && null != bucket.getBinMigration())
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * One bounded step of the resize in progress: the buckets, or one step in each bucket resizing its bins.
+	 *
+	 * @param itemCountMax	Bound on the number of entries walked by each step
+	 * @return				true when no resize is in progress anymore
+	 */
+	/* package */ boolean resizeStep(int itemCountMax)
+	{
+		LocalObjectMigration		migration		= m_bucketMigration;
+		if (null != migration)
+		{
+			if (migration.step(itemCountMax))
+			{
+				getLogger().info(BasicEvent.EVENT_BUCKET_COUNT_CHANGE,
+						"Cache %s (Moved %,d items) resized from %,d buckets to %,d buckets in %s",
+						getCacheName(), migration.getItemCountMoved(), m_bucketCountPrevious, m_bucketCountCurrent,
+						TimeUnits.formatNS(migration.getDurationNS()));
+				m_bucketCountPrevious = 0;		// All items are where they belong
+				m_bucketMigration = null;
+			}
+			return false;
+		}
+
+		boolean			isComplete		= true;
+		for (int i = 0; i < m_bucketList.length(); i++)
+		{
+			LocalObjectBucket		bucket		= m_bucketList.get(i);
+			if (null != bucket)
+			{
+				isComplete &= bucket.resizeStep(itemCountMax);
+			}
+		}
+		return isComplete;
+	}
+
+	@Override
+	public String getResizeStatus()
+	{
+		LocalObjectMigration		migration		= m_bucketMigration;
+		if (null != migration)
+		{
+			return migration.toString();
+		}
+		StringBuilder		sb		= new StringBuilder();
+		for (int i = 0; i < m_bucketList.length(); i++)
+		{
+			LocalObjectBucket		bucket		= m_bucketList.get(i);
+			migration = null == bucket ? null : bucket.getBinMigration();
+			if (null != migration)
+			{
+				sb.append(0 == sb.length() ? "" : "; ").append(migration.toString());
+			}
+		}
+		return 0 == sb.length() ? (0 == m_bucketMultiplierPending ? "Idle" : "Pending") : sb.toString();
+	}
+	@Override
+	public long getResizeItemMovedCount()
+	{
+		return m_resizeStatistics.getItemCountMoved();
+	}
+	@Override
+	public long getResizeStepCount()
+	{
+		return m_resizeStatistics.getStepCount();
+	}
+	@Override
+	public long getResizeStepAverageUS()
+	{
+		return m_resizeStatistics.getStepDurationAverageUS();
+	}
+	@Override
+	public long getResizeStepMaxUS()
+	{
+		return m_resizeStatistics.getStepDurationMaxUS();
+	}
+
 	private LocalObjectBucket createBucket(int bucketNumber)
 	{
 		return new LocalObjectBucket(getConfiguration(), getTrackingObjects(), bucketNumber);
@@ -294,10 +511,13 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 	{
 		ObjectWrapper			entry		= null;
 
-		int					hash			= key.getKeyForBucket();
-		if (0 != m_bucketCountPrevious)
+		int					hash				= key.getKeyForBucket();
+		// Current first, startBucketMigration() publishes previous first: a new current comes with its previous.
+		int					bucketCountCurrent	= m_bucketCountCurrent;
+		int					bucketCountPrevious	= m_bucketCountPrevious;
+		if (0 != bucketCountPrevious)
 		{
-			int					bucketIndex		= hash % m_bucketCountPrevious;
+			int					bucketIndex		= hash % bucketCountPrevious;
 			LocalObjectBucket bucket			= m_bucketList.get(bucketIndex);
 			if (null != bucket)
 			{
@@ -306,7 +526,7 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		}
 		if (null == entry)
 		{
-			int					bucketIndex		= hash % m_bucketCountCurrent;
+			int					bucketIndex		= hash % bucketCountCurrent;
 			LocalObjectBucket bucket			= m_bucketList.get(bucketIndex);
 			entry = bucket.getEntry(key, factory);
 		}
@@ -315,28 +535,126 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 	}
 	private void deleteEntry(ObjectKey key) throws BasicException
 	{
-		if (0 != m_bucketCountPrevious)
+		int					hash				= key.getKeyForBucket();
+		int					bucketCountCurrent	= m_bucketCountCurrent;
+		int					bucketCountPrevious	= m_bucketCountPrevious;
+		if (0 != bucketCountPrevious)
 		{
-			int					hash			= key.getKeyForBucket();
-			int					bucketIndex		= hash % m_bucketCountCurrent;
+			int					bucketIndex		= hash % bucketCountPrevious;
 			LocalObjectBucket bucket			= m_bucketList.get(bucketIndex);
-			bucket.deleteEntry(key);
+			if (null != bucket)
+			{
+				bucket.deleteEntry(key);
+			}
 		}
 
-		int					hash			= key.getKeyForBucket();
-		int					bucketIndex		= hash % m_bucketCountCurrent;
+		int					bucketIndex		= hash % bucketCountCurrent;
 		LocalObjectBucket bucket			= m_bucketList.get(bucketIndex);
 		bucket.deleteEntry(key);
 	}
 
+	// Removes the victims selected by the eviction policy, outside of its lock.
+	void evictPending()
+	{
+		IEvictionPolicy		policy		= getTrackingObjects().getEvictionPolicy();
+		ObjectWrapper		wrapper;
+		while (null != (wrapper = policy.pollVictim()))
+		{
+			evictEntry(wrapper);
+		}
+	}
+	private void evictEntry(ObjectWrapper wrapper)
+	{
+		int					hash				= wrapper.getKeyForBucket();
+		int					bucketCountCurrent	= m_bucketCountCurrent;
+		int					bucketCountPrevious	= m_bucketCountPrevious;
+		if (0 != bucketCountPrevious)
+		{
+			LocalObjectBucket	bucket			= m_bucketList.get(hash % bucketCountPrevious);
+			if (null != bucket && bucket.evictEntry(wrapper))
+			{
+				return;
+			}
+		}
+		LocalObjectBucket	bucket			= m_bucketList.get(hash % bucketCountCurrent);
+		if (null != bucket)
+		{
+			bucket.evictEntry(wrapper);
+		}
+	}
+
+	// Removes the due entries of the ExpirationWheel, those not yet expired are scheduled again.
+	private long expireDue(long timeNowMS)
+	{
+		ExpirationWheel			expirationWheel		= getTrackingObjects().getExpirationWheel();
+		if (null == expirationWheel)
+		{
+			return 0;
+		}
+
+		if (m_isExpirationPurgeNeeded.getAndSet(false))
+		{
+			expirationWheel.purge(wrapper -> null != getBin(wrapper));
+		}
+		List<ObjectWrapper>		dueList				= new ArrayList<>();
+		expirationWheel.advance(timeNowMS, dueList);
+		long					removedCount		= 0;
+		for (ObjectWrapper wrapper : dueList)
+		{
+			LocalObjectBin			bin					= getBin(wrapper);
+			if (null != bin && bin.expireEntry(wrapper, timeNowMS))
+			{
+				removedCount++;
+			}
+		}
+		return removedCount;
+	}
+	// The bin holding exactly this entry (in the previous or current bucket), null if it is no longer in the cache.
+	private LocalObjectBin getBin(ObjectWrapper wrapper)
+	{
+		int					hash				= wrapper.getKeyForBucket();
+		int					bucketCountCurrent	= m_bucketCountCurrent;
+		int					bucketCountPrevious	= m_bucketCountPrevious;
+		if (0 != bucketCountPrevious)
+		{
+			LocalObjectBucket	bucket			= m_bucketList.get(hash % bucketCountPrevious);
+			LocalObjectBin		bin				= null == bucket ? null : bucket.getBin(wrapper);
+			if (null != bin)
+			{
+				return bin;
+			}
+		}
+		LocalObjectBucket	bucket			= m_bucketList.get(hash % bucketCountCurrent);
+		return null == bucket ? null : bucket.getBin(wrapper);
+	}
+
 	@Override
 	public void flush(int durationMS)
+	{
+		if (null != m_writeLog)
+		{
+			// Replayed as a flush of all the objects written before it, regardless of durationMS.
+			try
+			{
+				m_writeLog.commit(m_writeLog.appendFlush());
+			}
+			catch (BasicException exception)
+			{
+				getLogger().error(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, exception,
+						"Cache %s: The flush could not be logged, the objects may be back after a restart.",
+						getCacheName());
+			}
+		}
+		flushEntries(durationMS);
+	}
+	private void flushEntries(int durationMS)
 	{
 		getLogger().info(BasicEvent.EVENT_FLUSH_BEGIN,
 				String.format("Beginning flush(%s, %s)",
 						getCacheName(), TimeUnits.formatMS(durationMS)));
 
 		BasicSerial.flushSerial(getCacheName());
+		m_reducerMap = new CopyOnWriteSimpleMap<>();
 
 		// Count the active buckets (the one that hold data)
 		int			activeBucketCount		= 0;
@@ -362,6 +680,306 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 				bucket.flush(nowMS, timeBeginFlush, perBucketMS);
 			}
 		}
+		m_isExpirationPurgeNeeded.set(true);
+	}
+
+	/**
+	 * Writes the snapshot of the objects of the cache, to be loaded when the cache is next created.
+	 * The objects are written bin by bin, while the cache keeps serving requests.
+	 * The write log is rotated when the snapshot starts, its previous files are deleted once it is written
+	 * with all the objects (the log replays the objects that could not be written).
+	 *
+	 * @throws BasicException	When the cache is not persisted (no SnapshotFolder) or the snapshot cannot be written
+	 */
+	public void writeSnapshot() throws BasicException
+	{
+		if (null == m_snapshot)
+		{
+			throw new BasicException(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED,
+					"Cache %s: No snapshot folder is configured.", getCacheName());
+		}
+
+		synchronized (m_snapshot)
+		{
+			CacheMode				cacheMode		= getCacheMode();
+			setCacheMode(CacheMode.Snapshot);
+			try
+			{
+				m_snapshotTimeMS = WallClock.getCurrentTimeMS();
+				long					writeSequence	= null == m_writeLog ? 0 : m_writeLog.rotate();
+				List<LocalObjectBin>	binList			= new ArrayList<>();
+				for (int i = 0; i < m_bucketList.length(); i++)
+				{
+					LocalObjectBucket		bucket			= m_bucketList.get(i);
+					if (null != bucket)
+					{
+						bucket.addBinListTo(binList);
+					}
+				}
+				int						segmentCount	= getConfiguration().getSnapshotSegmentCount();
+				long					failedCount		= m_snapshot.write(binList,
+						0 < segmentCount ? segmentCount : BasicTools.getNumberOfProcessors(), writeSequence);
+				if (null != m_writeLog && 0 == failedCount)
+				{
+					m_writeLog.compact(writeSequence);
+				}
+				else if (null != m_writeLog)
+				{
+					getLogger().warn(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED,
+							"Cache %s: %,d objects are missing from the snapshot, the write log is kept to replay them.",
+							getCacheName(), failedCount);
+				}
+			}
+			finally
+			{
+				setCacheMode(cacheMode);
+			}
+		}
+	}
+	// Called by the maintenance thread, when the period has elapsed or the write log has grown too large.
+	private void writeSnapshotIfDue(long timeNowMS)
+	{
+		long			periodMS		= getConfiguration().getSnapshotPeriodMS();
+		long			compactSize		= null == m_writeLog ? 0 : getConfiguration().getWriteLogCompactSize();
+		boolean			isDue			= (0 < periodMS && timeNowMS >= m_snapshotTimeMS + periodMS)
+				|| (0 < compactSize && m_writeLog.getSizeSinceRotate() >= compactSize);
+		if (null == m_snapshot || !isDue)
+		{
+			return;
+		}
+		try
+		{
+			writeSnapshot();
+		}
+		catch (BasicException exception)
+		{
+			getLogger().error(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED, exception,
+					"Cache %s: The snapshot could not be written, the previous one (if any) is kept.", getCacheName());
+		}
+	}
+	private void loadSnapshot()
+	{
+		setCacheMode(CacheMode.InitialLoad);
+		// The whole log (i.e. since the last complete snapshot) replays the objects missing from the snapshot.
+		long				writeSequence	= 0 == m_snapshot.getFailedCount() ? m_snapshot.getWriteSequence() : 0;
+		WriteLogReplay		replay			= new WriteLogReplay();
+		try
+		{
+			if (null != m_writeLog)
+			{
+				m_writeLog.replay(writeSequence, replay);
+				replay.setApply();
+			}
+			long				itemCount		= m_snapshot.getRecordCount();
+			if (0 < itemCount)
+			{
+				presizeBins(itemCount);
+				m_snapshot.load(getFactoryWrapper(), (key, cacheObject, sequence) ->
+						sequence >= replay.getFlushSequence() && loadEntry(key, cacheObject, sequence));
+			}
+			if (null != m_writeLog)
+			{
+				long				timeBeginNS		= System.nanoTime();
+				long				recordCount		= m_writeLog.replay(writeSequence, replay);
+				getLogger().info(BasicEvent.EVENT_CACHE_WRITE_LOG_REPLAY,
+						"Cache %s: Replayed %,d records (%,d failed) of the write log in %s",
+						getCacheName(), recordCount, replay.getFailedCount(),
+						TimeUnits.formatNS(System.nanoTime() - timeBeginNS));
+			}
+		}
+		catch (BasicException exception)
+		{
+			getLogger().error(BasicEvent.EVENT_CACHE_SNAPSHOT_LOAD_FAILED, exception,
+					"Cache %s: The snapshot could not be loaded entirely, the cache starts with the objects loaded.",
+					getCacheName());
+		}
+		finally
+		{
+			evictPending();
+			setCacheMode(CacheMode.Nominal);
+		}
+	}
+	// The bins sized for the objects about to be loaded (as startResize() would), rather than resized once loaded.
+	private void presizeBins(long itemCount)
+	{
+		LocalObjectBucket		bucket			= m_bucketList.get(0);
+		if (itemCount / bucket.getBinCountCurrent() > getConfiguration().getBinItemMax())
+		{
+			int					itemPerBinTarget	= Math.max(1, getConfiguration().getBinItemMax() / 7);
+			bucket.startResize(PrimeNumbers.nextPrime((int) (itemCount / itemPerBinTarget)), m_resizeStatistics);
+			while (!bucket.resizeStep(Integer.MAX_VALUE))
+			{
+				// The bins are empty, the resize completes at once.
+			}
+		}
+	}
+	// Inserts an object of the snapshot directly in its bin, without going through writeOnly().
+	private boolean loadEntry(ObjectKey key, ICacheObject cacheObject, long writeSequence)
+	{
+		cacheObject.updateConfiguration(getConfiguration());
+		ObjectWrapper		wrapper			= new ObjectWrapper(key, cacheObject);
+		wrapper.setWriteSequence(writeSequence);
+		return getBinCurrent(key).loadEntry(wrapper);
+	}
+
+	private LocalObjectWriteLog createWriteLog(String snapshotFolder)
+	{
+		if (!getConfiguration().isWriteLogEnabled())
+		{
+			return null;
+		}
+		if (snapshotFolder.isEmpty())
+		{
+			getLogger().error(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED,
+					"Cache %s: The write log requires a SnapshotFolder, the writes are not logged.", getCacheName());
+			return null;
+		}
+		return new LocalObjectWriteLog(getCacheName(), new File(snapshotFolder),
+				getConfiguration().getWriteLogSync(), getConfiguration().getWriteLogSyncPeriodMS());
+	}
+	private void openWriteLog()
+	{
+		try
+		{
+			m_writeLog.open(m_snapshot.getWriteSequence());
+		}
+		catch (BasicException exception)
+		{
+			getLogger().error(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, exception,
+					"Cache %s: The write log could not be opened, the writes will fail.", getCacheName());
+		}
+	}
+	// Called by the maintenance thread, forces the writes left in the page cache with SyncPolicy.Periodic.
+	private void syncWriteLogIfDue(long timeNowMS)
+	{
+		if (null == m_writeLog)
+		{
+			return;
+		}
+		try
+		{
+			m_writeLog.syncIfDue(timeNowMS);
+		}
+		catch (BasicException exception)
+		{
+			getLogger().error(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, exception,
+					"Cache %s: The write log could not be forced to the disk.", getCacheName());
+		}
+	}
+	// Waits until the writes of this thread are in the write log.
+	private void commitWriteLog(long sequence) throws BasicException
+	{
+		if (null != m_writeLog && 0 != sequence)
+		{
+			m_writeLog.commit(sequence);
+		}
+	}
+	private void commitWriteLog() throws BasicException
+	{
+		if (null != m_writeLog)
+		{
+			m_writeLog.commit(m_writeLog.getSequenceAppended());
+		}
+	}
+
+	/**
+	 * Replays the write log over the snapshot, in two passes over the log.
+	 * The first finds the last flush (the objects and records before it are skipped)
+	 * and the first delete of each key after it.
+	 * The second applies the writes the snapshot misses, i.e. after the last write of the object in the snapshot;
+	 * for a key not in the snapshot, after its first delete: the writes before are those of an object
+	 * deleted before the snapshot reached its bin.
+	 */
+	private class WriteLogReplay implements LocalObjectWriteLog.IRecordVisitor
+	{
+		private final Map<ObjectKey, Long>		m_deletedMap		= new HashMap<>();
+		private long							m_flushSequence		= 0;
+		private boolean							m_isApply			= false;
+		private long							m_failedCount		= 0;
+
+		public void setApply()
+		{
+			m_isApply = true;
+		}
+
+		public long getFlushSequence()
+		{
+			return m_flushSequence;
+		}
+
+		public long getFailedCount()
+		{
+			return m_failedCount;
+		}
+
+		@Override
+		public void visitWrite(long sequence, ObjectKey key, byte[] requestBytes)
+		{
+			if (!m_isApply || sequence < m_flushSequence)
+			{
+				return;
+			}
+			try
+			{
+				replayWrite(key, requestBytes, sequence, m_deletedMap.getOrDefault(key, 0L));
+			}
+			catch (BasicException | RuntimeException exception)
+			{
+				// e.g. the object throws, as it did when the write was first processed
+				if (1 == ++m_failedCount)
+				{
+					getLogger().warn(BasicEvent.EVENT_CACHE_WRITE_LOG_REPLAY, exception,
+							"Cache %s: Unable to replay a write (only the first failure is logged)", getCacheName());
+				}
+			}
+		}
+
+		@Override
+		public void visitDelete(long sequence, ObjectKey key, long deletedSequence)
+		{
+			if (!m_isApply)
+			{
+				m_deletedMap.putIfAbsent(key, deletedSequence);
+			}
+			else if (sequence > m_flushSequence)
+			{
+				// Only the object deleted at the time, not an object re-created since (logged before the delete).
+				ObjectWrapper		entry			= getBinCurrent(key).getEntryTable().get(key);
+				if (null != entry && deletedSequence == entry.getWriteSequence())
+				{
+					getBinCurrent(key).deleteEntry(key);
+				}
+			}
+		}
+
+		@Override
+		public void visitFlush(long sequence)
+		{
+			if (!m_isApply)
+			{
+				m_flushSequence = sequence;
+				m_deletedMap.clear();
+			}
+		}
+	}
+	private void replayWrite(ObjectKey key, byte[] requestBytes, long sequence, long deletedSequence)
+			throws BasicException
+	{
+		ObjectWrapper		entry			= getEntry(key, null);
+		if (null == entry ? sequence <= deletedSequence : sequence <= entry.getWriteSequence())
+		{
+			return;
+		}
+		if (null == entry && null != requestBytes)
+		{
+			entry = getEntry(key, getFactoryWrapper());
+		}
+		if (null != entry)
+		{
+			entry.setWriteSequence(sequence);
+			processWriteOnly(entry, requestBytes, null);
+			recordWrite(entry, null, sequence);
+		}
 	}
 
 	@SuppressWarnings("unused")
@@ -377,31 +995,92 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 
 	public void writeOnly(byte[] keyBytes, byte[] requestBytes) throws BasicException
 	{
-		ObjectKey key			= m_keyPool.get();
+		ObjectKey		key			= m_keyPool.get();
 		key.setKeyBytes(keyBytes);
-
+		writeOnly(key, requestBytes);
+	}
+	// Releases the key.
+	private void writeOnly(ObjectKey key, byte[] requestBytes) throws BasicException
+	{
+		long			sequence;
+		try
+		{
+			sequence = writeOnlyEntry(key, requestBytes);
+		}
+		finally
+		{
+			key.release();
+		}
+		evictPending();
+		commitWriteLog(sequence);
+	}
+	/**
+	 * Bulk version of writeOnly(byte[], byte[]), see processBulk().
+	 * The request is passed as-is to each object (for the simple cache) or de-serialized for each object,
+	 * as an object may keep (part of) its request.
+	 *
+	 * @param keyBytesList		The keys of the objects
+	 * @param requestBytes		The request, the same for all the objects
+	 * @throws BasicException	The first exception of an object, the other keys may or may not have been processed
+	 */
+	public void writeOnly(byte[][] keyBytesList, byte[] requestBytes) throws BasicException
+	{
+		processBulk(keyBytesList, (key, index) -> writeOnlyEntry(key, requestBytes));
+		commitWriteLog();
+	}
+	public void writeOnly(byte[][] keyBytesList, byte[][] requestBytesList) throws BasicException
+	{
+		processBulk(keyBytesList, (key, index) -> writeOnlyEntry(key, requestBytesList[index]));
+		commitWriteLog();
+	}
+	// Returns the sequence of the write in the write log, 0 if it is not logged.
+	private long writeOnlyEntry(ObjectKey key, byte[] requestBytes) throws BasicException
+	{
 		try
 		{
 			// Do not pass a factory to create an object if the request is empty
 			LocalObjectFactoryWrapper factory		= null == requestBytes ? null : getFactoryWrapper();
 			ObjectWrapper				entry		= getEntry(key, factory);
-			if (null != entry)
+			if (null == entry)
 			{
-				processWriteOnly(entry, requestBytes);
-				ICacheObject cacheObject		= entry.getTrellisObject();
-				if (cacheObject.canDelete())
-				{
-					deleteEntry(key);
-				}
+				return 0;
 			}
+			long						sequence	= processWriteOnly(entry, requestBytes, m_writeLog);
+			recordWrite(entry, m_writeLog, sequence);
+			return sequence;
 		}
 		finally
 		{
-			key.release();
 			getCounterFamily().recordWrite();		// Record even if object was not found!
 		}
 	}
-	private void processWriteOnly(ObjectWrapper wrapper, byte[] requestBytes) throws BasicException
+	// After the object has processed a write: deleted if it asks to be, else scheduled for expiration and eviction.
+	// The sequence is that of the write, i.e. of the object deleted (another write may have followed since).
+	private void recordWrite(ObjectWrapper entry, LocalObjectWriteLog writeLog, long sequence) throws BasicException
+	{
+		ICacheObject cacheObject		= entry.getTrellisObject();
+		if (cacheObject.canDelete())
+		{
+			deleteEntry(entry);
+			if (null != writeLog)
+			{
+				writeLog.appendDelete(entry.getWrappedKey(), sequence);
+			}
+		}
+		else
+		{
+			ExpirationWheel		expirationWheel		= getTrackingObjects().getExpirationWheel();
+			if (null != expirationWheel)
+			{
+				expirationWheel.schedule(entry);
+			}
+			getTrackingObjects().getEvictionPolicy().recordWrite(entry);
+		}
+	}
+	// The write is appended to the log (when there is one) under the lock of the object, just before it is processed.
+	// Returns the sequence of the write in the log, read under the lock; 0 if it is not logged.
+	private long processWriteOnly(ObjectWrapper wrapper, byte[] requestBytes, LocalObjectWriteLog writeLog)
+			throws BasicException
 	{
 		// **********
 		// Optimization for the SimpleCache object mode!!
@@ -412,8 +1091,14 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 
 		IOperationContext	context			= wrapper.getLock().lockWrite();
 		boolean				isSuccess		= false;
+		long				sequence		= 0;
 		try
 		{
+			if (null != writeLog)
+			{
+				sequence = writeLog.appendWrite(wrapper.getWrappedKey(), requestBytes);
+				wrapper.setWriteSequence(sequence);
+			}
 			cacheObject.writeOnly(request);
 			isSuccess = true;
 		}
@@ -426,13 +1111,56 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		{
 			wrapper.getLock().unlockWrite(context, isSuccess);
 		}
+		return sequence;
 	}
 
 	public byte[] readOnly(byte[] keyBytes, byte[] requestBytes) throws BasicException
 	{
 		ObjectKey		key			= m_keyPool.get();
 		key.setKeyBytes(keyBytes);
+		return readOnly(key, requestBytes);
+	}
+	// Releases the key.
+	private byte[] readOnly(ObjectKey key, byte[] requestBytes) throws BasicException
+	{
+		byte[]				response;
+		try
+		{
+			response = readOnlyEntry(key, BasicSerial.toObject(getCacheName(), requestBytes));
+		}
+		finally
+		{
+			key.release();
+		}
+		evictPending();
 
+		return response;
+	}
+	/**
+	 * Bulk version of readOnly(byte[], byte[]), see processBulk().
+	 * The request is de-serialized once and passed to all the objects.
+	 *
+	 * @param keyBytesList		The keys of the objects
+	 * @param requestBytes		The request, the same for all the objects
+	 * @return					The response of each object, in the order of the keys; null if the object does not exist
+	 * @throws BasicException	The first exception of an object
+	 */
+	public byte[][] readOnly(byte[][] keyBytesList, byte[] requestBytes) throws BasicException
+	{
+		Serializable		request			= BasicSerial.toObject(getCacheName(), requestBytes);
+		byte[][]			responseList	= new byte[keyBytesList.length][];
+		processBulk(keyBytesList, (key, index) -> responseList[index] = readOnlyEntry(key, request));
+		return responseList;
+	}
+	public byte[][] readOnly(byte[][] keyBytesList, byte[][] requestBytesList) throws BasicException
+	{
+		byte[][]			responseList	= new byte[keyBytesList.length][];
+		processBulk(keyBytesList, (key, index) ->
+				responseList[index] = readOnlyEntry(key, BasicSerial.toObject(getCacheName(), requestBytesList[index])));
+		return responseList;
+	}
+	private byte[] readOnlyEntry(ObjectKey key, Serializable request) throws BasicException
+	{
 		byte[]				response;
 		try
 		{
@@ -441,7 +1169,8 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 			getCounterFamily().recordHit(isFound);
 			if (isFound)
 			{
-				response = processReadOnly(wrapper, requestBytes);
+				response = processReadOnly(wrapper, request);
+				getTrackingObjects().getEvictionPolicy().recordRead(wrapper);
 			}
 			else
 			{
@@ -450,15 +1179,13 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		}
 		finally
 		{
-			key.release();
 			getCounterFamily().recordRead();		// Record even if object was not found!
 		}
 
 		return response;
 	}
-	private byte[] processReadOnly(ObjectWrapper wrapper, byte[] requestBytes) throws BasicException
+	private byte[] processReadOnly(ObjectWrapper wrapper, Serializable request) throws BasicException
 	{
-		Serializable			request			= BasicSerial.toObject(getCacheName(), requestBytes);
 		ICacheObject cacheObject		= wrapper.getTrellisObject();
 
 		byte[]					responseBytes;
@@ -488,6 +1215,157 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		return responseBytes;
 	}
 
+	@FunctionalInterface
+	private interface IBulkOperation
+	{
+		void process(ObjectKey key, int index) throws BasicException;
+	}
+	/**
+	 * Runs the operation on each key of a bulk request.
+	 * The keys are hashed once, then processed grouped by bin (while its table is in the CPU cache),
+	 * with one pooled key per chunk (see LocalObjectBulk) instead of one per key.
+	 * The victims of the eviction policy are removed once, at the end.
+	 *
+	 * @param keyBytesList		The keys of the request
+	 * @param operation			Processes one key, given with its index in keyBytesList
+	 * @throws BasicException	The first exception of the operation
+	 */
+	private void processBulk(byte[][] keyBytesList, IBulkOperation operation) throws BasicException
+	{
+		int				keyCount		= keyBytesList.length;
+		long[]			hashList		= new long[keyCount];
+		// The bin (any order, only the grouping matters) in the high bits, the index of the key in the low bits.
+		long[]			orderList		= new long[keyCount];
+		ObjectKey		key				= m_keyPool.get();
+		try
+		{
+			for (int i = 0; i < keyCount; i++)
+			{
+				key.setKeyBytes(keyBytesList[i]);
+				hashList[i] = key.getHash64();
+				orderList[i] = ((long) System.identityHashCode(getBinCurrent(key)) << 32) | i;
+			}
+		}
+		finally
+		{
+			key.release();
+		}
+		Arrays.sort(orderList);
+
+		int				parallelKeyMin	= getConfiguration().getBulkParallelKeyMin();
+		try
+		{
+			LocalObjectBulk.process(keyCount, 0 < parallelKeyMin && keyCount >= parallelKeyMin, (indexMin, indexMax) ->
+			{
+				ObjectKey		chunkKey		= m_keyPool.get();
+				try
+				{
+					for (int i = indexMin; i < indexMax; i++)
+					{
+						int			index			= (int) orderList[i];
+						chunkKey.setKeyBytes(keyBytesList[index], hashList[index]);
+						operation.process(chunkKey, index);
+					}
+				}
+				finally
+				{
+					chunkKey.release();
+				}
+			});
+		}
+		finally
+		{
+			evictPending();
+		}
+	}
+
+	/**
+	 * Server side of IObjectCacheClient.reduce(): reduces the objects in place, see LocalObjectReducer.
+	 *
+	 * @param reducerClassName	Class name of the ITrellisReducer, loaded with the class loader of the cache
+	 * @param keyBytesList		Keys of the objects to reduce; null or empty to reduce all the objects of the cache
+	 * @param requestBytes		The request, passed as-is to the reducer
+	 * @return					The serialized answer of this server
+	 * @throws BasicException	When the reducer cannot be created or fails
+	 */
+	public byte[] reduce(String reducerClassName, byte[][] keyBytesList, byte[] requestBytes) throws BasicException
+	{
+		ITrellisReducer		reducer			= getReducer(reducerClassName);
+		Serializable		request			= BasicSerial.toObject(getCacheName(), requestBytes);
+
+		Serializable		answer;
+		if (null == keyBytesList || 0 == keyBytesList.length)
+		{
+			List<LocalObjectBin>		binList		= new ArrayList<>();
+			for (int i = 0; i < m_bucketList.length(); i++)
+			{
+				LocalObjectBucket		bucket		= m_bucketList.get(i);
+				if (null != bucket)
+				{
+					bucket.addBinListTo(binList);
+				}
+			}
+			answer = LocalObjectReducer.reduceBinList(reducer, request, binList);
+		}
+		else
+		{
+			answer = LocalObjectReducer.reduceWrapperList(reducer, request, getWrapperList(keyBytesList));
+		}
+
+		return BasicSerial.toBytes(getCacheName(), answer);
+	}
+	// The same key may be present more than once in the list, its object is reduced only once.
+	private ObjectWrapper[] getWrapperList(byte[][] keyBytesList) throws BasicException
+	{
+		Set<ObjectWrapper>		wrapperSet		= Collections.newSetFromMap(new IdentityHashMap<>());
+		ObjectKey				key				= m_keyPool.get();
+		try
+		{
+			for (byte[] keyBytes : keyBytesList)
+			{
+				key.setKeyBytes(keyBytes);
+				ObjectWrapper		wrapper		= getEntry(key, null);
+				boolean				isFound		= null != wrapper;
+				getCounterFamily().recordHit(isFound);
+				getCounterFamily().recordRead();
+				if (isFound)
+				{
+					getTrackingObjects().getEvictionPolicy().recordRead(wrapper);
+					wrapperSet.add(wrapper);
+				}
+			}
+		}
+		finally
+		{
+			key.release();
+		}
+		return wrapperSet.toArray(new ObjectWrapper[wrapperSet.size()]);
+	}
+	private ITrellisReducer getReducer(String reducerClassName) throws BasicException
+	{
+		CopyOnWriteSimpleMap<String, ITrellisReducer>	reducerMap		= m_reducerMap;
+		ITrellisReducer									reducer			= reducerMap.get(reducerClassName);
+		if (null == reducer)
+		{
+			try
+			{
+				ClassLoader		classLoader		= BasicSerial.getClassLoader(getCacheName());
+				Class<?>		clazz			= Class.forName(reducerClassName, true, classLoader);
+				reducer = (ITrellisReducer) clazz.getConstructor().newInstance();
+			}
+			catch (Exception exception)
+			{
+				throw new BasicException(BasicEvent.EVENT_NO_REDUCER_CONSTRUCTOR, exception,
+						"Cache %s: Unable to create the reducer %s, "
+								+ "it must implement ITrellisReducer and have a parameter-less constructor.",
+						getCacheName(), reducerClassName);
+			}
+			// Two threads may race to create the reducer, either one is fine as it is a stateless singleton.
+			reducerMap.put(reducerClassName, reducer);
+		}
+		return reducer;
+	}
+
 	@Override
 	public long getItemCount()
 	{
@@ -513,6 +1391,8 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		private final LocalObjectCache m_cache;
 		private AtomicInteger					m_memoryLevel			= new AtomicInteger(100);
 		private AtomicBoolean					m_isConfigDirty			= new AtomicBoolean(false);
+		// Where the previous pass ended, when it could not bring the cache under its maximum size.
+		private int								m_memoryLevelCarry		= 100;
 
 		private final MaintenanceRequest		m_maintenanceRequest	= new MaintenanceRequest();
 		private final MaintenanceResponse		m_maintenanceResponse	= new MaintenanceResponse();
@@ -566,7 +1446,12 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		{
 			int			memoryLevel		= m_memoryLevel.getAndSet(100);
 			doMaintenance(memoryLevel);
-			doResizeBuckets();
+			// Apply the events left in the buffers of the eviction policy, even when the cache is idle.
+			getCache().getTrackingObjects().getEvictionPolicy().drain();
+			getCache().evictPending();
+			doResize();
+			getCache().syncWriteLogIfDue(WallClock.getCurrentTimeMS());
+			getCache().writeSnapshotIfDue(WallClock.getCurrentTimeMS());
 		}
 
 		private void doMaintenance(int memoryLevel)
@@ -574,21 +1459,41 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 			long			now							= WallClock.getCurrentTimeMS();
 			long			timeBeginNS					= System.nanoTime();
 			boolean			isConfigurationDirty		= m_isConfigDirty.getAndSet(false);		// NOPMD
+			// When an eviction policy enforces the maximum size, the maintenance only reacts to the memory level.
+			long			sizeMax						= getCache().isEvictionPolicyActive()
+					? 0 : getCache().getConfiguration().getSizeMax();
+			int				memoryLevelPass				= Math.min(memoryLevel, m_memoryLevelCarry);
 			getCache().setCacheMode(CacheMode.Maintenance);
-			m_maintenanceRequest.set(now, memoryLevel, isConfigurationDirty);
+			m_maintenanceRequest.set(now, memoryLevelPass, isConfigurationDirty);
 			m_maintenanceResponse.clear();
 			int				bucketCount					= 0;
 			try
 			{
+				m_maintenanceResponse.incrementRemovedCount(getCache().expireDue(now));
+				List<LocalObjectBin>		binList		= new ArrayList<>();
 				for (int i = 0; i < m_cache.m_bucketList.length(); i++)
 				{
 					LocalObjectBucket bucket	= m_cache.m_bucketList.get(i);
 					if (null != bucket)
 					{
 						bucketCount++;
-						bucket.doMaintenance(m_maintenanceRequest, m_maintenanceResponse);
+						bucket.addBinListTo(binList);
 					}
 				}
+				// With an ExpirationWheel, all the objects are only visited when they may have to be updated
+				// or removed early: new configuration, memory pressure or maximum size.
+				boolean			isScanAll		= null == getCache().getTrackingObjects().getExpirationWheel()
+						|| isConfigurationDirty || 100 > memoryLevelPass || 0 < sizeMax;
+				if (isScanAll)
+				{
+					m_maintenanceRequest.setPass(
+							getCache().getConfiguration().getMaintenanceBinBudgetUS(), sizeMax, binList.size());
+					LocalObjectMaintenance.doMaintenance(binList, m_maintenanceRequest, m_maintenanceResponse);
+				}
+				else
+				{
+					m_maintenanceResponse.incrementKeptCount(getCache().getItemCount());
+				}
 			}
 			catch (Exception exception)
 			{
@@ -600,6 +1505,7 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 			}
 			long			timeDoneNS					= System.nanoTime();
 			long			durationNS					= timeDoneNS - timeBeginNS;
+			long			binCount					= Math.max(1, m_maintenanceResponse.getBinCount());
 
 			Level			level						=
 					0 == m_maintenanceResponse.getRemovedCount() ? Level.DEBUG : Level.INFO;
@@ -608,51 +1514,47 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 							+ " %,d removed in %s from %,d buckets/%,d bins for %s/bin @ average %,d object/bin.",
 					getCache().getCacheName(),
 					m_maintenanceRequest.getMemoryLevelPercent(),
-					m_maintenanceResponse.m_keptCount,
+					m_maintenanceResponse.getKeptCount(),
 					m_maintenanceResponse.getSize(), getCache().getConfiguration().getSizeUnits(),
 					m_maintenanceResponse.getRemovedCount(),
 					TimeUnits.formatNS(durationNS),
 					bucketCount, m_maintenanceResponse.getBinCount(),
-					TimeUnits.formatNS(durationNS / m_maintenanceResponse.getBinCount()),
-					m_maintenanceResponse.getKeptCount() / m_maintenanceResponse.getBinCount()
+					TimeUnits.formatNS(durationNS / binCount),
+					m_maintenanceResponse.getKeptCount() / binCount
 					);
 
-
-			long		sizeMax			= m_cache.getConfiguration().getSizeMax();
+			// A single pass at a level adjusted as it goes (see MaintenanceRequest.adjustMemoryLevel()).
+			// When the bins processed early were kept at a level too high, the next pass starts where this one ended;
+			// otherwise the level recovers progressively.
 			if (0 < sizeMax && m_maintenanceResponse.getSize() > sizeMax)
 			{
-				doMaintenance(memoryLevel - 5);
+				m_memoryLevelCarry = Math.max(0, m_maintenanceRequest.getMemoryLevelPercent() - 5);
+			}
+			else
+			{
+				m_memoryLevelCarry = Math.min(100, m_memoryLevelCarry + 5);
 			}
-
 		}
 
-		private void doResizeBuckets()
+		private void doResize()
 		{
 			getCache().setCacheMode(CacheMode.Resize);
 			try
 			{
-				// As needed, adjust the number of bins in each bucket, as needed...
-				for (int i = 0; i < m_cache.m_bucketList.length(); i++)
+				getCache().startResize();
+
+				int		itemCountMax		= getCache().getConfiguration().getResizeStepItemMax();
+				while (ThreadStatus.RunRequested.equals(getThreadStatus()) && !getCache().resizeStep(itemCountMax))
 				{
-					LocalObjectBucket bucket	= m_cache.m_bucketList.get(i);
-					if (null == bucket)
+					// TODO  Magic number (75): Set to Eviction level
+					// Apply pacing to avoid triggering an old gen GC.
+					// i.e. Do not free objects (e.g. from old bins) faster than GC can keep-up with.
+					// No lock is held between steps: the resize simply continues at the next run.
+					if (75 < BasicTools.getHeapPercent(false))
 					{
-						// This bucket is not on this server
-						continue;
-					}
-					long		itemCount		= bucket.getItemCount();
-					int			binCount		= bucket.getBinCountCurrent();
-					int			itemPerBin		= (int) (itemCount / binCount);
-					if (itemPerBin > getCache().getConfiguration().getBinItemMax())
-					{
-						// The bucket has too many items per bin, resize it
-						// Note the new size is  dependent on the CURRENT number of items in the bucket.
-						// This makes the new number of buckets variable and not a constant series.
-						int		itemPerBinTarget	= getCache().getConfiguration().getBinItemMax() / 7;
-						int		binCountTarget		= (int) itemCount / itemPerBinTarget;
-						binCount = PrimeNumbers.nextPrime(binCountTarget);
-						bucket.resize(binCount);
+						break;
 					}
+					Thread.yield();
 				}
 			}
 			finally
@@ -664,17 +1566,34 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 
 	public static class MaintenanceRequest
 	{
-		private long		m_timeNowMS;
-		private int			m_memoryLevelPercent;
-		private boolean		m_isDirty;
+		private long				m_timeNowMS;
+		private int					m_memoryLevelPercentBegin;
+		private volatile int		m_memoryLevelPercent;
+		private boolean				m_isDirty;
+		private long				m_binBudgetNS			= Long.MAX_VALUE;
+		private long				m_sizeMax				= 0;
+		private long				m_binCountTotal			= 0;
 
 		public void set(long timeNowMS, int memoryLevelPercent, boolean isDirty)
 		{
 			m_timeNowMS = timeNowMS;
+			m_memoryLevelPercentBegin = memoryLevelPercent;
 			m_memoryLevelPercent = memoryLevelPercent;
 			m_isDirty = isDirty;
 		}
 
+		/**
+		 * @param binBudgetUS		How long the maintenance of a bin may hold its map lock, at once
+		 * @param sizeMax			The maximum size of the cache, 0 for no maximum
+		 * @param binCountTotal		The number of bins of the pass, to project the size of the cache
+		 */
+		public void setPass(long binBudgetUS, long sizeMax, long binCountTotal)
+		{
+			m_binBudgetNS = 0 >= binBudgetUS ? Long.MAX_VALUE : binBudgetUS * 1000;
+			m_sizeMax = sizeMax;
+			m_binCountTotal = binCountTotal;
+		}
+
 		public long getTimeNowMS()
 		{
 			return m_timeNowMS;
@@ -689,58 +1608,87 @@ public class LocalObjectCache implements LocalObjectCacheMBean, Closeable
 		{
 			return m_isDirty;
 		}
+
+		public long getBinBudgetNS()
+		{
+			return m_binBudgetNS;
+		}
+
+		/**
+		 * Called after each bin, lowers the memory level of the rest of the pass
+		 * when the size projected from the bins already processed is above the maximum size of the cache.
+		 * This replaces the re-scan of the whole cache at successively lower memory levels.
+		 * The level only goes down during a pass, the bins already processed are not revisited.
+		 *
+		 * @param maintenanceResponse	The results of the bins already processed
+		 */
+		public synchronized void adjustMemoryLevel(MaintenanceResponse maintenanceResponse)
+		{
+			long		binCount		= maintenanceResponse.getBinCount();
+			if (0 >= m_sizeMax || 0 == binCount)
+			{
+				return;
+			}
+
+			long		sizeProjected	= maintenanceResponse.getSize() * m_binCountTotal / binCount;
+			if (sizeProjected > m_sizeMax)
+			{
+				int			memoryLevel		= (int) (m_memoryLevelPercentBegin * m_sizeMax / sizeProjected);
+				m_memoryLevelPercent = Math.max(0, Math.min(m_memoryLevelPercent, memoryLevel));
+			}
+		}
 	}
 	public static class MaintenanceResponse
 	{
-		private int			m_binCount;
-		private long		m_keptCount;
-		private long		m_removedCount;
-		private long		m_size;
+		private final AtomicLong		m_binCount			= new AtomicLong();
+		private final AtomicLong		m_keptCount			= new AtomicLong();
+		private final AtomicLong		m_removedCount		= new AtomicLong();
+		private final AtomicLong		m_size				= new AtomicLong();
 
 
 		public void clear()
 		{
-			m_binCount		= 0;
-			m_keptCount		= 0;
-			m_removedCount	= 0;
-			m_size			= 0;
+			m_binCount.set(0);
+			m_keptCount.set(0);
+			m_removedCount.set(0);
+			m_size.set(0);
 		}
 
 		public void incrementBinCount(long delta)
 		{
-			m_binCount += delta;
+			m_binCount.addAndGet(delta);
 		}
 		public void incrementKeptCount(long delta)
 		{
-			m_keptCount += delta;
+			m_keptCount.addAndGet(delta);
 		}
 		public void incrementRemovedCount(long delta)
 		{
-			m_removedCount += delta;
+			m_removedCount.addAndGet(delta);
 		}
 		public void incrementSize(long delta)
 		{
-			m_size += delta;
+			m_size.addAndGet(delta);
 		}
 
-		public int getBinCount()
+		public long getBinCount()
 		{
-			return m_binCount;
+			return m_binCount.get();
 		}
 
 		public long getKeptCount()
 		{
-			return m_keptCount;
+			return m_keptCount.get();
 		}
 
 		public long getRemovedCount()
 		{
-			return m_removedCount;
+			return m_removedCount.get();
 		}
 
 		public long getSize()
 		{
-			return m_size;
+			return m_size.get();
 		}
 	}
 }
@@ -14,5 +14,17 @@ public interface LocalObjectCacheMBean
 	Map<String, String>		getConfigurationMap();
 
 	long					getItemCount();
+
+	// The eviction policy and the total size of the objects it tracks (an estimate, refreshed as they are accessed).
+	String					getEvictionPolicy();
+	long					getEvictionSize();
+
+	// Progress and latency impact (duration of a step, during which the map of a bin is locked) of the resizes.
+	String					getResizeStatus();
+	long					getResizeItemMovedCount();
+	long					getResizeStepCount();
+	long					getResizeStepAverageUS();
+	long					getResizeStepMaxUS();
+
 	void					flush(int durationMS);
 }
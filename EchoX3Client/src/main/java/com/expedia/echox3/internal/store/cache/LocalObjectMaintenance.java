@@ -0,0 +1,198 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.cache;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.expedia.echox3.basics.configuration.ConfigurationManager;
+import com.expedia.echox3.basics.configuration.ConfigurationManager.SelfTuningInteger;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicLogger;
+import com.expedia.echox3.basics.tools.pubsub.PublisherManager;
+import com.expedia.echox3.internal.store.cache.LocalObjectCache.MaintenanceRequest;
+import com.expedia.echox3.internal.store.cache.LocalObjectCache.MaintenanceResponse;
+
+/**
+ * Runs a maintenance pass of a LocalObjectCache on the bins of all its buckets.
+ *
+ * The bins are processed in parallel on a fork-join pool shared by all the caches,
+ * so that an idle worker steals the bins of a busy one (e.g. a bin with many or expensive objects).
+ * Each bin is processed in time slices (see LocalObjectBin.doMaintenance()),
+ * and the memory level of the rest of the pass is adjusted after each bin (see MaintenanceRequest),
+ * so that a single pass brings the cache under its maximum size.
+ *
+ * The size of the pool is a SelfTuningInteger (threadCountStartingPoint, threadCountCorePerIncrement),
+ * the pool is replaced when it changes; the pass in progress, if any, completes on the previous pool.
+ * A pass submitted to the previous pool after it is shut down is rejected before it starts, it is submitted again
+ * to the new pool.
+ */
+public class LocalObjectMaintenance
+{
+	public static final String					SETTING_PREFIX				= LocalObjectMaintenance.class.getName();
+	public static final String					SETTING_NAME_THREAD_COUNT	= SETTING_PREFIX + ".threadCount";
+
+	private static final BasicLogger			LOGGER						= new BasicLogger(LocalObjectCache.class);
+	private static final SelfTuningInteger		THREAD_COUNT				=
+			new SelfTuningInteger(SETTING_NAME_THREAD_COUNT);
+
+	private static volatile ForkJoinPool		s_maintenancePool			= createPool();
+
+	static
+	{
+		PublisherManager.register(ConfigurationManager.PUBLISHER_NAME, LocalObjectMaintenance::updateConfiguration);
+	}
+
+	/**
+	 * Private constructor that is NEVER called, as this is a utility class (static only).
+	 */
+	private LocalObjectMaintenance()
+	{
+		// Nothing to do
+	}
+
+	public static BasicLogger getLogger()
+	{
+		return LOGGER;
+	}
+
+	private static ForkJoinPool createPool()
+	{
+		return new ForkJoinPool(getThreadCount(), LocalObjectMaintenance::createThread, null, false);
+	}
+
+	private static ForkJoinWorkerThread createThread(ForkJoinPool pool)
+	{
+		ForkJoinWorkerThread		thread		= ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName(String.format("%s-%d", LocalObjectMaintenance.class.getSimpleName(), thread.getPoolIndex()));
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	public static int getThreadCount()
+	{
+		return Math.max(1, THREAD_COUNT.getCurrentValue());
+	}
+
+	@SuppressWarnings("PMD.UnusedFormalParameter")
+	private static synchronized void updateConfiguration(String publisherName, long timeMS, Object event)
+	{
+		if (THREAD_COUNT.updateConfiguration() && s_maintenancePool.getParallelism() != getThreadCount())
+		{
+			ForkJoinPool		poolPrevious		= s_maintenancePool;
+			s_maintenancePool = createPool();
+			poolPrevious.shutdown();
+
+			getLogger().info(BasicEvent.EVENT_CACHE_MAINTENANCE_CHANGE,
+					"Maintenance pool changed from %,d to %,d threads.",
+					poolPrevious.getParallelism(), s_maintenancePool.getParallelism());
+		}
+	}
+
+	/**
+	 * Runs the maintenance on each bin, in any order, and returns once all the bins have been processed.
+	 * The response counts the bins as they complete, which drives the adjustment of the memory level.
+	 *
+	 * @param binList				The bins of the cache
+	 * @param maintenanceRequest	The parameters of the pass, shared by all the bins
+	 * @param maintenanceResponse	Where the bins accumulate their results, concurrently
+	 */
+	public static void doMaintenance(List<LocalObjectBin> binList,
+			MaintenanceRequest maintenanceRequest, MaintenanceResponse maintenanceResponse)
+	{
+		// Read once, the pool may be replaced (and the previous one shut down) at any time.
+		ForkJoinPool			pool		= s_maintenancePool;
+		if (1 >= binList.size() || 1 == pool.getParallelism())
+		{
+			// Not worth a trip through the pool.
+			new MaintenanceTask(binList, maintenanceRequest, maintenanceResponse, 0, binList.size())
+					.doMaintenanceRange();
+			return;
+		}
+
+		while (true)
+		{
+			try
+			{
+				pool.invoke(new MaintenanceTask(binList, maintenanceRequest, maintenanceResponse,
+						0, binList.size()));
+				return;
+			}
+			catch (RejectedExecutionException exception)
+			{
+				// Shut down since it was read, the pass has not started: the new pool is in place.
+				pool = s_maintenancePool;
+			}
+		}
+	}
+
+	private static class MaintenanceTask extends RecursiveAction
+	{
+		private static final long		serialVersionUID		= 1L;
+
+		private final transient List<LocalObjectBin>		m_binList;
+		private final transient MaintenanceRequest			m_maintenanceRequest;
+		private final transient MaintenanceResponse			m_maintenanceResponse;
+		private final int									m_indexMin;
+		private final int									m_indexMax;
+
+		public MaintenanceTask(List<LocalObjectBin> binList,
+				MaintenanceRequest maintenanceRequest, MaintenanceResponse maintenanceResponse,
+				int indexMin, int indexMax)
+		{
+			m_binList = binList;
+			m_maintenanceRequest = maintenanceRequest;
+			m_maintenanceResponse = maintenanceResponse;
+			m_indexMin = indexMin;
+			m_indexMax = indexMax;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (1 >= (m_indexMax - m_indexMin))
+			{
+				doMaintenanceRange();
+			}
+			else
+			{
+				int			indexMiddle		= (m_indexMin + m_indexMax) >>> 1;
+				invokeAll(new MaintenanceTask(m_binList, m_maintenanceRequest, m_maintenanceResponse,
+								m_indexMin, indexMiddle),
+						new MaintenanceTask(m_binList, m_maintenanceRequest, m_maintenanceResponse,
+								indexMiddle, m_indexMax));
+			}
+		}
+
+		public void doMaintenanceRange()
+		{
+			for (int i = m_indexMin; i < m_indexMax; i++)
+			{
+				doMaintenance(m_binList.get(i));
+			}
+		}
+
+		private void doMaintenance(LocalObjectBin bin)
+		{
+			try
+			{
+				bin.doMaintenance(m_maintenanceRequest, m_maintenanceResponse);
+			}
+			catch (Exception exception)
+			{
+				getLogger().error(BasicEvent.EVENT_TODO, exception, "Unexpected exception on %s", bin.toString());
+			}
+			finally
+			{
+				m_maintenanceResponse.incrementBinCount(1);
+				m_maintenanceRequest.adjustMemoryLevel(m_maintenanceResponse);
+			}
+		}
+	}
+}
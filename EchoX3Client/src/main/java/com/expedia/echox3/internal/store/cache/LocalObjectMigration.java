@@ -0,0 +1,178 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.cache;
+
+import java.util.function.Function;
+
+import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+
+/**
+ * Incremental move of the entries of a list of bins to the bin where they now belong,
+ * after a change in the number of bins of a bucket or in the number of buckets of the cache.
+ *
+ * Each step walks a bounded number of entries, under the map lock of a single bin,
+ * so that a resize never holds a bin for longer than a step, whatever the number of entries.
+ * An entry is inserted in its new bin before being removed from the old one,
+ * and the readers look at both locations (m_binCountPrevious, m_bucketCountPrevious) until the move is complete.
+ *
+ * The steps are run by the maintenance thread of the cache, one migration at a time.
+ */
+public class LocalObjectMigration
+{
+	private final String									m_name;
+	private final LocalObjectBin[]							m_binFromList;
+	private final Function<ObjectWrapper, LocalObjectBin>	m_destination;
+	private final Statistics								m_statistics;
+	private final long										m_timeBeginNS		= System.nanoTime();
+
+	private int												m_binIndex			= 0;
+	private ObjectWrapper[]									m_wrapperList		= null;
+	private int												m_wrapperIndex		= 0;
+	private long											m_itemCountMoved	= 0;
+
+	/**
+	 * @param name			For the log
+	 * @param binFromList	The bins to walk; an entry is moved when its destination is another bin
+	 * @param destination	The bin where an entry belongs, with the new number of bins/buckets
+	 * @param statistics	Where to record the steps, exposed via the LocalObjectCacheMBean
+	 */
+	public LocalObjectMigration(String name, LocalObjectBin[] binFromList,
+			Function<ObjectWrapper, LocalObjectBin> destination, Statistics statistics)
+	{
+		m_name = name;
+		m_binFromList = binFromList;
+		m_destination = destination;
+		m_statistics = statistics;
+	}
+
+	public String getName()
+	{
+		return m_name;
+	}
+
+	public boolean isComplete()
+	{
+		return m_binIndex >= m_binFromList.length;
+	}
+
+	public int getProgressPercent()
+	{
+		return 0 == m_binFromList.length ? 100 : (100 * m_binIndex) / m_binFromList.length;
+	}
+
+	public long getItemCountMoved()
+	{
+		return m_itemCountMoved;
+	}
+
+	public long getDurationNS()
+	{
+		return System.nanoTime() - m_timeBeginNS;
+	}
+
+	/**
+	 * Walks up to itemCountMax entries (moved or not), never more than one bin.
+	 *
+	 * @param itemCountMax	Bound on the work done by this step
+	 * @return				true when the migration is complete
+	 */
+	public boolean step(int itemCountMax)
+	{
+		if (isComplete())
+		{
+			return true;
+		}
+
+		long					t1				= System.nanoTime();
+		LocalObjectBin			binFrom			= m_binFromList[m_binIndex];
+		if (null == m_wrapperList)
+		{
+			// Entries created after the snapshot are created directly in the bin where they belong.
+			m_wrapperList = binFrom.getWrapperList();
+			m_wrapperIndex = 0;
+		}
+
+		int						itemCountMoved	= 0;
+		int						indexMax		= Math.min(m_wrapperList.length, m_wrapperIndex + itemCountMax);
+		IOperationContext		context			= binFrom.getMapLock().lockWrite();
+		try
+		{
+			for (; m_wrapperIndex < indexMax; m_wrapperIndex++)
+			{
+				ObjectWrapper		wrapper			= m_wrapperList[m_wrapperIndex];
+				LocalObjectBin		binTo			= m_destination.apply(wrapper);
+				if (binTo != binFrom && binFrom.moveEntryTo(wrapper, binTo))		// NOPMD Looking for this bin
+				{
+					itemCountMoved++;
+				}
+			}
+		}
+		finally
+		{
+			binFrom.getMapLock().unlockWrite(context, true);
+		}
+
+		if (m_wrapperIndex >= m_wrapperList.length)
+		{
+			m_wrapperList = null;
+			m_binIndex++;
+		}
+		m_itemCountMoved += itemCountMoved;
+		m_statistics.recordStep(System.nanoTime() - t1, itemCountMoved);
+
+		return isComplete();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s: %,d %% (%,d / %,d bins, %,d items moved)",
+				m_name, getProgressPercent(), m_binIndex, m_binFromList.length, m_itemCountMoved);
+	}
+
+	/**
+	 * Cumulative statistics of the resize steps of a cache.
+	 * The duration of a step is how long the resize holds the map lock of a bin, i.e. its impact on the latency.
+	 * Written only by the maintenance thread, read by the MBean.
+	 */
+	public static class Statistics
+	{
+		private volatile long		m_stepCount			= 0;
+		private volatile long		m_itemCountMoved	= 0;
+		private volatile long		m_stepDurationNS	= 0;
+		private volatile long		m_stepDurationMaxNS	= 0;
+
+		public void recordStep(long durationNS, long itemCountMoved)
+		{
+			m_stepCount++;				// NOPMD Single writer
+			m_itemCountMoved += itemCountMoved;
+			m_stepDurationNS += durationNS;
+			m_stepDurationMaxNS = Math.max(m_stepDurationMaxNS, durationNS);
+		}
+
+		public long getStepCount()
+		{
+			return m_stepCount;
+		}
+
+		public long getItemCountMoved()
+		{
+			return m_itemCountMoved;
+		}
+
+		public long getStepDurationAverageUS()
+		{
+			long		stepCount		= m_stepCount;
+			return 0 == stepCount ? 0 : m_stepDurationNS / stepCount / 1000;
+		}
+
+		public long getStepDurationMaxUS()
+		{
+			return m_stepDurationMaxNS / 1000;
+		}
+	}
+}
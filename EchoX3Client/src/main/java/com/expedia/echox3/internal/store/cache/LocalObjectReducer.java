@@ -0,0 +1,239 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.tools.locks.AbstractReadWriteLock;
+import com.expedia.echox3.basics.tools.locks.ReadWriteLockStripeTable;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+import com.expedia.echox3.visible.trellis.ICacheObject;
+import com.expedia.echox3.visible.trellis.IObjectCacheClient.ITrellisReducer;
+
+/**
+ * Runs the server side of IObjectCacheClient.reduce() on the objects of a LocalObjectCache.
+ *
+ * The work is cut in parts (one per bin for the whole cache, a chunk of objects for a key list).
+ * The parts are reduced in parallel on a fork-join pool shared by all the caches,
+ * each one in place (no copy, no serialization of the objects) under the read lock of its objects.
+ * The partial answers are then combined with reduceAnswerList() into the single answer of this server.
+ */
+public class LocalObjectReducer
+{
+	public static final int						KEY_CHUNK_SIZE		= 256;
+
+	// The order in which a part locks its objects, the same for all the parts, to avoid deadlocks.
+	private static final Comparator<ObjectWrapper>	HASH_ORDER			=
+			(wrapper1, wrapper2) -> ReadWriteLockStripeTable.compareHash(wrapper1.getHash64(), wrapper2.getHash64());
+
+	private static final ForkJoinPool			REDUCE_POOL			= new ForkJoinPool(
+			Runtime.getRuntime().availableProcessors(), LocalObjectReducer::createThread, null, false);
+
+	/**
+	 * Private constructor that is NEVER called, as this is a utility class (static only).
+	 */
+	private LocalObjectReducer()
+	{
+		// Nothing to do
+	}
+
+	private static ForkJoinWorkerThread createThread(ForkJoinPool pool)
+	{
+		ForkJoinWorkerThread		thread		= ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName(String.format("%s-%d", LocalObjectReducer.class.getSimpleName(), thread.getPoolIndex()));
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Reduces all the objects of the bins, one part per bin.
+	 *
+	 * @param reducer		The server singleton of the reducer
+	 * @param request		The request of the caller
+	 * @param binList		The bins of the cache, in any order
+	 * @return				The answer of this server, combined by reduceAnswerList()
+	 * @throws BasicException	When the reducer throws on any part
+	 */
+	public static Serializable reduceBinList(ITrellisReducer reducer, Serializable request,
+			List<LocalObjectBin> binList) throws BasicException
+	{
+		return reduce(reducer, request, binList.size(), (index) -> binList.get(index).getWrapperList());
+	}
+
+	/**
+	 * Reduces the supplied objects, in chunks of KEY_CHUNK_SIZE objects.
+	 *
+	 * @param reducer		The server singleton of the reducer
+	 * @param request		The request of the caller
+	 * @param wrapperList	The objects to reduce, without duplicate
+	 * @return				The answer of this server, combined by reduceAnswerList()
+	 * @throws BasicException	When the reducer throws on any part
+	 */
+	public static Serializable reduceWrapperList(ITrellisReducer reducer, Serializable request,
+			ObjectWrapper[] wrapperList) throws BasicException
+	{
+		int			partCount		= (wrapperList.length + KEY_CHUNK_SIZE - 1) / KEY_CHUNK_SIZE;
+		return reduce(reducer, request, partCount, (index) ->
+		{
+			int					indexMin		= index * KEY_CHUNK_SIZE;
+			int					length			= Math.min(KEY_CHUNK_SIZE, wrapperList.length - indexMin);
+			ObjectWrapper[]		chunk			= new ObjectWrapper[length];
+			System.arraycopy(wrapperList, indexMin, chunk, 0, length);
+			return chunk;
+		});
+	}
+
+	private static Serializable reduce(ITrellisReducer reducer, Serializable request,
+			int partCount, IntFunction<ObjectWrapper[]> partSupplier) throws BasicException
+	{
+		ReduceJob			job				= new ReduceJob(reducer, request, partCount, partSupplier);
+		if (1 == partCount)
+		{
+			// Not worth a trip through the pool.
+			job.reducePart(0);
+		}
+		else if (1 < partCount)
+		{
+			REDUCE_POOL.invoke(new ReduceTask(job, 0, partCount));
+		}
+		if (null != job.m_exception.get())
+		{
+			throw job.m_exception.get();
+		}
+
+		List<Serializable>	answerList		= new ArrayList<>(partCount);
+		for (Serializable answer : job.m_answerList)
+		{
+			if (null != answer)
+			{
+				answerList.add(answer);
+			}
+		}
+		try
+		{
+			return reducer.reduceAnswerList(answerList.toArray(new Serializable[answerList.size()]), request);
+		}
+		catch (Exception exception)
+		{
+			throw new BasicException(BasicEvent.EVENT_CACHE_OBJECT_EXCEPTION_REDUCE, exception,
+					"Unexpected exception processing reduceAnswerList() with reducer %s",
+					reducer.getClass().getName());
+		}
+	}
+
+	private static class ReduceJob
+	{
+		private final ITrellisReducer					m_reducer;
+		private final Serializable						m_request;
+		private final IntFunction<ObjectWrapper[]>		m_partSupplier;
+		private final Serializable[]					m_answerList;
+		private final AtomicReference<BasicException>	m_exception		= new AtomicReference<>();
+
+		public ReduceJob(ITrellisReducer reducer, Serializable request,
+				int partCount, IntFunction<ObjectWrapper[]> partSupplier)
+		{
+			m_reducer = reducer;
+			m_request = request;
+			m_partSupplier = partSupplier;
+			m_answerList = new Serializable[partCount];
+		}
+
+		// An empty part leaves a null answer, it is not passed to reduceAnswerList().
+		public void reducePart(int index)
+		{
+			if (null != m_exception.get())
+			{
+				return;			// No point in continuing, the reduce has already failed.
+			}
+
+			ObjectWrapper[]			wrapperList		= m_partSupplier.apply(index);
+			if (0 == wrapperList.length)
+			{
+				return;
+			}
+
+			// Lock in hash order and once per lock, as objects may share a stripe (see ReadWriteLockStripeTable).
+			// The parts are fresh arrays, they can be sorted in place.
+			Arrays.sort(wrapperList, HASH_ORDER);
+			ICacheObject[]				objectList		= new ICacheObject[wrapperList.length];
+			AbstractReadWriteLock[]		lockList		= new AbstractReadWriteLock[wrapperList.length];
+			IOperationContext[]			contextList		= new IOperationContext[wrapperList.length];
+			int							lockedCount		= 0;
+			boolean						isSuccess		= false;
+			try
+			{
+				for (int i = 0; i < wrapperList.length; i++)
+				{
+					AbstractReadWriteLock		lock		= wrapperList[i].getLock();
+					if (0 == lockedCount || lock != lockList[lockedCount - 1])		// NOPMD Looking for the same lock
+					{
+						contextList[lockedCount] = lock.lockRead();
+						lockList[lockedCount++] = lock;
+					}
+					objectList[i] = wrapperList[i].getTrellisObject();
+				}
+				m_answerList[index] = m_reducer.reduceObjectList(objectList, m_request);
+				isSuccess = true;
+			}
+			catch (Exception exception)
+			{
+				m_exception.compareAndSet(null, new BasicException(BasicEvent.EVENT_CACHE_OBJECT_EXCEPTION_REDUCE,
+						exception, "Unexpected exception processing reduceObjectList() on %,d objects with reducer %s",
+						objectList.length, m_reducer.getClass().getName()));
+			}
+			finally
+			{
+				for (int i = 0; i < lockedCount; i++)
+				{
+					lockList[i].unlockRead(contextList[i], isSuccess);
+				}
+			}
+		}
+	}
+
+	private static class ReduceTask extends RecursiveAction
+	{
+		private static final long		serialVersionUID		= 1L;
+
+		private final transient ReduceJob	m_job;
+		private final int					m_indexMin;
+		private final int					m_indexMax;
+
+		public ReduceTask(ReduceJob job, int indexMin, int indexMax)
+		{
+			m_job = job;
+			m_indexMin = indexMin;
+			m_indexMax = indexMax;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (1 == (m_indexMax - m_indexMin))
+			{
+				m_job.reducePart(m_indexMin);
+			}
+			else
+			{
+				int			indexMiddle		= (m_indexMin + m_indexMax) >>> 1;
+				invokeAll(new ReduceTask(m_job, m_indexMin, indexMiddle),
+						new ReduceTask(m_job, indexMiddle, m_indexMax));
+			}
+		}
+	}
+}
@@ -0,0 +1,628 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.monitoring.event.BasicLogger;
+import com.expedia.echox3.basics.tools.serial.BasicSerial;
+import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
+import com.expedia.echox3.basics.tools.time.TimeUnits;
+import com.expedia.echox3.basics.tools.time.WallClock;
+import com.expedia.echox3.internal.store.wrapper.ObjectKey;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+import com.expedia.echox3.visible.application.simplecache.SimpleCacheObject;
+import com.expedia.echox3.visible.trellis.ICacheObject;
+import com.expedia.echox3.visible.trellis.IExpiringCacheObject;
+
+/**
+ * Snapshot of the objects of a LocalObjectCache in memory-mapped segment files, to restart the cache warm.
+ *
+ * The snapshot is written bin by bin: the entries of a bin are serialized under the read lock of its map
+ * (i.e. between the walks of the maintenance, flush and resize), each object under its own read lock.
+ * The bins are spread over the segments, which are written and loaded in parallel (see LocalObjectBulk).
+ * The segments are written to temporary files, renamed once they are all complete;
+ * a snapshot with a missing or mismatched segment is ignored, i.e. the cache starts empty.
+ * With a LocalObjectWriteLog, the snapshot holds the sequence of the log when it started
+ * and each object the sequence of its last write, so the log replays exactly the writes the snapshot misses.
+ *
+ * Segment	= header (magic, version, snapshot id, segment index, segment count, record count, write sequence,
+ * 			failed count), then a block per bin.
+ * Block	= record count, byte count, then the records.
+ * Record	= key length, key, expiration time (0 for none), write sequence, record type, then
+ * 			RECORD_TYPE_OBJECT: object length, serialized object;
+ * 			RECORD_TYPE_SIMPLE: write time, read time, value length, value.
+ * The objects of a simple cache are written field by field: on load, they are created by the factory of the cache,
+ * which attaches its status holder (and SlabStore), then restored (see SimpleCacheObject.restore()).
+ */
+public class LocalObjectSnapshot
+{
+	private static final BasicLogger		LOGGER					= new BasicLogger(LocalObjectSnapshot.class);
+
+	public static final String				FILE_EXTENSION			= ".snapshot";
+	private static final String				TEMPORARY_EXTENSION		= ".tmp";
+
+	private static final int				MAGIC					= 0x45583353;		// "EX3S"
+	private static final int				VERSION					= 1;
+	private static final int				HEADER_SIZE				= 2 * Integer.BYTES + Long.BYTES
+																		+ 2 * Integer.BYTES + 3 * Long.BYTES;
+	private static final int				BLOCK_HEADER_SIZE		= 2 * Integer.BYTES;
+	private static final byte				RECORD_TYPE_OBJECT		= 0;
+	private static final byte				RECORD_TYPE_SIMPLE		= 1;
+	// The blocks are gathered on the heap up to this size, then copied to the file through a single mapping.
+	private static final int				WRITE_REGION_SIZE		= 8 * 1024 * 1024;
+	// The file is read through mappings of (at least) this size, a block is never split across two mappings.
+	private static final int				READ_REGION_SIZE		= 256 * 1024 * 1024;
+
+	private final String					m_cacheName;
+	private final File						m_folder;
+
+	@FunctionalInterface
+	public interface IEntryLoader
+	{
+		boolean loadEntry(ObjectKey key, ICacheObject cacheObject, long writeSequence);
+	}
+
+	public LocalObjectSnapshot(String cacheName, File folder)
+	{
+		m_cacheName = cacheName;
+		m_folder = new File(folder, cacheName);
+	}
+
+	public static BasicLogger getLogger()
+	{
+		return LOGGER;
+	}
+
+	public File getFolder()
+	{
+		return m_folder;
+	}
+
+	/**
+	 * Writes the objects of the bins, replacing the previous snapshot once all the segments are written.
+	 *
+	 * @param binList			The bins of the cache
+	 * @param segmentCount		The number of segments, at most one per bin
+	 * @param writeSequence		The last sequence of the write log before the snapshot started, 0 for none
+	 * @return					The number of objects that could not be written, i.e. missing from the snapshot
+	 * @throws BasicException	When a segment cannot be written, the previous snapshot is then left as-is
+	 */
+	public long write(List<LocalObjectBin> binList, int segmentCount, long writeSequence) throws BasicException
+	{
+		long			timeBeginNS		= System.nanoTime();
+		long			snapshotId		= WallClock.getCurrentTimeMS();
+		int				binCount		= binList.size();
+		int				fileCount		= Math.max(1, Math.min(binCount, segmentCount));
+		Statistics		statistics		= new Statistics();
+
+		if (!m_folder.isDirectory() && !m_folder.mkdirs())
+		{
+			throw new BasicException(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED,
+					"Cache %s: Unable to create the snapshot folder %s", m_cacheName, m_folder.getAbsolutePath());
+		}
+		try
+		{
+			LocalObjectBulk.process(fileCount, 1, true, (indexMin, indexMax) ->
+			{
+				for (int i = indexMin; i < indexMax; i++)
+				{
+					List<LocalObjectBin>	segmentBinList	=
+							binList.subList(binCount * i / fileCount, binCount * (i + 1) / fileCount);
+					writeSegment(snapshotId, i, fileCount, writeSequence, segmentBinList, statistics);
+				}
+			});
+			for (int i = 0; i < fileCount; i++)
+			{
+				Files.move(getPath(i, TEMPORARY_EXTENSION), getPath(i, FILE_EXTENSION),
+						StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			// The segments of a previous snapshot written with more segments.
+			for (int i = fileCount; Files.deleteIfExists(getPath(i, FILE_EXTENSION)); i++)
+			{
+				// Nothing else to do
+			}
+		}
+		catch (IOException exception)
+		{
+			throw new BasicException(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED, exception,
+					"Cache %s: Unable to replace the snapshot in %s", m_cacheName, m_folder.getAbsolutePath());
+		}
+		finally
+		{
+			deleteTemporary(fileCount);
+		}
+
+		getLogger().info(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE,
+				"Cache %s: Snapshot of %,d objects (%,d bytes; %,d failed) written to %,d segments in %s",
+				m_cacheName, statistics.m_recordCount.get(), statistics.m_byteCount.get(),
+				statistics.m_failedCount.get(), fileCount, TimeUnits.formatNS(System.nanoTime() - timeBeginNS));
+		return statistics.m_failedCount.get();
+	}
+	private void deleteTemporary(int fileCount)
+	{
+		for (int i = 0; i < fileCount; i++)
+		{
+			try
+			{
+				Files.deleteIfExists(getPath(i, TEMPORARY_EXTENSION));
+			}
+			catch (IOException exception)
+			{
+				getLogger().warn(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED, exception,
+						"Cache %s: Unable to delete %s", m_cacheName, getPath(i, TEMPORARY_EXTENSION));
+			}
+		}
+	}
+	private Path getPath(int segmentIndex, String extension)
+	{
+		return new File(m_folder, String.format("Segment-%03d%s", segmentIndex, extension)).toPath();
+	}
+
+	private void writeSegment(long snapshotId, int segmentIndex, int segmentCount, long writeSequence,
+			List<LocalObjectBin> binList, Statistics statistics) throws BasicException
+	{
+		Path			path			= getPath(segmentIndex, TEMPORARY_EXTENSION);
+		Statistics		segmentStatistics	= new Statistics();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			SegmentWriter		writer			= new SegmentWriter(channel);
+			for (LocalObjectBin bin : binList)
+			{
+				writer.addBlock(writeBin(bin, segmentStatistics));
+			}
+			writer.writeRegion();
+
+			MappedByteBuffer	header			= channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putLong(snapshotId);
+			header.putInt(segmentIndex).putInt(segmentCount).putLong(writer.getRecordCount()).putLong(writeSequence);
+			header.putLong(segmentStatistics.m_failedCount.get());
+			header.force();
+			statistics.m_recordCount.addAndGet(writer.getRecordCount());
+			statistics.m_failedCount.addAndGet(segmentStatistics.m_failedCount.get());
+			statistics.m_byteCount.addAndGet(channel.size());
+		}
+		catch (IOException exception)
+		{
+			throw new BasicException(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED, exception,
+					"Cache %s: Unable to write the snapshot segment %s", m_cacheName, path);
+		}
+	}
+
+	// The block of a bin, with its header.
+	private byte[] writeBin(LocalObjectBin bin, Statistics statistics) throws IOException
+	{
+		ByteArrayOutputStream	blockStream		= new ByteArrayOutputStream(64 * 1024);
+		DataOutputStream		dataStream		= new DataOutputStream(blockStream);
+		dataStream.write(new byte[BLOCK_HEADER_SIZE]);
+		int						recordCount		= 0;
+
+		IOperationContext		mapContext		= bin.getMapLock().lockRead();
+		try
+		{
+			for (ObjectWrapper wrapper : bin.getEntryTable().toArray())
+			{
+				if (writeEntry(wrapper, dataStream, statistics))
+				{
+					recordCount++;
+				}
+			}
+		}
+		finally
+		{
+			bin.getMapLock().unlockRead(mapContext, true);
+		}
+
+		byte[]					block			= blockStream.toByteArray();
+		ByteBuffer.wrap(block).putInt(recordCount).putInt(block.length - BLOCK_HEADER_SIZE);
+		return block;
+	}
+	private boolean writeEntry(ObjectWrapper wrapper, DataOutputStream dataStream, Statistics statistics)
+			throws IOException
+	{
+		ICacheObject			cacheObject		= wrapper.getTrellisObject();
+		byte[]					objectBytes		= null;
+		long					expirationMS	= 0;
+		long					writeSequence	= 0;
+		long					writeTimeMS		= 0;
+		long					readTimeMS		= 0;
+		IOperationContext		context			= wrapper.getLock().lockRead();
+		boolean					isSuccess		= false;
+		try
+		{
+			if (!cacheObject.canDelete())
+			{
+				if (cacheObject instanceof IExpiringCacheObject)
+				{
+					expirationMS = ((IExpiringCacheObject) cacheObject).getExpirationTimeMS();
+				}
+				if (cacheObject instanceof SimpleCacheObject)
+				{
+					SimpleCacheObject		simpleObject	= (SimpleCacheObject) cacheObject;
+					objectBytes = simpleObject.getData();
+					writeTimeMS = simpleObject.getWriteTimeMS();
+					readTimeMS = simpleObject.getReadTimeMS();
+				}
+				else
+				{
+					objectBytes = BasicSerial.toBytes(m_cacheName, cacheObject);
+				}
+				writeSequence = wrapper.getWriteSequence();
+			}
+			isSuccess = true;
+		}
+		catch (BasicException | RuntimeException exception)
+		{
+			if (1 == statistics.m_failedCount.incrementAndGet())
+			{
+				getLogger().warn(BasicEvent.EVENT_CACHE_SNAPSHOT_WRITE_FAILED, exception,
+						"Cache %s: Unable to write %s to the snapshot (only the first failure of the segment is logged)",
+						m_cacheName, cacheObject.getClass().getName());
+			}
+		}
+		finally
+		{
+			wrapper.getLock().unlockRead(context, isSuccess);
+		}
+		if (null == objectBytes)
+		{
+			return false;
+		}
+
+		ByteArrayWrapper		key				= wrapper.getWrappedKey();
+		dataStream.writeInt(key.getLength());
+		dataStream.write(key.getByteArray(), key.getIndexMin(), key.getLength());
+		dataStream.writeLong(expirationMS);
+		dataStream.writeLong(writeSequence);
+		if (cacheObject instanceof SimpleCacheObject)
+		{
+			dataStream.writeByte(RECORD_TYPE_SIMPLE);
+			dataStream.writeLong(writeTimeMS);
+			dataStream.writeLong(readTimeMS);
+		}
+		else
+		{
+			dataStream.writeByte(RECORD_TYPE_OBJECT);
+		}
+		dataStream.writeInt(objectBytes.length);
+		dataStream.write(objectBytes);
+		return true;
+	}
+
+	private static class SegmentWriter
+	{
+		private final FileChannel			m_channel;
+		private final List<byte[]>			m_blockList			= new ArrayList<>();
+		private int							m_blockListSize		= 0;
+		private long						m_position			= HEADER_SIZE;
+		private long						m_recordCount		= 0;
+
+		public SegmentWriter(FileChannel channel)
+		{
+			m_channel = channel;
+		}
+
+		public void addBlock(byte[] block) throws IOException
+		{
+			if (WRITE_REGION_SIZE < m_blockListSize + block.length)
+			{
+				writeRegion();
+			}
+			m_blockList.add(block);
+			m_blockListSize += block.length;
+			m_recordCount += ByteBuffer.wrap(block).getInt();
+		}
+
+		public void writeRegion() throws IOException
+		{
+			if (0 == m_blockListSize)
+			{
+				return;
+			}
+			MappedByteBuffer		region		= m_channel.map(MapMode.READ_WRITE, m_position, m_blockListSize);
+			for (byte[] block : m_blockList)
+			{
+				region.put(block);
+			}
+			region.force();
+			m_position += m_blockListSize;
+			m_blockList.clear();
+			m_blockListSize = 0;
+		}
+
+		public long getRecordCount()
+		{
+			return m_recordCount;
+		}
+	}
+
+	/**
+	 * @return	The number of objects in the snapshot, 0 when there is no (valid) snapshot
+	 */
+	public long getRecordCount()
+	{
+		SegmentHeader[]		headerList		= readHeaderList();
+		long				recordCount		= 0;
+		for (int i = 0; null != headerList && i < headerList.length; i++)
+		{
+			recordCount += headerList[i].m_recordCount;
+		}
+		return recordCount;
+	}
+
+	/**
+	 * @return	The number of objects that could not be written to the snapshot, 0 when there is no (valid) snapshot
+	 */
+	public long getFailedCount()
+	{
+		SegmentHeader[]		headerList		= readHeaderList();
+		long				failedCount		= 0;
+		for (int i = 0; null != headerList && i < headerList.length; i++)
+		{
+			failedCount += headerList[i].m_failedCount;
+		}
+		return failedCount;
+	}
+
+	/**
+	 * @return	The sequence of the write log when the snapshot started, 0 when there is no (valid) snapshot
+	 */
+	public long getWriteSequence()
+	{
+		SegmentHeader[]		headerList		= readHeaderList();
+		return null == headerList ? 0 : headerList[0].m_writeSequence;
+	}
+
+	/**
+	 * Loads the objects of the snapshot, the segments in parallel.
+	 * The objects already expired are skipped, those that cannot be de-serialized are counted and skipped.
+	 *
+	 * @param factory			Creates the objects of a simple cache, which are then restored from their record
+	 * @param loader			Inserts each object in the cache
+	 * @return					The number of objects loaded
+	 * @throws BasicException	When a segment cannot be read, the objects already loaded are kept
+	 */
+	public long load(LocalObjectFactoryWrapper factory, IEntryLoader loader) throws BasicException
+	{
+		SegmentHeader[]		headerList		= readHeaderList();
+		if (null == headerList)
+		{
+			return 0;
+		}
+
+		long				timeBeginNS		= System.nanoTime();
+		Statistics			statistics		= new Statistics();
+		LocalObjectBulk.process(headerList.length, 1, true, (indexMin, indexMax) ->
+		{
+			for (int i = indexMin; i < indexMax; i++)
+			{
+				loadSegment(headerList[i], factory, loader, statistics);
+			}
+		});
+
+		long				durationNS		= Math.max(1, System.nanoTime() - timeBeginNS);
+		getLogger().info(BasicEvent.EVENT_CACHE_SNAPSHOT_LOAD,
+				"Cache %s: Loaded %,d objects (%,d expired; %,d failed) from %,d segments (%,d bytes) in %s (%,d MB/s)",
+				m_cacheName, statistics.m_recordCount.get(), statistics.m_expiredCount.get(),
+				statistics.m_failedCount.get(), headerList.length, statistics.m_byteCount.get(),
+				TimeUnits.formatNS(durationNS), statistics.m_byteCount.get() * 1000 / durationNS);
+		return statistics.m_recordCount.get();
+	}
+
+	// The headers of the segments of the snapshot, by segment index; null if there is no complete snapshot.
+	private SegmentHeader[] readHeaderList()
+	{
+		File[]				fileList		= m_folder.listFiles((folder, name) -> name.endsWith(FILE_EXTENSION));
+		if (null == fileList || 0 == fileList.length)
+		{
+			return null;
+		}
+
+		SegmentHeader[]		headerList		= new SegmentHeader[fileList.length];
+		SegmentHeader		headerFirst		= null;
+		for (File file : fileList)
+		{
+			SegmentHeader		header			= readHeader(file.toPath());
+			headerFirst = null == headerFirst ? header : headerFirst;
+			if (null == header || headerList.length != header.m_segmentCount
+					|| headerFirst.m_snapshotId != header.m_snapshotId || null != headerList[header.m_segmentIndex]
+					|| headerFirst.m_writeSequence != header.m_writeSequence)
+			{
+				getLogger().warn(BasicEvent.EVENT_CACHE_SNAPSHOT_INVALID,
+						"Cache %s: Ignoring the snapshot in %s, the segment %s is invalid or does not match.",
+						m_cacheName, m_folder.getAbsolutePath(), file.getName());
+				return null;
+			}
+			headerList[header.m_segmentIndex] = header;
+		}
+		return headerList;
+	}
+	private static SegmentHeader readHeader(Path path)
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer			buffer			= ByteBuffer.allocate(HEADER_SIZE);
+			while (buffer.hasRemaining() && -1 != channel.read(buffer))
+			{
+				// Read the whole header
+			}
+			buffer.flip();
+			if (HEADER_SIZE != buffer.remaining() || MAGIC != buffer.getInt() || VERSION != buffer.getInt())
+			{
+				return null;
+			}
+			SegmentHeader		header			= new SegmentHeader(path, buffer.getLong(),
+					buffer.getInt(), buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+			return 0 <= header.m_segmentIndex && header.m_segmentIndex < header.m_segmentCount ? header : null;
+		}
+		catch (IOException exception)
+		{
+			return null;
+		}
+	}
+
+	private void loadSegment(SegmentHeader header, LocalObjectFactoryWrapper factory, IEntryLoader loader,
+			Statistics statistics) throws BasicException
+	{
+		long				timeNowMS		= WallClock.getCurrentTimeMS();
+		try (FileChannel channel = FileChannel.open(header.m_path, StandardOpenOption.READ))
+		{
+			long				size			= channel.size();
+			long				position		= HEADER_SIZE;
+			long				regionBegin		= position;
+			MappedByteBuffer	region			= null;
+			while (position < size)
+			{
+				if (null == region || position + BLOCK_HEADER_SIZE > regionBegin + region.limit())
+				{
+					regionBegin = position;
+					region = channel.map(MapMode.READ_ONLY, regionBegin, Math.min(size - position, READ_REGION_SIZE));
+				}
+				int					offset			= (int) (position - regionBegin);
+				int					recordCount		= region.getInt(offset);
+				long				blockEnd		=
+						position + BLOCK_HEADER_SIZE + region.getInt(offset + Integer.BYTES);
+				if (blockEnd > size)
+				{
+					throw new IOException(String.format("Truncated block at %,d", position));
+				}
+				if (blockEnd > regionBegin + region.limit())
+				{
+					// The block spans the end of the region, map the next region from the block.
+					regionBegin = position;
+					region = channel.map(MapMode.READ_ONLY, regionBegin,
+							Math.max(blockEnd - position, Math.min(size - position, READ_REGION_SIZE)));
+					offset = 0;
+				}
+				region.position(offset + BLOCK_HEADER_SIZE);
+				for (int i = 0; i < recordCount; i++)
+				{
+					loadRecord(region, factory, loader, timeNowMS, statistics);
+				}
+				position = blockEnd;
+			}
+			statistics.m_byteCount.addAndGet(size);
+		}
+		catch (IOException | RuntimeException exception)
+		{
+			throw new BasicException(BasicEvent.EVENT_CACHE_SNAPSHOT_LOAD_FAILED, exception,
+					"Cache %s: Unable to load the snapshot segment %s", m_cacheName, header.m_path);
+		}
+	}
+	private void loadRecord(ByteBuffer region, LocalObjectFactoryWrapper factory, IEntryLoader loader,
+			long timeNowMS, Statistics statistics) throws IOException
+	{
+		byte[]				keyBytes		= new byte[region.getInt()];
+		region.get(keyBytes);
+		long				expirationMS	= region.getLong();
+		long				writeSequence	= region.getLong();
+		byte				recordType		= region.get();
+		if (RECORD_TYPE_OBJECT != recordType && RECORD_TYPE_SIMPLE != recordType)
+		{
+			throw new IOException(String.format("Invalid record type %d", recordType));
+		}
+		long				writeTimeMS		= RECORD_TYPE_SIMPLE == recordType ? region.getLong() : 0;
+		long				readTimeMS		= RECORD_TYPE_SIMPLE == recordType ? region.getLong() : 0;
+		byte[]				objectBytes		= new byte[region.getInt()];
+		region.get(objectBytes);
+		if (0 != expirationMS && expirationMS <= timeNowMS)
+		{
+			statistics.m_expiredCount.incrementAndGet();
+			return;
+		}
+
+		try
+		{
+			ObjectKey			key				= new ObjectKey(keyBytes);
+			ICacheObject		cacheObject		= RECORD_TYPE_SIMPLE == recordType
+					? restoreSimpleObject(key, factory, objectBytes, writeTimeMS, readTimeMS, expirationMS)
+					: (ICacheObject) BasicSerial.toObject(m_cacheName, objectBytes);
+			if (loader.loadEntry(key, cacheObject, writeSequence))
+			{
+				statistics.m_recordCount.incrementAndGet();
+			}
+			else if (RECORD_TYPE_SIMPLE == recordType)
+			{
+				// Not loaded (e.g. flushed since the snapshot), its value is released (from the SlabStore).
+				cacheObject.writeOnly(null);
+			}
+		}
+		catch (BasicException | RuntimeException exception)
+		{
+			// e.g. the class of the object has changed in an incompatible way since the snapshot
+			if (1 == statistics.m_failedCount.incrementAndGet())
+			{
+				getLogger().warn(BasicEvent.EVENT_CACHE_SNAPSHOT_LOAD_FAILED, exception,
+						"Cache %s: Unable to load an object of the snapshot (only the first failure is logged)",
+						m_cacheName);
+			}
+		}
+	}
+
+	private SimpleCacheObject restoreSimpleObject(ObjectKey key, LocalObjectFactoryWrapper factory, byte[] data,
+			long writeTimeMS, long readTimeMS, long expirationMS) throws BasicException
+	{
+		ICacheObject		cacheObject		= factory.createObject(key);
+		if (!(cacheObject instanceof SimpleCacheObject))
+		{
+			throw new BasicException(BasicEvent.EVENT_CACHE_SNAPSHOT_LOAD_FAILED,
+					"Cache %s: The factory creates %s, not a simple cache object",
+					m_cacheName, null == cacheObject ? null : cacheObject.getClass().getName());
+		}
+		SimpleCacheObject	simpleObject	= (SimpleCacheObject) cacheObject;
+		simpleObject.restore(data, writeTimeMS, readTimeMS, expirationMS);
+		return simpleObject;
+	}
+
+	private static class SegmentHeader
+	{
+		private final Path				m_path;
+		private final long				m_snapshotId;
+		private final int				m_segmentIndex;
+		private final int				m_segmentCount;
+		private final long				m_recordCount;
+		private final long				m_writeSequence;
+		private final long				m_failedCount;
+
+		public SegmentHeader(Path path, long snapshotId, int segmentIndex, int segmentCount, long recordCount,
+				long writeSequence, long failedCount)
+		{
+			m_path = path;
+			m_snapshotId = snapshotId;
+			m_segmentIndex = segmentIndex;
+			m_segmentCount = segmentCount;
+			m_recordCount = recordCount;
+			m_writeSequence = writeSequence;
+			m_failedCount = failedCount;
+		}
+	}
+
+	private static class Statistics
+	{
+		private final AtomicLong		m_recordCount		= new AtomicLong(0);
+		private final AtomicLong		m_byteCount			= new AtomicLong(0);
+		private final AtomicLong		m_expiredCount		= new AtomicLong(0);
+		private final AtomicLong		m_failedCount		= new AtomicLong(0);
+	}
+}
@@ -0,0 +1,487 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.cache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.expedia.echox3.internal.store.wrapper.ObjectKey;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+
+/**
+ * Concurrent open-addressed table of ObjectWrapper, keyed on the (already computed) ObjectKey.getHash64().
+ * Replaces the HashMap + ReadWriteLock combination of the LocalObjectBin.
+ *
+ * 		get()			Lock-free, never waits, never allocates.
+ * 		putIfAbsent()	CAS on an empty slot; returns the existing entry if the key is already present.
+ * 		remove()		CAS of the entry into a TOMBSTONE.
+ *
+ * Each slot moves forward only: null -> entry -> TOMBSTONE -> MOVED, entry -> Frozen(entry) -> MOVED
+ * or null -> MOVED_EMPTY. TOMBSTONEs are never re-used, they are cleaned-up by the next resize.
+ *
+ * Resize is cooperative: the thread that finds the table full publishes the next table,
+ * then every writer (put/remove) that encounters the resize claims chunks of slots to transfer
+ * until the transfer is complete. During the transfer, an entry is first Frozen (still visible to readers),
+ * copied to the next table, then marked MOVED. As the slots are transferred one at a time, an entry further
+ * along the probe chain may not be transferred yet: a reader that sees MOVED keeps probing the old table
+ * until the end of the chain (null or MOVED_EMPTY), then continues in the next table.
+ * Readers never help, they just follow the chain.
+ */
+public class LocalObjectTable implements Iterable<ObjectWrapper>
+{
+	private static final int			CAPACITY_MIN			= 16;
+	private static final int			LOAD_PERCENT_MAX		= 70;
+	private static final int			TRANSFER_STRIDE			= 64;
+
+	private static final Object			TOMBSTONE				= new Object();
+	private static final Object			MOVED					= new Object();
+	private static final Object			MOVED_EMPTY				= new Object();		// Was null, i.e. ends a chain
+	private static final long			TRANSFER_PARK_MAX_NS	= 100 * 1000;
+
+	private final AtomicInteger			m_itemCount				= new AtomicInteger(0);
+	private volatile Table				m_table;
+
+	public LocalObjectTable()
+	{
+		this(CAPACITY_MIN);
+	}
+	public LocalObjectTable(int capacity)
+	{
+		m_table = new Table(getCapacity(capacity));
+	}
+
+	private static int getCapacity(int itemCount)
+	{
+		// Leave room to grow: Aim at half the maximum load right after a resize.
+		long		capacityMin		= Math.max(CAPACITY_MIN, (itemCount * 200L) / LOAD_PERCENT_MAX);
+		int			capacity		= CAPACITY_MIN;
+		while (capacity < capacityMin && capacity < (1 << 30))
+		{
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	// The bin already used some bits of the hash, spread the whole 64 bits again for the position in the table.
+	private static int getIndex(long hash64, int mask)
+	{
+		return ((int) ((hash64 * 0x9E3779B97F4A7C15L) >>> 32)) & mask;
+	}
+
+	private static boolean isMatch(ObjectWrapper wrapper, ObjectKey key)
+	{
+		return wrapper.getHash64() == key.getHash64() && wrapper.equals(key);
+	}
+
+	public int size()
+	{
+		return m_itemCount.get();
+	}
+
+	public int getCapacity()
+	{
+		return m_table.m_slotList.length();
+	}
+
+	public ObjectWrapper get(ObjectKey key)
+	{
+		Table		table		= m_table;
+		while (null != table)
+		{
+			int			mask		= table.m_mask;
+			int			index		= getIndex(key.getHash64(), mask);
+			boolean		isMoved		= false;
+			boolean		isChainEnd	= false;
+			for (int probe = 0; probe <= mask && !isChainEnd; probe++)
+			{
+				Object		slot		= table.m_slotList.get(index);
+				isChainEnd = null == slot || MOVED_EMPTY == slot;
+				// The entries further along the chain may not be transferred yet, keep looking in this table.
+				isMoved |= MOVED == slot || MOVED_EMPTY == slot;
+				ObjectWrapper		wrapper		= getWrapper(slot);
+				if (null != wrapper && isMatch(wrapper, key))
+				{
+					return wrapper;
+				}
+				index = (index + 1) & mask;
+			}
+
+			// The entry may have been moved to the next table, or this table is full of tombstones.
+			if (isChainEnd && !isMoved)
+			{
+				return null;
+			}
+			table = table.m_next.get();
+		}
+		return null;
+	}
+
+	/**
+	 * Insert the wrapper if no entry with the same key is present.
+	 *
+	 * @param wrapper		The entry to insert
+	 * @return				The entry now in the table: wrapper if it was inserted, the existing entry otherwise
+	 */
+	public ObjectWrapper putIfAbsent(ObjectWrapper wrapper)
+	{
+		while (true)
+		{
+			Table		table		= m_table;
+			Table		next		= table.m_next.get();
+			if (null != next)
+			{
+				helpTransfer(table, next);
+				continue;
+			}
+
+			int			mask		= table.m_mask;
+			int			index		= getIndex(wrapper.getHash64(), mask);
+			boolean		isRetry		= false;
+			for (int probe = 0; probe <= mask && !isRetry; )
+			{
+				Object		slot		= table.m_slotList.get(index);
+				if (null == slot)
+				{
+					if (table.m_usedCount.get() >= table.m_usedMax)
+					{
+						startResize(table);
+						isRetry = true;
+						continue;
+					}
+					if (table.m_slotList.compareAndSet(index, null, wrapper))
+					{
+						table.m_usedCount.incrementAndGet();
+						m_itemCount.incrementAndGet();
+						return wrapper;
+					}
+					// Lost the race for this slot, look at what the winner put there (same index, same probe).
+					continue;
+				}
+				if (isTransferred(slot))
+				{
+					// A resize is in progress, help it and try again in the next table.
+					isRetry = true;
+					continue;
+				}
+				if (TOMBSTONE != slot && isMatch((ObjectWrapper) slot, wrapper))
+				{
+					return (ObjectWrapper) slot;
+				}
+				index = (index + 1) & mask;
+				probe++;
+			}
+			if (!isRetry)
+			{
+				// Went around the whole table without finding a free slot.
+				startResize(table);
+			}
+		}
+	}
+
+	public ObjectWrapper remove(ObjectKey key)
+	{
+		return removeInternal(key, false);
+	}
+
+	/**
+	 * Remove this exact wrapper (identity, not equality).
+	 * Used by the walks (maintenance, flush, resize) to avoid removing an entry re-created by another thread.
+	 *
+	 * @param wrapper		The wrapper to remove
+	 * @return				true if the wrapper was present and has been removed by this call
+	 */
+	public boolean remove(ObjectWrapper wrapper)
+	{
+		return null != removeInternal(wrapper, true);
+	}
+
+	private ObjectWrapper removeInternal(ObjectKey key, boolean isIdentity)
+	{
+		while (true)
+		{
+			Table		table		= m_table;
+			int			mask		= table.m_mask;
+			int			index		= getIndex(key.getHash64(), mask);
+			boolean		isRetry		= false;
+			for (int probe = 0; probe <= mask && !isRetry; )
+			{
+				Object		slot		= table.m_slotList.get(index);
+				if (null == slot)
+				{
+					return null;
+				}
+				if (isTransferred(slot))
+				{
+					isRetry = true;
+					continue;
+				}
+				if (TOMBSTONE != slot)
+				{
+					ObjectWrapper	wrapper		= (ObjectWrapper) slot;
+					boolean			isMatch		= isIdentity ? wrapper == key : isMatch(wrapper, key);	// NOPMD
+					if (isMatch)
+					{
+						if (table.m_slotList.compareAndSet(index, slot, TOMBSTONE))
+						{
+							m_itemCount.decrementAndGet();
+							return wrapper;
+						}
+						// Removed or frozen by another thread, look again at the same slot.
+						continue;
+					}
+				}
+				index = (index + 1) & mask;
+				probe++;
+			}
+
+			Table		next		= table.m_next.get();
+			if (null == next)
+			{
+				return null;
+			}
+			helpTransfer(table, next);
+		}
+	}
+
+	/**
+	 * Snapshot of the entries currently in the table, used by the walks (maintenance, flush, resize...).
+	 * Entries inserted after the start of the walk are not visited.
+	 * Iterator.remove() removes the exact entry returned by next(), if it is still in the table.
+	 *
+	 * @return an Iterator over a snapshot of the entries
+	 */
+	@Override
+	public Iterator<ObjectWrapper> iterator()
+	{
+		return new SnapshotIterator(this, toArray());
+	}
+
+	public ObjectWrapper[] toArray()
+	{
+		while (true)
+		{
+			Table		table		= m_table;
+			Table		next		= table.m_next.get();
+			if (null != next)
+			{
+				helpTransfer(table, next);
+				continue;
+			}
+
+			ObjectWrapper[]		wrapperList		= new ObjectWrapper[Math.max(CAPACITY_MIN, size())];
+			int					count			= 0;
+			boolean				isMoved			= false;
+			for (int i = 0; i < table.m_slotList.length() && !isMoved; i++)
+			{
+				Object			slot		= table.m_slotList.get(i);
+				if (isTransferred(slot))
+				{
+					isMoved = true;
+				}
+				else if (null != slot && TOMBSTONE != slot)
+				{
+					if (count == wrapperList.length)
+					{
+						wrapperList = Arrays.copyOf(wrapperList, count * 2);
+					}
+					wrapperList[count++] = (ObjectWrapper) slot;
+				}
+			}
+			if (!isMoved)
+			{
+				return Arrays.copyOf(wrapperList, count);
+			}
+			// else a resize started during the walk, start again with the next table.
+		}
+	}
+
+	private static boolean isTransferred(Object slot)
+	{
+		return MOVED == slot || MOVED_EMPTY == slot || slot instanceof Frozen;
+	}
+
+	private static ObjectWrapper getWrapper(Object slot)
+	{
+		if (slot instanceof ObjectWrapper)
+		{
+			return (ObjectWrapper) slot;
+		}
+		else if (slot instanceof Frozen)
+		{
+			return ((Frozen) slot).m_wrapper;
+		}
+		else
+		{
+			return null;		// null, TOMBSTONE, MOVED or MOVED_EMPTY
+		}
+	}
+
+	private void startResize(Table table)
+	{
+		if (null == table.m_next.get())
+		{
+			table.m_next.compareAndSet(null, new Table(getCapacity(size())));
+		}
+		helpTransfer(table, table.m_next.get());
+	}
+
+	private void helpTransfer(Table table, Table next)
+	{
+		int		length		= table.m_slotList.length();
+		int		indexBegin;
+		while ((indexBegin = table.m_transferIndex.getAndAdd(TRANSFER_STRIDE)) < length)
+		{
+			int		indexEnd		= Math.min(length, indexBegin + TRANSFER_STRIDE);
+			for (int i = indexBegin; i < indexEnd; i++)
+			{
+				transferSlot(table, next, i);
+			}
+			if (length == table.m_transferDone.addAndGet(indexEnd - indexBegin))
+			{
+				// Last chunk transferred, the next table becomes the table.
+				m_table = next;
+			}
+		}
+
+		// Wait for the other threads to complete the chunks they claimed (at most a stride each).
+		long	parkNS		= 1000;
+		while (m_table == table)		// NOPMD Looking for exactly this object
+		{
+			LockSupport.parkNanos(parkNS);
+			parkNS = Math.min(TRANSFER_PARK_MAX_NS, parkNS * 2);
+		}
+	}
+
+	private static void transferSlot(Table table, Table next, int index)
+	{
+		while (true)
+		{
+			Object		slot		= table.m_slotList.get(index);
+			if (slot instanceof ObjectWrapper)
+			{
+				ObjectWrapper		wrapper		= (ObjectWrapper) slot;
+				Frozen				frozen		= new Frozen(wrapper);
+				if (table.m_slotList.compareAndSet(index, slot, frozen))
+				{
+					// Frozen: no-one else can remove it, readers still see it here until it is MOVED.
+					next.insertTransferred(wrapper);
+					table.m_slotList.set(index, MOVED);
+					return;
+				}
+			}
+			else if (table.m_slotList.compareAndSet(index, slot, null == slot ? MOVED_EMPTY : MOVED))
+			{
+				return;		// null or TOMBSTONE
+			}
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		Table		table		= m_table;
+		return String.format("%s(%,d items; %,d slots used of %,d)", getClass().getSimpleName(),
+				size(), table.m_usedCount.get(), table.m_slotList.length());
+	}
+
+
+
+	private static final class Table
+	{
+		private final AtomicReferenceArray<Object>		m_slotList;
+		private final int								m_mask;
+		private final int								m_usedMax;
+		private final AtomicInteger						m_usedCount			= new AtomicInteger(0);
+		private final AtomicReference<Table>			m_next				= new AtomicReference<>(null);
+		private final AtomicInteger						m_transferIndex		= new AtomicInteger(0);
+		private final AtomicInteger						m_transferDone		= new AtomicInteger(0);
+
+		private Table(int capacity)
+		{
+			m_slotList	= new AtomicReferenceArray<>(capacity);
+			m_mask		= capacity - 1;
+			m_usedMax	= (int) ((capacity * (long) LOAD_PERCENT_MAX) / 100);
+		}
+
+		// Only called during a transfer: the keys are known to be unique and no other operation is running.
+		// The table is sized on the item count at the start of the resize, entries inserted concurrently
+		// with the start of the resize may still fill it: the rest then goes to a larger table after this one,
+		// where the readers find it at the end of the (full) chain and the writers transfer it as any resize.
+		private void insertTransferred(ObjectWrapper wrapper)
+		{
+			int		index		= getIndex(wrapper.getHash64(), m_mask);
+			for (int probe = 0; probe <= m_mask; probe++)
+			{
+				if (m_slotList.compareAndSet(index, null, wrapper))
+				{
+					m_usedCount.incrementAndGet();
+					return;
+				}
+				index = (index + 1) & m_mask;
+			}
+
+			if (null == m_next.get())
+			{
+				m_next.compareAndSet(null, new Table(m_slotList.length() * 2));
+			}
+			m_next.get().insertTransferred(wrapper);
+		}
+	}
+
+	private static final class Frozen
+	{
+		private final ObjectWrapper		m_wrapper;
+
+		private Frozen(ObjectWrapper wrapper)
+		{
+			m_wrapper = wrapper;
+		}
+	}
+
+	private static final class SnapshotIterator implements Iterator<ObjectWrapper>
+	{
+		private final LocalObjectTable		m_owner;
+		private final ObjectWrapper[]		m_wrapperList;
+		private int							m_index			= 0;
+
+		private SnapshotIterator(LocalObjectTable owner, ObjectWrapper[] wrapperList)
+		{
+			m_owner = owner;
+			m_wrapperList = wrapperList;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return m_index < m_wrapperList.length;
+		}
+
+		@Override
+		public ObjectWrapper next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+			return m_wrapperList[m_index++];
+		}
+
+		@Override
+		public void remove()
+		{
+			if (0 == m_index)
+			{
+				throw new IllegalStateException();
+			}
+			m_owner.remove(m_wrapperList[m_index - 1]);
+		}
+	}
+}
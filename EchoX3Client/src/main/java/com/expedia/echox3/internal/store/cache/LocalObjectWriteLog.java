@@ -0,0 +1,628 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.cache;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.monitoring.event.BasicLogger;
+import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
+import com.expedia.echox3.basics.tools.time.WallClock;
+import com.expedia.echox3.internal.store.wrapper.ObjectKey;
+
+/**
+ * Append-only log of the writes of a LocalObjectCache, replayed over its snapshot (see LocalObjectSnapshot)
+ * when the cache is next created.
+ *
+ * A write is appended under the write lock of its object, just before the object processes it,
+ * so the log holds the writes of each object in the order they were applied;
+ * the object remembers the sequence of its last write, which is saved with it in the snapshot.
+ * The caller then waits in commit() until its record is in the file. The records are group-committed:
+ * the first thread waiting becomes the leader and writes (and per the SyncPolicy, forces) all the records
+ * appended so far with a single FileChannel.write(), while the records appended in the meantime gather
+ * in the other buffer for the next leader.
+ *
+ * Each snapshot starts a new file (rotate()); the files older than the snapshot are deleted once it is written.
+ * The objects removed by expiration, eviction or the maintenance are not logged,
+ * the same rules remove them again once they are replayed.
+ *
+ * File		= WriteLog-(sequence of the first record, hex).log, then the records.
+ * Record	= body length, CRC32 of the body, then the body: type, sequence, then
+ * 			Write	= key length, key, request length (-1 for none), request
+ * 			Delete	= key length, key, sequence of the last write of the deleted object
+ * 			Flush	= nothing more
+ */
+public class LocalObjectWriteLog implements Closeable
+{
+	private static final BasicLogger		LOGGER					= new BasicLogger(LocalObjectWriteLog.class);
+
+	public enum SyncPolicy
+	{
+		None,			// The OS writes the file to the disk, a write survives a crash of the process only
+		Commit,			// Each group commit forces the file to the disk before the writes return
+		Periodic		// The file is forced at most every WriteLogSyncPeriod
+	}
+
+	public static final String				FILE_EXTENSION			= ".log";
+	private static final String				FILE_PREFIX				= "WriteLog-";
+
+	private static final byte				TYPE_WRITE				= 1;
+	private static final byte				TYPE_DELETE				= 2;
+	private static final byte				TYPE_FLUSH				= 3;
+	private static final int				RECORD_HEADER_SIZE		= 2 * Integer.BYTES;
+	private static final int				BODY_HEADER_SIZE		= 1 + Long.BYTES;
+	private static final int				BUFFER_SIZE				= 1024 * 1024;
+
+	private final String					m_cacheName;
+	private final File						m_folder;
+	private final SyncPolicy				m_syncPolicy;
+	private final long						m_syncPeriodMS;
+
+	// All the fields below are guarded by m_lock, the buffer being written is owned by the leader.
+	private final ReentrantLock				m_lock					= new ReentrantLock();
+	private final Condition					m_commitCondition		= m_lock.newCondition();
+	private final CRC32						m_crc					= new CRC32();
+	private ByteBuffer						m_bufferAppend			= ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private ByteBuffer						m_bufferWrite			= ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private long							m_sequenceAppended		= 0;
+	private long							m_sequenceCommitted		= 0;
+	private long							m_sequenceForced		= 0;
+	private boolean							m_isCommitActive		= false;
+	private FileChannel						m_channel				= null;
+	private BasicException					m_failure				= null;
+	private volatile long					m_forceTimeMS			= WallClock.getCurrentTimeMS();
+	private volatile long					m_sizeSinceRotate		= 0;
+
+	public interface IRecordVisitor
+	{
+		void visitWrite(long sequence, ObjectKey key, byte[] requestBytes);
+		void visitDelete(long sequence, ObjectKey key, long deletedSequence);
+		void visitFlush(long sequence);
+	}
+
+	public LocalObjectWriteLog(String cacheName, File folder, SyncPolicy syncPolicy, long syncPeriodMS)
+	{
+		m_cacheName = cacheName;
+		m_folder = new File(folder, cacheName);
+		m_syncPolicy = syncPolicy;
+		m_syncPeriodMS = syncPeriodMS;
+	}
+
+	public static BasicLogger getLogger()
+	{
+		return LOGGER;
+	}
+
+	public File getFolder()
+	{
+		return m_folder;
+	}
+
+	public SyncPolicy getSyncPolicy()
+	{
+		return m_syncPolicy;
+	}
+
+	// The number of bytes written since the last snapshot started, i.e. the size of the log to replay.
+	public long getSizeSinceRotate()
+	{
+		return m_sizeSinceRotate;
+	}
+
+	public long getSequenceAppended()
+	{
+		m_lock.lock();
+		try
+		{
+			return m_sequenceAppended;
+		}
+		finally
+		{
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * Reads the records of the log, in order, before the log is opened.
+	 * A file stops at its first incomplete or corrupt record (i.e. the records being written when the process
+	 * stopped), which is truncated so the next replay reads the same records.
+	 *
+	 * @param sequenceMin	The records up to this sequence (included in the snapshot) are skipped
+	 * @param visitor		Receives the records after sequenceMin
+	 * @return				The number of records visited
+	 */
+	public long replay(long sequenceMin, IRecordVisitor visitor)
+	{
+		long			recordCount		= 0;
+		for (File file : getFileList())
+		{
+			long			position		= 0;
+			try (DataInputStream stream = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file), 64 * 1024)))
+			{
+				while (true)
+				{
+					int			bodySize;
+					try
+					{
+						bodySize = stream.readInt();
+					}
+					catch (EOFException exception)
+					{
+						break;
+					}
+					int			crc				= stream.readInt();
+					if (BODY_HEADER_SIZE > bodySize || file.length() < position + RECORD_HEADER_SIZE + bodySize)
+					{
+						throw new IOException(String.format("Invalid record size %,d", bodySize));
+					}
+					byte[]		body			= new byte[bodySize];
+					stream.readFully(body);
+					m_crc.reset();
+					m_crc.update(body);
+					if (crc != (int) m_crc.getValue())
+					{
+						throw new IOException("Invalid CRC");
+					}
+
+					ByteBuffer	buffer			= ByteBuffer.wrap(body);
+					byte		type			= buffer.get();
+					long		sequence		= buffer.getLong();
+					if (sequence > sequenceMin)
+					{
+						visitRecord(type, sequence, buffer, visitor);
+						recordCount++;
+					}
+					m_sequenceAppended = Math.max(m_sequenceAppended, sequence);
+					position += RECORD_HEADER_SIZE + bodySize;
+				}
+			}
+			catch (IOException exception)
+			{
+				truncate(file, position, exception);
+			}
+		}
+		return recordCount;
+	}
+	// The exceptions of the visitor are its own, only an invalid record is reported as an IOException.
+	private static void visitRecord(byte type, long sequence, ByteBuffer buffer, IRecordVisitor visitor)
+			throws IOException
+	{
+		if (TYPE_FLUSH == type)
+		{
+			visitor.visitFlush(sequence);
+			return;
+		}
+
+		byte[]			keyBytes;
+		byte[]			requestBytes	= null;
+		long			deletedSequence	= 0;
+		try
+		{
+			keyBytes = new byte[buffer.getInt()];
+			buffer.get(keyBytes);
+			if (TYPE_WRITE == type)
+			{
+				int				requestSize		= buffer.getInt();
+				requestBytes = -1 == requestSize ? null : new byte[requestSize];
+				if (null != requestBytes)
+				{
+					buffer.get(requestBytes);
+				}
+			}
+			else if (TYPE_DELETE == type)
+			{
+				deletedSequence = buffer.getLong();
+			}
+			else
+			{
+				throw new IOException(String.format("Invalid record type %d", type));
+			}
+		}
+		catch (BufferUnderflowException | NegativeArraySizeException exception)
+		{
+			throw new IOException("Invalid record", exception);
+		}
+
+		if (TYPE_WRITE == type)
+		{
+			visitor.visitWrite(sequence, new ObjectKey(keyBytes), requestBytes);
+		}
+		else
+		{
+			visitor.visitDelete(sequence, new ObjectKey(keyBytes), deletedSequence);
+		}
+	}
+	private void truncate(File file, long position, Exception exception)
+	{
+		getLogger().warn(BasicEvent.EVENT_CACHE_WRITE_LOG_INVALID,
+				"Cache %s: Truncating %s at %,d of %,d bytes (%s)",
+				m_cacheName, file.getName(), position, file.length(), exception.getMessage());
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE))
+		{
+			channel.truncate(position);
+		}
+		catch (IOException exceptionTruncate)
+		{
+			getLogger().error(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, exceptionTruncate,
+					"Cache %s: Unable to truncate %s", m_cacheName, file.getName());
+		}
+	}
+
+	/**
+	 * Starts a new file, after the records already in the log (see replay()) and in the snapshot.
+	 *
+	 * @param sequenceMin		The sequence of the snapshot, the new records follow it
+	 * @throws BasicException	When the file cannot be created; the log is then unusable, commit() fails
+	 */
+	public void open(long sequenceMin) throws BasicException
+	{
+		m_lock.lock();
+		try
+		{
+			m_sequenceAppended = Math.max(m_sequenceAppended, sequenceMin);
+			m_sequenceCommitted = m_sequenceAppended;
+			m_sequenceForced = m_sequenceAppended;
+			m_channel = openFile(m_sequenceAppended + 1);
+		}
+		finally
+		{
+			m_lock.unlock();
+		}
+	}
+	private FileChannel openFile(long sequenceFirst) throws BasicException
+	{
+		File			file			= getFile(sequenceFirst);
+		try
+		{
+			if (!m_folder.isDirectory() && !m_folder.mkdirs())
+			{
+				throw new IOException("Unable to create the folder " + m_folder.getAbsolutePath());
+			}
+			return FileChannel.open(file.toPath(),
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		}
+		catch (IOException exception)
+		{
+			m_failure = new BasicException(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, exception,
+					"Cache %s: Unable to create the write log %s", m_cacheName, file.getAbsolutePath());
+			throw m_failure;
+		}
+	}
+
+	public long appendWrite(ByteArrayWrapper key, byte[] requestBytes)
+	{
+		return append(TYPE_WRITE, key,
+				Integer.BYTES + (null == requestBytes ? 0 : requestBytes.length), requestBytes, 0);
+	}
+	public long appendDelete(ByteArrayWrapper key, long deletedSequence)
+	{
+		return append(TYPE_DELETE, key, Long.BYTES, null, deletedSequence);
+	}
+	public long appendFlush()
+	{
+		return append(TYPE_FLUSH, null, 0, null, 0);
+	}
+	private long append(byte type, ByteArrayWrapper key, int tailSize, byte[] requestBytes, long deletedSequence)
+	{
+		int				keySize			= null == key ? 0 : Integer.BYTES + key.getLength();
+		int				bodySize		= BODY_HEADER_SIZE + keySize + tailSize;
+		m_lock.lock();
+		try
+		{
+			ByteBuffer		buffer			= reserve(RECORD_HEADER_SIZE + bodySize);
+			long			sequence		= ++m_sequenceAppended;
+			int				recordBegin		= buffer.position();
+			buffer.putInt(bodySize).putInt(0);
+			buffer.put(type).putLong(sequence);
+			if (null != key)
+			{
+				buffer.putInt(key.getLength()).put(key.getByteArray(), key.getIndexMin(), key.getLength());
+			}
+			if (TYPE_WRITE == type)
+			{
+				buffer.putInt(null == requestBytes ? -1 : requestBytes.length);
+				if (null != requestBytes)
+				{
+					buffer.put(requestBytes);
+				}
+			}
+			else if (TYPE_DELETE == type)
+			{
+				buffer.putLong(deletedSequence);
+			}
+
+			ByteBuffer		body			= buffer.duplicate();
+			body.limit(buffer.position()).position(recordBegin + RECORD_HEADER_SIZE);
+			m_crc.reset();
+			m_crc.update(body);
+			buffer.putInt(recordBegin + Integer.BYTES, (int) m_crc.getValue());
+			return sequence;
+		}
+		finally
+		{
+			m_lock.unlock();
+		}
+	}
+	// Called with m_lock held; a record larger than the space left grows the buffer.
+	private ByteBuffer reserve(int size)
+	{
+		if (m_bufferAppend.remaining() < size)
+		{
+			ByteBuffer		buffer			= ByteBuffer.allocateDirect(
+					Math.max(2 * m_bufferAppend.capacity(), m_bufferAppend.position() + size));
+			m_bufferAppend.flip();
+			buffer.put(m_bufferAppend);
+			m_bufferAppend = buffer;
+		}
+		return m_bufferAppend;
+	}
+
+	/**
+	 * Waits until the record is written (and forced, per the SyncPolicy) to the file,
+	 * writing it (with all the records appended so far) if no other thread is.
+	 *
+	 * @param sequence			The sequence returned by append...()
+	 * @throws BasicException	When the log cannot be written, the record may or may not be in the file
+	 */
+	public void commit(long sequence) throws BasicException
+	{
+		m_lock.lock();
+		try
+		{
+			while (m_sequenceCommitted < sequence)
+			{
+				checkFailure();
+				if (m_isCommitActive)
+				{
+					m_commitCondition.awaitUninterruptibly();
+				}
+				else
+				{
+					writeAppended(false);
+				}
+			}
+		}
+		finally
+		{
+			m_lock.unlock();
+		}
+	}
+
+	// The maintenance thread forces the records written since the last sync with SyncPolicy.Periodic.
+	public void syncIfDue(long timeNowMS) throws BasicException
+	{
+		if (SyncPolicy.Periodic == m_syncPolicy && timeNowMS >= m_forceTimeMS + m_syncPeriodMS)
+		{
+			sync();
+		}
+	}
+	// Writes and forces all the records appended so far.
+	public void sync() throws BasicException
+	{
+		m_lock.lock();
+		try
+		{
+			while (m_isCommitActive)
+			{
+				m_commitCondition.awaitUninterruptibly();
+			}
+			checkFailure();
+			if (m_sequenceForced < m_sequenceAppended)
+			{
+				writeAppended(true);
+				checkFailure();
+			}
+		}
+		finally
+		{
+			m_lock.unlock();
+		}
+	}
+	// Called with m_lock held and no commit active, releases it while the thread (the leader) writes the records.
+	private void writeAppended(boolean isForce)
+	{
+		ByteBuffer		buffer			= m_bufferAppend;
+		m_bufferAppend = m_bufferWrite;
+		m_bufferWrite = buffer;
+		long			sequence		= m_sequenceAppended;
+		FileChannel		channel			= m_channel;
+		int				size			= buffer.position();
+		boolean			isForced		= false;
+		IOException		failure			= null;
+		m_isCommitActive = true;
+		m_lock.unlock();
+		try
+		{
+			if (null == channel)
+			{
+				throw new IOException("The write log is closed");
+			}
+			buffer.flip();
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+			long			timeNowMS		= WallClock.getCurrentTimeMS();
+			if (isForce || SyncPolicy.Commit == m_syncPolicy
+					|| (SyncPolicy.Periodic == m_syncPolicy && timeNowMS >= m_forceTimeMS + m_syncPeriodMS))
+			{
+				channel.force(false);
+				m_forceTimeMS = timeNowMS;
+				isForced = true;
+			}
+		}
+		catch (IOException exception)
+		{
+			failure = exception;
+		}
+		finally
+		{
+			buffer.clear();
+			m_lock.lock();
+		}
+
+		m_isCommitActive = false;
+		if (null == failure)
+		{
+			m_sequenceCommitted = sequence;
+			m_sequenceForced = isForced ? sequence : m_sequenceForced;
+			m_sizeSinceRotate += size;
+		}
+		else
+		{
+			m_failure = new BasicException(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, failure,
+					"Cache %s: Unable to write the write log in %s", m_cacheName, m_folder.getAbsolutePath());
+		}
+		m_commitCondition.signalAll();
+	}
+	private void checkFailure() throws BasicException
+	{
+		if (null != m_failure)
+		{
+			throw m_failure;
+		}
+	}
+
+	/**
+	 * Starts a new file for the records that follow, at the beginning of a snapshot.
+	 *
+	 * @return					The sequence of the last record of the previous files
+	 * @throws BasicException	When the records cannot be written or the new file cannot be created
+	 */
+	public long rotate() throws BasicException
+	{
+		m_lock.lock();
+		try
+		{
+			while (m_isCommitActive)
+			{
+				m_commitCondition.awaitUninterruptibly();
+			}
+			checkFailure();
+			writeAppended(true);
+			checkFailure();
+
+			// Still holding m_lock, no other leader writes until the new file is in place.
+			long			sequence		= m_sequenceCommitted;
+			closeChannel();
+			m_channel = openFile(sequence + 1);
+			m_sizeSinceRotate = 0;
+			return sequence;
+		}
+		finally
+		{
+			m_lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes the files of the records up to sequence, once the snapshot which includes them is written.
+	 *
+	 * @param sequence		The sequence returned by rotate() when the snapshot started
+	 */
+	public void compact(long sequence)
+	{
+		File[]			fileList		= getFileList();
+		for (int i = 0; i < fileList.length - 1; i++)
+		{
+			// The last record of a file precedes the first record of the next one.
+			if (getSequenceFirst(fileList[i + 1]) <= sequence + 1 && !fileList[i].delete())
+			{
+				getLogger().warn(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED,
+						"Cache %s: Unable to delete %s", m_cacheName, fileList[i].getAbsolutePath());
+			}
+		}
+	}
+
+	// The files of the log, in the order of their records.
+	private File[] getFileList()
+	{
+		File[]			fileList		= m_folder.listFiles(
+				(folder, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_EXTENSION));
+		if (null == fileList)
+		{
+			return new File[0];
+		}
+		Arrays.sort(fileList, (file1, file2) -> Long.compare(getSequenceFirst(file1), getSequenceFirst(file2)));
+		return fileList;
+	}
+	private File getFile(long sequenceFirst)
+	{
+		return new File(m_folder, String.format("%s%016x%s", FILE_PREFIX, sequenceFirst, FILE_EXTENSION));
+	}
+	private static long getSequenceFirst(File file)
+	{
+		String			name			= file.getName();
+		return Long.parseUnsignedLong(
+				name.substring(FILE_PREFIX.length(), name.length() - FILE_EXTENSION.length()), 16);
+	}
+
+	/**
+	 * Writes and forces the records appended so far, then closes the file; commit() fails from then on.
+	 */
+	@Override
+	public void close()
+	{
+		m_lock.lock();
+		try
+		{
+			if (null == m_channel)
+			{
+				return;
+			}
+			sync();
+		}
+		catch (BasicException exception)
+		{
+			getLogger().error(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, exception,
+					"Cache %s: The last writes may not be in the write log", m_cacheName);
+		}
+		finally
+		{
+			closeChannel();
+			m_lock.unlock();
+		}
+	}
+	private void closeChannel()
+	{
+		try
+		{
+			if (null != m_channel)
+			{
+				m_channel.close();
+			}
+		}
+		catch (IOException exception)
+		{
+			getLogger().warn(BasicEvent.EVENT_CACHE_WRITE_LOG_FAILED, exception,
+					"Cache %s: Unable to close the write log", m_cacheName);
+		}
+		m_channel = null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%s: %s; %,d appended)",
+				getClass().getSimpleName(), m_cacheName, m_syncPolicy.name(), getSequenceAppended());
+	}
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.expedia.echox3.basics.collection.ring.ConcurrentRingBufferQueue;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+import com.expedia.echox3.visible.trellis.ICacheObject;
+
+/**
+ * The threads using the cache only queue their events in lock-free buffers:
+ * the reads in a lossy buffer (a dropped read only makes the policy a little less accurate),
+ * the writes and removes in buffers which are drained when full.
+ * The events are applied to the structures of the policy (NOT thread safe) under a lock,
+ * by whichever thread gets it (tryLock() after each write, lock() when a buffer is full or from the maintenance).
+ *
+ * The size of an object is read when its write or read is applied;
+ * when the total is above the maximum size, the policy selects victims until it is under,
+ * and queues them for the cache to remove (outside the lock of the policy, see LocalObjectCache.evictPending()).
+ */
+public abstract class AbstractEvictionPolicy implements IEvictionPolicy
+{
+	private static final int					READ_BUFFER_SIZE		= 1024;
+	private static final int					WRITE_BUFFER_SIZE		= 1024;
+
+	private final PolicyType					m_policyType;
+	private final Queue<ObjectWrapper>			m_readBuffer			=
+			new ConcurrentRingBufferQueue<>(READ_BUFFER_SIZE);
+	private final Queue<ObjectWrapper>			m_writeBuffer			=
+			new ConcurrentRingBufferQueue<>(WRITE_BUFFER_SIZE);
+	private final Queue<ObjectWrapper>			m_removeBuffer			=
+			new ConcurrentRingBufferQueue<>(WRITE_BUFFER_SIZE);
+	private final Queue<ObjectWrapper>			m_victimList			= new ConcurrentLinkedQueue<>();
+	private final ReentrantLock					m_lock					= new ReentrantLock();
+
+	private volatile long						m_sizeMax				= 0;
+	private volatile long						m_size					= 0;		// Written under m_lock
+
+	protected AbstractEvictionPolicy(PolicyType policyType)
+	{
+		m_policyType = policyType;
+	}
+
+	public static IEvictionPolicy createPolicy(PolicyType policyType, long sizeMax)
+	{
+		IEvictionPolicy		policy;
+		switch (policyType)
+		{
+		case LRU:
+			policy = new LruEvictionPolicy();
+			break;
+		case SLRU:
+			policy = new SegmentedLruEvictionPolicy(PolicyType.SLRU);
+			break;
+		case TinyLFU:
+			policy = new TinyLfuEvictionPolicy();
+			break;
+		case None:
+		default:
+			policy = NullEvictionPolicy.INSTANCE;
+			break;
+		}
+		policy.setSizeMax(sizeMax);
+		return policy;
+	}
+
+	@Override
+	public PolicyType getPolicyType()
+	{
+		return m_policyType;
+	}
+
+	@Override
+	public void setSizeMax(long sizeMax)
+	{
+		m_sizeMax = sizeMax;
+	}
+
+	@Override
+	public long getSizeMax()
+	{
+		return m_sizeMax;
+	}
+
+	@Override
+	public long getSize()
+	{
+		return m_size;
+	}
+
+	@Override
+	public void recordRead(ObjectWrapper wrapper)
+	{
+		if (!m_readBuffer.offer(wrapper))
+		{
+			tryDrain();
+		}
+	}
+
+	@Override
+	public void recordWrite(ObjectWrapper wrapper)
+	{
+		while (!m_writeBuffer.offer(wrapper))
+		{
+			drain();
+		}
+		tryDrain();
+	}
+
+	@Override
+	public void recordRemove(ObjectWrapper wrapper)
+	{
+		while (!m_removeBuffer.offer(wrapper))
+		{
+			drain();
+		}
+	}
+
+	@Override
+	public ObjectWrapper pollVictim()
+	{
+		return m_victimList.poll();
+	}
+
+	@Override
+	public void drain()
+	{
+		m_lock.lock();
+		try
+		{
+			drainLocked();
+		}
+		finally
+		{
+			m_lock.unlock();
+		}
+	}
+	private void tryDrain()
+	{
+		if (m_lock.tryLock())
+		{
+			try
+			{
+				drainLocked();
+			}
+			finally
+			{
+				m_lock.unlock();
+			}
+		}
+	}
+
+	private void drainLocked()
+	{
+		ObjectWrapper		wrapper;
+		while (null != (wrapper = m_writeBuffer.poll()))
+		{
+			EvictionNode		node		= wrapper.getEvictionNode();
+			if (null == node)
+			{
+				node = new EvictionNode(wrapper);
+				node.m_size = getObjectSize(wrapper);
+				wrapper.setEvictionNode(node);
+				m_size += node.m_size;
+				onInsert(node);
+			}
+			else if (node.isLinked())
+			{
+				updateSize(node);
+				onAccess(node);
+			}
+		}
+		while (null != (wrapper = m_readBuffer.poll()))
+		{
+			EvictionNode		node		= wrapper.getEvictionNode();
+			if (null != node && node.isLinked())
+			{
+				updateSize(node);
+				onAccess(node);
+			}
+		}
+		while (null != (wrapper = m_removeBuffer.poll()))
+		{
+			EvictionNode		node		= wrapper.getEvictionNode();
+			if (null == node)
+			{
+				// Removed before its write was applied, the retired node makes the policy ignore the write.
+				wrapper.setEvictionNode(new EvictionNode(wrapper));
+			}
+			else if (node.isLinked())
+			{
+				retire(node);
+			}
+		}
+
+		long				sizeMax		= m_sizeMax;
+		while (0 < sizeMax && m_size > sizeMax)
+		{
+			EvictionNode		victim		= selectVictim();
+			if (null == victim)
+			{
+				break;
+			}
+			retire(victim);
+			m_victimList.offer(victim.getWrapper());
+		}
+	}
+
+	private void retire(EvictionNode node)
+	{
+		m_size -= node.m_size;
+		onRemove(node);
+	}
+	private void updateSize(EvictionNode node)
+	{
+		long		size		= getObjectSize(node.getWrapper());
+		m_size += size - node.m_size;
+		node.m_deque.setSize(node, size);
+	}
+	private static long getObjectSize(ObjectWrapper wrapper)
+	{
+		ICacheObject		cacheObject		= wrapper.getTrellisObject();
+		return null == cacheObject ? 0 : cacheObject.getSize();
+	}
+
+	// The node is new, add it to the structures of the policy (with its size already set).
+	protected abstract void onInsert(EvictionNode node);
+	// The node has been read or written.
+	protected abstract void onAccess(EvictionNode node);
+	// The node is no longer in the cache, or has been selected as a victim.
+	protected void onRemove(EvictionNode node)
+	{
+		node.m_deque.remove(node);
+	}
+	// The node to evict, it is retired by the caller; null if there is nothing left to evict.
+	protected abstract EvictionNode selectVictim();
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(size %,d of max %,d)", getPolicyType(), getSize(), getSizeMax());
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+/**
+ * Intrusive doubly linked list of EvictionNode (i.e. no allocation to add, move or remove),
+ * with the count and the total size of its nodes. First is the oldest, last the most recent.
+ * NOT thread safe, used under the lock of the policy.
+ */
+class EvictionDeque
+{
+	private final EvictionNode		m_sentinel		= new EvictionNode(null);
+	private int						m_count			= 0;
+	private long					m_size			= 0;
+
+	EvictionDeque()
+	{
+		m_sentinel.m_prev = m_sentinel;
+		m_sentinel.m_next = m_sentinel;
+	}
+
+	int getCount()
+	{
+		return m_count;
+	}
+
+	long getSize()
+	{
+		return m_size;
+	}
+
+	boolean contains(EvictionNode node)
+	{
+		return this == node.m_deque;		// NOPMD Looking for exactly this deque
+	}
+
+	EvictionNode peekFirst()
+	{
+		return m_sentinel == m_sentinel.m_next ? null : m_sentinel.m_next;		// NOPMD
+	}
+
+	EvictionNode peekLast()
+	{
+		return m_sentinel == m_sentinel.m_prev ? null : m_sentinel.m_prev;		// NOPMD
+	}
+
+	void addLast(EvictionNode node)
+	{
+		link(node);
+		node.m_deque = this;
+		m_count++;
+		m_size += node.m_size;
+	}
+
+	void remove(EvictionNode node)
+	{
+		unlink(node);
+		node.m_deque = null;
+		m_count--;
+		m_size -= node.m_size;
+	}
+
+	void moveToLast(EvictionNode node)
+	{
+		unlink(node);
+		link(node);
+	}
+
+	void setSize(EvictionNode node, long size)
+	{
+		m_size += size - node.m_size;
+		node.m_size = size;
+	}
+
+	private void link(EvictionNode node)
+	{
+		EvictionNode		last		= m_sentinel.m_prev;
+		node.m_prev = last;
+		node.m_next = m_sentinel;
+		last.m_next = node;
+		m_sentinel.m_prev = node;
+	}
+
+	private static void unlink(EvictionNode node)
+	{
+		node.m_prev.m_next = node.m_next;
+		node.m_next.m_prev = node.m_prev;
+		node.m_prev = null;
+		node.m_next = null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%,d nodes, size %,d", m_count, m_size);
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+
+/**
+ * State of an ObjectWrapper in its eviction policy, only accessed under the lock of the policy.
+ * Once retired (i.e. removed from the cache or evicted), the node stays on its wrapper,
+ * so that the late events about the wrapper are ignored instead of re-inserting it.
+ */
+public class EvictionNode
+{
+	private final ObjectWrapper		m_wrapper;
+	EvictionNode					m_prev;
+	EvictionNode					m_next;
+	EvictionDeque					m_deque;		// null when retired (or sentinel)
+	long							m_size;
+
+	EvictionNode(ObjectWrapper wrapper)
+	{
+		m_wrapper = wrapper;
+	}
+
+	public ObjectWrapper getWrapper()
+	{
+		return m_wrapper;
+	}
+
+	public boolean isLinked()
+	{
+		return null != m_deque;
+	}
+
+	public long getSize()
+	{
+		return m_size;
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+/**
+ * Count-min sketch of the access frequency of the keys (by their hash64), as used by TinyLFU.
+ *
+ * 4 rows of 4 bits counters (i.e. saturating at 15), 16 counters per long.
+ * When the number of increments reaches 10 times the number of counters per row,
+ * all the counters are halved, so that the frequency of the old accesses decays.
+ * NOT thread safe, used under the lock of the policy.
+ */
+class FrequencySketch
+{
+	private static final int		DEPTH			= 4;
+	private static final long		HALF_MASK		= 0x7777777777777777L;
+	private static final long[]		SEED_LIST		=
+			{ 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L };
+
+	private long[]					m_table;
+	private int						m_mask;
+	private int						m_sampleSize;
+	private int						m_additionCount;
+
+	FrequencySketch(int count)
+	{
+		ensureCapacity(count);
+	}
+
+	// Sized for count keys, a larger table resets the frequencies.
+	void ensureCapacity(int count)
+	{
+		int			length		= Integer.highestOneBit(Math.max(16, count) - 1) << 1;
+		if (null != m_table && m_table.length >= length)
+		{
+			return;
+		}
+		m_table = new long[length];
+		m_mask = length - 1;
+		m_sampleSize = 10 * length;
+		m_additionCount = 0;
+	}
+
+	int getCapacity()
+	{
+		return m_table.length;
+	}
+
+	int frequency(long hash64)
+	{
+		int			frequency		= 15;
+		for (int i = 0; i < DEPTH; i++)
+		{
+			long		hash		= mix(hash64, i);
+			int			index		= (int) hash & m_mask;
+			int			offset		= ((int) (hash >>> 40) & 15) << 2;
+			frequency = Math.min(frequency, (int) (m_table[index] >>> offset) & 15);
+		}
+		return frequency;
+	}
+
+	void increment(long hash64)
+	{
+		boolean		isAdded			= false;
+		for (int i = 0; i < DEPTH; i++)
+		{
+			long		hash		= mix(hash64, i);
+			int			index		= (int) hash & m_mask;
+			int			offset		= ((int) (hash >>> 40) & 15) << 2;
+			if (15 != ((m_table[index] >>> offset) & 15))
+			{
+				m_table[index] += 1L << offset;
+				isAdded = true;
+			}
+		}
+		if (isAdded && ++m_additionCount == m_sampleSize)
+		{
+			halve();
+		}
+	}
+
+	private void halve()
+	{
+		for (int i = 0; i < m_table.length; i++)
+		{
+			m_table[i] = (m_table[i] >>> 1) & HALF_MASK;
+		}
+		m_additionCount /= 2;
+	}
+
+	private static long mix(long hash64, int row)
+	{
+		long		hash		= (hash64 + SEED_LIST[row]) * SEED_LIST[row];
+		return hash ^ (hash >>> 29);
+	}
+}
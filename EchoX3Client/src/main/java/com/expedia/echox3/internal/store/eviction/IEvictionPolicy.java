@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+
+/**
+ * Chooses which objects of a cache to evict when its size is above ObjectCacheConfiguration.getSizeMax().
+ *
+ * The record methods are called by the threads using the cache and only queue the event (reads may be dropped);
+ * the events are applied in batch by whichever thread gets the policy lock, see AbstractEvictionPolicy.
+ * The objects to evict are queued as victims, for the cache to remove them (see pollVictim()).
+ */
+public interface IEvictionPolicy
+{
+	enum PolicyType
+	{
+		None,				// Age-based only, as implemented by the objects in doMaintenance()
+		LRU,				// Least recently used
+		SLRU,				// Segmented LRU: probation and protected segments
+		TinyLFU				// Window TinyLFU: window LRU, then admission by frequency into a segmented LRU
+	}
+
+	PolicyType		getPolicyType();
+
+	void			setSizeMax(long sizeMax);
+	long			getSizeMax();
+	// Sum of the sizes of the objects, as last seen by the policy.
+	long			getSize();
+
+	void			recordRead(ObjectWrapper wrapper);
+	void			recordWrite(ObjectWrapper wrapper);
+	void			recordRemove(ObjectWrapper wrapper);
+
+	// Applies the pending events and selects the victims needed to get under the maximum size.
+	void			drain();
+	// The next object to remove from the cache, null if none.
+	ObjectWrapper	pollVictim();
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+/**
+ * Evicts the least recently used object.
+ */
+public class LruEvictionPolicy extends AbstractEvictionPolicy
+{
+	private final EvictionDeque		m_deque		= new EvictionDeque();
+
+	public LruEvictionPolicy()
+	{
+		super(PolicyType.LRU);
+	}
+
+	@Override
+	protected void onInsert(EvictionNode node)
+	{
+		m_deque.addLast(node);
+	}
+
+	@Override
+	protected void onAccess(EvictionNode node)
+	{
+		m_deque.moveToLast(node);
+	}
+
+	@Override
+	protected EvictionNode selectVictim()
+	{
+		return m_deque.peekFirst();
+	}
+}
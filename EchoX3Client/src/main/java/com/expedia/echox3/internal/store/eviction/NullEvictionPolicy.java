@@ -0,0 +1,70 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+
+/**
+ * PolicyType.None: nothing is tracked, the size of the cache is only managed by the maintenance passes.
+ */
+public class NullEvictionPolicy implements IEvictionPolicy
+{
+	public static final NullEvictionPolicy		INSTANCE		= new NullEvictionPolicy();
+
+	@Override
+	public PolicyType getPolicyType()
+	{
+		return PolicyType.None;
+	}
+
+	@Override
+	public void setSizeMax(long sizeMax)
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public long getSizeMax()
+	{
+		return 0;
+	}
+
+	@Override
+	public long getSize()
+	{
+		return 0;
+	}
+
+	@Override
+	public void recordRead(ObjectWrapper wrapper)
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public void recordWrite(ObjectWrapper wrapper)
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public void recordRemove(ObjectWrapper wrapper)
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public void drain()
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public ObjectWrapper pollVictim()
+	{
+		return null;
+	}
+}
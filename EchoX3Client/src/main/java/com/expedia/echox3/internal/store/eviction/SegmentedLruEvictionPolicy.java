@@ -0,0 +1,74 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+/**
+ * Segmented LRU: a new object enters the probation segment and moves to the protected segment when accessed again.
+ * The protected segment holds at most PROTECTED_PERCENT of the maximum size, its oldest objects go back to probation.
+ * The victims are taken from probation first, so that an object seen only once never pushes out a hot one.
+ */
+public class SegmentedLruEvictionPolicy extends AbstractEvictionPolicy
+{
+	private static final int		PROTECTED_PERCENT		= 80;
+
+	private final EvictionDeque		m_probation				= new EvictionDeque();
+	private final EvictionDeque		m_protected				= new EvictionDeque();
+
+	public SegmentedLruEvictionPolicy(PolicyType policyType)
+	{
+		super(policyType);
+	}
+
+	protected EvictionDeque getProbation()
+	{
+		return m_probation;
+	}
+
+	protected EvictionDeque getProtected()
+	{
+		return m_protected;
+	}
+
+	// The maximum size of the segments, of which protected gets PROTECTED_PERCENT.
+	protected long getMainSizeMax()
+	{
+		return getSizeMax();
+	}
+
+	@Override
+	protected void onInsert(EvictionNode node)
+	{
+		m_probation.addLast(node);
+	}
+
+	@Override
+	protected void onAccess(EvictionNode node)
+	{
+		if (m_protected.contains(node))
+		{
+			m_protected.moveToLast(node);
+			return;
+		}
+
+		m_probation.remove(node);
+		m_protected.addLast(node);
+
+		long			protectedMax		= getMainSizeMax() * PROTECTED_PERCENT / 100;
+		while (0 < protectedMax && m_protected.getSize() > protectedMax && 1 < m_protected.getCount())
+		{
+			EvictionNode		demoted		= m_protected.peekFirst();
+			m_protected.remove(demoted);
+			m_probation.addLast(demoted);
+		}
+	}
+
+	@Override
+	protected EvictionNode selectVictim()
+	{
+		EvictionNode		victim		= m_probation.peekFirst();
+		return null == victim ? m_protected.peekFirst() : victim;
+	}
+}
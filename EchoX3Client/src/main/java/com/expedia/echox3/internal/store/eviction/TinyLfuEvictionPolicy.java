@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.eviction;
+
+/**
+ * Window TinyLFU (Einziger, Friedman, Manes: "TinyLFU: A Highly Efficient Cache Admission Policy").
+ *
+ * A new object enters a small LRU window (WINDOW_PERCENT of the maximum size), which absorbs the bursts;
+ * the objects leaving the window become candidates at the end of the probation segment of a segmented LRU.
+ * When an object must be evicted, the candidate is compared to the oldest object of probation
+ * and the one with the lowest estimated frequency (see FrequencySketch) is evicted:
+ * a flood of objects seen once cannot push out the frequently used ones.
+ */
+public class TinyLfuEvictionPolicy extends SegmentedLruEvictionPolicy
+{
+	private static final int		WINDOW_PERCENT		= 1;
+
+	private final EvictionDeque		m_window			= new EvictionDeque();
+	private final FrequencySketch	m_sketch			= new FrequencySketch(1024);
+
+	public TinyLfuEvictionPolicy()
+	{
+		super(PolicyType.TinyLFU);
+	}
+
+	@Override
+	protected long getMainSizeMax()
+	{
+		return getSizeMax() - getWindowSizeMax();
+	}
+	private long getWindowSizeMax()
+	{
+		return getSizeMax() * WINDOW_PERCENT / 100;
+	}
+
+	@Override
+	protected void onInsert(EvictionNode node)
+	{
+		m_sketch.increment(node.getWrapper().getHash64());
+		m_window.addLast(node);
+
+		int			count		= m_window.getCount() + getProbation().getCount() + getProtected().getCount();
+		if (count > m_sketch.getCapacity())
+		{
+			m_sketch.ensureCapacity(2 * count);
+		}
+
+		long		windowMax	= getWindowSizeMax();
+		while (m_window.getSize() > windowMax && 1 < m_window.getCount())
+		{
+			EvictionNode		candidate		= m_window.peekFirst();
+			m_window.remove(candidate);
+			getProbation().addLast(candidate);
+		}
+	}
+
+	@Override
+	protected void onAccess(EvictionNode node)
+	{
+		m_sketch.increment(node.getWrapper().getHash64());
+		if (m_window.contains(node))
+		{
+			m_window.moveToLast(node);
+		}
+		else
+		{
+			super.onAccess(node);
+		}
+	}
+
+	@Override
+	protected EvictionNode selectVictim()
+	{
+		EvictionNode		victim			= getProbation().peekFirst();
+		EvictionNode		candidate		= getProbation().peekLast();
+		if (null == victim)
+		{
+			victim = getProtected().peekFirst();
+			return null == victim ? m_window.peekFirst() : victim;
+		}
+		if (victim == candidate)		// NOPMD Looking for exactly this node
+		{
+			return victim;
+		}
+
+		// The candidate is admitted only if it is used more often than the object it would replace.
+		int			frequencyCandidate		= m_sketch.frequency(candidate.getWrapper().getHash64());
+		int			frequencyVictim			= m_sketch.frequency(victim.getWrapper().getHash64());
+		return frequencyCandidate > frequencyVictim ? victim : candidate;
+	}
+}
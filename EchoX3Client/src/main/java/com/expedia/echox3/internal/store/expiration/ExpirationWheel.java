@@ -0,0 +1,213 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.expiration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+import com.expedia.echox3.visible.trellis.IExpiringCacheObject;
+
+/**
+ * Index of the objects of a cache by their expiration time, as a hierarchical timing wheel
+ * (Varghese, Lauck: "Hashed and Hierarchical Timing Wheels"), so that the maintenance only visits the objects due.
+ *
+ * LEVEL_COUNT levels of SLOT_COUNT slots, a slot of level 0 holds the objects of one tick,
+ * a slot of level n holds SLOT_COUNT^n ticks and is cascaded to the lower levels when its first tick comes.
+ * The objects further than SLOT_COUNT^LEVEL_COUNT ticks are re-cascaded in the top level until they are in range.
+ *
+ * Any thread may schedule(); the objects are queued and placed in the wheel by advance(),
+ * which is only called by the maintenance thread of the cache (the wheel itself is NOT thread safe).
+ * An object is scheduled when it is first written and re-scheduled only if its expiration moves to an earlier tick:
+ * when it is due, the maintenance checks it (its expiration may have moved later, e.g. on a read)
+ * and schedules it again if it is kept.
+ * Moving an object to an earlier tick leaves a stale copy in its previous slot;
+ * a copy is only valid if the scheduled time of the object (ObjectWrapper.getExpirationMS()) is in its slot.
+ */
+public class ExpirationWheel
+{
+	private static final int			SLOT_BITS			= 6;
+	private static final int			SLOT_COUNT			= 1 << SLOT_BITS;
+	private static final int			SLOT_MASK			= SLOT_COUNT - 1;
+	private static final int			LEVEL_COUNT			= 4;
+
+	private final long					m_tickMS;
+	private final Queue<ObjectWrapper>	m_pendingList		= new ConcurrentLinkedQueue<>();
+	private final List<List<ObjectWrapper>>	m_slotList		= new ArrayList<>(LEVEL_COUNT * SLOT_COUNT);
+	private long						m_tickCurrent;		// All the ticks before this one have been processed
+	private long						m_scheduledCount	= 0;
+
+	public ExpirationWheel(long tickMS, long timeNowMS)
+	{
+		m_tickMS = Math.max(1, tickMS);
+		m_tickCurrent = timeNowMS / m_tickMS;
+		for (int i = 0; i < LEVEL_COUNT * SLOT_COUNT; i++)
+		{
+			m_slotList.add(new ArrayList<>());
+		}
+	}
+
+	public long getTickMS()
+	{
+		return m_tickMS;
+	}
+
+	// The number of objects placed in the wheel (including the stale copies), as of the last advance().
+	public long getScheduledCount()
+	{
+		return m_scheduledCount;
+	}
+
+	/**
+	 * Queues the object to be placed at its expiration time, on the next advance(),
+	 * unless it is already scheduled at the same or an earlier tick. Thread safe.
+	 *
+	 * @param wrapper	an entry of the cache, ignored if its object does not implement IExpiringCacheObject
+	 */
+	public void schedule(ObjectWrapper wrapper)
+	{
+		if (isScheduleNeeded(wrapper))
+		{
+			m_pendingList.offer(wrapper);
+		}
+	}
+	private boolean isScheduleNeeded(ObjectWrapper wrapper)
+	{
+		long			expirationMS		= getExpirationTimeMS(wrapper);
+		long			scheduledMS			= wrapper.getExpirationMS();
+		return 0 != expirationMS && (0 == scheduledMS || expirationMS / m_tickMS < scheduledMS / m_tickMS);
+	}
+	private static long getExpirationTimeMS(ObjectWrapper wrapper)
+	{
+		Object			cacheObject			= wrapper.getTrellisObject();
+		return cacheObject instanceof IExpiringCacheObject
+				? Math.max(1, ((IExpiringCacheObject) cacheObject).getExpirationTimeMS()) : 0;
+	}
+
+	/**
+	 * Places the queued objects, then moves the wheel up to timeNowMS.
+	 * The objects of the ticks entirely in the past are added to dueList and are no longer scheduled:
+	 * the caller checks each one and schedules it again if it is kept.
+	 *
+	 * @param timeNowMS		Current time (WallClock)
+	 * @param dueList		Where to add the objects due
+	 */
+	public void advance(long timeNowMS, List<ObjectWrapper> dueList)
+	{
+		ObjectWrapper		wrapper;
+		while (null != (wrapper = m_pendingList.poll()))
+		{
+			if (isScheduleNeeded(wrapper))
+			{
+				long		expirationMS		= getExpirationTimeMS(wrapper);
+				wrapper.setExpirationMS(expirationMS);
+				place(wrapper, expirationMS / m_tickMS);
+			}
+		}
+
+		long				tickNow			= timeNowMS / m_tickMS;
+		while (m_tickCurrent < tickNow)
+		{
+			long		tick		= m_tickCurrent;
+			// Cascade the levels whose slot starts on this tick, the highest first, as it fills the lower ones.
+			for (int level = LEVEL_COUNT - 1; 0 < level; level--)
+			{
+				if (0 == (tick & ((1L << (level * SLOT_BITS)) - 1)))
+				{
+					cascade(level, tick);
+				}
+			}
+			expire(tick, dueList);
+			m_tickCurrent++;
+		}
+	}
+
+	/**
+	 * Drops the objects no longer in the cache (e.g. after a flush), so that the wheel does not hold on to them
+	 * until they are due. Called by the maintenance thread, like advance().
+	 *
+	 * @param isInCache		true if the object is still in the cache
+	 */
+	public void purge(Predicate<ObjectWrapper> isInCache)
+	{
+		m_scheduledCount = 0;
+		for (List<ObjectWrapper> wrapperList : m_slotList)
+		{
+			wrapperList.removeIf(wrapper -> 0 == wrapper.getExpirationMS() || !isInCache.test(wrapper));
+			m_scheduledCount += wrapperList.size();
+		}
+	}
+
+	private void place(ObjectWrapper wrapper, long tick)
+	{
+		long		tickPlace		= Math.max(tick, m_tickCurrent);
+		long		delta			= tickPlace - m_tickCurrent;
+		int			level			= 0;
+		while (level < LEVEL_COUNT - 1 && delta >= (1L << ((level + 1) * SLOT_BITS)))
+		{
+			level++;
+		}
+		int			slot			= (int) (tickPlace >>> (level * SLOT_BITS)) & SLOT_MASK;
+		getSlot(level, slot).add(wrapper);
+		m_scheduledCount++;
+	}
+
+	private void cascade(int level, long tick)
+	{
+		int						slot			= (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+		List<ObjectWrapper>		wrapperList		= getSlot(level, slot);
+		if (wrapperList.isEmpty())
+		{
+			return;
+		}
+		m_slotList.set(level * SLOT_COUNT + slot, new ArrayList<>());
+		m_scheduledCount -= wrapperList.size();
+		for (ObjectWrapper wrapper : wrapperList)
+		{
+			long		scheduledMS		= wrapper.getExpirationMS();
+			// Not a stale copy: scheduled in this slot, or beyond the range of the wheel.
+			if (0 != scheduledMS && scheduledMS / m_tickMS >= tick)
+			{
+				place(wrapper, scheduledMS / m_tickMS);
+			}
+		}
+	}
+
+	private void expire(long tick, List<ObjectWrapper> dueList)
+	{
+		int						slot			= (int) tick & SLOT_MASK;
+		List<ObjectWrapper>		wrapperList		= getSlot(0, slot);
+		if (wrapperList.isEmpty())
+		{
+			return;
+		}
+		m_slotList.set(slot, new ArrayList<>());
+		m_scheduledCount -= wrapperList.size();
+		for (ObjectWrapper wrapper : wrapperList)
+		{
+			long		scheduledMS		= wrapper.getExpirationMS();
+			if (0 != scheduledMS && scheduledMS / m_tickMS <= tick)
+			{
+				wrapper.setExpirationMS(0);
+				dueList.add(wrapper);
+			}
+		}
+	}
+
+	private List<ObjectWrapper> getSlot(int level, int slot)
+	{
+		return m_slotList.get(level * SLOT_COUNT + slot);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(tick %,d mS; %,d scheduled)", getClass().getSimpleName(), m_tickMS, m_scheduledCount);
+	}
+}
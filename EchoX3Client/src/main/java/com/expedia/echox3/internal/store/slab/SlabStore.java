@@ -0,0 +1,278 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.slab;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.expedia.echox3.basics.collection.simple.CopyOnSizeArray;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicLogger;
+import com.expedia.echox3.basics.tools.misc.BasicTools;
+
+/**
+ * Off-heap store for variable length byte arrays.
+ *
+ * Memory is reserved from the OS in large direct ByteBuffer (slabs), each slab is cut in chunks of a single size.
+ * Size classes grow by ~25% from CHUNK_SIZE_MIN to the configured maximum, limiting the wasted space to ~20%.
+ * A chunk holds the length of the data (int) followed by the data itself.
+ *
+ * A stored value is identified by a long handle (class, slab, chunk); the caller keeps only the handle.
+ * The caller is responsible for ensuring a handle is not read after it has been freed
+ * (in the cache, the ObjectWrapper lock protects the handle held by the cache object).
+ * Values larger than the largest chunk are refused (NULL_HANDLE) and must be kept on the heap by the caller.
+ */
+public class SlabStore implements Closeable
+{
+	private static final BasicLogger		LOGGER					= new BasicLogger(SlabStore.class);
+
+	public static final long				NULL_HANDLE				= -1L;
+
+	public static final int					CHUNK_SIZE_MIN			= 64;
+	public static final int					SLAB_SIZE_DEFAULT		= 4 * 1024 * 1024;
+	public static final int					CHUNK_SIZE_MAX_DEFAULT	= 1024 * 1024;
+
+	private static final int				HEADER_SIZE				= Integer.BYTES;
+	private static final int				CLASS_SHIFT				= 56;
+	private static final int				SLAB_SHIFT				= 28;
+	private static final long				INDEX_MASK				= (1L << SLAB_SHIFT) - 1;
+
+	private final String					m_name;
+	private final int						m_slabSize;
+	private final SlabClass[]				m_classList;
+	private final AtomicLong				m_slabBytes				= new AtomicLong(0);
+	private final AtomicLong				m_usedBytes				= new AtomicLong(0);
+
+	public SlabStore(String name, int slabSize, int chunkSizeMax)
+	{
+		m_name = name;
+		m_slabSize = Math.max(slabSize, CHUNK_SIZE_MIN);
+
+		int					sizeMax			= Math.min(Math.max(chunkSizeMax, CHUNK_SIZE_MIN), m_slabSize);
+		List<SlabClass>		classList		= new ArrayList<>();
+		int					chunkSize		= CHUNK_SIZE_MIN;
+		while (chunkSize < sizeMax)
+		{
+			classList.add(new SlabClass(chunkSize, m_slabSize / chunkSize));
+			chunkSize = ((chunkSize + (chunkSize / 4)) + 7) & ~7;		// +25%, 8 bytes aligned
+		}
+		classList.add(new SlabClass(sizeMax, m_slabSize / sizeMax));
+		m_classList = classList.toArray(new SlabClass[classList.size()]);
+
+		getLogger().info(BasicEvent.EVENT_CACHE_CREATE,
+				"SlabStore %s created: %,d size classes up to %s, slabs of %s.",
+				m_name, m_classList.length,
+				BasicTools.formatByteCount(getChunkSizeMax()), BasicTools.formatByteCount(m_slabSize));
+	}
+
+	public static BasicLogger getLogger()
+	{
+		return LOGGER;
+	}
+
+	public String getName()
+	{
+		return m_name;
+	}
+
+	/**
+	 * @return	The largest data length that can be stored in this store.
+	 */
+	public int getChunkSizeMax()
+	{
+		return m_classList[m_classList.length - 1].m_chunkSize - HEADER_SIZE;
+	}
+
+	/**
+	 * @return	The total off-heap memory reserved by the slabs.
+	 */
+	public long getSlabBytes()
+	{
+		return m_slabBytes.get();
+	}
+
+	/**
+	 * @return	The total size of the chunks currently in use (including the wasted space of each chunk).
+	 */
+	public long getUsedBytes()
+	{
+		return m_usedBytes.get();
+	}
+
+	/**
+	 * Copy the data into a chunk of the appropriate size.
+	 *
+	 * @param data	The bytes to store
+	 * @return		The handle to use for read/free, NULL_HANDLE if the data is too large for this store.
+	 */
+	public long write(byte[] data)
+	{
+		int			classIndex		= getClassIndex(data.length + HEADER_SIZE);
+		if (-1 == classIndex)
+		{
+			return NULL_HANDLE;
+		}
+
+		SlabClass	slabClass		= m_classList[classIndex];
+		long		chunk			= slabClass.allocate();
+		ByteBuffer	buffer			= slabClass.getChunk(chunk);
+		buffer.putInt(data.length);
+		buffer.put(data);
+		m_usedBytes.addAndGet(slabClass.m_chunkSize);
+
+		return (((long) classIndex) << CLASS_SHIFT) | chunk;
+	}
+
+	/**
+	 * @param handle	As returned by write()
+	 * @return			A heap copy of the data stored at the handle.
+	 */
+	public byte[] read(long handle)
+	{
+		ByteBuffer	buffer			= getChunk(handle);
+		byte[]		data			= new byte[buffer.getInt()];
+		buffer.get(data);
+		return data;
+	}
+
+	public int getLength(long handle)
+	{
+		ByteBuffer	buffer			= getChunk(handle);
+		return buffer.getInt();
+	}
+
+	public void free(long handle)
+	{
+		SlabClass	slabClass		= m_classList[(int) (handle >>> CLASS_SHIFT)];
+		slabClass.release(handle & ~(0xFFL << CLASS_SHIFT));
+		m_usedBytes.addAndGet(-slabClass.m_chunkSize);
+	}
+
+	private ByteBuffer getChunk(long handle)
+	{
+		SlabClass	slabClass		= m_classList[(int) (handle >>> CLASS_SHIFT)];
+		return slabClass.getChunk(handle & ~(0xFFL << CLASS_SHIFT));
+	}
+
+	private int getClassIndex(int size)
+	{
+		// There are only a few dozens classes; a binary search is plenty fast.
+		int			indexMin		= 0;
+		int			indexMax		= m_classList.length - 1;
+		if (size > m_classList[indexMax].m_chunkSize)
+		{
+			return -1;
+		}
+		while (indexMin < indexMax)
+		{
+			int		index			= (indexMin + indexMax) >>> 1;
+			if (m_classList[index].m_chunkSize < size)
+			{
+				indexMin = index + 1;
+			}
+			else
+			{
+				indexMax = index;
+			}
+		}
+		return indexMin;
+	}
+
+	@Override
+	public void close()
+	{
+		// The direct memory is returned to the OS when the buffers are garbage collected.
+		for (SlabClass slabClass : m_classList)
+		{
+			slabClass.close();
+		}
+		m_slabBytes.set(0);
+		m_usedBytes.set(0);
+
+		getLogger().info(BasicEvent.EVENT_CACHE_CLOSE, "SlabStore %s closed.", m_name);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%s; %s used of %s)", getClass().getSimpleName(), m_name,
+				BasicTools.formatByteCount(getUsedBytes()), BasicTools.formatByteCount(getSlabBytes()));
+	}
+
+	/**
+	 * All chunks of a class have the same size.
+	 * A chunk is identified by (slabIndex << SLAB_SHIFT) | chunkIndex.
+	 * The free list is a simple stack; allocate/release are short and use the object monitor.
+	 * getChunk() is lock-free: the slab it reads was published before the handle was handed out.
+	 */
+	private final class SlabClass
+	{
+		private final int							m_chunkSize;
+		private final int							m_chunkPerSlab;
+		private final CopyOnSizeArray<ByteBuffer>	m_slabList		= new CopyOnSizeArray<>(0);
+		private int									m_slabCount		= 0;
+		private int									m_nextChunk		= 0;
+		private long[]								m_freeList		= new long[16];
+		private int									m_freeCount		= 0;
+
+		private SlabClass(int chunkSize, int chunkPerSlab)
+		{
+			m_chunkSize = chunkSize;
+			m_chunkPerSlab = chunkPerSlab;
+		}
+
+		private synchronized long allocate()
+		{
+			if (0 != m_freeCount)
+			{
+				return m_freeList[--m_freeCount];
+			}
+
+			if (0 == m_slabCount || m_nextChunk == m_chunkPerSlab)
+			{
+				if (m_slabCount == m_slabList.length())
+				{
+					m_slabList.resize(Math.max(4, m_slabCount * 2));
+				}
+				m_slabList.set(m_slabCount++, ByteBuffer.allocateDirect(m_chunkSize * m_chunkPerSlab));
+				m_slabBytes.addAndGet(m_chunkSize * m_chunkPerSlab);
+				m_nextChunk = 0;
+			}
+			return (((long) (m_slabCount - 1)) << SLAB_SHIFT) | m_nextChunk++;
+		}
+
+		private synchronized void release(long chunk)
+		{
+			if (m_freeCount == m_freeList.length)
+			{
+				m_freeList = Arrays.copyOf(m_freeList, m_freeCount * 2);
+			}
+			m_freeList[m_freeCount++] = chunk;
+		}
+
+		private ByteBuffer getChunk(long chunk)
+		{
+			ByteBuffer		slab		= m_slabList.get((int) (chunk >>> SLAB_SHIFT));
+			ByteBuffer		buffer		= slab.duplicate();
+			int				offset		= ((int) (chunk & INDEX_MASK)) * m_chunkSize;
+			buffer.limit(offset + m_chunkSize);
+			buffer.position(offset);
+			return buffer;
+		}
+
+		private synchronized void close()
+		{
+			m_slabList.resize(0);
+			m_slabCount = 0;
+			m_nextChunk = 0;
+			m_freeCount = 0;
+		}
+	}
+}
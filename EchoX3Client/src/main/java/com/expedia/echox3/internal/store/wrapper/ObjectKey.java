@@ -6,7 +6,6 @@
 package com.expedia.echox3.internal.store.wrapper;
 
 import java.io.Serializable;
-import java.util.Arrays;
 
 import com.expedia.echox3.basics.collection.simple.ObjectPool;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
@@ -19,7 +18,11 @@ import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
  * Responsible for Hash -> Direction at all routing levels (always use Math.abs(int))
  * 		Director			Select the bucket		= High 32 bits of m_hash64
  * 		LocalObjectBucket		Select the bin			= (High + Low) of m_hash64
- * 		LocalObjectBin		simple Java hashCode	= Low 32 bits of m_hash64
+ * 		LocalObjectBin		simple Java hashCode	= Both halves of m_hash64, folded
+ *
+ * The key bytes are a slice (indexMin, length) of the wrapped array, which may be larger:
+ * a lookup key wraps the bytes where they are (e.g. in the ReceiveMessage, see setKeySlice())
+ * and only an ObjectWrapper inserted in the cache owns a copy of exactly the key bytes.
  */
 public class ObjectKey extends ObjectPool.AbstractPooledObject
 {
@@ -51,6 +54,26 @@ public class ObjectKey extends ObjectPool.AbstractPooledObject
 		m_hash64 = hash64;
 	}
 
+	/**
+	 * Wraps the slice described by the wrapper, without copying it.
+	 * The caller keeps ownership of the bytes, which must not change while this key is in use.
+	 *
+	 * @param wrapper	e.g. as returned by ReceiveMessage.getByteArray()
+	 */
+	public void setKeySlice(ByteArrayWrapper wrapper)
+	{
+		m_wrappedKey.set(wrapper.getByteArray(), wrapper.getIndexMin(), wrapper.getLength());
+		m_hash64 = Math.abs(HashUtil.hash64(m_wrappedKey));
+	}
+
+	@Override
+	public void release()
+	{
+		// Do not hold on to the caller's bytes while in the pool.
+		m_wrappedKey.set((byte[]) null, 0, 0);
+		super.release();
+	}
+
 	public ByteArrayWrapper getWrappedKey()
 	{
 		return m_wrappedKey;
@@ -78,10 +101,11 @@ public class ObjectKey extends ObjectPool.AbstractPooledObject
 		return Math.abs((int) (m_hash64 >> 32));
 	}
 
+	// All the 64 bits contribute, for the Java collections which use only the low bits.
 	@Override
 	public int hashCode()
 	{
-		return getKeyForMap();
+		return Long.hashCode(m_hash64);
 	}
 
 	@Override
@@ -92,11 +116,36 @@ public class ObjectKey extends ObjectPool.AbstractPooledObject
 			return false;
 		}
 
-		ObjectKey key		= (ObjectKey) o;
-		boolean			isEqual	=
-				Arrays.equals(m_wrappedKey.getByteArray(), key.m_wrappedKey.getByteArray());
+		// The hash (already computed) rejects almost all the different keys before looking at the bytes.
+		ObjectKey		key		= (ObjectKey) o;
+		return m_hash64 == key.m_hash64 && isEqual(m_wrappedKey, key.m_wrappedKey);
+	}
+	private static boolean isEqual(ByteArrayWrapper wrapper1, ByteArrayWrapper wrapper2)
+	{
+		int			length		= wrapper1.getLength();
+		if (length != wrapper2.getLength())
+		{
+			return false;
+		}
+
+		byte[]		bytes1		= wrapper1.getByteArray();
+		byte[]		bytes2		= wrapper2.getByteArray();
+		int			index1		= wrapper1.getIndexMin();
+		int			index2		= wrapper2.getIndexMin();
+		if (bytes1 == bytes2 && index1 == index2)		// NOPMD Looking for exactly the same slice
+		{
+			return true;
+		}
 
-		return isEqual;
+		// A simple counted loop over the slice, unrolled by the JIT (Arrays.equals() of a range requires Java 9).
+		for (int i = 0; i < length; i++)
+		{
+			if (bytes1[index1 + i] != bytes2[index2 + i])
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 
 	public Serializable getKey(String cacheName) throws BasicException
@@ -8,16 +8,16 @@ package com.expedia.echox3.internal.store.wrapper;
 import java.util.Arrays;
 
 import com.expedia.echox3.basics.tools.locks.AbstractReadWriteLock;
-import com.expedia.echox3.basics.tools.locks.LockCounterFamily;
 import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
 import com.expedia.echox3.basics.tools.time.WallClock;
+import com.expedia.echox3.internal.store.eviction.EvictionNode;
 import com.expedia.echox3.visible.trellis.ICacheObject;
 
 /**
  * Responsible for Hash -> Direction at all routing levels (always use Math.abs(int))
  * 		Director			Select the bucket		= High 32 bits of m_hash64
  * 		LocalObjectBucket		Select the bin			= (High + Low) of m_hash64
- * 		LocalObjectBin		simple Java hashCode	= Low 32 bits of m_hash64
+ * 		LocalObjectBin		simple Java hashCode	= Both halves of m_hash64, folded
  *
  * 	NOTE: This object is NOT pooled.
  */
@@ -26,12 +26,17 @@ public class ObjectWrapper extends ObjectKey
 	private AbstractReadWriteLock		m_lock;
 	private long						m_lastModifiedMS;
 	private ICacheObject				m_trellisObject;
+	private EvictionNode				m_evictionNode;			// Owned by the IEvictionPolicy of the cache
+	private volatile long				m_expirationMS;			// Owned by the ExpirationWheel of the cache
+	private long						m_writeSequence;		// Of the last write in the LocalObjectWriteLog
 
 	public ObjectWrapper(ObjectKey key, ICacheObject object)
 	{
+		// The key may wrap a slice of a transient buffer (e.g. a ReceiveMessage), the entry owns a copy of the slice.
 		ByteArrayWrapper	wrapper			= key.getWrappedKey();
+		int					indexMin		= wrapper.getIndexMin();
 		byte[]				keyBytes		= Arrays.copyOfRange(
-				wrapper.getByteArray(), wrapper.getIndexMin(), wrapper.getLength());
+				wrapper.getByteArray(), indexMin, indexMin + wrapper.getLength());
 		setKeyBytes(keyBytes, key.getHash64());
 
 		m_lastModifiedMS = WallClock.getCurrentTimeMS();
@@ -48,9 +53,10 @@ public class ObjectWrapper extends ObjectKey
 		return m_lastModifiedMS;
 	}
 
-	public void createLock(LockCounterFamily counterFamily)
+	// Either its own lock or a stripe shared with other objects (see TrackingObjects.getItemLock()).
+	public void setLock(AbstractReadWriteLock lock)
 	{
-		m_lock = AbstractReadWriteLock.createReadWriteLock(counterFamily);
+		m_lock = lock;
 	}
 
 	public AbstractReadWriteLock getLock()
@@ -58,6 +64,38 @@ public class ObjectWrapper extends ObjectKey
 		return m_lock;
 	}
 
+	public EvictionNode getEvictionNode()
+	{
+		return m_evictionNode;
+	}
+
+	public void setEvictionNode(EvictionNode evictionNode)
+	{
+		m_evictionNode = evictionNode;
+	}
+
+	// The time at which the entry is scheduled in the ExpirationWheel, 0 when it is not scheduled.
+	public long getExpirationMS()
+	{
+		return m_expirationMS;
+	}
+
+	public void setExpirationMS(long expirationMS)
+	{
+		m_expirationMS = expirationMS;
+	}
+
+	// Set under the write lock of the object, with the write it identifies.
+	public long getWriteSequence()
+	{
+		return m_writeSequence;
+	}
+
+	public void setWriteSequence(long writeSequence)
+	{
+		m_writeSequence = writeSequence;
+	}
+
 	public ICacheObject getTrellisObject()
 	{
 		return m_trellisObject;
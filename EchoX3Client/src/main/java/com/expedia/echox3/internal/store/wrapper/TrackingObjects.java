@@ -6,8 +6,13 @@
 package com.expedia.echox3.internal.store.wrapper;
 
 import com.expedia.echox3.basics.collection.simple.StringGroup;
+import com.expedia.echox3.basics.tools.locks.AbstractReadWriteLock;
 import com.expedia.echox3.basics.tools.locks.LockCounterFamily;
+import com.expedia.echox3.basics.tools.locks.ReadWriteLockStripeTable;
 import com.expedia.echox3.internal.store.counter.ItemCounterFamily;
+import com.expedia.echox3.internal.store.eviction.IEvictionPolicy;
+import com.expedia.echox3.internal.store.eviction.NullEvictionPolicy;
+import com.expedia.echox3.internal.store.expiration.ExpirationWheel;
 
 public class TrackingObjects
 {
@@ -16,6 +21,9 @@ public class TrackingObjects
 	private LockCounterFamily		m_binListLockCounter		= null;
 	private LockCounterFamily		m_binMapLockCounter			= null;
 	private LockCounterFamily		m_itemLockCounter			= null;
+	private ReadWriteLockStripeTable	m_itemLockTable			= null;
+	private IEvictionPolicy			m_evictionPolicy			= NullEvictionPolicy.INSTANCE;
+	private ExpirationWheel			m_expirationWheel			= null;
 
 	public TrackingObjects(String cacheName)
 	{
@@ -58,6 +66,59 @@ public class TrackingObjects
 		return m_itemLockCounter;
 	}
 
+	/**
+	 * With stripes, the items share a fixed number of locks instead of each having its own.
+	 * Must be set before the first item is created, the lock of an item never changes.
+	 *
+	 * @param stripeCount	0 for a lock per item
+	 */
+	public void setItemLockStripeCount(int stripeCount)
+	{
+		m_itemLockTable = 0 == stripeCount ? null : new ReadWriteLockStripeTable(stripeCount, getItemLockCounter());
+	}
+
+	public ReadWriteLockStripeTable getItemLockTable()
+	{
+		return m_itemLockTable;
+	}
+
+	public AbstractReadWriteLock getItemLock(long hash64)
+	{
+		return null == m_itemLockTable
+				? AbstractReadWriteLock.createReadWriteLock(getItemLockCounter())
+				: m_itemLockTable.getLock(hash64);
+	}
+
+	/**
+	 * Must be set before the first item is created, the policy must see all the items of the cache.
+	 *
+	 * @param evictionPolicy	NullEvictionPolicy.INSTANCE for no size-based eviction
+	 */
+	public void setEvictionPolicy(IEvictionPolicy evictionPolicy)
+	{
+		m_evictionPolicy = evictionPolicy;
+	}
+
+	public IEvictionPolicy getEvictionPolicy()
+	{
+		return m_evictionPolicy;
+	}
+
+	/**
+	 * Must be set before the first item is created, like the eviction policy.
+	 *
+	 * @param expirationWheel	null when the maintenance visits all the objects on every pass
+	 */
+	public void setExpirationWheel(ExpirationWheel expirationWheel)
+	{
+		m_expirationWheel = expirationWheel;
+	}
+
+	public ExpirationWheel getExpirationWheel()
+	{
+		return m_expirationWheel;
+	}
+
 	public ItemCounterFamily getCounterFamily()
 	{
 		return m_counterFamily;
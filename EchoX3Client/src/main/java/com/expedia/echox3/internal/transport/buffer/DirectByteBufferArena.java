@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap arena for the large ("Custom") buffers, which are too large and too rare to be in a fixed size ObjectPool.
+ *
+ * The direct buffers are allocated by size class (power of 2) and kept for re-use when released,
+ * up to a maximum number of retained bytes; beyond it, a released buffer becomes garbage
+ * and its native memory is freed when it is collected.
+ * Allocating a direct buffer is expensive (zeroed, and may trigger a System.gc() when the native memory is short),
+ * hence the re-use.
+ */
+public class DirectByteBufferArena
+{
+	private static final int					SIZE_CLASS_COUNT		= 31;	// Up to 1 GB
+
+	@SuppressWarnings("unchecked")
+	private final Queue<ByteBuffer>[]			m_freeList				= new Queue[SIZE_CLASS_COUNT];
+	private final AtomicLong					m_retainedByteCount		= new AtomicLong(0);
+	private final AtomicLong					m_allocatedByteCount	= new AtomicLong(0);
+	private volatile long						m_retainedByteMax;
+
+	public DirectByteBufferArena(long retainedByteMax)
+	{
+		for (int i = 0; i < m_freeList.length; i++)
+		{
+			m_freeList[i] = new ConcurrentLinkedQueue<>();
+		}
+		setRetainedByteMax(retainedByteMax);
+	}
+
+	public final void setRetainedByteMax(long retainedByteMax)
+	{
+		m_retainedByteMax = retainedByteMax;
+	}
+
+	public long getRetainedByteMax()
+	{
+		return m_retainedByteMax;
+	}
+
+	// Bytes held by the arena, available for re-use.
+	public long getRetainedByteCount()
+	{
+		return m_retainedByteCount.get();
+	}
+
+	// Total bytes ever allocated by the arena (i.e. the cost of missing the free list).
+	public long getAllocatedByteCount()
+	{
+		return m_allocatedByteCount.get();
+	}
+
+	public static int getSizeClass(int cb)
+	{
+		return cb <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(cb - 1);
+	}
+
+	/**
+	 * @param cb	The minimum capacity of the buffer
+	 * @return		A cleared direct buffer, of capacity the power of 2 at or above cb
+	 */
+	public ByteBuffer get(int cb)
+	{
+		int				sizeClass		= getSizeClass(cb);
+		if (SIZE_CLASS_COUNT <= sizeClass)
+		{
+			// Beyond the largest size class, never retained.
+			m_allocatedByteCount.addAndGet(cb);
+			return ByteBuffer.allocateDirect(cb);
+		}
+
+		ByteBuffer		byteBuffer		= m_freeList[sizeClass].poll();
+		if (null == byteBuffer)
+		{
+			byteBuffer = ByteBuffer.allocateDirect(1 << sizeClass);
+			m_allocatedByteCount.addAndGet(byteBuffer.capacity());
+		}
+		else
+		{
+			m_retainedByteCount.addAndGet(-byteBuffer.capacity());
+		}
+		return byteBuffer;
+	}
+
+	/**
+	 * @param byteBuffer	A buffer obtained from get(), the caller must not use it anymore
+	 * @return				true if the buffer is retained for re-use
+	 */
+	public boolean release(ByteBuffer byteBuffer)
+	{
+		int			cb			= byteBuffer.capacity();
+		int			sizeClass	= getSizeClass(cb);
+		if (SIZE_CLASS_COUNT <= sizeClass || cb != (1 << sizeClass))
+		{
+			return false;
+		}
+		if (m_retainedByteCount.addAndGet(cb) > m_retainedByteMax)
+		{
+			m_retainedByteCount.addAndGet(-cb);
+			return false;
+		}
+
+		byteBuffer.clear();
+		m_freeList[sizeClass].offer(byteBuffer);
+		return true;
+	}
+
+	// Drops all the retained buffers, they are freed when collected.
+	public void clear()
+	{
+		for (Queue<ByteBuffer> queue : m_freeList)
+		{
+			ByteBuffer		byteBuffer;
+			while (null != (byteBuffer = queue.poll()))
+			{
+				m_retainedByteCount.addAndGet(-byteBuffer.capacity());
+			}
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s(retained %,d of max %,d bytes; allocated %,d bytes)",
+				getClass().getSimpleName(), getRetainedByteCount(), getRetainedByteMax(), getAllocatedByteCount());
+	}
+}
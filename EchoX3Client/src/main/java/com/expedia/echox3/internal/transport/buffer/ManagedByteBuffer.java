@@ -40,9 +40,10 @@ public class ManagedByteBuffer extends AbstractPooledObject
 	{
 		m_byteBuffer.clear();
 
-		// If the buffer comes from CUSTOM, clear it
+		// If the buffer comes from CUSTOM, clear it (a direct one goes back to the arena)
 		if (m_isCustom)
 		{
+			ManagedByteBufferManager.getInstance().releaseCustom(m_byteBuffer);
 			m_byteBuffer = null;
 		}
 
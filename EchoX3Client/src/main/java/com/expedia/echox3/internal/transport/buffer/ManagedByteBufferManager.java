@@ -8,6 +8,7 @@ package com.expedia.echox3.internal.transport.buffer;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.expedia.echox3.basics.collection.histogram.IHistogram;
 import com.expedia.echox3.basics.collection.histogram.IHistogram.BinData;
@@ -20,11 +21,23 @@ import com.expedia.echox3.basics.tools.misc.BasicTools;
 import com.expedia.echox3.basics.tools.pubsub.Publisher;
 import com.expedia.echox3.basics.tools.pubsub.PublisherManager.IEventListener;
 
+/**
+ * Source of the ByteBuffers of the transport, by size: exact sizes, a ladder of sizes, then Custom (large) sizes.
+ *
+ * In direct mode (isDirect), the buffers are allocated off-heap: a socket reads and writes a direct buffer as-is,
+ * where it first copies a heap buffer to/from a temporary direct buffer, i.e. one copy per message on each side.
+ * The exact and ladder buffers live as long as their ObjectPool keeps them;
+ * the Custom buffers come from a DirectByteBufferArena which keeps them for re-use, up to CustomArenaByteMax.
+ * Changing the mode applies to the buffers allocated after the change.
+ */
 public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 {
 	private static final String				SETTING_PREFIX					= ManagedByteBufferManager.class.getName();
 	private static final String				SETTING_POOL_EXACT_SIZE_LIST	= SETTING_PREFIX + ".FixedSizeList";
 	private static final String				SETTING_POOL_LADDER_SIZE_LIST	= SETTING_PREFIX + ".LadderSizeList";
+	private static final String				SETTING_IS_DIRECT				= SETTING_PREFIX + ".isDirect";
+	private static final String				SETTING_CUSTOM_ARENA_BYTE_MAX	= SETTING_PREFIX + ".CustomArenaByteMax";
+	private static final long				CUSTOM_ARENA_BYTE_MAX_DEFAULT	= 16 * 1024 * 1024;
 
 	private static final ConfigurationManager	CONFIGURATION_MANAGER	= ConfigurationManager.getInstance();
 	// Very important: This map MUST ordered in numeric order of the key (i.e. 50, then 100).
@@ -36,6 +49,9 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 	private final IHistogram		m_histogramCustom	= new LogarithmicHistogram(1, 100 * 1000, Precision.Normal);
 	private final IHistogram		m_histogramExact	= new LogarithmicHistogram(1, 100 * 1000, Precision.Normal);
 	private final IHistogram		m_histogramLadder	= new LogarithmicHistogram(1, 100 * 1000, Precision.Normal);
+	// Size of each allocation of native memory (i.e. not the re-use of a pooled buffer)
+	private final IHistogram		m_histogramDirect	= new LogarithmicHistogram(1, 100 * 1000, Precision.Normal);
+	private final AtomicLong		m_directByteCount	= new AtomicLong(0);
 
 	// Very important: This map MUST ordered in numeric order of the key (i.e. 50, then 100).
 	// This is to allow for search from the ObjectPool with small buffers towards the ObjectPool with larger buffers.
@@ -45,6 +61,9 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 	// For those allocations that are not in the Wrapper list...
 	private ObjectPool<ManagedByteBuffer>	m_objectPoolCustom	= new ObjectPool<>(
 			new StringGroup(ManagedByteBuffer.class.getSimpleName() + "." + CUSTOM_NAME), ManagedByteBuffer::new);
+	private final DirectByteBufferArena		m_customArena		=
+			new DirectByteBufferArena(CUSTOM_ARENA_BYTE_MAX_DEFAULT);
+	private volatile boolean				m_isDirect			= false;
 
 	private ManagedByteBufferManager()
 	{
@@ -65,6 +84,14 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 	{
 		m_exactPoolList = updateConfiguration(SETTING_POOL_EXACT_SIZE_LIST, m_exactPoolList);
 		m_ladderPoolList = updateConfiguration(SETTING_POOL_LADDER_SIZE_LIST, m_ladderPoolList);
+
+		m_isDirect = CONFIGURATION_MANAGER.getBoolean(SETTING_IS_DIRECT, false);
+		m_customArena.setRetainedByteMax(m_isDirect
+				? CONFIGURATION_MANAGER.getLong(SETTING_CUSTOM_ARENA_BYTE_MAX, CUSTOM_ARENA_BYTE_MAX_DEFAULT) : 0);
+		if (!m_isDirect)
+		{
+			m_customArena.clear();
+		}
 	}
 	private SizeAndPoolWrapper[] updateConfiguration(String settingName, SizeAndPoolWrapper[] poolWrapperListPrev)
 	{
@@ -139,19 +166,16 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 		else
 		{
 			managedByteBuffer = getLadder(cb);
-		}
-
-
-		if (null != managedByteBuffer)
-		{
-			m_histogramLadder.record(cb);
-		}
-		else
-		{
-			// If fall through, means to use the "CUSTOM" object pool for a large ByteBuffer.
-			managedByteBuffer		= m_objectPoolCustom.get();
-			managedByteBuffer.setByteBuffer(ByteBuffer.allocate(cb));
-			m_histogramCustom.record(cb);
+			if (null != managedByteBuffer)
+			{
+				m_histogramLadder.record(cb);
+			}
+			else
+			{
+				// If fall through, means to use the "CUSTOM" object pool for a large ByteBuffer.
+				managedByteBuffer		= getCustom(cb);
+				m_histogramCustom.record(cb);
+			}
 		}
 
 		return managedByteBuffer;
@@ -169,7 +193,7 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 				if (null == managedByteBuffer.getByteBuffer())
 				{
 					// Not allocated yet means the first time this managedByteBuffer is used, allocate it
-					managedByteBuffer.setByteBuffer(ByteBuffer.allocate(wrapper.getSize()));
+					managedByteBuffer.setByteBuffer(allocate(wrapper.getSize()));
 					managedByteBuffer.setCustom(false);
 				}
 				break;
@@ -191,7 +215,7 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 				if (null == managedByteBuffer.getByteBuffer())
 				{
 					// Not allocated yet means the first time this managedByteBuffer is used, allocate it
-					managedByteBuffer.setByteBuffer(ByteBuffer.allocate(wrapper.getSize()));
+					managedByteBuffer.setByteBuffer(allocate(wrapper.getSize()));
 					managedByteBuffer.setCustom(false);
 				}
 				managedByteBuffer.setOffset(managedByteBuffer.getByteBuffer().capacity() - cb);
@@ -203,6 +227,71 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 		return managedByteBuffer;
 	}
 
+	private ManagedByteBuffer getCustom(int cb)
+	{
+		ManagedByteBuffer		managedByteBuffer		= m_objectPoolCustom.get();
+		if (m_isDirect)
+		{
+			// Like the ladder, the arena buffer is (usually) larger than cb, the content is at the end.
+			ByteBuffer			byteBuffer		= m_customArena.get(cb);
+			managedByteBuffer.setByteBuffer(byteBuffer);
+			managedByteBuffer.setOffset(byteBuffer.capacity() - cb);
+			byteBuffer.position(managedByteBuffer.getOffset());
+		}
+		else
+		{
+			managedByteBuffer.setByteBuffer(ByteBuffer.allocate(cb));
+			managedByteBuffer.setOffset(0);
+		}
+		return managedByteBuffer;
+	}
+
+	/* package */ void releaseCustom(ByteBuffer byteBuffer)
+	{
+		if (byteBuffer.isDirect())
+		{
+			m_customArena.release(byteBuffer);
+		}
+	}
+
+	private ByteBuffer allocate(int cb)
+	{
+		if (m_isDirect)
+		{
+			m_directByteCount.addAndGet(cb);
+			m_histogramDirect.record(cb);
+			return ByteBuffer.allocateDirect(cb);
+		}
+		else
+		{
+			return ByteBuffer.allocate(cb);
+		}
+	}
+
+	@Override
+	public boolean isDirect()
+	{
+		return m_isDirect;
+	}
+
+	// Bytes of native memory allocated for the exact and ladder pools, and by the Custom arena.
+	@Override
+	public long getDirectByteCount()
+	{
+		return m_directByteCount.get() + m_customArena.getAllocatedByteCount();
+	}
+
+	@Override
+	public long getCustomArenaRetainedByteCount()
+	{
+		return m_customArena.getRetainedByteCount();
+	}
+
+	public DirectByteBufferArena getCustomArena()
+	{
+		return m_customArena;
+	}
+
 	public IHistogram getHistogramExact()
 	{
 		return m_histogramExact;
@@ -218,6 +307,11 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 		return m_histogramCustom;
 	}
 
+	public IHistogram getHistogramDirect()
+	{
+		return m_histogramDirect;
+	}
+
 	@Override
 	public List<String> getBinDataExact()
 	{
@@ -235,6 +329,12 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 	{
 		return getBinDataListText(m_histogramCustom.getBinData());
 	}
+
+	@Override
+	public List<String> getBinDataDirect()
+	{
+		return getBinDataListText(m_histogramDirect.getBinData());
+	}
 	private List<String> getBinDataListText(List<BinData> list)
 	{
 		List<String>		textList		= new ArrayList<>(list.size());
@@ -251,6 +351,7 @@ public class ManagedByteBufferManager implements ManagedByteBufferManagerMBean
 		m_histogramExact.reset();
 		m_histogramLadder.reset();
 		m_histogramCustom.reset();
+		m_histogramDirect.reset();
 	}
 
 
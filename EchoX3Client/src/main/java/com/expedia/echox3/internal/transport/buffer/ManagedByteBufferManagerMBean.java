@@ -15,6 +15,11 @@ public interface ManagedByteBufferManagerMBean
 	List<String>		getBinDataExact();
 	List<String>		getBinDataLadder();
 	List<String>		getBinDataCustom();
+	List<String>		getBinDataDirect();
+
+	boolean				isDirect();
+	long				getDirectByteCount();
+	long				getCustomArenaRetainedByteCount();
 
 	void				resetHistogram();
 }
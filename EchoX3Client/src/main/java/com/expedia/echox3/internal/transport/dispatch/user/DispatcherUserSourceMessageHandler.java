@@ -7,6 +7,8 @@ package com.expedia.echox3.internal.transport.dispatch.user;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import com.expedia.echox3.basics.configuration.ConfigurationManager;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
@@ -15,12 +17,18 @@ import com.expedia.echox3.basics.tools.time.WallClock;
 import com.expedia.echox3.internal.transport.dispatch.user.source.GetZoneDispatcherListSourceRequest;
 import com.expedia.echox3.internal.transport.dispatch.user.source.GetDispatcherListForCacheSourceRequest;
 import com.expedia.echox3.internal.transport.dispatch.user.source.GetZoneUserDispatcherListSourceRequest;
+import com.expedia.echox3.internal.transport.dispatch.user.source.UserFlushSourceRequest;
 import com.expedia.echox3.internal.transport.dispatch.user.source.UserReadOnlyBulkSourceRequest;
 import com.expedia.echox3.internal.transport.dispatch.user.source.UserReadOnlyMultipleSourceRequest;
 import com.expedia.echox3.internal.transport.dispatch.user.source.UserReadOnlySingleSourceRequest;
+import com.expedia.echox3.internal.transport.dispatch.user.source.UserReduceSourceRequest;
+import com.expedia.echox3.internal.transport.dispatch.user.source.UserWriteOnlyBulkSourceRequest;
+import com.expedia.echox3.internal.transport.dispatch.user.source.UserWriteOnlyMultipleSourceRequest;
+import com.expedia.echox3.internal.transport.dispatch.user.source.UserWriteOnlySingleSourceRequest;
 import com.expedia.echox3.internal.transport.protocol.SourceProtocolHandler;
 import com.expedia.echox3.internal.transport.request.MessageType;
 import com.expedia.echox3.internal.transport.request.SourceMessageHandlerBase;
+import com.expedia.echox3.internal.transport.request.source.AbstractSourceRequest;
 import com.expedia.echox3.internal.transport.socket.SourceTransportHighway;
 import com.expedia.echox3.internal.transport.socket.ComputerAddress;
 
@@ -32,14 +40,19 @@ public class DispatcherUserSourceMessageHandler extends SourceMessageHandlerBase
 	public static final MessageType		GetZoneUserDispatcherList			= new MessageType(100, "GetZoneUserDispatcherList");
 	public static final MessageType		GetZoneDispatcherList				= new MessageType(101, "GetZoneDispatcherList");
 	public static final MessageType		GetDispatcherListForCache			= new MessageType(102, "GetDispatcherListForCache");
+	public static final MessageType		UserFlush							= new MessageType(103, "UserFlush");
 
 	// 11x			For ReadOnly messages
 	public static final MessageType		UserReadOnlySingle					= new MessageType(110, "UserReadOnlySingle");
 	public static final MessageType		UserReadOnlyMultiple				= new MessageType(111, "UserReadOnlyMultiple");
 	public static final MessageType		UserReadOnlyBulk					= new MessageType(112, "UserReadOnlyBulk");
 	// 12x			For WriteOnly messages
+	public static final MessageType		UserWriteOnlySingle					= new MessageType(120, "UserWriteOnlySingle");
+	public static final MessageType		UserWriteOnlyMultiple				= new MessageType(121, "UserWriteOnlyMultiple");
+	public static final MessageType		UserWriteOnlyBulk					= new MessageType(122, "UserWriteOnlyBulk");
 	// 13x			Reserved for ReadWrite messages
-	// 14x			Not used, reserved for future use.
+	// 14x			For Reduce messages
+	public static final MessageType		UserReduce							= new MessageType(140, "UserReduce");
 	//CHECKSTYLE:ON
 
 	public DispatcherUserSourceMessageHandler(SourceProtocolHandler protocolHandler)
@@ -49,11 +62,18 @@ public class DispatcherUserSourceMessageHandler extends SourceMessageHandlerBase
 		setObjectPool(GetZoneUserDispatcherList,	GetZoneUserDispatcherListSourceRequest::new);
 		setObjectPool(GetZoneDispatcherList,		GetZoneDispatcherListSourceRequest::new);
 		setObjectPool(GetDispatcherListForCache,	GetDispatcherListForCacheSourceRequest::new);
+		setObjectPool(UserFlush,					UserFlushSourceRequest::new);
 
 		setObjectPool(UserReadOnlySingle,			UserReadOnlySingleSourceRequest::new);
 		setObjectPool(UserReadOnlyMultiple,			UserReadOnlyMultipleSourceRequest::new);
 		setObjectPool(UserReadOnlyBulk,				UserReadOnlyBulkSourceRequest::new);
 
+		setObjectPool(UserWriteOnlySingle,			UserWriteOnlySingleSourceRequest::new);
+		setObjectPool(UserWriteOnlyMultiple,		UserWriteOnlyMultipleSourceRequest::new);
+		setObjectPool(UserWriteOnlyBulk,			UserWriteOnlyBulkSourceRequest::new);
+
+		setObjectPool(UserReduce,					UserReduceSourceRequest::new);
+
 		updateConfiguration(ConfigurationManager.PUBLISHER_NAME, 0, null);		// NOPMD
 	}
 
@@ -164,4 +184,168 @@ public class DispatcherUserSourceMessageHandler extends SourceMessageHandlerBase
 		}
 	}
 
+	// Data path: the single key versions wait for the response,
+	// the list versions are asynchronous so a bulk call split across highways is transmitted in parallel.
+	public void flush(SourceTransportHighway transportHighway, String cacheName, int durationMS)
+			throws BasicException
+	{
+		UserFlushSourceRequest		request		= (UserFlushSourceRequest) getRequest(UserFlush);
+		request.setCacheName(cacheName);
+		request.setDurationMS(durationMS);
+
+		try
+		{
+			processRequestSynchronously(transportHighway, request);
+		}
+		finally
+		{
+			request.release();
+		}
+	}
+
+	public void writeOnly(SourceTransportHighway transportHighway, String cacheName, byte[] key, byte[] request)
+			throws BasicException
+	{
+		UserWriteOnlySingleSourceRequest	clientRequest	= (UserWriteOnlySingleSourceRequest)
+				getRequest(UserWriteOnlySingle);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKey(key);
+		clientRequest.setRequest(request);
+
+		try
+		{
+			processRequestSynchronously(transportHighway, clientRequest);
+		}
+		finally
+		{
+			clientRequest.release();
+		}
+	}
+
+	public byte[] readOnly(SourceTransportHighway transportHighway, String cacheName, byte[] key, byte[] request)
+			throws BasicException
+	{
+		UserReadOnlySingleSourceRequest		clientRequest	= (UserReadOnlySingleSourceRequest)
+				getRequest(UserReadOnlySingle);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKey(key);
+		clientRequest.setRequest(request);
+
+		try
+		{
+			processRequestSynchronously(transportHighway, clientRequest);
+			return clientRequest.getResponse();
+		}
+		finally
+		{
+			clientRequest.release();
+		}
+	}
+
+	public CompletableFuture<Void> writeOnlyAsync(SourceTransportHighway transportHighway,
+			String cacheName, byte[] key, byte[] request)
+	{
+		UserWriteOnlySingleSourceRequest	clientRequest	= (UserWriteOnlySingleSourceRequest)
+				getRequest(UserWriteOnlySingle);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKey(key);
+		clientRequest.setRequest(request);
+
+		return consume(processRequestAsynchronously(transportHighway, clientRequest), (r) -> null);
+	}
+
+	public CompletableFuture<Void> writeOnlyAsync(SourceTransportHighway transportHighway,
+			String cacheName, byte[][] keyList, byte[] request)
+	{
+		UserWriteOnlyMultipleSourceRequest	clientRequest	= (UserWriteOnlyMultipleSourceRequest)
+				getRequest(UserWriteOnlyMultiple);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKeyList(keyList);
+		clientRequest.setRequest(request);
+
+		return consume(processRequestAsynchronously(transportHighway, clientRequest), (r) -> null);
+	}
+
+	public CompletableFuture<Void> writeOnlyAsync(SourceTransportHighway transportHighway,
+			String cacheName, byte[][] keyList, byte[][] requestList)
+	{
+		UserWriteOnlyBulkSourceRequest		clientRequest	= (UserWriteOnlyBulkSourceRequest)
+				getRequest(UserWriteOnlyBulk);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKeyList(keyList);
+		clientRequest.setRequestList(requestList);
+
+		return consume(processRequestAsynchronously(transportHighway, clientRequest), (r) -> null);
+	}
+
+	public CompletableFuture<byte[]> readOnlyAsync(SourceTransportHighway transportHighway,
+			String cacheName, byte[] key, byte[] request)
+	{
+		UserReadOnlySingleSourceRequest		clientRequest	= (UserReadOnlySingleSourceRequest)
+				getRequest(UserReadOnlySingle);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKey(key);
+		clientRequest.setRequest(request);
+
+		return consume(processRequestAsynchronously(transportHighway, clientRequest),
+				UserReadOnlySingleSourceRequest::getResponse);
+	}
+
+	public CompletableFuture<byte[][]> readOnlyAsync(SourceTransportHighway transportHighway,
+			String cacheName, byte[][] keyList, byte[] request)
+	{
+		UserReadOnlyMultipleSourceRequest	clientRequest	= (UserReadOnlyMultipleSourceRequest)
+				getRequest(UserReadOnlyMultiple);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKeyList(keyList);
+		clientRequest.setRequest(request);
+
+		return consume(processRequestAsynchronously(transportHighway, clientRequest),
+				UserReadOnlyMultipleSourceRequest::getResponseList);
+	}
+
+	public CompletableFuture<byte[][]> readOnlyAsync(SourceTransportHighway transportHighway,
+			String cacheName, byte[][] keyList, byte[][] requestList)
+	{
+		UserReadOnlyBulkSourceRequest		clientRequest	= (UserReadOnlyBulkSourceRequest)
+				getRequest(UserReadOnlyBulk);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setKeyList(keyList);
+		clientRequest.setRequestList(requestList);
+
+		return consume(processRequestAsynchronously(transportHighway, clientRequest),
+				UserReadOnlyBulkSourceRequest::getResponseList);
+	}
+
+	public CompletableFuture<byte[][]> reduceAsync(SourceTransportHighway transportHighway,
+			String cacheName, String reducerClassName, byte[][] keyList, byte[] request)
+	{
+		UserReduceSourceRequest				clientRequest	= (UserReduceSourceRequest)
+				getRequest(UserReduce);
+		clientRequest.setCacheName(cacheName);
+		clientRequest.setReducerClassName(reducerClassName);
+		clientRequest.setKeyList(keyList);
+		clientRequest.setRequest(request);
+
+		return consume(processRequestAsynchronously(transportHighway, clientRequest),
+				UserReduceSourceRequest::getAnswerList);
+	}
+
+	// Extracts the response (already copied out of the ReceiveMessage) and gives the request back to its pool.
+	private static <R extends AbstractSourceRequest, T> CompletableFuture<T> consume(
+			CompletableFuture<R> future, Function<R, T> getter)
+	{
+		return future.thenApply((request) ->
+		{
+			try
+			{
+				return getter.apply(request);
+			}
+			finally
+			{
+				request.release();
+			}
+		});
+	}
+
 }
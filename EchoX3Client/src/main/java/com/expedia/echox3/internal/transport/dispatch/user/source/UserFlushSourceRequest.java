@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.dispatch.user.source;
+
+import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
+import com.expedia.echox3.internal.transport.message.TransmitMessage;
+
+/**
+ * Flushes the named cache over durationMS; the dispatcher forwards it to all the servers of the cache.
+ * The response is an empty acknowledgement (or a failure).
+ */
+public class UserFlushSourceRequest extends UserSourceRequest
+{
+	private int				m_durationMS;
+
+	public UserFlushSourceRequest()
+	{
+		super(DispatcherUserSourceMessageHandler.UserFlush);
+	}
+
+	public void setDurationMS(int durationMS)
+	{
+		m_durationMS = durationMS;
+	}
+
+	public boolean composeTransmitMessage()
+	{
+		int			size		= 0;
+		size += TransmitMessage.getStringSize(getCacheName());
+		size += TransmitMessage.getIntSize();
+
+		initTransmitMessage(size);
+
+		getTransmitMessage().putString(getCacheName());
+		getTransmitMessage().getContentByteBuffer().putInt(m_durationMS);
+
+		return true;
+	}
+}
@@ -5,28 +5,24 @@
 
 package com.expedia.echox3.internal.transport.dispatch.user.source;
 
-import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
 import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
 import com.expedia.echox3.internal.transport.message.ReceiveMessage;
 import com.expedia.echox3.internal.transport.message.TransmitMessage;
 
 /**
- * Although on the Client API, this entry point returns the list of ComputerAddress
- * to access the Admin side of the Dispatchers.
- * This is because, at startup, a new dispatcher only has access to the bootstrap information
- * which only contains the client ComputerAddress of other dispatchers.
- * This entry point allows the dispatcher to access the list of dispatchers in its zone.
+ * readOnly of a list of keys, each with its own request (same index).
+ * The response list is in the order of the key list.
  */
 public class UserReadOnlyBulkSourceRequest extends UserSourceRequest
 {
 	private byte[][]				m_keyList;
 	private byte[][]				m_requestList;
 
-	private ByteArrayWrapper[]		m_responseList;
+	private byte[][]				m_responseList;
 
 	public UserReadOnlyBulkSourceRequest()
 	{
-		super(DispatcherUserSourceMessageHandler.UserReadOnlySingle);
+		super(DispatcherUserSourceMessageHandler.UserReadOnlyBulk);
 	}
 
 	@Override
@@ -34,19 +30,17 @@ public class UserReadOnlyBulkSourceRequest extends UserSourceRequest
 	{
 		m_keyList		= null;
 		m_requestList	= null;
-
-		if (null != m_responseList)
-		{
-			for (int i = 0; i < m_responseList.length; i++)
-			{
-				m_responseList[i].release();
-			}
-			m_responseList = null;
-		}
+		m_responseList	= null;
 
 		super.release();
 	}
 
+	@Override
+	protected long calculateTimeout()
+	{
+		return calculateTimeout(m_keyList.length);
+	}
+
 	public void setKeyList(byte[][] keyList)
 	{
 		m_keyList = keyList;
@@ -57,7 +51,7 @@ public class UserReadOnlyBulkSourceRequest extends UserSourceRequest
 		m_requestList = requestList;
 	}
 
-	public ByteArrayWrapper[] getResponseList()
+	public byte[][] getResponseList()
 	{
 		return m_responseList;
 	}
@@ -85,9 +79,13 @@ public class UserReadOnlyBulkSourceRequest extends UserSourceRequest
 		{
 			return false;
 		}
+		if (null != getException())
+		{
+			return true;
+		}
 
 		// Parse the response
-		m_responseList	= receiveMessage.getByteArrayList();
+		m_responseList	= receiveMessage.getByteArrayCopyList();
 
 		return true;
 	}
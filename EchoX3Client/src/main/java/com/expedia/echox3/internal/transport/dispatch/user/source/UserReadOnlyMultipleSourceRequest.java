@@ -5,48 +5,42 @@
 
 package com.expedia.echox3.internal.transport.dispatch.user.source;
 
-import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
 import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
 import com.expedia.echox3.internal.transport.message.ReceiveMessage;
 import com.expedia.echox3.internal.transport.message.TransmitMessage;
 
 /**
- * Although on the Client API, this entry point returns the list of ComputerAddress
- * to access the Admin side of the Dispatchers.
- * This is because, at startup, a new dispatcher only has access to the bootstrap information
- * which only contains the client ComputerAddress of other dispatchers.
- * This entry point allows the dispatcher to access the list of dispatchers in its zone.
+ * readOnly of a list of keys, all with the same request.
+ * The response list is in the order of the key list.
  */
 public class UserReadOnlyMultipleSourceRequest extends UserSourceRequest
 {
-	private byte[][]	m_keyList;
-	private byte[]		m_request;
+	private byte[][]			m_keyList;
+	private byte[]				m_request;
 
-	private ByteArrayWrapper[]		m_responseList;
+	private byte[][]			m_responseList;
 
 	public UserReadOnlyMultipleSourceRequest()
 	{
-		super(DispatcherUserSourceMessageHandler.UserReadOnlySingle);
+		super(DispatcherUserSourceMessageHandler.UserReadOnlyMultiple);
 	}
 
 	@Override
 	public void release()
 	{
-		m_keyList	= null;
-		m_request	= null;
-
-		if (null != m_responseList)
-		{
-			for (int i = 0; i < m_responseList.length; i++)
-			{
-				m_responseList[i].release();
-			}
-			m_responseList = null;
-		}
+		m_keyList		= null;
+		m_request		= null;
+		m_responseList	= null;
 
 		super.release();
 	}
 
+	@Override
+	protected long calculateTimeout()
+	{
+		return calculateTimeout(m_keyList.length);
+	}
+
 	public void setKeyList(byte[][] keyList)
 	{
 		m_keyList = keyList;
@@ -57,7 +51,7 @@ public class UserReadOnlyMultipleSourceRequest extends UserSourceRequest
 		m_request = request;
 	}
 
-	public ByteArrayWrapper[] getResponseList()
+	public byte[][] getResponseList()
 	{
 		return m_responseList;
 	}
@@ -85,9 +79,13 @@ public class UserReadOnlyMultipleSourceRequest extends UserSourceRequest
 		{
 			return false;
 		}
+		if (null != getException())
+		{
+			return true;
+		}
 
 		// Parse the response
-		m_responseList	= receiveMessage.getByteArrayList();
+		m_responseList	= receiveMessage.getByteArrayCopyList();
 
 		return true;
 	}
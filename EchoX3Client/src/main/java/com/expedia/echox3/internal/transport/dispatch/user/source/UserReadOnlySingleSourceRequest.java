@@ -5,23 +5,19 @@
 
 package com.expedia.echox3.internal.transport.dispatch.user.source;
 
-import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
 import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
 import com.expedia.echox3.internal.transport.message.ReceiveMessage;
 import com.expedia.echox3.internal.transport.message.TransmitMessage;
 
 /**
- * Although on the Client API, this entry point returns the list of ComputerAddress
- * to access the Admin side of the Dispatchers.
- * This is because, at startup, a new dispatcher only has access to the bootstrap information
- * which only contains the client ComputerAddress of other dispatchers.
- * This entry point allows the dispatcher to access the list of dispatchers in its zone.
+ * readOnly of a single key.
+ * The response is copied out of the ReceiveMessage, as it is consumed after the message is released.
  */
 public class UserReadOnlySingleSourceRequest extends UserSourceRequest
 {
 	private byte[]				m_key;
 	private byte[]				m_request;
-	private ByteArrayWrapper	m_response;
+	private byte[]				m_response;
 
 	public UserReadOnlySingleSourceRequest()
 	{
@@ -33,15 +29,25 @@ public class UserReadOnlySingleSourceRequest extends UserSourceRequest
 	{
 		m_key		= null;
 		m_request	= null;
-		if (null != m_response)
-		{
-			m_response.release();
-			m_response = null;
-		}
+		m_response	= null;
 
 		super.release();
 	}
 
+	public void setKey(byte[] key)
+	{
+		m_key = key;
+	}
+
+	public void setRequest(byte[] request)
+	{
+		m_request = request;
+	}
+
+	public byte[] getResponse()
+	{
+		return m_response;
+	}
 
 	public boolean composeTransmitMessage()
 	{
@@ -66,9 +72,13 @@ public class UserReadOnlySingleSourceRequest extends UserSourceRequest
 		{
 			return false;
 		}
+		if (null != getException())
+		{
+			return true;
+		}
 
 		// Parse the response
-		m_response = receiveMessage.getByteArray();
+		m_response = receiveMessage.getByteArrayCopy();
 
 		return true;
 	}
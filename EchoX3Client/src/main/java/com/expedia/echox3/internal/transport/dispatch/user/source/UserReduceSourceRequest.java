@@ -0,0 +1,103 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.dispatch.user.source;
+
+import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
+import com.expedia.echox3.internal.transport.message.ReceiveMessage;
+import com.expedia.echox3.internal.transport.message.TransmitMessage;
+
+/**
+ * reduce of a list of keys (empty list for all the objects of the cache) with a user ITrellisReducer.
+ * The response is the list of the answers of the servers involved, in any order.
+ */
+public class UserReduceSourceRequest extends UserSourceRequest
+{
+	private static final byte[][]	KEY_LIST_ALL		= new byte[0][];
+
+	private String					m_reducerClassName;
+	private byte[][]				m_keyList;
+	private byte[]					m_request;
+
+	private byte[][]				m_answerList;
+
+	public UserReduceSourceRequest()
+	{
+		super(DispatcherUserSourceMessageHandler.UserReduce);
+	}
+
+	@Override
+	public void release()
+	{
+		m_reducerClassName	= null;
+		m_keyList			= null;
+		m_request			= null;
+		m_answerList		= null;
+
+		super.release();
+	}
+
+	@Override
+	protected long calculateTimeout()
+	{
+		return calculateTimeout(Math.max(1, m_keyList.length));
+	}
+
+	public void setReducerClassName(String reducerClassName)
+	{
+		m_reducerClassName = reducerClassName;
+	}
+
+	public void setKeyList(byte[][] keyList)
+	{
+		m_keyList = null == keyList ? KEY_LIST_ALL : keyList;
+	}
+
+	public void setRequest(byte[] request)
+	{
+		m_request = request;
+	}
+
+	public byte[][] getAnswerList()
+	{
+		return m_answerList;
+	}
+
+	public boolean composeTransmitMessage()
+	{
+		int			size		= 0;
+		size += TransmitMessage.getStringSize(getCacheName());
+		size += TransmitMessage.getStringSize(m_reducerClassName);
+		size += TransmitMessage.getByteArrayListSize(m_keyList);
+		size += TransmitMessage.getByteArraySize(m_request);
+
+		initTransmitMessage(size);
+
+		getTransmitMessage().putString(getCacheName());
+		getTransmitMessage().putString(m_reducerClassName);
+		getTransmitMessage().putByteArrayList(m_keyList);
+		getTransmitMessage().putByteArray(m_request);
+
+		return true;
+	}
+
+	@Override
+	public boolean setReceiveMessage(ReceiveMessage receiveMessage)
+	{
+		if (!super.setReceiveMessage(receiveMessage))
+		{
+			return false;
+		}
+		if (null != getException())
+		{
+			return true;
+		}
+
+		// Parse the response
+		m_answerList	= receiveMessage.getByteArrayCopyList();
+
+		return true;
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.dispatch.user.source;
+
+import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
+import com.expedia.echox3.internal.transport.message.TransmitMessage;
+
+/**
+ * writeOnly of a list of keys, each with its own request (same index).
+ * The response is an empty acknowledgement (or a failure).
+ */
+public class UserWriteOnlyBulkSourceRequest extends UserSourceRequest
+{
+	private byte[][]				m_keyList;
+	private byte[][]				m_requestList;
+
+	public UserWriteOnlyBulkSourceRequest()
+	{
+		super(DispatcherUserSourceMessageHandler.UserWriteOnlyBulk);
+	}
+
+	@Override
+	public void release()
+	{
+		m_keyList		= null;
+		m_requestList	= null;
+
+		super.release();
+	}
+
+	@Override
+	protected long calculateTimeout()
+	{
+		return calculateTimeout(m_keyList.length);
+	}
+
+	public void setKeyList(byte[][] keyList)
+	{
+		m_keyList = keyList;
+	}
+
+	public void setRequestList(byte[][] requestList)
+	{
+		m_requestList = requestList;
+	}
+
+	public boolean composeTransmitMessage()
+	{
+		int			size		= 0;
+		size += TransmitMessage.getStringSize(getCacheName());
+		size += TransmitMessage.getByteArrayListSize(m_keyList);
+		size += TransmitMessage.getByteArrayListSize(m_requestList);
+
+		initTransmitMessage(size);
+
+		getTransmitMessage().putString(getCacheName());
+		getTransmitMessage().putByteArrayList(m_keyList);
+		getTransmitMessage().putByteArrayList(m_requestList);
+
+		return true;
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.dispatch.user.source;
+
+import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
+import com.expedia.echox3.internal.transport.message.TransmitMessage;
+
+/**
+ * writeOnly of a list of keys, all with the same request.
+ * The response is an empty acknowledgement (or a failure).
+ */
+public class UserWriteOnlyMultipleSourceRequest extends UserSourceRequest
+{
+	private byte[][]			m_keyList;
+	private byte[]				m_request;
+
+	public UserWriteOnlyMultipleSourceRequest()
+	{
+		super(DispatcherUserSourceMessageHandler.UserWriteOnlyMultiple);
+	}
+
+	@Override
+	public void release()
+	{
+		m_keyList		= null;
+		m_request		= null;
+
+		super.release();
+	}
+
+	@Override
+	protected long calculateTimeout()
+	{
+		return calculateTimeout(m_keyList.length);
+	}
+
+	public void setKeyList(byte[][] keyList)
+	{
+		m_keyList = keyList;
+	}
+
+	public void setRequest(byte[] request)
+	{
+		m_request = request;
+	}
+
+	public boolean composeTransmitMessage()
+	{
+		int			size		= 0;
+		size += TransmitMessage.getStringSize(getCacheName());
+		size += TransmitMessage.getByteArrayListSize(m_keyList);
+		size += TransmitMessage.getByteArraySize(m_request);
+
+		initTransmitMessage(size);
+
+		getTransmitMessage().putString(getCacheName());
+		getTransmitMessage().putByteArrayList(m_keyList);
+		getTransmitMessage().putByteArray(m_request);
+
+		return true;
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.dispatch.user.source;
+
+import com.expedia.echox3.internal.transport.dispatch.user.DispatcherUserSourceMessageHandler;
+import com.expedia.echox3.internal.transport.message.TransmitMessage;
+
+/**
+ * writeOnly of a single key; the response is an empty acknowledgement (or a failure).
+ */
+public class UserWriteOnlySingleSourceRequest extends UserSourceRequest
+{
+	private byte[]				m_key;
+	private byte[]				m_request;
+
+	public UserWriteOnlySingleSourceRequest()
+	{
+		super(DispatcherUserSourceMessageHandler.UserWriteOnlySingle);
+	}
+
+	@Override
+	public void release()
+	{
+		m_key		= null;
+		m_request	= null;
+
+		super.release();
+	}
+
+	public void setKey(byte[] key)
+	{
+		m_key = key;
+	}
+
+	public void setRequest(byte[] request)
+	{
+		m_request = request;
+	}
+
+	public boolean composeTransmitMessage()
+	{
+		int			size		= 0;
+		size += TransmitMessage.getStringSize(getCacheName());
+		size += TransmitMessage.getByteArraySize(m_key);
+		size += TransmitMessage.getByteArraySize(m_request);
+
+		initTransmitMessage(size);
+
+		getTransmitMessage().putString(getCacheName());
+		getTransmitMessage().putByteArray(m_key);
+		getTransmitMessage().putByteArray(m_request);
+
+		return true;
+	}
+}
@@ -224,7 +224,7 @@ public abstract class AbstractMessage extends ObjectPool.AbstractPooledObject
 
 	public static int getByteArraySize(byte[] bytes)
 	{
-		return getByteArraySize(bytes, 0, bytes.length);
+		return getByteArraySize(bytes, 0, null == bytes ? 0 : bytes.length);
 	}
 	public static int getByteArraySize(ByteArrayWrapper wrapper)
 	{
@@ -266,6 +266,24 @@ public abstract class AbstractMessage extends ObjectPool.AbstractPooledObject
 		return wrapper;
 	}
 
+	/**
+	 * Same as getByteArray(), but copied out of the message buffer,
+	 * for responses used after the ReceiveMessage is released (i.e. by the thread waiting on the request).
+	 *
+	 * @return	The bytes, or null when the array was empty (null is transmitted as an empty array)
+	 */
+	public byte[] getByteArrayCopy()
+	{
+		int			length			= getContentByteBuffer().getInt();
+		if (0 == length)
+		{
+			return null;
+		}
+		byte[]		bytes			= new byte[length];
+		getContentByteBuffer().get(bytes);
+		return bytes;
+	}
+
 	public static int getByteArrayListSize(byte[][] bytesList)
 	{
 		int		size		= getIntSize();
@@ -295,6 +313,17 @@ public abstract class AbstractMessage extends ObjectPool.AbstractPooledObject
 		return wrapperList;
 	}
 
+	public byte[][] getByteArrayCopyList()
+	{
+		int					size			= getContentByteBuffer().getInt();
+		byte[][]			bytesList		= new byte[size][];
+		for (int i = 0; i < size; i++)
+		{
+			bytesList[i] = getByteArrayCopy();
+		}
+		return bytesList;
+	}
+
 	public List<ComputerAddress> getAddressList()
 	{
 		int								count			= getContentByteBuffer().getInt();
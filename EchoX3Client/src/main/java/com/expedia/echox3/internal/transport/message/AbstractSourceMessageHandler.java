@@ -6,6 +6,7 @@
 package com.expedia.echox3.internal.transport.message;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
 
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
@@ -15,6 +16,7 @@ import com.expedia.echox3.internal.transport.socket.SourceTransportHighway;
 import com.expedia.echox3.internal.transport.socket.TransportHighway;
 import com.expedia.echox3.internal.transport.request.source.AbstractSourceRequest;
 import com.expedia.echox3.internal.transport.request.source.AbstractSourceRequest.IRequestCompleteListener;
+import com.expedia.echox3.internal.transport.request.source.SourceRequestFuture;
 
 public abstract class AbstractSourceMessageHandler extends AbstractMessageHandler implements IRequestCompleteListener
 {
@@ -49,6 +51,29 @@ public abstract class AbstractSourceMessageHandler extends AbstractMessageHandle
 		waitForResponse(clientRequest);
 	}
 
+	/**
+	 * Non-blocking alternative to processRequestSynchronously().
+	 * No thread waits for the response: the future is completed by the IRequestCompleteListener callback.
+	 *
+	 * @return	A future completed with the request (to be released by the caller once consumed)
+	 * 			or exceptionally with the BasicException of the request.
+	 */
+	public <R extends AbstractSourceRequest> CompletableFuture<R> processRequestAsynchronously(
+			SourceTransportHighway transportHighway, R clientRequest)
+	{
+		SourceRequestFuture<R>		future		= new SourceRequestFuture<>();
+		try
+		{
+			transmitRequest(transportHighway, clientRequest, future);
+		}
+		catch (BasicException exception)
+		{
+			clientRequest.release();
+			future.completeExceptionally(exception);
+		}
+		return future;
+	}
+
 	public void transmitRequest(SourceTransportHighway transportHighway,
 			AbstractSourceRequest clientRequest, IRequestCompleteListener objectToNotify)
 			throws BasicException
@@ -70,7 +95,16 @@ public abstract class AbstractSourceMessageHandler extends AbstractMessageHandle
 					message.getClientContext(), message.m_messageType.toString(), transportHighway.toString());
 		}
 
-		transportHighway.transmit(message);
+		try
+		{
+			transportHighway.transmit(message);
+		}
+		catch (BasicException exception)
+		{
+			// Never transmitted, no response nor timeout will come for it: the caller owns (and releases) it again.
+			transportHighway.removePendingRequest(clientRequest.getClientContext());
+			throw exception;
+		}
 	}
 
 	public void waitForResponse(AbstractSourceRequest clientRequest) throws BasicException
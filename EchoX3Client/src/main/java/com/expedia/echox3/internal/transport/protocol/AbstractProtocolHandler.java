@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.expedia.echox3.basics.collection.map.ArrayMap;
@@ -43,6 +44,8 @@ public abstract class AbstractProtocolHandler
 	//CHECKSTYLE:ON
 	private static final String					SETTING_NAME_SELECTOR				= ".selector";
 	private static final String					SETTING_NAME_OUTGOING_QUEUE_SIZE	= ".outgoingQueueSize";
+	private static final String					SETTING_NAME_GATHER_MESSAGE_MAX		= ".writeGatherMessageMax";
+	private static final String					SETTING_NAME_GATHER_BYTE_MAX		= ".writeGatherByteMax";
 
 	private final String						m_protocolName;
 	// m_address ==
@@ -58,6 +61,9 @@ public abstract class AbstractProtocolHandler
 
 	private volatile IEchoThreadPool m_workerThreadPool		= null;
 	private volatile int							m_outgoingQueueSize;
+	// Bounds of a gathering write (see TransportHighway.assignTransmitMessage()), 1 message to write one at a time.
+	private volatile int							m_writeGatherMessageMax	= 1;
+	private volatile int							m_writeGatherByteMax	= 64 * 1024;
 
 	// Messages are sent along the highway, on any available lane.
 	private final Map<Integer, TransportHighway>	m_highwayMap			= new ArrayMap<>();
@@ -153,6 +159,16 @@ public abstract class AbstractProtocolHandler
 		return m_outgoingQueueSize;
 	}
 
+	public int getWriteGatherMessageMax()
+	{
+		return m_writeGatherMessageMax;
+	}
+
+	public int getWriteGatherByteMax()
+	{
+		return m_writeGatherByteMax;
+	}
+
 	public SocketCounterFamily getSocketCounterFamily()
 	{
 		return m_socketCounterFamily;
@@ -170,6 +186,10 @@ public abstract class AbstractProtocolHandler
 		isChanged  = adjustSelectorCount();
 
 		m_outgoingQueueSize = CONFIGURATION_MANAGER.getInt(getSettingName(SETTING_NAME_OUTGOING_QUEUE_SIZE), "100");
+		m_writeGatherMessageMax = Math.max(1,
+				CONFIGURATION_MANAGER.getInt(getSettingName(SETTING_NAME_GATHER_MESSAGE_MAX), m_writeGatherMessageMax));
+		m_writeGatherByteMax =
+				CONFIGURATION_MANAGER.getInt(getSettingName(SETTING_NAME_GATHER_BYTE_MAX), m_writeGatherByteMax);
 		for (TransportHighway transportHighway : m_highwayMap.values())
 		{
 			isChanged |= transportHighway.setQueueSize(m_outgoingQueueSize);
@@ -329,10 +349,12 @@ public abstract class AbstractProtocolHandler
 
 	public void processIsWritable(AbstractTransportLane transportLane)
 	{
-		// Do NOT loop, attempt to transmit only one message.
+		// Do NOT loop, attempt only one write.
 		// This to ensure the next message goes to the next lane.
 		// The performance degradation (some is expected) falls within the noise (not measurable)
 		// when running the loopback test at 110K QPS (per highway).
+		// When writes are gathered, the one write covers the messages already queued (see writeGatherMessageMax),
+		// i.e. one system call instead of one per message for small messages.
 
 		TransmitMessage		transmitMessage		= transportLane.getTransmitMessage();
 		if (null == transmitMessage)
@@ -390,7 +412,16 @@ public abstract class AbstractProtocolHandler
 
 				// At this point, the message belongs to the AbstractProtocolHandler!
 				// TODO DEBUG log entry
-				getWorkerThreadPool().execute(message);
+				try
+				{
+					getWorkerThreadPool().execute(message);
+				}
+				catch (RejectedExecutionException exception)
+				{
+					// The queue of the pool is full (or the pool is shutdown), the sender will time-out.
+					message.release();
+					m_socketCounterFamily.getReadDroppedCounter().increment();
+				}
 			}
 		}
 
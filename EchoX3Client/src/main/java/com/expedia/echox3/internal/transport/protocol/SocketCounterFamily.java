@@ -9,11 +9,13 @@ package com.expedia.echox3.internal.transport.protocol;
 import com.expedia.echox3.basics.collection.histogram.LogarithmicHistogram;
 import com.expedia.echox3.basics.collection.simple.StringGroup;
 import com.expedia.echox3.basics.monitoring.counter.CounterFactory;
+import com.expedia.echox3.basics.monitoring.counter.IIncrementCounter;
 import com.expedia.echox3.basics.monitoring.counter.IOperationCounter;
 
 public class SocketCounterFamily
 {
 	private IOperationCounter		m_readMessageCounter;
+	private IIncrementCounter		m_readDroppedCounter;
 
 	private IOperationCounter		m_writeQueueCounter;
 	private IOperationCounter		m_writeSingleCounter;
@@ -31,6 +33,10 @@ public class SocketCounterFamily
 				LogarithmicHistogram.Precision.Normal, CounterFactory.CounterRange.us,
 				"Time spent reading a message");
 
+		StringGroup			droppedName			= new StringGroup(counterNameList.getStringArray());
+		droppedName.append("ReadDropped");
+		m_readDroppedCounter = factory.getIncrementCounter(droppedName,
+				"Number of messages read, then dropped because the worker thread pool rejected them");
 
 		StringGroup			queueName			= new StringGroup(counterNameList.getStringArray());
 		queueName.append("WriteQueue");
@@ -56,6 +62,11 @@ public class SocketCounterFamily
 		return m_readMessageCounter;
 	}
 
+	public IIncrementCounter getReadDroppedCounter()
+	{
+		return m_readDroppedCounter;
+	}
+
 	public IOperationCounter getWriteQueueCounter()
 	{
 		return m_writeQueueCounter;
@@ -74,6 +85,7 @@ public class SocketCounterFamily
 	public void close()
 	{
 		m_readMessageCounter.close();
+		m_readDroppedCounter.close();
 		m_writeQueueCounter.close();
 		m_writeSingleCounter.close();
 		m_writeTotalCounter.close();
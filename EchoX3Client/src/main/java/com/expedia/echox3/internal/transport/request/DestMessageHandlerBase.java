@@ -13,13 +13,13 @@ import com.expedia.echox3.internal.transport.protocol.AbstractProtocolHandler;
 import com.expedia.echox3.internal.transport.protocol.AbstractProtocolHandlerManager;
 import com.expedia.echox3.internal.transport.protocol.DestProtocolHandlerManager;
 import com.expedia.echox3.internal.transport.request.dest.UnknownDestRequest;
-import com.expedia.echox3.internal.transport.request.source.WorkSourceRequest;
 import com.expedia.echox3.internal.transport.request.dest.AbstractDestRequest;
 import com.expedia.echox3.internal.transport.request.dest.EchoDestRequest;
 import com.expedia.echox3.internal.transport.request.dest.GetHighwayDestRequest;
 import com.expedia.echox3.internal.transport.request.dest.GetTimeDestRequest;
 import com.expedia.echox3.internal.transport.request.dest.GetVersionDestRequest;
 import com.expedia.echox3.internal.transport.request.dest.SetHighwayDestRequest;
+import com.expedia.echox3.internal.transport.request.dest.WorkDestRequest;
 import com.expedia.echox3.internal.transport.socket.ComputerAddress;
 
 public class DestMessageHandlerBase extends AbstractMessageHandler
@@ -38,7 +38,7 @@ public class DestMessageHandlerBase extends AbstractMessageHandler
 		setObjectPool(MessageType.UnknownMessageType, UnknownDestRequest::new);
 		setObjectPool(MessageType.GetTime, GetTimeDestRequest::new);
 		setObjectPool(MessageType.Echo, EchoDestRequest::new);
-		setObjectPool(MessageType.Work, WorkSourceRequest::new);
+		setObjectPool(MessageType.Work, WorkDestRequest::new);
 		setObjectPool(MessageType.GetVersion, GetVersionDestRequest::new);
 		setObjectPool(MessageType.GetHighwayNumber, GetHighwayDestRequest::new);
 		setObjectPool(MessageType.SetHighwayNumber, SetHighwayDestRequest::new);
@@ -49,7 +49,12 @@ public abstract class AbstractSourceRequest extends AbstractRequest
 	}
 	protected long calculateTimeout()
 	{
-		return TIMEOUT_MANAGER.getTimeout(this, getMessageType(), 1);
+		return calculateTimeout(1);
+	}
+	// For requests carrying a list of items: timeout + (count * increment)
+	protected long calculateTimeout(int count)
+	{
+		return TIMEOUT_MANAGER.getTimeout(this, getMessageType(), count);
 	}
 
 	@Override
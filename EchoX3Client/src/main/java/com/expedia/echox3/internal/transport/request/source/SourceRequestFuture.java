@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.request.source;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.internal.transport.request.source.AbstractSourceRequest.IRequestCompleteListener;
+
+/**
+ * The IRequestCompleteListener of a request transmitted asynchronously,
+ * see AbstractSourceMessageHandler.processRequestAsynchronously().
+ *
+ * The future completes (in the thread processing the response or the timeout) with the request itself,
+ * or exceptionally with the BasicException of the request.
+ * On success, the stage consuming the response is responsible for releasing the request back to its pool;
+ * on failure, the request is released here.
+ * As the dependent stages run in the transport worker thread, they should be short;
+ * use the *Async variants of CompletableFuture for long processing.
+ */
+public class SourceRequestFuture<R extends AbstractSourceRequest>
+		extends CompletableFuture<R> implements IRequestCompleteListener
+{
+	@Override
+	@SuppressWarnings("unchecked")
+	public void processCompletedRequest(AbstractSourceRequest clientRequest)
+	{
+		BasicException		exception		= clientRequest.getException();
+		if (null == exception)
+		{
+			complete((R) clientRequest);
+		}
+		else
+		{
+			clientRequest.release();
+			completeExceptionally(exception);
+		}
+	}
+}
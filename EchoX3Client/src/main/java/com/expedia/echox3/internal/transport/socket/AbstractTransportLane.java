@@ -12,6 +12,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.Set;
 
 import org.apache.log4j.Level;
@@ -45,6 +46,7 @@ public abstract class AbstractTransportLane
 
 	private static final String			SETTING_NAME_RECEIVE_BUFFER_KB	= ".ReceiveBufferKB";
 	private static final String			SETTING_NAME_SEND_BUFFER_KB		= ".SendBufferKB";
+	private static final String			SETTING_NAME_TCP_NO_DELAY		= ".TcpNoDelay";
 
 	private AbstractProtocolHandler		m_protocolHandler;
 	private TransportHighway			m_transportHighway;
@@ -54,7 +56,14 @@ public abstract class AbstractTransportLane
 	private SelectorThread				m_selectorThread		= null;
 	private SelectionKey				m_key					= null;
 	private ReceiveMessage				m_receiveMessage;
-	private TransmitMessage				m_transmitMessage		= null;
+
+	// The messages being written, more than one when the writes are gathered (see addTransmitMessage()).
+	// The messages before m_transmitIndex have been written and released.
+	private TransmitMessage[]			m_transmitList			= new TransmitMessage[1];
+	private ByteBuffer[]				m_transmitBufferList	= new ByteBuffer[1];
+	private int							m_transmitIndex			= 0;
+	private int							m_transmitCount			= 0;
+	private int							m_transmitByteCount		= 0;
 
 	private long							m_connectTimeMS			= 0;
 	private long							m_lastMessageTimeMS		= 0;
@@ -148,6 +157,8 @@ public abstract class AbstractTransportLane
 		String		settingNameSendKB		= getProtocolHandler().getSettingName(SETTING_NAME_SEND_BUFFER_KB);
 		int			receiveKB				= ConfigurationManager.getInstance().getInt(settingNameReceiveKB, "100");
 		int			sendKB					= ConfigurationManager.getInstance().getInt(settingNameSendKB, "100");
+		String		settingNameNoDelay		= getProtocolHandler().getSettingName(SETTING_NAME_TCP_NO_DELAY);
+		boolean		isNoDelay				= ConfigurationManager.getInstance().getBoolean(settingNameNoDelay, true);
 		// Is always blocking
 		try
 		{
@@ -161,7 +172,7 @@ public abstract class AbstractTransportLane
 			}
 			if (set.contains(StandardSocketOptions.TCP_NODELAY))
 			{
-				getSocketChannel().setOption(StandardSocketOptions.TCP_NODELAY, true);
+				getSocketChannel().setOption(StandardSocketOptions.TCP_NODELAY, isNoDelay);
 			}
 
 			// TypeOfService, as per Datagram.setTrafficClass...
@@ -276,20 +287,62 @@ public abstract class AbstractTransportLane
 		receiveMessage.setTransportLane(this);
 	}
 
+	// The message being written, the first one when the writes are gathered.
 	public TransmitMessage getTransmitMessage()
 	{
-		return m_transmitMessage;
+		return m_transmitIndex < m_transmitCount ? m_transmitList[m_transmitIndex] : null;
 	}
 
 	public void setTransmitMessage(TransmitMessage transmitMessage)
 	{
+		clearTransmitList();
 		if (null != transmitMessage)
 		{
-			transmitMessage.getContentManagedByteBuffer().rewind();
-			transmitMessage.markTransmitBegin();
-			transmitMessage.setTransportLane(this);
+			addTransmitMessage(transmitMessage);
+		}
+	}
+
+	/**
+	 * Adds a message to those written by the next write(), with a single gathering write.
+	 *
+	 * @param transmitMessage	The message to write after the ones already added
+	 */
+	public void addTransmitMessage(TransmitMessage transmitMessage)
+	{
+		transmitMessage.getContentManagedByteBuffer().rewind();
+		transmitMessage.markTransmitBegin();
+		transmitMessage.setTransportLane(this);
+
+		if (m_transmitCount == m_transmitList.length)
+		{
+			m_transmitList = Arrays.copyOf(m_transmitList, m_transmitCount * 2);
+			m_transmitBufferList = Arrays.copyOf(m_transmitBufferList, m_transmitCount * 2);
 		}
-		m_transmitMessage = transmitMessage;
+		m_transmitList[m_transmitCount] = transmitMessage;
+		m_transmitBufferList[m_transmitCount] = transmitMessage.getContentByteBuffer();
+		m_transmitCount++;
+		m_transmitByteCount += transmitMessage.getContentByteBuffer().remaining();
+	}
+
+	// Number of messages, and their total size, not yet completely written
+	public int getTransmitCount()
+	{
+		return m_transmitCount - m_transmitIndex;
+	}
+
+	public int getTransmitByteCount()
+	{
+		return m_transmitByteCount;
+	}
+
+	private void clearTransmitList()
+	{
+		// The messages not yet released are the responsibility of the caller (e.g. close()).
+		Arrays.fill(m_transmitList, 0, m_transmitCount, null);
+		Arrays.fill(m_transmitBufferList, 0, m_transmitCount, null);
+		m_transmitIndex = 0;
+		m_transmitCount = 0;
+		m_transmitByteCount = 0;
 	}
 
 	public boolean addWaitFor(int ops) throws BasicException
@@ -391,13 +444,28 @@ public abstract class AbstractTransportLane
 			boolean					isSuccess			= true;
 			try
 			{
-				TransmitMessage		transmitMessage		= getTransmitMessage();
-				ByteBuffer			byteBuffer			= transmitMessage.getContentByteBuffer();
-				cb = getSocketChannel().write(byteBuffer);
-				if (!byteBuffer.hasRemaining())
+				int					transmitCount		= getTransmitCount();
+				if (1 == transmitCount)
+				{
+					cb = getSocketChannel().write(m_transmitBufferList[m_transmitIndex]);
+				}
+				else
+				{
+					// A single system call for all the messages, as much as the socket takes.
+					cb = (int) getSocketChannel().write(m_transmitBufferList, m_transmitIndex, transmitCount);
+				}
+				m_transmitByteCount -= cb;
+
+				while (m_transmitIndex < m_transmitCount && !m_transmitBufferList[m_transmitIndex].hasRemaining())
+				{
+					m_transmitList[m_transmitIndex].release();
+					m_transmitList[m_transmitIndex] = null;
+					m_transmitBufferList[m_transmitIndex] = null;
+					m_transmitIndex++;
+				}
+				if (m_transmitIndex == m_transmitCount)
 				{
-					transmitMessage.release();
-					setTransmitMessage(null);
+					clearTransmitList();
 				}
 			}
 			catch (Exception e)
@@ -421,11 +489,11 @@ public abstract class AbstractTransportLane
 	{
 		synchronized (this)
 		{
-			if (null != getTransmitMessage())
+			for (int i = m_transmitIndex; i < m_transmitCount; i++)
 			{
-				getTransmitMessage().release();
-				m_transmitMessage = null;
+				m_transmitList[i].release();
 			}
+			clearTransmitList();
 			if (null != getReceiveMessage())
 			{
 				getReceiveMessage().release();
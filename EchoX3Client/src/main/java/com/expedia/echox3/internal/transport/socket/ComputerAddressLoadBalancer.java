@@ -5,6 +5,7 @@
 
 package com.expedia.echox3.internal.transport.socket;
 
+import java.util.Arrays;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -106,6 +107,37 @@ public class ComputerAddressLoadBalancer
 
 		return highwayCurrent;
 	}
+	/**
+	 * @return	All the active TransportHighway, in a stable order (the order of the address group),
+	 * 			so a key always goes to the same highway as long as the group does not change.
+	 */
+	public TransportHighway[] getActiveTransportHighwayList() throws BasicException
+	{
+		if (m_addressGroup.getVersion() != m_addressGroupVersion)
+		{
+			updateAddressList();
+		}
+
+		ComputerAddress[]		addressList		= m_addressList;
+		TransportHighway[]		highwayList		= new TransportHighway[addressList.length];
+		int						count			= 0;
+		for (ComputerAddress address : addressList)
+		{
+			TransportHighway		transportHighway		= address.getSourceHighway();
+			if (transportHighway.isActive())
+			{
+				highwayList[count++] = transportHighway;
+			}
+		}
+		if (0 == count)
+		{
+			throw new BasicException(BasicEvent.EVENT_TRANSPORT_LANE_NOT_AVAILABLE,
+					String.format("None of the %,d TransportHighway is active from load balancer %s",
+							addressList.length, toString()));
+		}
+
+		return count == highwayList.length ? highwayList : Arrays.copyOf(highwayList, count);
+	}
 	public int getHighwayCount()
 	{
 		return m_addressList.length;
@@ -0,0 +1,329 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport.socket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.expedia.echox3.internal.transport.request.source.AbstractSourceRequest;
+
+/**
+ * The requests waiting for a response on a SourceTransportHighway, indexed by client context.
+ *
+ * The registry is a set of stripes, each a small open-addressed (long -> request) table under its own monitor,
+ * so add/remove are O(1) and a response only contends with requests hashing to the same stripe.
+ *
+ * The timeouts are tracked by a hashed timer wheel: each request is also added to the bucket of its timeout tick.
+ * A timeout pass only visits the buckets of the ticks elapsed since the previous pass.
+ * Responses do not remove the request from the wheel; a stale wheel entry (context no longer pending,
+ * or pending with a different request) is simply dropped when its bucket is visited.
+ * A request whose timeout is beyond the wheel horizon stays in its bucket until a later round.
+ * The timer lock orders the choice of a bucket by add() with the timeout pass, so that a request is never added
+ * to a bucket the current pass has already visited (it would then wait a whole round of the wheel, ~8 sec).
+ */
+public class PendingRequestTable
+{
+	private static final int				STRIPE_COUNT			= 16;			// Power of 2
+	private static final int				STRIPE_SIZE_MIN			= 16;			// Power of 2
+	private static final int				TICK_MS					= 32;
+	private static final int				WHEEL_SIZE				= 256;			// Power of 2, horizon ~8 sec
+
+	private final Stripe[]					m_stripeList			= new Stripe[STRIPE_COUNT];
+	private final WheelBucket[]				m_wheel					= new WheelBucket[WHEEL_SIZE];
+	private final AtomicInteger				m_count					= new AtomicInteger(0);
+	// m_timerLock protects m_tickProcessed, held while a timeout pass visits the buckets.
+	private final Object					m_timerLock				= new Object();
+	private long							m_tickProcessed			= -1;
+
+	public PendingRequestTable()
+	{
+		for (int i = 0; i < STRIPE_COUNT; i++)
+		{
+			m_stripeList[i] = new Stripe();
+		}
+		for (int i = 0; i < WHEEL_SIZE; i++)
+		{
+			m_wheel[i] = new WheelBucket();
+		}
+	}
+
+	public int size()
+	{
+		return m_count.get();
+	}
+
+	public void add(AbstractSourceRequest clientRequest)
+	{
+		long			clientContext		= clientRequest.getClientContext();
+		if (getStripe(clientContext).put(clientContext, clientRequest))
+		{
+			m_count.incrementAndGet();
+		}
+
+		// Never schedule in a bucket already visited by the current round.
+		synchronized (m_timerLock)
+		{
+			long		tick				= Math.max(clientRequest.getTimeTimeoutMS() / TICK_MS, m_tickProcessed + 1);
+			m_wheel[(int) (tick & (WHEEL_SIZE - 1))].add(clientContext, clientRequest);
+		}
+	}
+
+	public AbstractSourceRequest remove(long clientContext)
+	{
+		AbstractSourceRequest		clientRequest		= getStripe(clientContext).remove(clientContext, null);
+		if (null != clientRequest)
+		{
+			m_count.decrementAndGet();
+		}
+		return clientRequest;
+	}
+
+	/**
+	 * Removes from the table the requests that have timed out at timeMS (timeMS > request.getTimeTimeoutMS()).
+	 * Only one thread (the TimeoutThread of the protocol handler) is expected to call this method.
+	 *
+	 * @param timeMS	Current time, Long.MAX_VALUE times out every pending request
+	 * @return			The list of requests removed; the caller notifies them (outside of any lock)
+	 */
+	public List<AbstractSourceRequest> removeTimedOut(long timeMS)
+	{
+		List<AbstractSourceRequest>		expiredList		= new ArrayList<>();
+		if (Long.MAX_VALUE == timeMS)
+		{
+			for (Stripe stripe : m_stripeList)
+			{
+				stripe.removeAll(expiredList);
+			}
+			for (WheelBucket bucket : m_wheel)
+			{
+				bucket.clear();
+			}
+			m_count.addAndGet(-expiredList.size());
+			return expiredList;
+		}
+
+		long			tickNow			= timeMS / TICK_MS;
+		synchronized (m_timerLock)
+		{
+			long		tickFirst		= m_tickProcessed + 1;
+			if (-1 == m_tickProcessed || (tickNow - tickFirst) >= WHEEL_SIZE)
+			{
+				// First pass or a long pause: visit the whole wheel once
+				tickFirst = tickNow - (WHEEL_SIZE - 1);
+			}
+			for (long tick = tickFirst; tick <= tickNow; tick++)
+			{
+				m_wheel[(int) (tick & (WHEEL_SIZE - 1))].process(this, timeMS, expiredList);
+			}
+			m_tickProcessed = tickNow;
+		}
+
+		return expiredList;
+	}
+
+	private Stripe getStripe(long clientContext)
+	{
+		return m_stripeList[(int) (mix(clientContext) >>> 59) & (STRIPE_COUNT - 1)];
+	}
+	private static long mix(long clientContext)
+	{
+		return clientContext * 0x9E3779B97F4A7C15L;
+	}
+
+	// Called from the wheel: remove only if the context is still held by this very request.
+	private boolean removeExpired(long clientContext, AbstractSourceRequest clientRequest)
+	{
+		boolean		isRemoved		= null != getStripe(clientContext).remove(clientContext, clientRequest);
+		if (isRemoved)
+		{
+			m_count.decrementAndGet();
+		}
+		return isRemoved;
+	}
+	private boolean isPending(long clientContext, AbstractSourceRequest clientRequest)
+	{
+		return clientRequest == getStripe(clientContext).get(clientContext);		// NOPMD
+	}
+
+	/**
+	 * Open addressing with linear probing; deletion shifts back the following entries (no tombstone).
+	 * A null request marks an empty slot.
+	 */
+	private static final class Stripe
+	{
+		private long[]						m_contextList		= new long[STRIPE_SIZE_MIN];
+		private AbstractSourceRequest[]		m_requestList		= new AbstractSourceRequest[STRIPE_SIZE_MIN];
+		private int							m_count				= 0;
+
+		private synchronized boolean put(long clientContext, AbstractSourceRequest clientRequest)
+		{
+			if ((m_count + 1) * 2 > m_requestList.length)
+			{
+				resize(m_requestList.length * 2);
+			}
+			int		mask		= m_requestList.length - 1;
+			int		index		= (int) mix(clientContext) & mask;
+			while (null != m_requestList[index])
+			{
+				if (m_contextList[index] == clientContext)
+				{
+					m_requestList[index] = clientRequest;
+					return false;
+				}
+				index = (index + 1) & mask;
+			}
+			m_contextList[index] = clientContext;
+			m_requestList[index] = clientRequest;
+			m_count++;
+			return true;
+		}
+
+		private synchronized AbstractSourceRequest get(long clientContext)
+		{
+			int		index		= find(clientContext);
+			return -1 == index ? null : m_requestList[index];
+		}
+
+		// If clientRequest is not null, only remove when the entry holds this very request.
+		private synchronized AbstractSourceRequest remove(long clientContext, AbstractSourceRequest clientRequest)
+		{
+			int						index		= find(clientContext);
+			if (-1 == index || (null != clientRequest && clientRequest != m_requestList[index]))	// NOPMD
+			{
+				return null;
+			}
+			AbstractSourceRequest	removed		= m_requestList[index];
+			m_requestList[index] = null;
+			m_count--;
+
+			// Shift back the entries of the same cluster that would otherwise become unreachable.
+			int		mask		= m_requestList.length - 1;
+			int		hole		= index;
+			int		next		= (index + 1) & mask;
+			while (null != m_requestList[next])
+			{
+				int		home		= (int) mix(m_contextList[next]) & mask;
+				if (((next - home) & mask) >= ((next - hole) & mask))
+				{
+					m_contextList[hole] = m_contextList[next];
+					m_requestList[hole] = m_requestList[next];
+					m_requestList[next] = null;
+					hole = next;
+				}
+				next = (next + 1) & mask;
+			}
+			return removed;
+		}
+
+		private synchronized void removeAll(List<AbstractSourceRequest> list)
+		{
+			for (AbstractSourceRequest clientRequest : m_requestList)
+			{
+				if (null != clientRequest)
+				{
+					list.add(clientRequest);
+				}
+			}
+			Arrays.fill(m_requestList, null);
+			m_count = 0;
+		}
+
+		private int find(long clientContext)
+		{
+			int		mask		= m_requestList.length - 1;
+			int		index		= (int) mix(clientContext) & mask;
+			while (null != m_requestList[index])
+			{
+				if (m_contextList[index] == clientContext)
+				{
+					return index;
+				}
+				index = (index + 1) & mask;
+			}
+			return -1;
+		}
+
+		private void resize(int length)
+		{
+			long[]						contextList		= m_contextList;
+			AbstractSourceRequest[]		requestList		= m_requestList;
+			m_contextList = new long[length];
+			m_requestList = new AbstractSourceRequest[length];
+			m_count = 0;
+			for (int i = 0; i < requestList.length; i++)
+			{
+				if (null != requestList[i])
+				{
+					put(contextList[i], requestList[i]);
+				}
+			}
+		}
+	}
+
+	private static final class WheelBucket
+	{
+		private long[]						m_contextList		= new long[4];
+		private AbstractSourceRequest[]		m_requestList		= new AbstractSourceRequest[4];
+		private int							m_count				= 0;
+
+		private synchronized void add(long clientContext, AbstractSourceRequest clientRequest)
+		{
+			if (m_count == m_requestList.length)
+			{
+				m_contextList = Arrays.copyOf(m_contextList, m_count * 2);
+				m_requestList = Arrays.copyOf(m_requestList, m_count * 2);
+			}
+			m_contextList[m_count] = clientContext;
+			m_requestList[m_count] = clientRequest;
+			m_count++;
+		}
+
+		private synchronized void process(PendingRequestTable table, long timeMS, List<AbstractSourceRequest> list)
+		{
+			int		countNew		= 0;
+			for (int i = 0; i < m_count; i++)
+			{
+				long					clientContext		= m_contextList[i];
+				AbstractSourceRequest	clientRequest		= m_requestList[i];
+				if (!table.isPending(clientContext, clientRequest))
+				{
+					continue;		// Stale: response received (and the request possibly re-used)
+				}
+				if (timeMS > clientRequest.getTimeTimeoutMS())
+				{
+					if (table.removeExpired(clientContext, clientRequest))
+					{
+						list.add(clientRequest);
+					}
+				}
+				else
+				{
+					// Later round
+					m_contextList[countNew] = clientContext;
+					m_requestList[countNew] = clientRequest;
+					countNew++;
+				}
+			}
+			Arrays.fill(m_requestList, countNew, m_count, null);
+			m_count = countNew;
+
+			if (m_requestList.length > 64 && m_count < m_requestList.length / 4)
+			{
+				int		length		= Math.max(4, m_count * 2);
+				m_contextList = Arrays.copyOf(m_contextList, length);
+				m_requestList = Arrays.copyOf(m_requestList, length);
+			}
+		}
+
+		private synchronized void clear()
+		{
+			Arrays.fill(m_requestList, 0, m_count, null);
+			m_count = 0;
+		}
+	}
+}
@@ -5,7 +5,7 @@
 
 package com.expedia.echox3.internal.transport.socket;
 
-import java.util.Arrays;
+import java.util.List;
 
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
@@ -20,13 +20,8 @@ public class SourceTransportHighway extends TransportHighway
 {
 	public static final long					serialVersionUID	= 20150601085959L;
 
-	private static final int			ENTRY_COUNT_START			= 100;
-	private static final int			ENTRY_COUNT_MIN				= ENTRY_COUNT_START * 2;
-
 	private ComputerAddress				m_remoteAddress				= null;
-	private final Object				m_pendingListLock			= new Object();
-	private AbstractSourceRequest[]		m_pendingRequestList		= new AbstractSourceRequest[ENTRY_COUNT_START];
-	private int							m_pendingRequestCount		= 0;
+	private final PendingRequestTable	m_pendingRequestTable		= new PendingRequestTable();
 
 	public SourceTransportHighway(AbstractProtocolHandler protocolHandler)
 	{
@@ -61,89 +56,18 @@ public class SourceTransportHighway extends TransportHighway
 
 	public void addPendingRequest(AbstractSourceRequest clientRequest)
 	{
-		synchronized (m_pendingListLock)
-		{
-			int i = 0;
-			for (; i < m_pendingRequestList.length; i++)
-			{
-				if (null == m_pendingRequestList[i])
-				{
-					m_pendingRequestList[i] = clientRequest;
-					break;
-				}
-			}
-
-			if (i == m_pendingRequestList.length)
-			{
-				// No empty slots...
-				int originalLength = m_pendingRequestList.length;
-				m_pendingRequestList = Arrays.copyOf(m_pendingRequestList, m_pendingRequestList.length * 2);
-				m_pendingRequestList[originalLength] = clientRequest;
-			}
-
-			m_pendingRequestCount++;
-		}
+		m_pendingRequestTable.add(clientRequest);
 	}
 
 	public AbstractSourceRequest removePendingRequest(long clientContext)
 	{
-		AbstractSourceRequest clientRequest	= null;
-
-		synchronized (m_pendingListLock)
-		{
-			for (int i = 0; i < m_pendingRequestList.length; i++)
-			{
-				if (null != m_pendingRequestList[i] && m_pendingRequestList[i].getClientContext() == clientContext)
-				{
-					// Found it...
-					clientRequest = m_pendingRequestList[i];
-					m_pendingRequestList[i] = null;
-					m_pendingRequestCount--;
-					break;
-				}
-			}
-		}
-
-		return clientRequest;
+		return m_pendingRequestTable.remove(clientContext);
 	}
 
 	public void processPendingForTimeout(long timeMS)
 	{
-		synchronized (m_pendingListLock)
-		{
-			int iNewPosition = 0;
-			for (int i = 0; i < m_pendingRequestList.length; i++)
-			{
-				AbstractSourceRequest clientRequest = m_pendingRequestList[i];
-				if (null != clientRequest)
-				{
-					if (processClientRequest(clientRequest, timeMS))
-					{
-						m_pendingRequestCount--;
-						m_pendingRequestList[i] = null;
-					}
-					else
-					{
-						m_pendingRequestList[iNewPosition++] = clientRequest;
-					}
-				}
-			}
-			Arrays.fill(m_pendingRequestList, iNewPosition, m_pendingRequestList.length, null);
-
-			if ((iNewPosition < (m_pendingRequestList.length / 2))
-					&& m_pendingRequestList.length > ENTRY_COUNT_MIN)
-			{
-				int length = Math.max(ENTRY_COUNT_MIN, iNewPosition * 2);
-				m_pendingRequestList = Arrays.copyOf(m_pendingRequestList, length);
-			}
-		}
-	}
-	// return true if clientRequest is "processed" == has expired.
-	private boolean processClientRequest(AbstractSourceRequest clientRequest, long timeMS)
-	{
-		long			timeoutMS		= clientRequest.getTimeTimeoutMS();
-		boolean			isTimeout		= timeMS > timeoutMS;
-		if (isTimeout)
+		List<AbstractSourceRequest>		expiredList		= m_pendingRequestTable.removeTimedOut(timeMS);
+		for (AbstractSourceRequest clientRequest : expiredList)
 		{
 			String			message		= String.format("Request %s has timed-out with duration = %,d ms > %,d ms",
 					clientRequest.toString(),
@@ -151,13 +75,12 @@ public class SourceTransportHighway extends TransportHighway
 					clientRequest.getTimeoutMS());
 			clientRequest.setException(new BasicException(BasicEvent.EVENT_PROTOCOL_TIMEOUT, message));
 		}
-		return isTimeout;
 	}
 
 	@Override
 	public int getLoad()
 	{
-		return m_pendingRequestCount;
+		return m_pendingRequestTable.size();
 	}
 
 	@Override
@@ -5,15 +5,22 @@
 package com.expedia.echox3.internal.wrapper;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 
+import com.expedia.echox3.basics.collection.simple.CopyOnWriteSimpleMap;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.thread.FutureTools;
 import com.expedia.echox3.basics.tools.serial.BasicSerial;
-import com.expedia.echox3.basics.tools.serial.BasicSerial.CompressType;
 import com.expedia.echox3.internal.provider.IObjectCacheProvider;
 import com.expedia.echox3.visible.trellis.IObjectCacheClient;
 
 public class ObjectCacheClient extends TrellisBaseClient implements IObjectCacheClient
 {
+	// The client singleton of each reducer class
+	private static final CopyOnWriteSimpleMap<Class<?>, ITrellisReducer>	REDUCER_MAP		=
+			new CopyOnWriteSimpleMap<>();
+
 	public ObjectCacheClient(IObjectCacheProvider provider)
 	{
 		super(provider);
@@ -23,7 +30,7 @@ public class ObjectCacheClient extends TrellisBaseClient implements IObjectCache
 	public void writeOnly(String cacheName, Serializable key, Serializable request)
 			throws BasicException
 	{
-		byte[]		keyBytes		= BasicSerial.toBytes(cacheName, key, CompressType.none);
+		byte[]		keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
 		byte[]		requestBytes	= BasicSerial.toBytes(cacheName, request);
 		getProvider().writeOnly(cacheName, keyBytes, requestBytes);
 	}
@@ -32,7 +39,7 @@ public class ObjectCacheClient extends TrellisBaseClient implements IObjectCache
 	public void writeOnly(String cacheName, Serializable[] keyList, Serializable request)
 			throws BasicException
 	{
-		byte[][]	keyListBytes	= BasicSerial.toBytesArray(cacheName, keyList, CompressType.none);
+		byte[][]	keyListBytes	= BasicSerial.toKeyBytesArray(cacheName, keyList);
 		byte[]		requestBytes	= BasicSerial.toBytes(cacheName, request);
 		getProvider().writeOnly(cacheName, keyListBytes, requestBytes);
 	}
@@ -41,7 +48,7 @@ public class ObjectCacheClient extends TrellisBaseClient implements IObjectCache
 	public void writeOnly(String cacheName, Serializable[] keyList, Serializable[] requestList)
 			throws BasicException
 	{
-		byte[][]	keyListBytes		= BasicSerial.toBytesArray(cacheName, keyList, CompressType.none);
+		byte[][]	keyListBytes		= BasicSerial.toKeyBytesArray(cacheName, keyList);
 		byte[][]	requestListBytes	= BasicSerial.toBytesArray(cacheName, requestList);
 		getProvider().writeOnly(cacheName, keyListBytes, requestListBytes);
 	}
@@ -50,7 +57,7 @@ public class ObjectCacheClient extends TrellisBaseClient implements IObjectCache
 	public Serializable readOnly(String cacheName, Serializable key, Serializable request)
 			throws BasicException
 	{
-		byte[]			keyBytes		= BasicSerial.toBytes(cacheName, key, CompressType.none);
+		byte[]			keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
 		byte[]			requestBytes	= BasicSerial.toBytes(cacheName, request);
 		byte[]			responseBytes	= getProvider().readOnly(cacheName, keyBytes, requestBytes);
 		Serializable	response		= BasicSerial.toObject(cacheName, responseBytes);
@@ -61,7 +68,7 @@ public class ObjectCacheClient extends TrellisBaseClient implements IObjectCache
 	public Serializable[] readOnly(String cacheName, Serializable[] keyList, Serializable request)
 			throws BasicException
 	{
-		byte[][]		keyListBytes		= BasicSerial.toBytesArray(cacheName, keyList, CompressType.none);
+		byte[][]		keyListBytes		= BasicSerial.toKeyBytesArray(cacheName, keyList);
 		byte[]			requestBytes		= BasicSerial.toBytes(cacheName, request);
 		byte[][]		responseListBytes	= getProvider().readOnly(cacheName, keyListBytes, requestBytes);
 		Serializable[]	responseList		= BasicSerial.toObjectArray(cacheName, responseListBytes);
@@ -72,7 +79,7 @@ public class ObjectCacheClient extends TrellisBaseClient implements IObjectCache
 	public Serializable[] readOnly(String cacheName, Serializable[] keyList, Serializable[] requestList)
 			throws BasicException
 	{
-		byte[][]	keyListBytes		= BasicSerial.toBytesArray(cacheName, keyList, CompressType.none);
+		byte[][]	keyListBytes		= BasicSerial.toKeyBytesArray(cacheName, keyList);
 		byte[][]	requestListBytes	= BasicSerial.toBytesArray(cacheName, requestList);
 		byte[][]	responseListBytes	= getProvider().readOnly(cacheName, keyListBytes, requestListBytes);
 		Serializable[]	responseList	= BasicSerial.toObjectArray(cacheName, responseListBytes);
@@ -87,10 +94,120 @@ public class ObjectCacheClient extends TrellisBaseClient implements IObjectCache
 	}
 
 	@Override
-	public Serializable reduce(Class<ITrellisReducer> reducerClass,
+	public Serializable reduce(Class<? extends ITrellisReducer> reducerClass,
 			String cacheName, Serializable[] keyList, Serializable request)
 			throws BasicException
 	{
-		throw new UnsupportedOperationException("NYI");
+		ITrellisReducer		reducer			= getReducer(reducerClass);
+		Serializable[]		answerList;
+		if (null != keyList && 0 == keyList.length)
+		{
+			answerList = new Serializable[0];		// Nothing to reduce, do not confuse it with the whole cache.
+		}
+		else
+		{
+			byte[][]		keyListBytes	= null == keyList
+					? null : BasicSerial.toKeyBytesArray(cacheName, keyList);
+			byte[]			requestBytes	= BasicSerial.toBytes(cacheName, request);
+			byte[][]		answerListBytes	= getProvider().reduce(
+					cacheName, reducerClass.getName(), keyListBytes, requestBytes);
+			answerList = new Serializable[answerListBytes.length];
+			for (int i = 0; i < answerListBytes.length; i++)
+			{
+				answerList[i] = BasicSerial.toObject(cacheName, answerListBytes[i]);
+			}
+		}
+		return reducer.reduceAnswerList(answerList, request);
+	}
+	private static ITrellisReducer getReducer(Class<? extends ITrellisReducer> reducerClass) throws BasicException
+	{
+		ITrellisReducer		reducer			= REDUCER_MAP.get(reducerClass);
+		if (null == reducer)
+		{
+			try
+			{
+				reducer = reducerClass.getConstructor().newInstance();
+			}
+			catch (Exception exception)
+			{
+				throw new BasicException(BasicEvent.EVENT_NO_REDUCER_CONSTRUCTOR, exception,
+						"The reducer %s does not have a public parameter-less constructor.", reducerClass.getName());
+			}
+			REDUCER_MAP.put(reducerClass, reducer);
+		}
+		return reducer;
+	}
+
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, Serializable key, Serializable request)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[]		keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
+			byte[]		requestBytes	= BasicSerial.toBytes(cacheName, request);
+			return getProvider().writeOnlyAsync(cacheName, keyBytes, requestBytes);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, Serializable[] keyList, Serializable request)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[][]	keyListBytes	= BasicSerial.toKeyBytesArray(cacheName, keyList);
+			byte[]		requestBytes	= BasicSerial.toBytes(cacheName, request);
+			return getProvider().writeOnlyAsync(cacheName, keyListBytes, requestBytes);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> writeOnlyAsync(String cacheName, Serializable[] keyList, Serializable[] requestList)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[][]	keyListBytes		= BasicSerial.toKeyBytesArray(cacheName, keyList);
+			byte[][]	requestListBytes	= BasicSerial.toBytesArray(cacheName, requestList);
+			return getProvider().writeOnlyAsync(cacheName, keyListBytes, requestListBytes);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Serializable> readOnlyAsync(String cacheName, Serializable key, Serializable request)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[]			keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
+			byte[]			requestBytes	= BasicSerial.toBytes(cacheName, request);
+			return getProvider().readOnlyAsync(cacheName, keyBytes, requestBytes)
+					.thenApply(FutureTools.wrap(responseBytes -> BasicSerial.toObject(cacheName, responseBytes)));
+		});
+	}
+
+	@Override
+	public CompletableFuture<Serializable[]> readOnlyAsync(
+			String cacheName, Serializable[] keyList, Serializable request)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[][]		keyListBytes		= BasicSerial.toKeyBytesArray(cacheName, keyList);
+			byte[]			requestBytes		= BasicSerial.toBytes(cacheName, request);
+			return getProvider().readOnlyAsync(cacheName, keyListBytes, requestBytes)
+					.thenApply(FutureTools.wrap(responseListBytes ->
+							BasicSerial.toObjectArray(cacheName, responseListBytes)));
+		});
+	}
+
+	@Override
+	public CompletableFuture<Serializable[]> readOnlyAsync(
+			String cacheName, Serializable[] keyList, Serializable[] requestList)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[][]	keyListBytes		= BasicSerial.toKeyBytesArray(cacheName, keyList);
+			byte[][]	requestListBytes	= BasicSerial.toBytesArray(cacheName, requestList);
+			return getProvider().readOnlyAsync(cacheName, keyListBytes, requestListBytes)
+					.thenApply(FutureTools.wrap(responseListBytes ->
+							BasicSerial.toObjectArray(cacheName, responseListBytes)));
+		});
 	}
 }
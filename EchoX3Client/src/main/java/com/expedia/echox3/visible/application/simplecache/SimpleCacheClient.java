@@ -8,8 +8,10 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.thread.FutureTools;
 import com.expedia.echox3.basics.tools.serial.BasicSerial;
 import com.expedia.echox3.internal.provider.IObjectCacheProvider;
 import com.expedia.echox3.internal.wrapper.TrellisBaseClient;
@@ -32,7 +34,7 @@ public class SimpleCacheClient extends TrellisBaseClient implements ISimpleCache
 	@Override
 	public void put(String cacheName, Serializable key, Serializable value) throws BasicException
 	{
-		byte[]		keyBytes		= BasicSerial.toBytes(cacheName, key, BasicSerial.CompressType.none);
+		byte[]		keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
 		byte[]		valueBytes		= BasicSerial.toBytes(cacheName, value);
 		getProvider().writeOnly(cacheName, keyBytes, valueBytes);
 	}
@@ -40,7 +42,7 @@ public class SimpleCacheClient extends TrellisBaseClient implements ISimpleCache
 	@Override
 	public void put(String cacheName, Serializable[] keyList, Serializable[] valueList) throws BasicException
 	{
-		byte[][]	keyBytesList		= BasicSerial.toBytesArray(cacheName, keyList, BasicSerial.CompressType.none);
+		byte[][]	keyBytesList		= BasicSerial.toKeyBytesArray(cacheName, keyList);
 		byte[][]	valueBytesList		= BasicSerial.toBytesArray(cacheName, valueList);
 		getProvider().writeOnly(cacheName, keyBytesList, valueBytesList);
 	}
@@ -50,7 +52,12 @@ public class SimpleCacheClient extends TrellisBaseClient implements ISimpleCache
 	{
 		Serializable[]		keyList		= new Serializable[keyValueMap.size()];
 		Serializable[]		valueList	= new Serializable[keyValueMap.size()];
-
+		splitMap(keyValueMap, keyList, valueList);
+		put(cacheName, keyList, valueList);
+	}
+	private static void splitMap(Map<Serializable, Serializable> keyValueMap,
+			Serializable[] keyList, Serializable[] valueList)
+	{
 		int					i			= 0;
 		for (Map.Entry<Serializable, Serializable> entry : keyValueMap.entrySet())
 		{
@@ -58,13 +65,12 @@ public class SimpleCacheClient extends TrellisBaseClient implements ISimpleCache
 			valueList[i]	= entry.getValue();
 			i++;
 		}
-		put(cacheName, keyList, valueList);
 	}
 
 	@Override
 	public Serializable get(String cacheName, Serializable key) throws BasicException
 	{
-		byte[]			keyBytes		= BasicSerial.toBytes(cacheName, key, BasicSerial.CompressType.none);
+		byte[]			keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
 		byte[]			valueBytes		= getProvider().readOnly(cacheName, keyBytes, null);
 		Serializable	value			= BasicSerial.toObject(cacheName, valueBytes);
 		return value;
@@ -73,7 +79,7 @@ public class SimpleCacheClient extends TrellisBaseClient implements ISimpleCache
 	@Override
 	public Serializable[] get(String cacheName, Serializable[] keyList) throws BasicException
 	{
-		byte[][]		keyBytesList	= BasicSerial.toBytesArray(cacheName, keyList, BasicSerial.CompressType.none);
+		byte[][]		keyBytesList	= BasicSerial.toKeyBytesArray(cacheName, keyList);
 		byte[][]		valueBytes		= getProvider().readOnly(cacheName, keyBytesList, "".getBytes());
 		Serializable[]	valueList		= BasicSerial.toObjectArray(cacheName, valueBytes);
 		return valueList;
@@ -82,18 +88,14 @@ public class SimpleCacheClient extends TrellisBaseClient implements ISimpleCache
 	@Override
 	public Map<Serializable, Serializable> get(String cacheName, Collection<Serializable> keySet) throws BasicException
 	{
-		Serializable[]		keyList			= new Serializable[keySet.size()];
-		int					i;
-
-		i = 0;
-		for (Serializable key : keySet)
-		{
-			keyList[i++] = key;
-		}
+		Serializable[]		keyList			= keySet.toArray(new Serializable[keySet.size()]);
 		Serializable[]		valueList		= get(cacheName, keyList);
-
+		return buildMap(keyList, valueList);
+	}
+	private static Map<Serializable, Serializable> buildMap(Serializable[] keyList, Serializable[] valueList)
+	{
 		Map<Serializable, Serializable>		map		= new HashMap<>();
-		for (i = 0; i < keyList.length; i++)
+		for (int i = 0; i < keyList.length; i++)
 		{
 			map.put(keyList[i], valueList[i]);
 		}
@@ -105,4 +107,65 @@ public class SimpleCacheClient extends TrellisBaseClient implements ISimpleCache
 	{
 		getProvider().flush(cacheName, durationMS);
 	}
+
+	@Override
+	public CompletableFuture<Void> putAsync(String cacheName, Serializable key, Serializable value)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[]		keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
+			byte[]		valueBytes		= BasicSerial.toBytes(cacheName, value);
+			return getProvider().writeOnlyAsync(cacheName, keyBytes, valueBytes);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> putAsync(String cacheName, Serializable[] keyList, Serializable[] valueList)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[][]	keyBytesList	= BasicSerial.toKeyBytesArray(cacheName, keyList);
+			byte[][]	valueBytesList	= BasicSerial.toBytesArray(cacheName, valueList);
+			return getProvider().writeOnlyAsync(cacheName, keyBytesList, valueBytesList);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> putAsync(String cacheName, Map<Serializable, Serializable> keyValueMap)
+	{
+		Serializable[]		keyList		= new Serializable[keyValueMap.size()];
+		Serializable[]		valueList	= new Serializable[keyValueMap.size()];
+		splitMap(keyValueMap, keyList, valueList);
+		return putAsync(cacheName, keyList, valueList);
+	}
+
+	@Override
+	public CompletableFuture<Serializable> getAsync(String cacheName, Serializable key)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[]		keyBytes		= BasicSerial.toKeyBytes(cacheName, key);
+			return getProvider().readOnlyAsync(cacheName, keyBytes, null)
+					.thenApply(FutureTools.wrap(valueBytes -> BasicSerial.toObject(cacheName, valueBytes)));
+		});
+	}
+
+	@Override
+	public CompletableFuture<Serializable[]> getAsync(String cacheName, Serializable[] keyList)
+	{
+		return FutureTools.compose(() ->
+		{
+			byte[][]	keyBytesList	= BasicSerial.toKeyBytesArray(cacheName, keyList);
+			return getProvider().readOnlyAsync(cacheName, keyBytesList, "".getBytes())
+					.thenApply(FutureTools.wrap(valueBytes -> BasicSerial.toObjectArray(cacheName, valueBytes)));
+		});
+	}
+
+	@Override
+	public CompletableFuture<Map<Serializable, Serializable>> getAsync(
+			String cacheName, Collection<Serializable> keySet)
+	{
+		Serializable[]		keyList			= keySet.toArray(new Serializable[keySet.size()]);
+		return getAsync(cacheName, keyList).thenApply(valueList -> buildMap(keyList, valueList));
+	}
 }
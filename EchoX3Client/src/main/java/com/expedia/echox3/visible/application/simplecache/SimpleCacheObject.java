@@ -9,13 +9,14 @@ import java.io.Serializable;
 
 import com.expedia.echox3.basics.tools.time.WallClock;
 import com.expedia.echox3.visible.trellis.ICacheObject;
+import com.expedia.echox3.visible.trellis.IExpiringCacheObject;
 import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
 import com.expedia.echox3.visible.application.simplecache.SimpleCacheStatusHolder.TimeType;
 
 /**
  * This object is a full-featured CacheObject that implements the simple cache mode.
  */
-public class SimpleCacheObject implements ICacheObject
+public class SimpleCacheObject implements IExpiringCacheObject
 {
 	public static final long					serialVersionUID	= 20150601085959L;
 
@@ -58,13 +59,10 @@ public class SimpleCacheObject implements ICacheObject
 		long		objectTimeMS	= getObjectTimeMS();
 		long		objectAge		= timeNowMS - objectTimeMS;
 
-		if (objectAge > adjustedAgeMax)
+		// At 0 (e.g. the object is evicted), nothing is kept.
+		if (objectAge > adjustedAgeMax || 0 == memoryLevelPercent)
 		{
-			if (null != m_data)
-			{
-				m_cacheStatus.getValueSizeCounter().remove(m_data.length);
-				m_data = null;
-			}
+			clearData();
 		}
 	}
 	private long getObjectTimeMS()
@@ -80,13 +78,13 @@ public class SimpleCacheObject implements ICacheObject
 	@Override
 	public boolean canDelete()
 	{
-		return null == m_data;
+		return !hasData();
 	}
 
 	@Override
 	public long getSize()
 	{
-		return m_data.length;
+		return getDataLength();
 	}
 
 	@Override
@@ -94,13 +92,10 @@ public class SimpleCacheObject implements ICacheObject
 	{
 		if (request instanceof byte[])
 		{
-			if (null != m_data)
-			{
-				// Remove previous value which will be overwritten
-				m_cacheStatus.getValueSizeCounter().remove(m_data.length);
-			}
-			m_data = (byte[]) request;
-			m_cacheStatus.getValueSizeCounter().add(m_data.length);
+			// Remove previous value which will be overwritten
+			clearData();
+			setData((byte[]) request);
+			m_cacheStatus.getValueSizeCounter().add(getDataLength());
 			m_writeTimeMS = WallClock.getCurrentTimeMS();
 			m_readTimeMS = m_writeTimeMS;
 
@@ -108,11 +103,7 @@ public class SimpleCacheObject implements ICacheObject
 		}
 		else if (null == request)
 		{
-			if (null != m_data)
-			{
-				m_cacheStatus.getValueSizeCounter().remove(m_data.length);
-				m_data = null;
-			}
+			clearData();
 		}
 	}
 
@@ -126,14 +117,12 @@ public class SimpleCacheObject implements ICacheObject
 		}
 		if (WallClock.getCurrentTimeMS() > m_expirationTimeMS)
 		{
-			if (null != m_data)
-			{
-				m_cacheStatus.getValueSizeCounter().remove(m_data.length);
-				m_data = null;
-			}
+			// readOnly runs under the read lock, possibly concurrently with other readers:
+			// the value is released later by doMaintenance (under the write lock).
+			return null;
 		}
 
-		return m_data;
+		return getData();
 	}
 
 	@Override
@@ -143,18 +132,74 @@ public class SimpleCacheObject implements ICacheObject
 		if (cacheObject instanceof SimpleCacheObject)
 		{
 			SimpleCacheObject blobObject		= (SimpleCacheObject) cacheObject;
-			m_data				= blobObject.m_data;
+			setData(blobObject.getData());
 			m_readTimeMS		= blobObject.m_readTimeMS;
 			m_writeTimeMS		= blobObject.m_writeTimeMS;
 			m_expirationTimeMS	= blobObject.m_expirationTimeMS;
 		}
 	}
 
+	/**
+	 * The storage of the value is isolated in the following methods, so it can be moved off-heap,
+	 * see SimpleCacheOffHeapObject.
+	 * The value size counter is maintained by the callers of setData and by clearData.
+	 *
+	 * @return	A byte[] with the value, null if there is no value.
+	 */
 	public byte[] getData()
 	{
 		return m_data;
 	}
 
+	protected void setData(byte[] data)
+	{
+		m_data = data;
+	}
+
+	protected boolean hasData()
+	{
+		return null != m_data;
+	}
+
+	protected int getDataLength()
+	{
+		return null == m_data ? 0 : m_data.length;
+	}
+
+	protected void clearData()
+	{
+		if (null != m_data)
+		{
+			m_cacheStatus.getValueSizeCounter().remove(m_data.length);
+			m_data = null;
+		}
+	}
+
+	/**
+	 * Restores the value and the times of an object read from a snapshot (see LocalObjectSnapshot).
+	 * The object is created by the factory of the cache, so it refers to the current status holder
+	 * (and SlabStore); the status holder cannot be serialized, a handle to the SlabStore would not survive a restart.
+	 *
+	 * @param data				The value
+	 * @param writeTimeMS		The time of the last write
+	 * @param readTimeMS		The time of the last read
+	 * @param expirationTimeMS	The expiration time, adjusted by the next updateConfiguration()
+	 */
+	public void restore(byte[] data, long writeTimeMS, long readTimeMS, long expirationTimeMS)
+	{
+		clearData();
+		setData(data);
+		m_cacheStatus.getValueSizeCounter().add(getDataLength());
+		m_writeTimeMS = writeTimeMS;
+		m_readTimeMS = readTimeMS;
+		m_expirationTimeMS = expirationTimeMS;
+	}
+
+	protected SimpleCacheStatusHolder getCacheStatus()
+	{
+		return m_cacheStatus;
+	}
+
 	public long getWriteTimeMS()
 	{
 		return m_writeTimeMS;
@@ -165,6 +210,7 @@ public class SimpleCacheObject implements ICacheObject
 		return m_readTimeMS;
 	}
 
+	@Override
 	public long getExpirationTimeMS()
 	{
 		return m_expirationTimeMS;
@@ -7,6 +7,7 @@ package com.expedia.echox3.visible.application.simplecache;
 
 import java.io.Serializable;
 
+import com.expedia.echox3.internal.store.slab.SlabStore;
 import com.expedia.echox3.visible.trellis.ICacheObject;
 import com.expedia.echox3.visible.trellis.IObjectFactory;
 import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
@@ -29,7 +30,9 @@ public class SimpleCacheObjectFactory implements IObjectFactory
 	@Override
 	public ICacheObject createObject()
 	{
-		return new SimpleCacheObject(m_cacheStatus);
+		SlabStore		slabStore		= m_cacheStatus.getSlabStore();
+		return null == slabStore
+				? new SimpleCacheObject(m_cacheStatus) : new SimpleCacheOffHeapObject(m_cacheStatus, slabStore);
 	}
 
 	/**
@@ -40,7 +43,7 @@ public class SimpleCacheObjectFactory implements IObjectFactory
 	@Override
 	public ICacheObject createObject(Serializable key)
 	{
-		return new SimpleCacheObject(m_cacheStatus);
+		return createObject();
 	}
 
 	@Override
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.visible.application.simplecache;
+
+import com.expedia.echox3.internal.store.slab.SlabStore;
+import com.expedia.echox3.visible.trellis.ICacheObject;
+
+/**
+ * SimpleCacheObject whose value is kept in the SlabStore of the cache (StorageType=OffHeap).
+ *
+ * The object holds only the handle to the value; the value is copied in on write and copied out on read.
+ * Values too large for the SlabStore stay on the heap, as in SimpleCacheObject.
+ * All calls are made under the lock of the ObjectWrapper, which protects the handle from use after free.
+ */
+public class SimpleCacheOffHeapObject extends SimpleCacheObject
+{
+	public static final long					serialVersionUID	= 20150601085959L;
+
+	private final SlabStore		m_slabStore;
+	private long				m_handle			= SlabStore.NULL_HANDLE;
+
+	public SimpleCacheOffHeapObject(SimpleCacheStatusHolder cacheStatus, SlabStore slabStore)
+	{
+		super(cacheStatus);
+
+		m_slabStore = slabStore;
+	}
+
+	@Override
+	public void upgradeFrom(ICacheObject cacheObject)
+	{
+		if (cacheObject instanceof SimpleCacheOffHeapObject
+				&& m_slabStore == ((SimpleCacheOffHeapObject) cacheObject).m_slabStore)		// NOPMD
+		{
+			// Take ownership of the chunk, without copying it.
+			SimpleCacheOffHeapObject	offHeapObject	= (SimpleCacheOffHeapObject) cacheObject;
+			long						handle			= offHeapObject.m_handle;
+			offHeapObject.m_handle = SlabStore.NULL_HANDLE;
+			super.upgradeFrom(cacheObject);
+			m_handle = handle;
+		}
+		else
+		{
+			super.upgradeFrom(cacheObject);
+		}
+	}
+
+	@Override
+	public byte[] getData()
+	{
+		return SlabStore.NULL_HANDLE == m_handle ? super.getData() : m_slabStore.read(m_handle);
+	}
+
+	@Override
+	protected void setData(byte[] data)
+	{
+		if (null != data)
+		{
+			m_handle = m_slabStore.write(data);
+		}
+		if (SlabStore.NULL_HANDLE == m_handle)
+		{
+			super.setData(data);
+		}
+	}
+
+	@Override
+	protected boolean hasData()
+	{
+		return SlabStore.NULL_HANDLE != m_handle || super.hasData();
+	}
+
+	@Override
+	protected int getDataLength()
+	{
+		return SlabStore.NULL_HANDLE == m_handle ? super.getDataLength() : m_slabStore.getLength(m_handle);
+	}
+
+	@Override
+	protected void clearData()
+	{
+		if (SlabStore.NULL_HANDLE != m_handle)
+		{
+			getCacheStatus().getValueSizeCounter().remove(m_slabStore.getLength(m_handle));
+			m_slabStore.free(m_handle);
+			m_handle = SlabStore.NULL_HANDLE;
+		}
+		super.clearData();
+	}
+}
@@ -12,6 +12,7 @@ import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.tools.time.TimeUnits;
 import com.expedia.echox3.internal.store.cache.LocalObjectCache;
 import com.expedia.echox3.internal.store.counter.ItemCounterFamily;
+import com.expedia.echox3.internal.store.slab.SlabStore;
 import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
 
 public class SimpleCacheStatusHolder
@@ -19,6 +20,9 @@ public class SimpleCacheStatusHolder
 	public static final String				SETTING_NAME_TTL_NUMBER		= "TTLNumber";
 	public static final String				SETTING_NAME_TTL_UNITS		= "TTLUnits";
 	public static final String				SETTING_NAME_TTL_TYPE		= "TTLType";
+	public static final String				SETTING_NAME_STORAGE_TYPE	= "StorageType";
+	public static final String				SETTING_NAME_SLAB_SIZE		= "OffHeapSlabSize";
+	public static final String				SETTING_NAME_CHUNK_SIZE_MAX	= "OffHeapChunkSizeMax";
 
 //	private static final TimeType[]			TIME_TYPE_LIST				= TimeType.values();
 	private static final TimeType			TIME_TYPE_DEFAULT			= TimeType.TimeWrite;
@@ -30,10 +34,18 @@ public class SimpleCacheStatusHolder
 		TimeRead
 	}
 
+	public enum StorageType
+	{
+		Heap,
+		OffHeap
+	}
+
 	private String					m_name;
 	private TimeType				m_timeType			= TimeType.NotSet;
 	private long					m_ageMaxMS			= 15 * 1000;
 	private IItemSizeCounter		m_valueSizeCounter;
+	private volatile StorageType	m_storageType		= StorageType.Heap;
+	private volatile SlabStore		m_slabStore;
 
 	public void readConfiguration(ObjectCacheConfiguration configuration)
 	{
@@ -76,6 +88,34 @@ public class SimpleCacheStatusHolder
 			m_ageMaxMS		= ageMax;
 			m_timeType		= timeType;
 		}
+
+		readStorageConfiguration(configuration);
+	}
+	private void readStorageConfiguration(ObjectCacheConfiguration configuration)
+	{
+		String		storageTypeText	= configuration.getSettingAsString(
+																SETTING_NAME_STORAGE_TYPE, StorageType.Heap.name());
+		StorageType	storageType;
+		try
+		{
+			storageType = StorageType.valueOf(storageTypeText);
+		}
+		catch (Exception exception)
+		{
+			storageType = StorageType.Heap;
+		}
+
+		// The SlabStore is created once and lives as long as the cache, as existing objects hold handles into it.
+		// Switching back to Heap only affects new objects.
+		if (StorageType.OffHeap.equals(storageType) && null == m_slabStore)
+		{
+			int		slabSize		= configuration.getSettingAsInteger(
+																SETTING_NAME_SLAB_SIZE, SlabStore.SLAB_SIZE_DEFAULT);
+			int		chunkSizeMax	= configuration.getSettingAsInteger(
+																SETTING_NAME_CHUNK_SIZE_MAX, SlabStore.CHUNK_SIZE_MAX_DEFAULT);
+			m_slabStore = new SlabStore(m_name, slabSize, chunkSizeMax);
+		}
+		m_storageType = storageType;
 	}
 
 	public TimeType getTimeType()
@@ -93,8 +133,25 @@ public class SimpleCacheStatusHolder
 		return m_valueSizeCounter;
 	}
 
+	public StorageType getStorageType()
+	{
+		return m_storageType;
+	}
+
+	/**
+	 * @return	The SlabStore to use for new objects, null when the values are stored on the heap.
+	 */
+	public SlabStore getSlabStore()
+	{
+		return StorageType.OffHeap.equals(m_storageType) ? m_slabStore : null;
+	}
+
 	public void close()
 	{
 		m_valueSizeCounter.close();
+		if (null != m_slabStore)
+		{
+			m_slabStore.close();
+		}
 	}
 }
@@ -71,7 +71,7 @@ public class IocObjectCacheClient extends IocCacheClient
 		m_cacheClient.flush(getCacheName(), durationMS);
 	}
 
-	public Serializable reduce(Class<IObjectCacheClient.ITrellisReducer> reducerClass,
+	public Serializable reduce(Class<? extends IObjectCacheClient.ITrellisReducer> reducerClass,
 			Serializable[] keyList, Serializable request) throws BasicException
 	{
 		return m_cacheClient.reduce(reducerClass, getCacheName(), keyList, request);
@@ -0,0 +1,23 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.visible.trellis;
+
+/**
+ * Optionally implemented by a User object whose doMaintenance() (at memoryLevelPercent = 100)
+ * only deletes it once it has expired, e.g. the objects of the simple cache.
+ * The cache then indexes the object by its expiration time and calls its doMaintenance() when it is due,
+ * instead of on every maintenance pass.
+ */
+public interface IExpiringCacheObject extends ICacheObject
+{
+	/**
+	 * The expiration may move later at any time (e.g. on a read), the object is then checked early and kept.
+	 * It may only move earlier during writeOnly(), flush() or updateConfiguration().
+	 *
+	 * @return		The time (WallClock) at which the object can be deleted
+	 */
+	long			getExpirationTimeMS();
+}
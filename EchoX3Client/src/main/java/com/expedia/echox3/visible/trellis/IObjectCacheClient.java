@@ -6,6 +6,7 @@
 package com.expedia.echox3.visible.trellis;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 
@@ -86,8 +87,63 @@ public interface IObjectCacheClient
 
 	void			flush(   String cacheName, int durationMS) throws BasicException;
 
-	Serializable	reduce(Class<ITrellisReducer> reducerClass,
+	/**
+	 * Aggregates objects where they live: each server reduces its objects in place (reduceObjectList)
+	 * and only the answers travel back to the client, which reduces them into the final answer (reduceAnswerList).
+	 *
+	 * @param reducerClass			The user reducer; it must be known to the servers (see pushClassDefinition)
+	 * @param cacheName				The name of the cache of interest (aka first part of the key)
+	 * @param keyList				Keys of the objects to reduce; null to reduce all the objects of the cache
+	 * @param request				As per User contract, this is the request passed to the reducer
+	 * @return						The final answer, as returned by reduceAnswerList on the client
+	 * @throws BasicException		Something can always go wrong, look at exception.getBasicEvent() for details
+	 */
+	Serializable	reduce(Class<? extends ITrellisReducer> reducerClass,
 						     String cacheName, Serializable    keyList[],	Serializable   request) throws BasicException;
+
+
+	/**
+	 * Asynchronous flavor of writeOnly; the calling thread is not parked waiting for the response,
+	 * which allows a single thread to have many calls outstanding.
+	 * The future completes exceptionally with the BasicException when something goes wrong.
+	 * Dependent stages may run in a transport thread: keep them short or use the *Async stages.
+	 *
+	 * @param cacheName				The name of the cache of interest (aka first part of the key)
+	 * @param key					Object key, will be serialized, but never compressed
+	 * @param request				As per User contract, this is the request from the client's call
+	 * @return						A future completed once the server has processed the request
+	 */
+	CompletableFuture<Void>				writeOnlyAsync(String cacheName, Serializable   key,		Serializable   request);
+
+	/**
+	 * As per writeOnlyAsync(String, Serializable, Serializable), with the same request sent to all objects.
+	 */
+	CompletableFuture<Void>				writeOnlyAsync(String cacheName, Serializable[] keyList,	Serializable   request);
+
+	/**
+	 * As per writeOnlyAsync(String, Serializable, Serializable), with a unique request sent to each object.
+	 */
+	CompletableFuture<Void>				writeOnlyAsync(String cacheName, Serializable[] keyList,	Serializable[] requestList);
+
+	/**
+	 * Asynchronous flavor of readOnly, see writeOnlyAsync for the threading contract.
+	 *
+	 * @param cacheName				The name of the cache of interest (aka first part of the key)
+	 * @param key					Object key, will be serialized, but never compressed
+	 * @param request				As per User contract, this is the request from the client's call
+	 * @return						A future completed with the de-serialized response of the object
+	 */
+	CompletableFuture<Serializable>		readOnlyAsync(String cacheName, Serializable    key     ,	Serializable   request);
+
+	/**
+	 * As per readOnlyAsync(String, Serializable, Serializable), with the same request sent to all objects.
+	 */
+	CompletableFuture<Serializable[]>	readOnlyAsync(String cacheName, Serializable    keyList[],	Serializable   request);
+
+	/**
+	 * As per readOnlyAsync(String, Serializable, Serializable), with a unique request sent to each object.
+	 */
+	CompletableFuture<Serializable[]>	readOnlyAsync(String cacheName, Serializable    keyList[],	Serializable[] requestList);
 	//CHECKSTYLE:ON
 
 
@@ -98,6 +154,12 @@ public interface IObjectCacheClient
 	 * From this, each server produces a single response.
 	 * The client singleton receives the list of answers (in any order).
 	 * From this list, the client singleton produces the final answer.
+	 *
+	 * A server reduces its objects in parallel, in several parts (e.g. one per bin),
+	 * and combines the partial answers with its own reduceAnswerList before answering the client.
+	 * Therefore, reduceAnswerList must accept its own answers as input (e.g. sum of partial sums)
+	 * and both methods must be thread safe.
+	 * reduceObjectList is never called with an empty list, reduceAnswerList is when no object was found.
 	 */
 	interface ITrellisReducer
 	{
@@ -8,6 +8,7 @@ package com.expedia.echox3.visible.trellis;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 
@@ -100,4 +101,42 @@ public interface ISimpleCacheClient
 	 * @throws BasicException		Something can always go wrong, look at exception.getBasicEvent() for details
 	 */
 	void				flush(String cacheName, int durationMS) throws BasicException;
+
+
+	// Asynchronous flavor of put/get.
+	// The calling thread is not parked waiting for the response, which allows a single thread
+	// to have many calls outstanding.
+	// A failure is reported as an exceptional completion of the future with the BasicException.
+	// Dependent stages may run in a transport thread: keep them short or use the *Async stages.
+
+	/**
+	 * As per put(String, Serializable, Serializable), without waiting.
+	 */
+	CompletableFuture<Void>				putAsync(String cacheName, Serializable   key,		Serializable   value);
+
+	/**
+	 * As per put(String, Serializable[], Serializable[]), without waiting.
+	 */
+	CompletableFuture<Void>				putAsync(String cacheName, Serializable[] keyList,	Serializable[] valueList);
+
+	/**
+	 * As per put(String, Map), without waiting.
+	 */
+	CompletableFuture<Void>				putAsync(String cacheName, Map<Serializable, Serializable> keyValueMap);
+
+	/**
+	 * As per get(String, Serializable), without waiting.
+	 */
+	CompletableFuture<Serializable>		getAsync(String cacheName, Serializable             key);
+
+	/**
+	 * As per get(String, Serializable[]), without waiting.
+	 */
+	CompletableFuture<Serializable[]>	getAsync(String cacheName, Serializable             keyList[]);
+
+	/**
+	 * As per get(String, Collection), without waiting.
+	 */
+	CompletableFuture<Map<Serializable, Serializable>>
+										getAsync(String cacheName, Collection<Serializable> keySet);
 }
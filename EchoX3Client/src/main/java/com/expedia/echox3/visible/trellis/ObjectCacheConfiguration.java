@@ -5,14 +5,16 @@
 
 package com.expedia.echox3.visible.trellis;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.expedia.echox3.basics.configuration.ConfigurationManager;
 import com.expedia.echox3.basics.configuration.IConfigurationProvider;
 import com.expedia.echox3.basics.tools.hash.HashUtil;
 import com.expedia.echox3.basics.tools.hash.IHashProvider;
 import com.expedia.echox3.basics.tools.time.TimeUnits;
+import com.expedia.echox3.internal.store.cache.LocalObjectWriteLog.SyncPolicy;
+import com.expedia.echox3.internal.store.eviction.IEvictionPolicy.PolicyType;
 import com.expedia.echox3.visible.application.simplecache.SimpleCacheObjectFactory;
 
 /**
@@ -37,10 +39,30 @@ public class ObjectCacheConfiguration
 
 	private static final String		SETTING_NAME_SIZE_MAX		= "SizeMax";
 	private static final String		SETTING_NAME_SIZE_UNITS		= "SizeUnits";
+	private static final String		SETTING_NAME_EVICTION		= "EvictionPolicy";
 
 	private static final String		SETTING_NAME_BIN_ITEM_MAX	= "BinItemMax";
 	private static final String		SETTING_NAME_BIN_COUNT_MIN	= "BinCountMin";
 	private static final String		SETTING_NAME_BIN_COUNT_MAX	= "BinCountMax";
+	private static final String		SETTING_NAME_RESIZE_STEP	= "ResizeStepItemMax";
+	private static final String		SETTING_NAME_BIN_BUDGET_US	= "MaintenanceBinBudgetUS";
+	private static final String		SETTING_NAME_LOCK_STRIPES	= "ItemLockStripeCount";
+	private static final String		SETTING_NAME_BULK_PARALLEL	= "BulkParallelKeyMin";
+	private static final String		SETTING_NAME_SNAPSHOT		= "SnapshotPeriod";
+	//CHECKSTYLE:OFF
+	private static final String		SETTING_NAME_SNAPSHOT_NUMBER	= SETTING_NAME_SNAPSHOT + ConfigurationManager.SETTING_NAME_NUMBER;
+	private static final String		SETTING_NAME_SNAPSHOT_UNITS		= SETTING_NAME_SNAPSHOT + ConfigurationManager.SETTING_NAME_UNITS;
+	//CHECKSTYLE:ON
+	private static final String		SETTING_NAME_SNAPSHOT_FOLDER	= "SnapshotFolder";
+	private static final String		SETTING_NAME_SNAPSHOT_SEGMENTS	= "SnapshotSegmentCount";
+	private static final String		SETTING_NAME_WRITE_LOG			= "WriteLogEnabled";
+	private static final String		SETTING_NAME_WRITE_LOG_SYNC		= "WriteLogSync";
+	private static final String		SETTING_NAME_SYNC_PERIOD		= "WriteLogSyncPeriod";
+	//CHECKSTYLE:OFF
+	private static final String		SETTING_NAME_SYNC_PERIOD_NUMBER	= SETTING_NAME_SYNC_PERIOD + ConfigurationManager.SETTING_NAME_NUMBER;
+	private static final String		SETTING_NAME_SYNC_PERIOD_UNITS	= SETTING_NAME_SYNC_PERIOD + ConfigurationManager.SETTING_NAME_UNITS;
+	//CHECKSTYLE:ON
+	private static final String		SETTING_NAME_WRITE_LOG_COMPACT	= "WriteLogCompactSize";
 
 	// The very basics of the cache definition
 	private String					m_cacheName;
@@ -51,15 +73,25 @@ public class ObjectCacheConfiguration
 	private int						m_binItemMax				= 700;
 	private int						m_binCountMin				= 11;
 	private int						m_binCountMax				= Integer.MAX_VALUE;
+	private int						m_resizeStepItemMax			= 1000;
+	private int						m_maintenanceBinBudgetUS	= 1000;
+	private int						m_itemLockStripeCount		= 0;
+	private int						m_bulkParallelKeyMin		= 0;
+	private String					m_snapshotFolder			= "";
+	private int						m_snapshotSegmentCount		= 0;
+	private SyncPolicy				m_writeLogSync				= SyncPolicy.Commit;
+	private long					m_writeLogCompactSize		= 256 * 1024 * 1024;
 
 	private long					m_sizeMax					= 0;
 	private String					m_sizeUnits					= "Units";
+	private PolicyType				m_evictionPolicy			= PolicyType.None;
 
-	// Cached items for the cached objects
+	// Cached items for the cached objects, replaced (not cleared) when the configuration changes,
+	// as the objects read them from any thread.
 	private volatile IConfigurationProvider		m_configurationProvider;
-	private final Map<String, Integer>			m_intMap				= new HashMap<>();
-	private final Map<String, Long>				m_longMap				= new HashMap<>();
-	private final Map<String, Double>			m_doubleMap				= new HashMap<>();
+	private volatile Map<String, Integer>		m_intMap				= new ConcurrentHashMap<>();
+	private volatile Map<String, Long>			m_longMap				= new ConcurrentHashMap<>();
+	private volatile Map<String, Double>		m_doubleMap				= new ConcurrentHashMap<>();
 
 	public ObjectCacheConfiguration(String cacheName, IConfigurationProvider provider)
 	{
@@ -87,9 +119,9 @@ public class ObjectCacheConfiguration
 		{
 			m_configurationProvider = provider;
 
-			m_intMap.clear();
-			m_longMap.clear();
-			m_doubleMap.clear();
+			m_intMap = new ConcurrentHashMap<>();
+			m_longMap = new ConcurrentHashMap<>();
+			m_doubleMap = new ConcurrentHashMap<>();
 		}
 	}
 
@@ -109,34 +141,37 @@ public class ObjectCacheConfiguration
 	}
 	public int getSettingAsInteger(String settingName, int defaultValue)
 	{
-		Integer		value		= m_intMap.get(settingName);
+		Map<String, Integer>	map			= m_intMap;
+		Integer		value		= map.get(settingName);
 		if (null == value)
 		{
 			String		textValue		= getSettingAsString(settingName, Integer.toString(defaultValue));
 			value = Integer.valueOf(textValue.replace(COMMA, "").trim());
-			m_intMap.put(settingName, value);
+			map.put(settingName, value);
 		}
 		return value;
 	}
 	public long getSettingAsLong(String settingName, long defaultValue)
 	{
-		Long		value		= m_longMap.get(settingName);
+		Map<String, Long>	map			= m_longMap;
+		Long		value		= map.get(settingName);
 		if (null == value)
 		{
 			String		textValue		= getSettingAsString(settingName, Long.toString(defaultValue));
 			value = Long.valueOf(textValue.replace(COMMA, "").trim());
-			m_longMap.put(settingName, value);
+			map.put(settingName, value);
 		}
 		return value;
 	}
 	public double getSettingAsDouble(String settingName, double defaultValue)
 	{
-		Double		value		= m_doubleMap.get(settingName);
+		Map<String, Double>	map			= m_doubleMap;
+		Double		value		= map.get(settingName);
 		if (null == value)
 		{
 			String		textValue		= getSettingAsString(settingName, Double.toString(defaultValue));
 			value = Double.valueOf(textValue);
-			m_doubleMap.put(settingName, value);
+			map.put(settingName, value);
 		}
 		return value;
 	}
@@ -174,6 +209,95 @@ public class ObjectCacheConfiguration
 		return m_binCountMax;
 	}
 
+	// Number of entries walked by each step of a resize, i.e. how long a step holds the map lock of a bin.
+	public int getResizeStepItemMax()
+	{
+		m_resizeStepItemMax = getSettingAsInteger(SETTING_NAME_RESIZE_STEP, m_resizeStepItemMax);
+		return m_resizeStepItemMax;
+	}
+
+	// Time slice of the maintenance of a bin, i.e. how long a maintenance pass holds the map lock of a bin.
+	public int getMaintenanceBinBudgetUS()
+	{
+		m_maintenanceBinBudgetUS = getSettingAsInteger(SETTING_NAME_BIN_BUDGET_US, m_maintenanceBinBudgetUS);
+		return m_maintenanceBinBudgetUS;
+	}
+
+	// 0 for a lock per item; otherwise the items share this many locks, read when the cache is created.
+	public int getItemLockStripeCount()
+	{
+		m_itemLockStripeCount = getSettingAsInteger(SETTING_NAME_LOCK_STRIPES, m_itemLockStripeCount);
+		return m_itemLockStripeCount;
+	}
+
+	// 0 to process the keys of a bulk request in the calling thread; otherwise from how many keys to go parallel.
+	public int getBulkParallelKeyMin()
+	{
+		m_bulkParallelKeyMin = getSettingAsInteger(SETTING_NAME_BULK_PARALLEL, m_bulkParallelKeyMin);
+		return m_bulkParallelKeyMin;
+	}
+
+	// Where the snapshot of the cache is written and loaded from; empty when the cache is not persisted.
+	public String getSnapshotFolder()
+	{
+		m_snapshotFolder = getSettingAsString(SETTING_NAME_SNAPSHOT_FOLDER, m_snapshotFolder).trim();
+		return m_snapshotFolder;
+	}
+
+	// 0 to write the snapshot only when the cache is closed.
+	public long getSnapshotPeriodMS()
+	{
+		long		periodNumber		= getSettingAsLong(SETTING_NAME_SNAPSHOT_NUMBER, 0);
+		String		periodUnits			= getSettingAsString(SETTING_NAME_SNAPSHOT_UNITS, "ms");
+
+		return TimeUnits.getTimeMS(periodNumber, periodUnits);
+	}
+
+	// The number of files (written and loaded in parallel) of a snapshot, 0 for one per core.
+	public int getSnapshotSegmentCount()
+	{
+		m_snapshotSegmentCount = getSettingAsInteger(SETTING_NAME_SNAPSHOT_SEGMENTS, m_snapshotSegmentCount);
+		return m_snapshotSegmentCount;
+	}
+
+	// Whether writeOnly() requests are logged (see LocalObjectWriteLog), read when the cache is created.
+	// The log is kept with the snapshot, it requires a SnapshotFolder.
+	public boolean isWriteLogEnabled()
+	{
+		return Boolean.parseBoolean(getSettingAsString(SETTING_NAME_WRITE_LOG, Boolean.FALSE.toString()).trim());
+	}
+
+	// When the log is forced to the disk, read when the cache is created.
+	public SyncPolicy getWriteLogSync()
+	{
+		String		text		= getSettingAsString(SETTING_NAME_WRITE_LOG_SYNC, m_writeLogSync.name());
+		for (SyncPolicy syncPolicy : SyncPolicy.values())
+		{
+			if (syncPolicy.name().equalsIgnoreCase(text.trim()))
+			{
+				m_writeLogSync = syncPolicy;
+				break;
+			}
+		}
+		return m_writeLogSync;
+	}
+
+	// The maximum time a write stays in the page cache with SyncPolicy.Periodic.
+	public long getWriteLogSyncPeriodMS()
+	{
+		long		periodNumber		= getSettingAsLong(SETTING_NAME_SYNC_PERIOD_NUMBER, 100);
+		String		periodUnits			= getSettingAsString(SETTING_NAME_SYNC_PERIOD_UNITS, "ms");
+
+		return TimeUnits.getTimeMS(periodNumber, periodUnits);
+	}
+
+	// The size (bytes) of the log since the last snapshot which triggers a new one, 0 for no size limit.
+	public long getWriteLogCompactSize()
+	{
+		m_writeLogCompactSize = getSettingAsLong(SETTING_NAME_WRITE_LOG_COMPACT, m_writeLogCompactSize);
+		return m_writeLogCompactSize;
+	}
+
 	public long getMaintenancePeriodMS()
 	{
 		long		periodNumber		= getSettingAsLong(SETTING_NAME_PERIOD_NUMBER, m_maintenancePeriodMS);
@@ -193,6 +317,21 @@ public class ObjectCacheConfiguration
 		return m_sizeUnits;
 	}
 
+	// How the objects are evicted when the cache is above SizeMax, read when the cache is created.
+	public PolicyType getEvictionPolicy()
+	{
+		String		text		= getSettingAsString(SETTING_NAME_EVICTION, m_evictionPolicy.name());
+		for (PolicyType policyType : PolicyType.values())
+		{
+			if (policyType.name().equalsIgnoreCase(text.trim()))
+			{
+				m_evictionPolicy = policyType;
+				break;
+			}
+		}
+		return m_evictionPolicy;
+	}
+
 	@Override
 	public int hashCode()
 	{
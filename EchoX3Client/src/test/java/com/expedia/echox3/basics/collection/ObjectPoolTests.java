@@ -247,6 +247,63 @@ public class ObjectPoolTests extends AbstractTestTools
 		}
 	}
 
+	@Test
+	public void testThreadCache() throws InterruptedException
+	{
+		String							testName	= logTestName();
+		addSettings(testName, 10, 200);
+		ObjectPool<TestPooledObject>	pool	= new ObjectPool<>(new StringGroup(testName), TestPooledObject::new);
+
+		Thread[]						threadList	= new Thread[3];
+		for (int i = 0; i < threadList.length; i++)
+		{
+			threadList[i] = new Thread(() ->
+			{
+				TestPooledObject[]		objectList	= new TestPooledObject[5];
+				for (int j = 0; j < 10 * 1000; j++)
+				{
+					int		index		= j % objectList.length;
+					if (null == objectList[index])
+					{
+						objectList[index] = pool.get();
+					}
+					else
+					{
+						objectList[index].release();
+						objectList[index] = null;
+					}
+				}
+				for (TestPooledObject object : objectList)
+				{
+					if (null != object)
+					{
+						object.release();
+					}
+				}
+			});
+			threadList[i].start();
+		}
+		for (Thread thread : threadList)
+		{
+			thread.join();
+		}
+
+		// The magazines of the finished threads still hold their objects, which count as blank.
+		assertTrue(0 < pool.getThreadCacheCount());
+		assertEquals(0, pool.getOutstandingCount());
+		assertTrue(pool.getOutstandingCount() + pool.getBlankCount() == pool.getAllocatedCount());
+		assertTrue(pool.getAllocatedCount() <= pool.getMaxCount());
+
+		// Too small a pool for a magazine: every object goes through the shared pool.
+		String							smallName	= testName + ".Small";
+		addSettings(smallName, 5, 10);
+		ObjectPool<TestPooledObject>	smallPool	=
+				new ObjectPool<>(new StringGroup(smallName), TestPooledObject::new);
+		smallPool.get().release();
+		assertEquals(0, smallPool.getThreadCacheCount());
+		assertEquals(0, smallPool.getOutstandingCount());
+	}
+
 	@Test
 	public void testPerformance()
 	{
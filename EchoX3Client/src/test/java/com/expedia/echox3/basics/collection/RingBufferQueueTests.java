@@ -4,9 +4,13 @@
  */
 package com.expedia.echox3.basics.collection;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -14,6 +18,7 @@ import static org.junit.Assert.*;
 import com.expedia.echox3.basics.AbstractTestTools;
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.collection.ring.ConcurrentRingBufferQueue;
 import com.expedia.echox3.basics.collection.ring.RingBufferQueue;
 
 @SuppressWarnings("PMD.AvoidDuplicateLiterals")
@@ -121,6 +126,129 @@ public class RingBufferQueueTests extends AbstractTestTools
 		assertFalse(ringBuffer.offer("3"));
 	}
 
+	@Test
+	public void testConcurrentRingBuffer() throws BasicException
+	{
+		logTestName();
+
+		ConcurrentRingBufferQueue<Integer>		ringBuffer		= new ConcurrentRingBufferQueue<>(3);
+		assertEquals(4, ringBuffer.getCapacity());
+		assertTrue(ringBuffer.isEmpty());
+		assertNull(ringBuffer.poll());
+
+		// A few laps around the ring...
+		int			addIndex		= 0;
+		int			takeIndex		= 0;
+		for (int lap = 0; lap < 5; lap++)
+		{
+			for (int i = 0; i < ringBuffer.getCapacity(); i++)
+			{
+				assertTrue(ringBuffer.offer(addIndex++));
+			}
+			assertFalse(ringBuffer.offer(addIndex));
+			assertEquals(4, ringBuffer.size());
+			assertEquals(takeIndex, ringBuffer.peek().intValue());
+			for (int i = 0; i < ringBuffer.getCapacity(); i++)
+			{
+				assertEquals(takeIndex++, ringBuffer.poll().intValue());
+			}
+			assertNull(ringBuffer.poll());
+			assertTrue(ringBuffer.isEmpty());
+		}
+	}
+
+	@Test
+	public void testConcurrentRingBufferIterator() throws BasicException
+	{
+		logTestName();
+
+		ConcurrentRingBufferQueue<Integer>		ringBuffer		= new ConcurrentRingBufferQueue<>(4);
+		assertFalse(ringBuffer.iterator().hasNext());
+
+		// Across the end of the ring...
+		for (int i = 0; i < 3; i++)
+		{
+			assertTrue(ringBuffer.offer(i));
+			assertEquals(i, ringBuffer.poll().intValue());
+		}
+		for (int i = 0; i < 3; i++)
+		{
+			assertTrue(ringBuffer.offer(i));
+		}
+		Iterator<Integer>		iterator		= ringBuffer.iterator();
+		assertTrue(ringBuffer.offer(3));			// Not in the snapshot
+		for (int i = 0; i < 3; i++)
+		{
+			assertEquals(i, iterator.next().intValue());
+		}
+		assertFalse(iterator.hasNext());
+		assertTrue(ringBuffer.contains(3));
+		assertFalse(ringBuffer.contains(4));
+		assertEquals(Arrays.asList(0, 1, 2, 3), new ArrayList<>(ringBuffer));
+	}
+
+	@Test
+	public void testConcurrentRingBufferThreads() throws BasicException
+	{
+		logTestName();
+
+		int										threadCount		= 4;
+		int										itemCount		= 20 * 1000;
+		ConcurrentRingBufferQueue<Integer>		ringBuffer		= new ConcurrentRingBufferQueue<>(64);
+		CountDownLatch							latch			= new CountDownLatch(2 * threadCount);
+		AtomicLong								sumTaken		= new AtomicLong(0);
+		AtomicLong								countTaken		= new AtomicLong(0);
+		for (int t = 0; t < threadCount; t++)
+		{
+			startThread(latch, () ->
+			{
+				for (int i = 1; i <= itemCount; i++)
+				{
+					while (!ringBuffer.offer(i))
+					{
+						Thread.yield();
+					}
+				}
+			});
+			startThread(latch, () ->
+			{
+				for (int i = 0; i < itemCount; i++)
+				{
+					Integer		value;
+					while (null == (value = ringBuffer.poll()))
+					{
+						Thread.yield();
+					}
+					sumTaken.addAndGet(value);
+					countTaken.incrementAndGet();
+				}
+			});
+		}
+		try
+		{
+			latch.await();
+		}
+		catch (InterruptedException e)
+		{
+			getLogger().warn(BasicEvent.EVENT_TEST, e, "CountDownLatch interrupted!");
+		}
+
+		// Each value taken exactly once.
+		assertEquals((long) threadCount * itemCount, countTaken.get());
+		assertEquals((long) threadCount * itemCount * (itemCount + 1) / 2, sumTaken.get());
+		assertTrue(ringBuffer.isEmpty());
+	}
+	private static void startThread(CountDownLatch latch, Runnable runnable)
+	{
+		Thread		thread		= new Thread(() ->
+		{
+			runnable.run();
+			latch.countDown();
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+
 	@Test
 	public void testPerformance() throws BasicException
 	{
@@ -134,6 +262,10 @@ public class RingBufferQueueTests extends AbstractTestTools
 		{
 			measureQueuePerformance(QUEUE_FACTORY.getRingBufferQueue(100), 29, 2 * 1000);
 		}
+		for (int i = 0; i < 20; i++)
+		{
+			measureQueuePerformance(QUEUE_FACTORY.getConcurrentRingBufferQueue(100), 29, 2 * 1000);
+		}
 	}
 	private static void measureQueuePerformance(Queue<Integer> queue, int items, int iterations) throws BasicException
 	{
@@ -173,6 +305,7 @@ public class RingBufferQueueTests extends AbstractTestTools
 			{
 				measureMultiThreaded(QUEUE_FACTORY.getArrayBlockingQueue(1000),		cThread, 1 * 10 * 1000);
 				measureMultiThreaded(QUEUE_FACTORY.getRingBufferQueue(1000),		cThread, 1 * 10 * 1000);
+				measureMultiThreaded(QUEUE_FACTORY.getConcurrentRingBufferQueue(1000),	cThread, 1 * 10 * 1000);
 			}
 		}
 	}
@@ -163,4 +163,41 @@ public class ConfigurationTests extends AbstractTestTools
 				expectedValue, self.getCurrentValue());
 	}
 
+	@Test
+	public void testSnapshot()
+	{
+		String							testName		= logTestName();
+		ConfigurationManager			manager			= ConfigurationManager.getInstance();
+		MemoryConfigurationProvider		provider		= new MemoryConfigurationProvider(testName);
+
+		String							nameBase		= testName + ".Count";
+		String							nameInherited	= testName + ".Foo.Bar.Count";
+		IntSetting						intSetting		= new IntSetting(nameInherited, 12);
+		LongSetting						longSetting		= new LongSetting(nameBase, "1,000");
+		assertEquals(12, intSetting.getValue());
+		assertEquals(1000, longSetting.getValue());
+
+		// Resolved once (missing), then read from the snapshot until the next change.
+		ConfigurationSnapshot			snapshot		= manager.getSnapshot();
+		assertNull(manager.getSetting(nameInherited, null));
+		assertNull(manager.getSetting(nameInherited, null));
+		assertTrue(snapshot == manager.getSnapshot());		// NOPMD
+
+		// A change replaces the snapshot and updates the settings before it is published.
+		provider.addSetting(nameBase, "2,345");
+		assertTrue(snapshot.getVersion() < manager.getSnapshot().getVersion());
+		assertEquals("2,345", manager.getSetting(nameInherited, null));
+		assertEquals(2345, intSetting.getValue());
+		assertEquals(2345, longSetting.getValue());
+
+		provider.addSetting(nameInherited, "5");
+		assertEquals(5, intSetting.getValue());
+		assertEquals(2345, longSetting.getValue());
+		getLogger().info(BasicEvent.EVENT_TEST, "%s; %s; %s", manager.getSnapshot(), intSetting, longSetting);
+
+		provider.close();
+		assertEquals(12, intSetting.getValue());
+		assertEquals(1000, longSetting.getValue());
+	}
+
 }
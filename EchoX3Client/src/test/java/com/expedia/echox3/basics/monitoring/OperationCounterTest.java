@@ -16,6 +16,8 @@ import com.expedia.echox3.basics.collection.simple.StringGroup;
 import com.expedia.echox3.basics.monitoring.counter.CounterFactory;
 import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
 import com.expedia.echox3.basics.monitoring.counter.IOperationCounter;
+import com.expedia.echox3.basics.monitoring.counter.OperationCounter;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.tools.misc.BasicTools;
 
 public class OperationCounterTest extends AbstractTestTools
@@ -39,6 +41,46 @@ public class OperationCounterTest extends AbstractTestTools
 		assertEquals(sleepMS, durationMS, 25.0);
 	}
 
+	@Test
+	public void testConcurrentCount()
+	{
+		String					testName		= logTestName();
+
+		OperationCounter		counter			= (OperationCounter) COUNTER_FACTORY.getLogarithmicOperationCounter(
+				new StringGroup(testName),
+				LogarithmicHistogram.Precision.Normal, CounterFactory.CounterRange.ms,
+				"");
+
+		int						cThread			= 4;
+		int						iMax			= 10 * 1000;
+		CyclicBarrier			barrier			= new CyclicBarrier(cThread + 1);
+		for (int i = 0; i < cThread; i++)
+		{
+			new Thread(() ->
+			{
+				waitForBarrier(barrier);
+				for (int j = 0; j < iMax; j++)
+				{
+					long		timeBeginNS		= counter.beginNS();
+					counter.end(timeBeginNS, 0 == (j & 1));
+				}
+				waitForBarrier(barrier);
+			}).start();
+		}
+		waitForBarrier(barrier);
+		waitForBarrier(barrier);
+
+		// Nothing lost by the striped cells and shards...
+		assertEquals(cThread * iMax, counter.getCountBegin());
+		assertEquals(cThread * iMax / 2, counter.getCountSuccess());
+		assertEquals(cThread * iMax / 2, counter.getCountFailure());
+		assertEquals(0, counter.getCountOutstanding());
+		counter.doBeanUpdate(1000);
+
+		getLogger().info(BasicEvent.EVENT_TEST, "%s: %,d shards", counter.toString(), OperationCounter.getShardCount());
+		counter.close();
+	}
+
 	@Test
 	public void testPerformance()
 	{
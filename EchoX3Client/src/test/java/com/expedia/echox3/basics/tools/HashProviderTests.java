@@ -14,6 +14,7 @@ import com.expedia.echox3.basics.tools.hash.FnvHash;
 import com.expedia.echox3.basics.tools.hash.HashUtil;
 import com.expedia.echox3.basics.tools.hash.IHashProvider;
 import com.expedia.echox3.basics.tools.hash.JenkinsHash;
+import com.expedia.echox3.basics.tools.hash.XxHash;
 
 public class HashProviderTests extends AbstractTestTools
 {
@@ -56,6 +57,31 @@ public class HashProviderTests extends AbstractTestTools
 		provider.release();
 	}
 
+	@Test
+	public void testXxHash() throws UnknownHostException
+	{
+		logTestName();
+
+		// Reference values of xxHash64, seed 0.
+		assertEquals(0xEF46DB3751D8E999L, XxHash.hash64(new byte[0]));
+		assertEquals(0x44BC2CF5AD770999L, XxHash.hash64("abc".getBytes()));
+		assertEquals(0xFBCEA83C8A378BF1L, XxHash.hash64("Nobody inspects the spammish repetition".getBytes()));
+
+		IHashProvider	provider		= XxHash.get();
+		validate(provider, XxHash.hash32(QUICK_FOX));
+		provider.release();
+
+		// Fed in pieces, across the 32 bytes stripes.
+		for (int split : new int[] { 1, 7, 31, 32, 33 })
+		{
+			provider = XxHash.get();
+			provider.add64(QUICK_FOX, 0, split);
+			provider.add64(QUICK_FOX, split, QUICK_FOX.length - split);
+			assertEquals(XxHash.hash64(QUICK_FOX), provider.getHashCode64());
+			provider.release();
+		}
+	}
+
 	@Test
 	public void testPerformance() throws UnknownHostException
 	{
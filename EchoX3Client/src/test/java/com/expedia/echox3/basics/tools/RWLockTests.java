@@ -5,6 +5,8 @@
 
 package com.expedia.echox3.basics.tools;
 
+import java.util.Arrays;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -21,6 +23,7 @@ import com.expedia.echox3.basics.tools.locks.BasicReadWriteLock;
 import com.expedia.echox3.basics.tools.locks.FastReadWriteLock;
 import com.expedia.echox3.basics.tools.locks.LockCounterFamily;
 import com.expedia.echox3.basics.tools.locks.PlainReadWriteLock;
+import com.expedia.echox3.basics.tools.locks.ReadWriteLockStripeTable;
 import com.expedia.echox3.basics.tools.misc.BasicTools;
 
 //import static org.junit.Assert.assertEquals;
@@ -64,6 +67,48 @@ public class RWLockTests extends AbstractTestTools
 		thread.validate(5);
 	}
 
+	@Test
+	public void testStripeTable()
+	{
+		logTestName();
+
+		ReadWriteLockStripeTable	table1		= new ReadWriteLockStripeTable(1, null);
+		assertEquals(1, table1.getStripeCount());
+		assertEquals(0, table1.getStripeIndex(-1L));
+		assertTrue(table1.getLock(1L) == table1.getLock(-1L));		// NOPMD
+
+		// Rounded-up to a power of 2, selected by the high bits of the hash.
+		ReadWriteLockStripeTable	table		= new ReadWriteLockStripeTable(12, null);
+		assertEquals(16, table.getStripeCount());
+		int[]		countList			= new int[table.getStripeCount()];
+		long[]		hashList			= new long[1000];
+		for (int i = 0; i < hashList.length; i++)
+		{
+			hashList[i] = i;		// Worst case: only the low bits differ
+			countList[table.getStripeIndex(hashList[i])]++;
+		}
+		for (int count : countList)
+		{
+			assertTrue(0 < count);
+		}
+
+		// The order of compareHash() is the order of the stripes.
+		Long[]		sortedList			= new Long[hashList.length];
+		for (int i = 0; i < hashList.length; i++)
+		{
+			sortedList[i] = hashList[i];
+		}
+		Arrays.sort(sortedList, ReadWriteLockStripeTable::compareHash);
+		for (int i = 1; i < sortedList.length; i++)
+		{
+			assertTrue(table.getStripeIndex(sortedList[i - 1]) <= table.getStripeIndex(sortedList[i]));
+			if (table.getStripeIndex(sortedList[i - 1]) == table.getStripeIndex(sortedList[i]))
+			{
+				assertTrue(table.getLock(sortedList[i - 1]) == table.getLock(sortedList[i]));		// NOPMD
+			}
+		}
+	}
+
 	@Test
 	public void testMultipleRead()
 	{
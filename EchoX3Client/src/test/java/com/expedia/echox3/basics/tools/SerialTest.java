@@ -11,6 +11,7 @@ import java.net.URL;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -20,6 +21,7 @@ import static org.junit.Assert.*;
 
 import com.expedia.echox3.basics.AbstractTestTools;
 import com.expedia.echox3.basics.configuration.ConfigurationManager;
+import com.expedia.echox3.basics.configuration.MemoryConfigurationProvider;
 import com.expedia.echox3.basics.file.BaseFileHandler;
 import com.expedia.echox3.basics.file.BasicFileReader;
 import com.expedia.echox3.basics.file.SimpleFilenameFilter;
@@ -32,6 +34,10 @@ import com.expedia.echox3.basics.tools.pubsub.Publisher;
 import com.expedia.echox3.basics.tools.serial.BasicClassLoader;
 import com.expedia.echox3.basics.tools.serial.BasicClassLoaderManager;
 import com.expedia.echox3.basics.tools.serial.BasicSerial;
+import com.expedia.echox3.basics.tools.serial.BinaryReader;
+import com.expedia.echox3.basics.tools.serial.BinarySerialCodec;
+import com.expedia.echox3.basics.tools.serial.BinaryWriter;
+import com.expedia.echox3.basics.tools.serial.IBinarySerializable;
 import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
 
 public class SerialTest extends AbstractTestTools
@@ -133,6 +139,190 @@ public class SerialTest extends AbstractTestTools
 		assertArrayEquals(textList, back);
 	}
 
+	@Test
+	public void testBinaryCodec() throws BasicException
+	{
+		String						testName		= logTestName();
+		MemoryConfigurationProvider	provider		= new MemoryConfigurationProvider(testName);
+		try
+		{
+			BinarySerialCodec.register(1, TestBinaryObject.class, TestBinaryObject::new);
+			BasicSerial		serial			= BasicSerial.getSerial(testName);
+			String			settingName		=
+					BasicSerial.SETTING_PREFIX + "." + testName + "." + BasicSerial.SETTING_NAME_SERIAL_TYPE;
+			assertEquals(BasicSerial.SerialType.java, serial.getSerialType());
+			provider.addSetting(settingName, BasicSerial.SerialType.binary.name());
+			for (int i = 0; i < 500 && BasicSerial.SerialType.binary != serial.getSerialType(); i++)
+			{
+				BasicTools.sleepMS(10);
+			}
+			assertEquals(BasicSerial.SerialType.binary, serial.getSerialType());
+
+			Serializable[]		objectList		=
+					{
+						// String and byte[] keep their own (javaString and none) SerialType.
+						12, -12345678901L, 3.14, -2.5f, true, (short) -7, (byte) 5, 'x',
+						new TestBinaryObject(42, BROWN_FOX + "\u00e9\u4e2d", new byte[] { 1, 2, 3 }, null),
+						new TestBinaryObject(43, null, null, new TestBinaryObject(44, "inner", new byte[0], null)),
+					};
+			for (Serializable object : objectList)
+			{
+				byte[]			bytes			= BasicSerial.toBytes(testName, object);
+				assertEquals(object.getClass().getSimpleName(),
+						BasicSerial.SerialType.binary.ordinal(), bytes[0]);
+				// Written as binary, read by any serial, whatever its own configuration.
+				assertEquals(object, BasicSerial.toObject(testName, bytes));
+				assertEquals(object, BasicSerial.toObject(TEST_NAME, bytes));
+			}
+
+			// Not supported by the codec: falls back to Java serialization.
+			HashMap<String, Integer>	map		= new HashMap<>();
+			map.put(BROWN_FOX, 1);
+			byte[]			bytes			= BasicSerial.toBytes(testName, map);
+			assertEquals(BasicSerial.SerialType.java.ordinal(), bytes[0]);
+			assertEquals(map, BasicSerial.toObject(testName, bytes));
+
+			// Large enough to be compressed.
+			TestBinaryObject	large		=
+					new TestBinaryObject(1, BasicTools.generateRandomString(11 * 1000), null, null);
+			assertEquals(large, BasicSerial.toObject(testName, BasicSerial.toBytes(testName, large)));
+
+			measureBinaryPerformance(testName);
+		}
+		finally
+		{
+			provider.close();
+		}
+	}
+	@Test
+	public void testKeyBytes() throws BasicException
+	{
+		String						testName		= logTestName();
+		MemoryConfigurationProvider	provider		= new MemoryConfigurationProvider(testName);
+		try
+		{
+			BinarySerialCodec.register(1, TestBinaryObject.class, TestBinaryObject::new);
+			BasicSerial		serial			= BasicSerial.getSerial(testName);
+			String			settingName		=
+					BasicSerial.SETTING_PREFIX + "." + testName + "." + BasicSerial.SETTING_NAME_SERIAL_TYPE;
+			Serializable[]	keyList			=
+					{
+						BROWN_FOX, new byte[] { 1, 2, 3 }, 12, -12345678901L,
+						new TestBinaryObject(42, BasicTools.generateRandomString(3 * 1000), null, null),
+					};
+			byte[][]		keyBytesList	= BasicSerial.toKeyBytesArray(testName, keyList);
+
+			// The bytes of a key (i.e. its hash) do not change with the serialType of the cache.
+			assertEquals(BasicSerial.SerialType.java, serial.getSerialType());
+			provider.addSetting(settingName, BasicSerial.SerialType.binary.name());
+			for (int i = 0; i < 500 && BasicSerial.SerialType.binary != serial.getSerialType(); i++)
+			{
+				BasicTools.sleepMS(10);
+			}
+			assertEquals(BasicSerial.SerialType.binary, serial.getSerialType());
+			for (int i = 0; i < keyList.length; i++)
+			{
+				byte[]			keyBytes		= BasicSerial.toKeyBytes(testName, keyList[i]);
+				assertArrayEquals(keyList[i].getClass().getSimpleName(), keyBytesList[i], keyBytes);
+				assertEquals(BasicSerial.CompressType.none.ordinal(), keyBytes[1]);
+				assertNotEquals(BasicSerial.SerialType.binary.ordinal(), keyBytes[0]);
+				assertTrue(Objects.deepEquals(keyList[i], BasicSerial.toObject(TEST_NAME, keyBytes)));
+			}
+			// The values do use the codec.
+			assertEquals(BasicSerial.SerialType.binary.ordinal(), BasicSerial.toBytes(testName, keyList[4])[0]);
+		}
+		finally
+		{
+			provider.close();
+		}
+	}
+	private void measureBinaryPerformance(String binaryName) throws BasicException
+	{
+		int					count			= 100 * 1000;
+		TestBinaryObject[]	objectList		= new TestBinaryObject[count];
+		for (int i = 0; i < count; i++)
+		{
+			objectList[i] = new TestBinaryObject(i, BasicTools.generateRandomString(25), new byte[16], null);
+		}
+		for (int pass = 0; pass < 3; pass++)
+		{
+			for (String name : new String[] { TEST_NAME, binaryName })
+			{
+				long		t1			= System.nanoTime();
+				int			length		= 0;
+				for (TestBinaryObject object : objectList)
+				{
+					byte[]		bytes		= BasicSerial.toBytes(name, object);
+					length = bytes.length;
+					BasicSerial.toObject(name, bytes);
+				}
+				long		t2			= System.nanoTime();
+				reportPerformance(String.format("toBytes + toObject(%s; %,d bytes)",
+						BasicSerial.getSerial(name).getSerialType().name(), length), t2 - t1, count, true);
+			}
+		}
+	}
+
+	public static class TestBinaryObject implements IBinarySerializable
+	{
+		private static final long serialVersionUID = 20151025085959L;
+
+		private int					m_number;
+		private String				m_text;
+		private byte[]				m_bytes;
+		private TestBinaryObject	m_inner;
+
+		public TestBinaryObject()
+		{
+			// Used by the BinarySerialCodec
+		}
+		public TestBinaryObject(int number, String text, byte[] bytes, TestBinaryObject inner)
+		{
+			m_number = number;
+			m_text = text;
+			m_bytes = bytes;
+			m_inner = inner;
+		}
+
+		@Override
+		public void writeBinary(BinaryWriter writer) throws BasicException
+		{
+			writer.writeInt(m_number);
+			writer.writeString(m_text);
+			writer.writeBytes(m_bytes);
+			writer.writeObject(m_inner);
+		}
+
+		@Override
+		public void readBinary(BinaryReader reader) throws BasicException
+		{
+			m_number = reader.readInt();
+			m_text = reader.readString();
+			m_bytes = reader.readBytes();
+			m_inner = (TestBinaryObject) reader.readObject();
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof TestBinaryObject))
+			{
+				return false;
+			}
+			TestBinaryObject	that		= (TestBinaryObject) o;
+			return m_number == that.m_number
+					&& Objects.equals(m_text, that.m_text)
+					&& Arrays.equals(m_bytes, that.m_bytes)
+					&& Objects.equals(m_inner, that.m_inner);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return m_number;
+		}
+	}
+
 	@Test
 	public void testManifestWrapper() throws BasicException
 	{
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.provider;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.expedia.echox3.basics.AbstractTestTools;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.visible.trellis.ClientFactory;
+
+public class KeyListSplitTests extends AbstractTestTools
+{
+	@Test
+	public void testSplitScatter()
+	{
+		logTestName();
+
+		String[]			destinationList		= { "A", "B", "C", "D", "E" };
+		int					count				= 1000;
+		byte[][]			keyList				= new byte[count][];
+		for (int i = 0; i < count; i++)
+		{
+			keyList[i] = String.format("Key-%d", i).getBytes();
+		}
+
+		KeyListSplit<String>	split			= new KeyListSplit<>(destinationList, keyList);
+		getLogger().info(BasicEvent.EVENT_TEST, split.toString());
+		assertEquals(count, split.getKeyCount());
+		assertEquals(destinationList.length, split.getPartCount());
+
+		// Each part gets the keys of its destination, in key order; the "server" echoes the key as the response.
+		byte[][]			responseList		= new byte[count][];
+		int					total				= 0;
+		for (int part = 0; part < split.getPartCount(); part++)
+		{
+			String			destination		= split.getDestination(part);
+			byte[][]		partList		= split.select(part, keyList);
+			for (byte[] key : partList)
+			{
+				int		index		= KeyListSplit.getDestinationIndex(key, destinationList.length);
+				assertEquals(destinationList[index], destination);
+			}
+			split.scatter(part, partList, responseList);
+			total += partList.length;
+		}
+		assertEquals(count, total);
+		assertArrayEquals(keyList, responseList);
+
+		// The same key always goes to the same destination.
+		KeyListSplit<String>	again			= new KeyListSplit<>(destinationList, keyList);
+		for (int part = 0; part < split.getPartCount(); part++)
+		{
+			assertArrayEquals(split.select(part, keyList), again.select(part, keyList));
+		}
+	}
+
+	@Test
+	public void testEdgeCases()
+	{
+		logTestName();
+
+		byte[][]				keyList			= { "One".getBytes(), "Two".getBytes(), "Three".getBytes() };
+
+		// A single destination does not copy the lists.
+		KeyListSplit<String>	single			= new KeyListSplit<>(new String[] { "A" }, keyList);
+		assertEquals(1, single.getPartCount());
+		assertTrue(keyList == single.select(0, keyList));		// NOPMD
+
+		// More destinations than keys: only the destinations receiving a key are part of the split.
+		KeyListSplit<String>	sparse			= new KeyListSplit<>(new String[100], keyList);
+		assertTrue(sparse.getPartCount() <= keyList.length);
+
+		KeyListSplit<String>	empty			= new KeyListSplit<>(new String[] { "A", "B" }, new byte[0][]);
+		assertEquals(0, empty.getPartCount());
+	}
+
+	@Test
+	public void testNotConnected() throws InterruptedException
+	{
+		logTestName();
+
+		String						cacheName		= "NotConnectedCache";
+		ObjectCacheProviderRemote	provider		= ClientFactory.getInstance().getProviderRemote();
+		try
+		{
+			provider.readOnly(cacheName, "Key".getBytes(), null);
+			fail("Expected a BasicException");
+		}
+		catch (BasicException exception)
+		{
+			assertEquals(BasicEvent.EVENT_UNKNOWN_CACHE, exception.getBasicEvent());
+		}
+
+		CompletableFuture<byte[][]>	future			=
+				provider.readOnlyAsync(cacheName, new byte[][] { "Key".getBytes() }, (byte[]) null);
+		try
+		{
+			future.get();
+			fail("Expected an ExecutionException");
+		}
+		catch (ExecutionException exception)
+		{
+			assertTrue(exception.getCause() instanceof BasicException);
+			assertEquals(BasicEvent.EVENT_UNKNOWN_CACHE, ((BasicException) exception.getCause()).getBasicEvent());
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.unit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.expedia.echox3.basics.AbstractTestTools;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.internal.store.eviction.AbstractEvictionPolicy;
+import com.expedia.echox3.internal.store.eviction.IEvictionPolicy;
+import com.expedia.echox3.internal.store.eviction.IEvictionPolicy.PolicyType;
+import com.expedia.echox3.internal.store.eviction.NullEvictionPolicy;
+import com.expedia.echox3.internal.store.wrapper.ObjectKey;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+import com.expedia.echox3.visible.trellis.ICacheObject;
+import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
+
+public class EvictionPolicyTests extends AbstractTestTools
+{
+	@Test
+	public void testNone()
+	{
+		logTestName();
+
+		IEvictionPolicy			policy			= AbstractEvictionPolicy.createPolicy(PolicyType.None, 10);
+		assertTrue(NullEvictionPolicy.INSTANCE == policy);		// NOPMD
+		for (int i = 0; i < 100; i++)
+		{
+			policy.recordWrite(createWrapper(i));
+		}
+		policy.drain();
+		assertNull(policy.pollVictim());
+	}
+
+	@Test
+	public void testLru()
+	{
+		logTestName();
+
+		IEvictionPolicy			policy			= AbstractEvictionPolicy.createPolicy(PolicyType.LRU, 10);
+		ObjectWrapper[]			wrapperList		= new ObjectWrapper[12];
+		for (int i = 0; i < 10; i++)
+		{
+			wrapperList[i] = createWrapper(i);
+			policy.recordWrite(wrapperList[i]);
+		}
+		policy.recordRead(wrapperList[0]);
+		policy.drain();
+		assertEquals(10, policy.getSize());
+		assertNull(policy.pollVictim());
+
+		// 0 has been read, 1 is now the least recently used.
+		wrapperList[10] = createWrapper(10);
+		policy.recordWrite(wrapperList[10]);
+		policy.drain();
+		assertTrue(wrapperList[1] == policy.pollVictim());		// NOPMD
+		assertNull(policy.pollVictim());
+
+		// A removed object is no longer counted, nor selected.
+		policy.recordRemove(wrapperList[2]);
+		wrapperList[11] = createWrapper(11);
+		policy.recordWrite(wrapperList[11]);
+		policy.drain();
+		assertNull(policy.pollVictim());
+		assertEquals(10, policy.getSize());
+		getLogger().info(BasicEvent.EVENT_TEST, policy.toString());
+	}
+
+	@Test
+	public void testSegmentedLru()
+	{
+		logTestName();
+
+		IEvictionPolicy			policy			= AbstractEvictionPolicy.createPolicy(PolicyType.SLRU, 100);
+		List<Integer>			victimList		= writeAndFlood(policy);
+
+		// The objects read again are protected, the flood evicts the other ones first.
+		assertEquals(1000, victimList.size());
+		for (int victim : victimList)
+		{
+			assertTrue(victim >= 50);
+		}
+		assertTrue(victimList.contains(50));
+		getLogger().info(BasicEvent.EVENT_TEST, policy.toString());
+	}
+
+	@Test
+	public void testTinyLfu()
+	{
+		logTestName();
+
+		IEvictionPolicy			policy			= AbstractEvictionPolicy.createPolicy(PolicyType.TinyLFU, 100);
+		List<Integer>			victimList		= writeAndFlood(policy);
+
+		// The flood is seen once, it is not admitted in place of the objects already in the cache
+		// (except for the few overestimated by the sketch, and 99, in the window when the flood begins).
+		assertEquals(1000, victimList.size());
+		int						residentCount	= 0;
+		for (int victim : victimList)
+		{
+			assertTrue(victim >= 50);
+			if (victim < 99)
+			{
+				residentCount++;
+			}
+		}
+		assertTrue(victimList.toString(), residentCount < 10);
+		getLogger().info(BasicEvent.EVENT_TEST, policy.toString());
+	}
+
+	// Writes 0-99 (the maximum size), reads 0-49 3 times, then writes 1000 new objects 1000-1999.
+	private static List<Integer> writeAndFlood(IEvictionPolicy policy)
+	{
+		ObjectWrapper[]			wrapperList		= new ObjectWrapper[100];
+		for (int i = 0; i < wrapperList.length; i++)
+		{
+			wrapperList[i] = createWrapper(i);
+			policy.recordWrite(wrapperList[i]);
+		}
+		for (int iPass = 0; iPass < 3; iPass++)
+		{
+			for (int i = 0; i < wrapperList.length / 2; i++)
+			{
+				policy.recordRead(wrapperList[i]);
+			}
+			policy.drain();
+		}
+		assertNull(policy.pollVictim());
+
+		List<Integer>			victimList		= new ArrayList<>();
+		for (int i = 1000; i < 2000; i++)
+		{
+			policy.recordWrite(createWrapper(i));
+			policy.drain();
+			ObjectWrapper		victim;
+			while (null != (victim = policy.pollVictim()))
+			{
+				victimList.add(((SizedObject) victim.getTrellisObject()).getNumber());
+			}
+		}
+		assertEquals(100, policy.getSize());
+		return victimList;
+	}
+
+	private static ObjectWrapper createWrapper(int i)
+	{
+		ObjectKey		key		= new ObjectKey(String.format("Key-%d", i).getBytes());
+		return new ObjectWrapper(key, new SizedObject(i));
+	}
+
+	private static class SizedObject implements ICacheObject
+	{
+		public static final long		serialVersionUID	= 20151020120000L;
+
+		private final int				m_number;
+
+		SizedObject(int number)
+		{
+			m_number = number;
+		}
+
+		public int getNumber()
+		{
+			return m_number;
+		}
+
+		@Override
+		public void updateConfiguration(ObjectCacheConfiguration configuration)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public void writeOnly(Serializable request)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public Serializable readOnly(Serializable request)
+		{
+			return null;
+		}
+
+		@Override
+		public long getSize()
+		{
+			return 1;
+		}
+
+		@Override
+		public void doMaintenance(long timeNowMS, int memoryLevelPercent)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public boolean canDelete()
+		{
+			return false;
+		}
+
+		@Override
+		public void flush(long timeNowMS, long timeFlushMS)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public void upgradeFrom(ICacheObject cacheObject)
+		{
+			// Nothing to do
+		}
+	}
+}
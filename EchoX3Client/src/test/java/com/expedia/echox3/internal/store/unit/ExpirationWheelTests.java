@@ -0,0 +1,200 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.unit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.expedia.echox3.basics.AbstractTestTools;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.internal.store.expiration.ExpirationWheel;
+import com.expedia.echox3.internal.store.wrapper.ObjectKey;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+import com.expedia.echox3.visible.trellis.ICacheObject;
+import com.expedia.echox3.visible.trellis.IExpiringCacheObject;
+import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
+
+public class ExpirationWheelTests extends AbstractTestTools
+{
+	private static final long		TICK_MS			= 1000;
+	private static final long		TIME_BEGIN_MS	= 1_000_000L * TICK_MS;
+
+	@Test
+	public void testLevels()
+	{
+		logTestName();
+
+		// From the same tick to beyond the range of the wheel (64^4 ticks).
+		long[]					tickList		= { 0, 1, 63, 64, 65, 4095, 4096, 100_000, 20_000_000 };
+		ExpirationWheel			wheel			= new ExpirationWheel(TICK_MS, TIME_BEGIN_MS);
+		List<ObjectWrapper>		wrapperList		= new ArrayList<>();
+		for (long tick : tickList)
+		{
+			ObjectWrapper		wrapper			= createWrapper(TIME_BEGIN_MS + tick * TICK_MS + TICK_MS / 2);
+			wrapperList.add(wrapper);
+			wheel.schedule(wrapper);
+			wheel.schedule(wrapper);		// Only scheduled once
+		}
+
+		List<ObjectWrapper>		dueList			= new ArrayList<>();
+		for (int i = 0; i < tickList.length; i++)
+		{
+			long				tickDue			= tickList[i] + 1;
+			// Not due until its tick is entirely in the past...
+			wheel.advance(TIME_BEGIN_MS + (tickDue * TICK_MS) - 1, dueList);
+			assertTrue(dueList.isEmpty());
+			// ... then due exactly once.
+			wheel.advance(TIME_BEGIN_MS + tickDue * TICK_MS, dueList);
+			assertEquals(1, dueList.size());
+			assertTrue(wrapperList.get(i) == dueList.get(0));		// NOPMD
+			assertEquals(0, dueList.get(0).getExpirationMS());
+			dueList.clear();
+		}
+		assertEquals(0, wheel.getScheduledCount());
+		getLogger().info(BasicEvent.EVENT_TEST, wheel.toString());
+	}
+
+	@Test
+	public void testReschedule()
+	{
+		logTestName();
+
+		ExpirationWheel			wheel			= new ExpirationWheel(TICK_MS, TIME_BEGIN_MS);
+		ObjectWrapper			wrapperEarlier	= createWrapper(TIME_BEGIN_MS + 100 * TICK_MS);
+		ObjectWrapper			wrapperLater	= createWrapper(TIME_BEGIN_MS + 10 * TICK_MS);
+		List<ObjectWrapper>		dueList			= new ArrayList<>();
+		wheel.schedule(wrapperEarlier);
+		wheel.schedule(wrapperLater);
+		wheel.advance(TIME_BEGIN_MS, dueList);
+
+		// Earlier (e.g. flush): re-scheduled at once, the copy left at 100 is ignored.
+		setExpiration(wrapperEarlier, TIME_BEGIN_MS + 5 * TICK_MS);
+		wheel.schedule(wrapperEarlier);
+		// Later (e.g. read): stays scheduled at 10, then is scheduled again by the caller.
+		setExpiration(wrapperLater, TIME_BEGIN_MS + 20 * TICK_MS);
+		wheel.schedule(wrapperLater);
+
+		wheel.advance(TIME_BEGIN_MS + 6 * TICK_MS, dueList);
+		assertEquals(1, dueList.size());
+		assertTrue(wrapperEarlier == dueList.get(0));		// NOPMD
+		dueList.clear();
+
+		wheel.advance(TIME_BEGIN_MS + 11 * TICK_MS, dueList);
+		assertEquals(1, dueList.size());
+		assertTrue(wrapperLater == dueList.get(0));		// NOPMD
+		wheel.schedule(wrapperLater);
+		dueList.clear();
+
+		wheel.advance(TIME_BEGIN_MS + 21 * TICK_MS, dueList);
+		assertEquals(1, dueList.size());
+		assertTrue(wrapperLater == dueList.get(0));		// NOPMD
+		dueList.clear();
+
+		wheel.advance(TIME_BEGIN_MS + 200 * TICK_MS, dueList);
+		assertTrue(dueList.isEmpty());
+	}
+
+	@Test
+	public void testPurge()
+	{
+		logTestName();
+
+		ExpirationWheel			wheel			= new ExpirationWheel(TICK_MS, TIME_BEGIN_MS);
+		List<ObjectWrapper>		dueList			= new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			wheel.schedule(createWrapper(TIME_BEGIN_MS + i * TICK_MS * 7 + i % 2));
+		}
+		wheel.advance(TIME_BEGIN_MS, dueList);
+		assertEquals(1000, wheel.getScheduledCount());
+
+		// As after a flush, only the odd ones are still in the cache.
+		wheel.purge(wrapper -> 1 == ((ExpiringObject) wrapper.getTrellisObject()).getExpirationTimeMS() % 2);
+		assertEquals(500, wheel.getScheduledCount());
+		wheel.advance(TIME_BEGIN_MS + 10_000 * TICK_MS, dueList);
+		assertEquals(500, dueList.size());
+	}
+
+	private static ObjectWrapper createWrapper(long expirationMS)
+	{
+		ObjectKey		key		= new ObjectKey(String.format("Key-%d", expirationMS).getBytes());
+		return new ObjectWrapper(key, new ExpiringObject(expirationMS));
+	}
+	private static void setExpiration(ObjectWrapper wrapper, long expirationMS)
+	{
+		((ExpiringObject) wrapper.getTrellisObject()).m_expirationTimeMS = expirationMS;
+	}
+
+	private static class ExpiringObject implements IExpiringCacheObject
+	{
+		public static final long		serialVersionUID	= 20151020120000L;
+
+		private long					m_expirationTimeMS;
+
+		ExpiringObject(long expirationTimeMS)
+		{
+			m_expirationTimeMS = expirationTimeMS;
+		}
+
+		@Override
+		public long getExpirationTimeMS()
+		{
+			return m_expirationTimeMS;
+		}
+
+		@Override
+		public void updateConfiguration(ObjectCacheConfiguration configuration)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public void writeOnly(Serializable request)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public Serializable readOnly(Serializable request)
+		{
+			return null;
+		}
+
+		@Override
+		public long getSize()
+		{
+			return 1;
+		}
+
+		@Override
+		public void doMaintenance(long timeNowMS, int memoryLevelPercent)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public boolean canDelete()
+		{
+			return false;
+		}
+
+		@Override
+		public void flush(long timeNowMS, long timeFlushMS)
+		{
+			// Nothing to do
+		}
+
+		@Override
+		public void upgradeFrom(ICacheObject cacheObject)
+		{
+			// Nothing to do
+		}
+	}
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.unit;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.expedia.echox3.basics.AbstractTestTools;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.basics.tools.serial.ByteArrayWrapper;
+import com.expedia.echox3.internal.store.cache.LocalObjectTable;
+import com.expedia.echox3.internal.store.wrapper.ObjectKey;
+import com.expedia.echox3.internal.store.wrapper.ObjectWrapper;
+
+public class LocalObjectTableTests extends AbstractTestTools
+{
+	@Test
+	public void testSimple()
+	{
+		logTestName();
+
+		LocalObjectTable	table		= new LocalObjectTable();
+		int					count		= 1000;		// Enough to force a few resize
+		for (int i = 0; i < count; i++)
+		{
+			ObjectWrapper		wrapper		= createWrapper(i);
+			assertTrue(wrapper == table.putIfAbsent(wrapper));		// NOPMD
+			assertTrue(wrapper == table.putIfAbsent(createWrapper(i)));		// NOPMD
+		}
+		assertEquals(count, table.size());
+
+		for (int i = 0; i < count; i++)
+		{
+			ObjectKey			key			= createKey(i);
+			ObjectWrapper		wrapper		= table.get(key);
+			assertNotNull(wrapper);
+			assertEquals(key, wrapper);
+		}
+		assertNull(table.get(createKey(count)));
+
+		for (int i = 0; i < count; i += 2)
+		{
+			assertNotNull(table.remove(createKey(i)));
+			assertNull(table.remove(createKey(i)));
+		}
+		assertEquals(count / 2, table.size());
+		for (int i = 0; i < count; i++)
+		{
+			assertEquals(1 == (i % 2), null != table.get(createKey(i)));
+		}
+
+		// Re-insert over tombstones
+		for (int i = 0; i < count; i += 2)
+		{
+			ObjectWrapper		wrapper		= createWrapper(i);
+			assertTrue(wrapper == table.putIfAbsent(wrapper));		// NOPMD
+		}
+		assertEquals(count, table.size());
+
+		int						visited		= 0;
+		Iterator<ObjectWrapper>	iterator	= table.iterator();
+		while (iterator.hasNext())
+		{
+			ObjectWrapper		wrapper		= iterator.next();
+			assertNotNull(wrapper);
+			iterator.remove();
+			assertNull(table.get(wrapper));
+			visited++;
+		}
+		assertEquals(count, visited);
+		assertEquals(0, table.size());
+		getLogger().info(BasicEvent.EVENT_TEST, table.toString());
+	}
+
+	@Test
+	public void testIdentityRemove()
+	{
+		logTestName();
+
+		LocalObjectTable	table		= new LocalObjectTable();
+		ObjectWrapper		wrapper1	= createWrapper(1);
+		ObjectWrapper		wrapper1b	= createWrapper(1);
+		table.putIfAbsent(wrapper1);
+
+		assertFalse(table.remove(wrapper1b));		// Same key, different entry: must not be removed
+		assertEquals(1, table.size());
+		assertTrue(table.remove(wrapper1));
+		assertFalse(table.remove(wrapper1));
+		assertEquals(0, table.size());
+	}
+
+	@Test
+	public void testSliceKey()
+	{
+		logTestName();
+
+		LocalObjectTable	table		= new LocalObjectTable();
+		int					count		= 100;
+		for (int i = 0; i < count; i++)
+		{
+			table.putIfAbsent(createWrapper(i));
+		}
+
+		// All the keys, one after the other in the same array, as in a message buffer.
+		byte[][]			keyList		= new byte[count][];
+		int					cb			= 0;
+		for (int i = 0; i < count; i++)
+		{
+			keyList[i] = String.format("Key-%d", i).getBytes();
+			cb += keyList[i].length;
+		}
+		byte[]				buffer		= new byte[cb];
+		ByteArrayWrapper	wrapper		= new ByteArrayWrapper();
+		ObjectKey			key			= new ObjectKey();
+		int					indexMin	= 0;
+		for (int i = 0; i < count; i++)
+		{
+			System.arraycopy(keyList[i], 0, buffer, indexMin, keyList[i].length);
+			wrapper.set(buffer, indexMin, keyList[i].length);
+			key.setKeySlice(wrapper);
+			assertEquals(createKey(i).getHash64(), key.getHash64());
+			ObjectWrapper		entry		= table.get(key);
+			assertNotNull(entry);
+			assertEquals(key, entry);
+			assertEquals(entry, key);
+
+			// A new entry owns exactly the key bytes.
+			ObjectWrapper		entryNew	= new ObjectWrapper(key, null);
+			assertEquals(0, entryNew.getWrappedKey().getIndexMin());
+			assertEquals(keyList[i].length, entryNew.getWrappedKey().getByteArray().length);
+			assertEquals(key, entryNew);
+			indexMin += keyList[i].length;
+		}
+
+		wrapper.set(buffer, 0, 3);		// "Key", a prefix of all the keys
+		key.setKeySlice(wrapper);
+		assertNull(table.get(key));
+	}
+
+	@Test
+	public void testConcurrent() throws Exception
+	{
+		logTestName();
+
+		LocalObjectTable	table			= new LocalObjectTable();
+		int					threadCount		= 4;
+		int					keyCount		= 5000;
+		int					opCount			= 200 * 1000;
+		AtomicInteger		errorCount		= new AtomicInteger(0);
+
+		Thread[]			threadList		= new Thread[threadCount];
+		for (int iThread = 0; iThread < threadCount; iThread++)
+		{
+			threadList[iThread] = new Thread(() ->
+			{
+				for (int i = 0; i < opCount; i++)
+				{
+					int					index		= RANDOM.nextInt(keyCount);
+					ObjectKey			key			= createKey(index);
+					switch (RANDOM.nextInt(4))
+					{
+					case 0:
+						table.remove(key);
+						break;
+					case 1:
+						ObjectWrapper		wrapper		= createWrapper(index);
+						ObjectWrapper		entry		= table.putIfAbsent(wrapper);
+						if (!key.equals(entry))
+						{
+							errorCount.incrementAndGet();
+						}
+						break;
+					default:
+						ObjectWrapper		found		= table.get(key);
+						if (null != found && !key.equals(found))
+						{
+							errorCount.incrementAndGet();
+						}
+						break;
+					}
+				}
+			});
+			threadList[iThread].start();
+		}
+		for (Thread thread : threadList)
+		{
+			thread.join();
+		}
+		assertEquals(0, errorCount.get());
+
+		// No duplicate key
+		int				present		= 0;
+		for (int i = 0; i < keyCount; i++)
+		{
+			if (null != table.get(createKey(i)))
+			{
+				present++;
+			}
+		}
+		assertEquals(present, table.size());
+		assertEquals(present, table.toArray().length);
+	}
+
+	@Test
+	public void testResizeGet() throws Exception
+	{
+		logTestName();
+
+		LocalObjectTable	table			= new LocalObjectTable();
+		int					readerCount		= 3;
+		int					keyCount		= 200 * 1000;		// Enough to force many resize
+		AtomicInteger		insertedCount	= new AtomicInteger(0);
+		AtomicInteger		missCount		= new AtomicInteger(0);
+
+		// Nothing is ever removed: any key already inserted must be found, including while the table resizes.
+		Thread[]			threadList		= new Thread[readerCount];
+		for (int iThread = 0; iThread < readerCount; iThread++)
+		{
+			threadList[iThread] = new Thread(() ->
+			{
+				while (insertedCount.get() < keyCount)
+				{
+					int					inserted	= insertedCount.get();
+					int					index		= 0 == inserted ? -1 : RANDOM.nextInt(inserted);
+					if (-1 != index && null == table.get(createKey(index)))
+					{
+						missCount.incrementAndGet();
+					}
+				}
+			});
+			threadList[iThread].start();
+		}
+		for (int i = 0; i < keyCount; i++)
+		{
+			table.putIfAbsent(createWrapper(i));
+			insertedCount.set(i + 1);
+		}
+		for (Thread thread : threadList)
+		{
+			thread.join();
+		}
+		assertEquals(0, missCount.get());
+		assertEquals(keyCount, table.size());
+	}
+
+	private static ObjectKey createKey(int i)
+	{
+		return new ObjectKey(String.format("Key-%d", i).getBytes());
+	}
+	private static ObjectWrapper createWrapper(int i)
+	{
+		return new ObjectWrapper(createKey(i), null);
+	}
+}
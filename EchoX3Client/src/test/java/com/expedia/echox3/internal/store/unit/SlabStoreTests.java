@@ -0,0 +1,110 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.store.unit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.expedia.echox3.basics.AbstractTestTools;
+import com.expedia.echox3.basics.monitoring.event.BasicEvent;
+import com.expedia.echox3.internal.store.slab.SlabStore;
+
+public class SlabStoreTests extends AbstractTestTools
+{
+	@Test
+	public void testSimple()
+	{
+		String				testName		= logTestName();
+
+		SlabStore			store			= new SlabStore(testName, 64 * 1024, 8 * 1024);
+		List<byte[]>		dataList		= new ArrayList<>();
+		List<Long>			handleList		= new ArrayList<>();
+		for (int i = 0; i < 2000; i++)
+		{
+			byte[]			data			= new byte[RANDOM.nextInt(store.getChunkSizeMax() + 1)];
+			RANDOM.nextBytes(data);
+			long			handle			= store.write(data);
+			assertNotEquals(SlabStore.NULL_HANDLE, handle);
+			dataList.add(data);
+			handleList.add(handle);
+		}
+		assertTrue(store.getUsedBytes() <= store.getSlabBytes());
+
+		for (int i = 0; i < dataList.size(); i++)
+		{
+			long			handle			= handleList.get(i);
+			assertEquals(dataList.get(i).length, store.getLength(handle));
+			assertTrue(Arrays.equals(dataList.get(i), store.read(handle)));
+		}
+
+		// Free half, re-allocate: the chunks are re-used and the other values are untouched.
+		long				slabBytes		= store.getSlabBytes();
+		for (int i = 0; i < dataList.size(); i += 2)
+		{
+			store.free(handleList.get(i));
+		}
+		for (int i = 0; i < dataList.size(); i += 2)
+		{
+			handleList.set(i, store.write(dataList.get(i)));
+		}
+		assertEquals(slabBytes, store.getSlabBytes());
+		for (int i = 0; i < dataList.size(); i++)
+		{
+			assertTrue(Arrays.equals(dataList.get(i), store.read(handleList.get(i))));
+		}
+
+		// Too large for the store
+		assertEquals(SlabStore.NULL_HANDLE, store.write(new byte[store.getChunkSizeMax() + 1]));
+
+		getLogger().info(BasicEvent.EVENT_TEST, store.toString());
+		store.close();
+		assertEquals(0, store.getSlabBytes());
+	}
+
+	@Test
+	public void testConcurrent() throws Exception
+	{
+		String				testName		= logTestName();
+
+		SlabStore			store			= new SlabStore(testName, SlabStore.SLAB_SIZE_DEFAULT, 4 * 1024);
+		int					threadCount		= 4;
+		int					opCount			= 50 * 1000;
+		Thread[]			threadList		= new Thread[threadCount];
+		boolean[]			isSuccessList	= new boolean[threadCount];
+		for (int iThread = 0; iThread < threadCount; iThread++)
+		{
+			int				index			= iThread;
+			threadList[iThread] = new Thread(() ->
+			{
+				boolean		isSuccess		= true;
+				for (int i = 0; i < opCount; i++)
+				{
+					byte[]	data			= new byte[1 + RANDOM.nextInt(1024)];
+					Arrays.fill(data, (byte) i);
+					long	handle			= store.write(data);
+					isSuccess &= Arrays.equals(data, store.read(handle));
+					store.free(handle);
+				}
+				isSuccessList[index] = isSuccess;
+			});
+			threadList[iThread].start();
+		}
+		for (Thread thread : threadList)
+		{
+			thread.join();
+		}
+		for (boolean isSuccess : isSuccessList)
+		{
+			assertTrue(isSuccess);
+		}
+		assertEquals(0, store.getUsedBytes());
+		store.close();
+	}
+}
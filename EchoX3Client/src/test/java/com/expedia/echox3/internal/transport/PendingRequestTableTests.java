@@ -0,0 +1,87 @@
+/**
+ * Copyright 2015 Expedia, Inc. All rights reserved.
+ * EXPEDIA PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.expedia.echox3.internal.transport;
+
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.expedia.echox3.basics.AbstractTestTools;
+import com.expedia.echox3.internal.transport.request.source.AbstractSourceRequest;
+import com.expedia.echox3.internal.transport.request.source.EchoSourceRequest;
+import com.expedia.echox3.internal.transport.socket.PendingRequestTable;
+
+public class PendingRequestTableTests extends AbstractTestTools
+{
+	@Test
+	public void testAddRemove()
+	{
+		logTestName();
+
+		PendingRequestTable			table			= new PendingRequestTable();
+		int							count			= 5000;
+		AbstractSourceRequest[]		requestList		= new AbstractSourceRequest[count];
+		for (int i = 0; i < count; i++)
+		{
+			requestList[i] = createRequest(1000 + i * 7);
+			table.add(requestList[i]);
+		}
+		assertEquals(count, table.size());
+
+		// Remove in a different order than the insertion, to exercise the back shift.
+		for (int i = count - 1; i >= 0; i -= 2)
+		{
+			assertTrue(requestList[i] == table.remove(requestList[i].getClientContext()));		// NOPMD
+			assertNull(table.remove(requestList[i].getClientContext()));
+		}
+		for (int i = 0; i < count; i += 2)
+		{
+			assertTrue(requestList[i] == table.remove(requestList[i].getClientContext()));		// NOPMD
+		}
+		assertEquals(0, table.size());
+	}
+
+	@Test
+	public void testTimeout()
+	{
+		logTestName();
+
+		PendingRequestTable			table			= new PendingRequestTable();
+		AbstractSourceRequest		request1		= createRequest(1);
+		AbstractSourceRequest		request2		= createRequest(2);
+		AbstractSourceRequest		request3		= createRequest(3);
+		table.add(request1);
+		table.add(request2);
+		table.add(request3);
+		assertTrue(request2 == table.remove(2));		// NOPMD Response received
+
+		long						timeMS			= System.currentTimeMillis();
+		assertEquals(0, table.removeTimedOut(timeMS).size());
+		assertEquals(2, table.size());
+
+		long						timeoutMS		= request1.getTimeTimeoutMS();
+		List<AbstractSourceRequest>	expiredList		= table.removeTimedOut(timeoutMS + 1000);
+		assertEquals(2, expiredList.size());
+		assertTrue(expiredList.contains(request1));
+		assertTrue(expiredList.contains(request3));
+		assertEquals(0, table.size());
+
+		// Terminate: every pending request times out
+		AbstractSourceRequest		request4		= createRequest(4);
+		table.add(request4);
+		assertEquals(1, table.removeTimedOut(Long.MAX_VALUE).size());
+		assertEquals(0, table.size());
+	}
+
+	private static AbstractSourceRequest createRequest(long clientContext)
+	{
+		EchoSourceRequest			request			= new EchoSourceRequest();
+		request.setObjectToNotify(null);				// Sets the timeout
+		request.setClientContext(clientContext);
+		return request;
+	}
+}
@@ -5,6 +5,7 @@
 
 package com.expedia.echox3.internal.transport;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
@@ -20,6 +21,8 @@ import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.thread.IEchoThreadPool;
 import com.expedia.echox3.basics.tools.misc.BasicTools;
+import com.expedia.echox3.internal.transport.buffer.DirectByteBufferArena;
+import com.expedia.echox3.internal.transport.buffer.ManagedByteBuffer;
 import com.expedia.echox3.internal.transport.buffer.ManagedByteBufferManager;
 import com.expedia.echox3.internal.transport.message.AbstractSourceMessageHandler;
 import com.expedia.echox3.internal.transport.message.AbstractMessageHandler;
@@ -86,7 +89,9 @@ public class TransportUnitTests extends AbstractTestTools
 		Queue<TransmitMessage>			transmitQueue		= transportHighway.getTransmitQueue();
 		IEchoThreadPool receiveThreadPool	= serverProtocolHandler.getWorkerThreadPool();
 
-		getLogger().info(BasicEvent.EVENT_TEST, "Begin sending test messages");
+		getLogger().info(BasicEvent.EVENT_TEST,
+				"Begin sending test messages (writes gathered by %,d messages/%,d bytes)",
+				clientProtocolHandler.getWriteGatherMessageMax(), clientProtocolHandler.getWriteGatherByteMax());
 		long							t1					= System.nanoTime();
 		int								iMax				= 100 * 1000;
 		int								iInform				= iMax / 20;
@@ -129,6 +134,44 @@ public class TransportUnitTests extends AbstractTestTools
 		serverMessageHandler.close();
 		dumpByteBufferHistogram();
 	}
+
+	@Test
+	public void testDirectBuffer()
+	{
+		logTestName();
+
+		ManagedByteBufferManager	manager			= ManagedByteBufferManager.getInstance();
+		int							cb				= 200 * 1000;
+		ManagedByteBuffer			managedBuffer	= ManagedByteBufferManager.get(cb);
+		ByteBuffer					byteBuffer		= managedBuffer.getByteBuffer();
+		assertEquals(manager.isDirect(), byteBuffer.isDirect());
+		assertEquals(cb, byteBuffer.remaining());
+		managedBuffer.release();
+
+		if (manager.isDirect())
+		{
+			// The second large buffer comes from the arena, without allocating native memory.
+			long					directCount		= manager.getDirectByteCount();
+			ManagedByteBuffer		managedBuffer2	= ManagedByteBufferManager.get(cb + 1);
+			assertTrue(byteBuffer == managedBuffer2.getByteBuffer());		// NOPMD
+			assertEquals(cb + 1, managedBuffer2.getByteBuffer().remaining());
+			assertEquals(directCount, manager.getDirectByteCount());
+			managedBuffer2.release();
+		}
+
+		DirectByteBufferArena		arena			= new DirectByteBufferArena(1024);
+		ByteBuffer					buffer1			= arena.get(1000);
+		ByteBuffer					buffer2			= arena.get(1000);
+		assertEquals(1024, buffer1.capacity());
+		assertTrue(arena.release(buffer1));
+		assertFalse(arena.release(buffer2));		// Over the retained max
+		assertEquals(1024, arena.getRetainedByteCount());
+		assertTrue(buffer1 == arena.get(600));		// NOPMD
+		assertEquals(0, arena.getRetainedByteCount());
+		assertEquals(2048, arena.getAllocatedByteCount());
+
+		getLogger().info(BasicEvent.EVENT_TEST, "%s; %s", manager.getCustomArena(), arena);
+	}
 	private void showQueueSize(String message, int iSent,
 			Collection transmitQueue, int queueSize, RequestCompleteListener listener)
 	{
@@ -142,6 +185,7 @@ public class TransportUnitTests extends AbstractTestTools
 		dumpByteBufferHistogram("Exact", ManagedByteBufferManager.getInstance().getHistogramExact());
 		dumpByteBufferHistogram("Ladder", ManagedByteBufferManager.getInstance().getHistogramLadder());
 		dumpByteBufferHistogram("Custom", ManagedByteBufferManager.getInstance().getHistogramCustom());
+		dumpByteBufferHistogram("Direct", ManagedByteBufferManager.getInstance().getHistogramDirect());
 	}
 	private void dumpByteBufferHistogram(String name, IHistogram histogram)
 	{
@@ -4,10 +4,15 @@
  */
 package com.expedia.echox3.internal.wrapper;
 
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
 import com.expedia.echox3.basics.AbstractTestTools;
+import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.internal.provider.ObjectCacheProviderLocal;
 import com.expedia.echox3.visible.application.simplecache.SimpleCacheClient;
 import com.expedia.echox3.visible.trellis.ClientFactory;
@@ -78,4 +83,30 @@ public class WiringTests extends AbstractTestTools
 		assertNotNull(monitorClient.getProvider());
 		assertTrue(monitorClient.getProvider() instanceof ObjectCacheProviderLocal);
 	}
+
+	@Test
+	public void testAsyncFailure() throws Exception
+	{
+		String							testName		= logTestName();
+
+		IClientFactory					factory			= ClientFactory.getInstance();
+		ISimpleCacheClient				client			= factory.getSimpleClient(IClientFactory.ClientType.Local);
+
+		// The cache does not exist: the failure is reported via the future, not thrown.
+		CompletableFuture<Serializable>	future			= client.getAsync(testName, "Key");
+		assertTrue(future.isDone());
+		assertTrue(future.isCompletedExceptionally());
+		try
+		{
+			future.get();
+			fail("Expected an ExecutionException");
+		}
+		catch (ExecutionException exception)
+		{
+			assertTrue(exception.getCause() instanceof BasicException);
+		}
+
+		CompletableFuture<Void>			futurePut		= client.putAsync(testName, "Key", "Value");
+		assertTrue(futurePut.isCompletedExceptionally());
+	}
 }
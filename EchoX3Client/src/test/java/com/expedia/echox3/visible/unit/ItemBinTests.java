@@ -6,6 +6,9 @@
 package com.expedia.echox3.visible.unit;
 
 import java.net.URL;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -16,6 +19,8 @@ import com.expedia.echox3.basics.configuration.IConfigurationProvider;
 import com.expedia.echox3.basics.file.FileFinder;
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
+import com.expedia.echox3.basics.monitoring.counter.IOperationContext;
+import com.expedia.echox3.basics.tools.locks.AbstractReadWriteLock;
 import com.expedia.echox3.basics.tools.serial.BasicSerial;
 import com.expedia.echox3.internal.store.cache.LocalObjectFactoryWrapper;
 import com.expedia.echox3.internal.store.cache.LocalObjectBin;
@@ -111,4 +116,53 @@ public class ItemBinTests extends AbstractTestTools
 		maintenanceResponse.clear();
 		bin.doMaintenance(maintenanceRequest, maintenanceResponse);
 	}
+
+	@Test
+	public void testStripedLocks() throws BasicException
+	{
+		String						testName			= logTestName();
+
+		String						filename			= "data/TestObject.ObjectCache.properties";
+		URL							url					= FileFinder.findUrlOnClasspath(filename);
+		IConfigurationProvider		provider			= new FileConfigurationProvider(url);
+		ObjectCacheConfiguration	configuration		= new ObjectCacheConfiguration("TestObjectCache", provider);
+		TrackingObjects				trackingObjects		= new TrackingObjects(testName);
+		trackingObjects.setItemLockStripeCount(4);
+		LocalObjectBin				bin					=
+				new LocalObjectBin(configuration, trackingObjects, "Bucket-1", 5);
+		LocalObjectFactoryWrapper	factory				= new LocalObjectFactoryWrapper(configuration);
+		factory.setClassName(TestObjectFactory.class.getName());
+
+		int							itemCount			= 200;
+		Set<AbstractReadWriteLock>	lockSet				= Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int i = 0; i < itemCount; i++)
+		{
+			ObjectKey				key					= new ObjectKey(BasicSerial.toBytes(testName, "Key-" + i));
+			ObjectWrapper			wrapper				= bin.getEntry(key, factory);
+			assertTrue(wrapper.getLock() == trackingObjects.getItemLockTable().getLock(key.getHash64()));	// NOPMD
+			lockSet.add(wrapper.getLock());
+		}
+		assertEquals(itemCount, bin.getItemCount());
+		assertEquals(4, lockSet.size());
+
+		// The items share the stripes, a write lock on one item blocks nothing else than its own stripe.
+		ObjectWrapper[]				wrapperList			= bin.getWrapperList();
+		IOperationContext			context				= wrapperList[0].getLock().lockWrite();
+		int							freeCount			= 0;
+		for (AbstractReadWriteLock lock : lockSet)
+		{
+			if (lock != wrapperList[0].getLock())		// NOPMD
+			{
+				lock.unlockRead(lock.lockRead(), true);
+				freeCount++;
+			}
+		}
+		wrapperList[0].getLock().unlockWrite(context, true);
+		assertEquals(3, freeCount);
+
+		// Without stripes, each item has its own lock.
+		TrackingObjects				trackingPerItem		= new TrackingObjects(testName + "PerItem");
+		assertNull(trackingPerItem.getItemLockTable());
+		assertTrue(trackingPerItem.getItemLock(1) != trackingPerItem.getItemLock(1));		// NOPMD
+	}
 }
@@ -6,6 +6,8 @@
 package com.expedia.echox3.visible.unit;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -18,7 +20,10 @@ import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.tools.serial.BasicSerial;
 import com.expedia.echox3.internal.store.cache.LocalObjectFactoryWrapper;
+import com.expedia.echox3.internal.store.cache.LocalObjectBin;
 import com.expedia.echox3.internal.store.cache.LocalObjectBucket;
+import com.expedia.echox3.internal.store.cache.LocalObjectMaintenance;
+import com.expedia.echox3.internal.store.cache.LocalObjectMigration;
 import com.expedia.echox3.internal.store.cache.LocalObjectCache.MaintenanceRequest;
 import com.expedia.echox3.internal.store.cache.LocalObjectCache.MaintenanceResponse;
 import com.expedia.echox3.internal.store.wrapper.ObjectKey;
@@ -110,4 +115,142 @@ public class ItemBucketTests extends AbstractTestTools
 		maintenanceResponse.clear();
 		bucket.doMaintenance(maintenanceRequest, maintenanceResponse);
 	}
+
+	@Test
+	public void testIncrementalResize() throws BasicException
+	{
+		String						testName			= logTestName();
+
+		String						filename			= "data/TestObject.ObjectCache.properties";
+		URL							url					= FileFinder.findUrlOnClasspath(filename);
+		IConfigurationProvider		provider			= new FileConfigurationProvider(url);
+		ObjectCacheConfiguration	configuration		= new ObjectCacheConfiguration("TestObjectCache", provider);
+		TrackingObjects				trackingObjects		= new TrackingObjects(testName);
+		LocalObjectBucket			bucket				= new LocalObjectBucket(configuration, trackingObjects, 0);
+		LocalObjectFactoryWrapper	factory				= new LocalObjectFactoryWrapper(configuration);
+		factory.setClassName(TestObjectFactory.class.getName());
+
+		int							itemCount			= 5000;
+		ObjectKey[]					keyList				= new ObjectKey[itemCount];
+		for (int i = 0; i < itemCount; i++)
+		{
+			keyList[i] = new ObjectKey(BasicSerial.toBytes(testName, String.format("Key-%d", i)));
+			bucket.getEntry(keyList[i], factory);
+		}
+		assertEquals(itemCount, bucket.getItemCount());
+
+		LocalObjectMigration.Statistics		statistics		= new LocalObjectMigration.Statistics();
+		int							binCountFrom		= bucket.getBinCountCurrent();
+		assertTrue(bucket.startResize(97, statistics));
+		assertFalse(bucket.startResize(101, statistics));		// Already in progress
+		assertEquals(97, bucket.getBinCountCurrent());
+
+		// Small steps, every item remains visible (and is not created again) in the middle of the resize.
+		int							stepCount			= 0;
+		while (!bucket.resizeStep(100))
+		{
+			stepCount++;
+			if (0 == stepCount % 10)
+			{
+				for (ObjectKey key : keyList)
+				{
+					assertNotNull(bucket.getEntry(key, null));
+				}
+			}
+		}
+		assertTrue(stepCount >= itemCount / 100);
+		assertNull(bucket.getBinMigration());
+		assertEquals(itemCount, bucket.getItemCount());
+		for (ObjectKey key : keyList)
+		{
+			// The resize is complete: only the current bin is looked-up, the item must be there.
+			assertNotNull(bucket.getEntry(key, null));
+		}
+		// The items moved are the ones that changed bin, i.e. most of them.
+		assertTrue(statistics.getItemCountMoved() > itemCount / 2);
+		assertTrue(statistics.getStepCount() >= stepCount);
+		getLogger().info(BasicEvent.EVENT_DEBUG, "Resize %,d items from %,d to %,d bins: %,d steps (max %,d us)",
+				itemCount, binCountFrom, bucket.getBinCountCurrent(),
+				statistics.getStepCount(), statistics.getStepDurationMaxUS());
+	}
+
+	@Test
+	public void testParallelMaintenance() throws BasicException
+	{
+		String						testName			= logTestName();
+
+		String						filename			= "data/TestObject.ObjectCache.properties";
+		URL							url					= FileFinder.findUrlOnClasspath(filename);
+		IConfigurationProvider		provider			= new FileConfigurationProvider(url);
+		ObjectCacheConfiguration	configuration		= new ObjectCacheConfiguration("TestObjectCache", provider);
+		TrackingObjects				trackingObjects		= new TrackingObjects(testName);
+		LocalObjectFactoryWrapper	factory				= new LocalObjectFactoryWrapper(configuration);
+		factory.setClassName(TestObjectFactory.class.getName());
+
+		int							bucketCount			= 4;
+		int							itemCount			= 5000;
+		List<LocalObjectBin>		binList				= new ArrayList<>();
+		LocalObjectBucket[]			bucketList			= new LocalObjectBucket[bucketCount];
+		for (int i = 0; i < bucketCount; i++)
+		{
+			bucketList[i] = new LocalObjectBucket(configuration, trackingObjects, i);
+			bucketList[i].addBinListTo(binList);
+		}
+		for (int i = 0; i < itemCount; i++)
+		{
+			ObjectKey				key					= new ObjectKey(BasicSerial.toBytes(testName, "Key-" + i));
+			bucketList[i % bucketCount].getEntry(key, factory);
+		}
+
+		// A budget of 1 us per slice: each bin is processed in many slices, all the objects are still visited.
+		// The objects have never been written, the maintenance removes all of them.
+		MaintenanceRequest			maintenanceRequest	= new MaintenanceRequest();
+		MaintenanceResponse			maintenanceResponse	= new MaintenanceResponse();
+		maintenanceRequest.set(System.currentTimeMillis(), 100, false);
+		maintenanceRequest.setPass(1, 0, binList.size());
+		maintenanceResponse.clear();
+		long						timeBeginNS			= System.nanoTime();
+		LocalObjectMaintenance.doMaintenance(binList, maintenanceRequest, maintenanceResponse);
+		long						durationNS			= System.nanoTime() - timeBeginNS;
+
+		assertEquals(binList.size(), maintenanceResponse.getBinCount());
+		assertEquals(itemCount, maintenanceResponse.getRemovedCount());
+		assertEquals(0, maintenanceResponse.getKeptCount());
+		for (LocalObjectBucket bucket : bucketList)
+		{
+			assertEquals(0, bucket.getItemCount());
+		}
+		assertEquals(100, maintenanceRequest.getMemoryLevelPercent());		// No maximum size, no adjustment
+		getLogger().info(BasicEvent.EVENT_DEBUG, "Maintenance of %,d items in %,d bins on %,d threads: %,d us",
+				itemCount, binList.size(), LocalObjectMaintenance.getThreadCount(), durationNS / 1000);
+	}
+
+	@Test
+	public void testMaintenanceMemoryLevel()
+	{
+		logTestName();
+
+		// 10 bins, a maximum of 1000; 1 bin done with 200 kept projects to 2000, i.e. twice the maximum.
+		MaintenanceRequest			maintenanceRequest	= new MaintenanceRequest();
+		MaintenanceResponse			maintenanceResponse	= new MaintenanceResponse();
+		maintenanceRequest.set(System.currentTimeMillis(), 80, false);
+		maintenanceRequest.setPass(0, 1000, 10);
+		maintenanceResponse.clear();
+
+		maintenanceRequest.adjustMemoryLevel(maintenanceResponse);		// Nothing done yet, nothing to adjust
+		assertEquals(80, maintenanceRequest.getMemoryLevelPercent());
+
+		maintenanceResponse.incrementBinCount(1);
+		maintenanceResponse.incrementSize(200);
+		maintenanceRequest.adjustMemoryLevel(maintenanceResponse);
+		assertEquals(40, maintenanceRequest.getMemoryLevelPercent());
+
+		// Back under the maximum: the level never goes back up during a pass.
+		maintenanceResponse.incrementBinCount(4);
+		maintenanceRequest.adjustMemoryLevel(maintenanceResponse);
+		assertEquals(40, maintenanceRequest.getMemoryLevelPercent());
+
+		// No budget means a single slice per bin.
+		assertEquals(Long.MAX_VALUE, maintenanceRequest.getBinBudgetNS());
+	}
 }
@@ -5,7 +5,13 @@
 
 package com.expedia.echox3.visible.unit;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -13,14 +19,27 @@ import static org.junit.Assert.*;
 import com.expedia.echox3.basics.AbstractTestTools;
 import com.expedia.echox3.basics.configuration.FileConfigurationProvider;
 import com.expedia.echox3.basics.configuration.IConfigurationProvider;
+import com.expedia.echox3.basics.configuration.MemoryConfigurationProvider;
 import com.expedia.echox3.basics.file.FileFinder;
+import com.expedia.echox3.basics.monitoring.counter.ItemSizeCounter;
 import com.expedia.echox3.basics.monitoring.event.BasicEvent;
 import com.expedia.echox3.basics.monitoring.event.BasicException;
 import com.expedia.echox3.basics.tools.serial.BasicSerial;
+import com.expedia.echox3.internal.store.cache.LocalObjectBulk;
 import com.expedia.echox3.internal.store.cache.LocalObjectCache;
+import com.expedia.echox3.internal.store.cache.LocalObjectCache.CacheMode;
+import com.expedia.echox3.internal.store.cache.LocalObjectSnapshot;
+import com.expedia.echox3.internal.store.slab.SlabStore;
+import com.expedia.echox3.visible.application.simplecache.SimpleCacheObjectFactory;
+import com.expedia.echox3.visible.application.simplecache.SimpleCacheOffHeapObject;
+import com.expedia.echox3.visible.application.simplecache.SimpleCacheStatusHolder;
+import com.expedia.echox3.visible.application.simplecache.SimpleCacheStatusHolder.StorageType;
 import com.expedia.echox3.visible.application.test.TestReadRequest;
 import com.expedia.echox3.visible.application.test.TestReadResponse;
 import com.expedia.echox3.visible.application.test.TestWriteRequest;
+import com.expedia.echox3.visible.trellis.ICacheObject;
+import com.expedia.echox3.visible.trellis.IObjectCacheClient.ITrellisReducer;
+import com.expedia.echox3.visible.trellis.IObjectFactory;
 import com.expedia.echox3.visible.trellis.ObjectCacheConfiguration;
 
 public class ItemCacheTests extends AbstractTestTools
@@ -56,17 +75,23 @@ public class ItemCacheTests extends AbstractTestTools
 		KEY_3	= bytes3;
 	}
 
-	@Test
-	public void testSimple() throws BasicException
+	private static LocalObjectCache createTestObjectCache()
 	{
-		String						testName			= logTestName();
 		String						filename			= "data/TestObject.ObjectCache.properties";
 		URL							url					= FileFinder.findUrlOnClasspath(filename);
 		assertNotNull(url);
 		IConfigurationProvider		provider			= new FileConfigurationProvider(url);
 		ObjectCacheConfiguration configuration		= new ObjectCacheConfiguration("TestObjectCache", provider);
 
-		LocalObjectCache cache					= new LocalObjectCache(configuration);
+		return new LocalObjectCache(configuration);
+	}
+
+	@Test
+	public void testSimple() throws BasicException
+	{
+		String						testName			= logTestName();
+
+		LocalObjectCache cache					= createTestObjectCache();
 		assertEquals(0, cache.getItemCount());
 
 		TestWriteRequest	writeRequest1		= new TestWriteRequest(100, 10, false, VALUE_1);
@@ -93,4 +118,387 @@ public class ItemCacheTests extends AbstractTestTools
 		assertEquals(VALUE_2, response2.getValue());
 		assertEquals(VALUE_3, response3.getValue());
 	}
+
+	@Test
+	public void testBulk() throws BasicException
+	{
+		String				testName		= logTestName();
+		LocalObjectCache	cache			= createTestObjectCache();
+
+		int					itemCount		= 1000;
+		byte[][]			keyList			= new byte[itemCount + 1][];
+		byte[][]			requestList		= new byte[itemCount][];
+		for (int i = 0; i < itemCount; i++)
+		{
+			keyList[i] = BasicSerial.toBytes(testName, String.format("Key-%d", i));
+			requestList[i] = BasicSerial.toBytes(testName,
+					new TestWriteRequest(0, 0, false, String.format("%s-%d", QUICK_FOX_TEXT, i)));
+		}
+		keyList[itemCount] = BasicSerial.toBytes(testName, "MissingKey");
+		cache.writeOnly(Arrays.copyOf(keyList, itemCount), requestList);
+		assertEquals(itemCount, cache.getItemCount());
+
+		// The keys are processed by bin, the responses are in the order of the keys.
+		byte[]				readBytes		= BasicSerial.toBytes(testName, new TestReadRequest(0, 0, false));
+		byte[][]			responseList	= cache.readOnly(keyList, readBytes);
+		assertEquals(keyList.length, responseList.length);
+		for (int i = 0; i < itemCount; i++)
+		{
+			TestReadResponse	response		= (TestReadResponse) BasicSerial.toObject(testName, responseList[i]);
+			assertEquals(String.format("%s-%d", QUICK_FOX_TEXT, i), response.getValue());
+		}
+		assertNull(responseList[itemCount]);
+
+		// The parallel path visits each key exactly once.
+		AtomicIntegerArray	visitList		= new AtomicIntegerArray(itemCount);
+		LocalObjectBulk.process(itemCount, true, (indexMin, indexMax) ->
+		{
+			for (int i = indexMin; i < indexMax; i++)
+			{
+				visitList.incrementAndGet(i);
+			}
+		});
+		for (int i = 0; i < itemCount; i++)
+		{
+			assertEquals(1, visitList.get(i));
+		}
+
+		cache.close();
+	}
+
+	@Test
+	public void testSnapshot() throws BasicException, IOException
+	{
+		String						testName		= logTestName();
+		File						folder			= Files.createTempDirectory(testName).toFile();
+		MemoryConfigurationProvider	provider		= new MemoryConfigurationProvider(testName);
+		provider.addSetting("FactoryClassName", "com.expedia.echox3.visible.application.test.TestObjectFactory");
+		provider.addSetting("SnapshotFolder", folder.getAbsolutePath());
+		provider.addSetting("SnapshotSegmentCount", "3");
+
+		int							itemCount		= 1000;
+		ObjectCacheConfiguration	configuration	= new ObjectCacheConfiguration(testName, provider);
+		LocalObjectCache			cache			= new LocalObjectCache(configuration);
+		for (int i = 0; i < itemCount; i++)
+		{
+			cache.writeOnly(BasicSerial.toBytes(testName, String.format("Key-%d", i)), BasicSerial.toBytes(testName,
+					new TestWriteRequest(0, 0, false, String.format("%s-%d", QUICK_FOX_TEXT, i))));
+		}
+		cache.close();		// Writes the snapshot
+		File[]						segmentList		=
+				new File(folder, testName).listFiles((dir, name) -> name.endsWith(LocalObjectSnapshot.FILE_EXTENSION));
+		assertNotNull(segmentList);
+		assertEquals(3, segmentList.length);
+
+		// Loaded when the cache is created, before it is available.
+		cache = new LocalObjectCache(configuration);
+		assertEquals(CacheMode.Nominal, cache.getCacheMode());
+		assertEquals(itemCount, cache.getItemCount());
+		byte[]						readBytes		= BasicSerial.toBytes(testName, new TestReadRequest(0, 0, false));
+		for (int i = 0; i < itemCount; i++)
+		{
+			byte[]				keyBytes		= BasicSerial.toBytes(testName, String.format("Key-%d", i));
+			TestReadResponse	response		=
+					(TestReadResponse) BasicSerial.toObject(testName, cache.readOnly(keyBytes, readBytes));
+			assertEquals(String.format("%s-%d", QUICK_FOX_TEXT, i), response.getValue());
+		}
+		cache.close();
+
+		// An incomplete snapshot is ignored.
+		assertTrue(segmentList[0].delete());
+		cache = new LocalObjectCache(configuration);
+		assertEquals(0, cache.getItemCount());
+		provider.close();
+
+		for (File file : new File(folder, testName).listFiles())
+		{
+			assertTrue(file.delete());
+		}
+		assertTrue(new File(folder, testName).delete());
+		assertTrue(folder.delete());
+	}
+
+	@Test
+	public void testSnapshotSimple() throws BasicException, IOException
+	{
+		String						testName		= logTestName();
+		for (StorageType storageType : StorageType.values())
+		{
+			validateSnapshotSimple(testName + storageType.name(), storageType);
+		}
+	}
+	// The simple cache objects are written field by field, then restored with the status holder (and SlabStore).
+	private static void validateSnapshotSimple(String cacheName, StorageType storageType)
+			throws BasicException, IOException
+	{
+		File						folder			= Files.createTempDirectory(cacheName).toFile();
+		MemoryConfigurationProvider	provider		= new MemoryConfigurationProvider(cacheName);
+		provider.addSetting("FactoryClassName", SimpleCacheObjectFactory.class.getName());
+		provider.addSetting("SnapshotFolder", folder.getAbsolutePath());
+		provider.addSetting(SimpleCacheStatusHolder.SETTING_NAME_STORAGE_TYPE, storageType.name());
+
+		int							itemCount		= 1000;
+		ObjectCacheConfiguration	configuration	= new ObjectCacheConfiguration(cacheName, provider);
+		LocalObjectCache			cache			= new LocalObjectCache(configuration);
+		for (int i = 0; i < itemCount; i++)
+		{
+			cache.writeOnly(BasicSerial.toBytes(cacheName, String.format("Key-%d", i)),
+					String.format("%s-%d", QUICK_FOX_TEXT, i).getBytes());
+		}
+		cache.close();		// Writes the snapshot
+
+		cache = new LocalObjectCache(configuration);
+		assertEquals(storageType.name(), itemCount, cache.getItemCount());
+		for (int i = 0; i < itemCount; i++)
+		{
+			byte[]				keyBytes		= BasicSerial.toBytes(cacheName, String.format("Key-%d", i));
+			byte[]				valueBytes		= cache.readOnly(keyBytes, null);
+			assertNotNull(storageType.name(), valueBytes);
+			assertEquals(String.format("%s-%d", QUICK_FOX_TEXT, i), new String(valueBytes));
+		}
+		cache.close();
+		provider.close();
+		deleteFolder(folder);
+	}
+	@Test
+	public void testWriteLog() throws BasicException, IOException
+	{
+		String						testName		= logTestName();
+		File						folder			= Files.createTempDirectory(testName).toFile();
+		MemoryConfigurationProvider	provider		= new MemoryConfigurationProvider(testName);
+		provider.addSetting("FactoryClassName", "com.expedia.echox3.visible.application.test.TestObjectFactory");
+		provider.addSetting("SnapshotFolder", folder.getAbsolutePath());
+		provider.addSetting("WriteLogEnabled", "true");
+		provider.addSetting("WriteLogSync", "Commit");
+
+		ObjectCacheConfiguration	configuration	= new ObjectCacheConfiguration(testName, provider);
+		LocalObjectCache			cache			= new LocalObjectCache(configuration);
+		for (int i = 0; i < 100; i++)
+		{
+			writeVersion(cache, testName, i, "Snapshot");
+		}
+		cache.writeSnapshot();
+		for (int i = 50; i < 150; i++)
+		{
+			writeVersion(cache, testName, i, "Log");
+		}
+		writeVersion(cache, testName, 10, null);		// Deleted
+		writeVersion(cache, testName, 20, null);		// Deleted, then re-created
+		writeVersion(cache, testName, 20, "Log");
+
+		// Restarted from the files as they are before close(), i.e. as a crash would leave them.
+		File						folderCrash		= copyFolder(folder, testName);
+		cache.close();
+		provider.addSetting("SnapshotFolder", folderCrash.getAbsolutePath());
+		cache = new LocalObjectCache(configuration);
+		assertEquals(149, cache.getItemCount());
+		validateVersion(cache, testName, 0, 1, "Snapshot");
+		validateVersion(cache, testName, 10, 0, null);
+		validateVersion(cache, testName, 20, 1, "Log");
+		validateVersion(cache, testName, 50, 2, "Log");
+		validateVersion(cache, testName, 149, 1, "Log");
+
+		// The objects written before a flush are not replayed.
+		cache.flush(0);
+		writeVersion(cache, testName, 7, "Flush");
+		File						folderFlush		= copyFolder(folderCrash, testName);
+		cache.close();
+		provider.addSetting("SnapshotFolder", folderFlush.getAbsolutePath());
+		cache = new LocalObjectCache(configuration);
+		assertEquals(1, cache.getItemCount());
+		validateVersion(cache, testName, 7, 1, "Flush");
+		cache.close();
+		provider.close();
+
+		deleteFolder(folder);
+		deleteFolder(folderCrash);
+		deleteFolder(folderFlush);
+	}
+	private static void writeVersion(LocalObjectCache cache, String testName, int keyIndex, String value)
+			throws BasicException
+	{
+		cache.writeOnly(BasicSerial.toBytes(testName, String.format("Key-%d", keyIndex)),
+				BasicSerial.toBytes(testName, new TestWriteRequest(0, 0, false, value)));
+	}
+	private static void validateVersion(LocalObjectCache cache, String testName, int keyIndex,
+			int version, String value) throws BasicException
+	{
+		byte[]				keyBytes		= BasicSerial.toBytes(testName, String.format("Key-%d", keyIndex));
+		byte[]				responseBytes	=
+				cache.readOnly(keyBytes, BasicSerial.toBytes(testName, new TestReadRequest(0, 0, false)));
+		TestReadResponse	response		= (TestReadResponse) BasicSerial.toObject(testName, responseBytes);
+		assertEquals(version, null == response ? 0 : response.getVersion());
+		assertEquals(value, null == response ? null : response.getValue());
+	}
+	private static File copyFolder(File folder, String cacheName) throws IOException
+	{
+		File				folderCopy		= Files.createTempDirectory(cacheName).toFile();
+		File				cacheFolder		= new File(folderCopy, cacheName);
+		assertTrue(cacheFolder.mkdir());
+		for (File file : new File(folder, cacheName).listFiles())
+		{
+			Files.copy(file.toPath(), new File(cacheFolder, file.getName()).toPath());
+		}
+		return folderCopy;
+	}
+	private static void deleteFolder(File folder)
+	{
+		File[]				fileList		= folder.listFiles();
+		for (int i = 0; null != fileList && i < fileList.length; i++)
+		{
+			deleteFolder(fileList[i]);
+		}
+		assertTrue(folder.delete());
+	}
+
+	@Test
+	public void testEvictOffHeap() throws BasicException
+	{
+		String						testName		= logTestName();
+		MemoryConfigurationProvider	provider		= new MemoryConfigurationProvider(testName);
+		provider.addSetting("FactoryClassName", OffHeapFactory.class.getName());
+		provider.addSetting(SimpleCacheStatusHolder.SETTING_NAME_STORAGE_TYPE, StorageType.OffHeap.name());
+		provider.addSetting("EvictionPolicy", "LRU");
+		provider.addSetting("SizeMax", Integer.toString(100 * 100));
+
+		ObjectCacheConfiguration	configuration	= new ObjectCacheConfiguration(testName, provider);
+		LocalObjectCache			cache			= new LocalObjectCache(configuration);
+		byte[]						valueBytes		= BasicSerial.toBytes(testName, new byte[100]);
+		cache.writeOnly(BasicSerial.toBytes(testName, "Key-0"), valueBytes);
+		SimpleCacheStatusHolder		cacheStatus		= OffHeapFactory.s_cacheStatus;
+		SlabStore					slabStore		= cacheStatus.getSlabStore();
+		ItemSizeCounter				valueCounter	= (ItemSizeCounter) cacheStatus.getValueSizeCounter();
+		long						chunkBytes		= slabStore.getUsedBytes();
+		for (int i = 1; i < 1000; i++)
+		{
+			cache.writeOnly(BasicSerial.toBytes(testName, String.format("Key-%d", i)), valueBytes);
+		}
+
+		// The evicted objects have released their chunk and their value size.
+		long						itemCount		= cache.getItemCount();
+		assertTrue(Long.toString(itemCount), 0 < itemCount && 1000 > itemCount);
+		assertEquals(itemCount * chunkBytes, slabStore.getUsedBytes());
+		assertEquals(itemCount, valueCounter.getItemCount());
+		assertEquals(itemCount * 100, valueCounter.getItemSizeSum());
+		cache.close();
+		provider.close();
+	}
+	// The simple cache objects in the SlabStore, with their status holder available to the test.
+	public static class OffHeapFactory implements IObjectFactory
+	{
+		private static volatile SimpleCacheStatusHolder		s_cacheStatus;
+
+		public OffHeapFactory()
+		{
+			s_cacheStatus = new SimpleCacheStatusHolder();
+		}
+
+		@Override
+		public void updateConfiguration(ObjectCacheConfiguration configuration)
+		{
+			s_cacheStatus.readConfiguration(configuration);
+		}
+
+		@Override
+		public ICacheObject createObject()
+		{
+			return new SimpleCacheOffHeapObject(s_cacheStatus, s_cacheStatus.getSlabStore());
+		}
+
+		@Override
+		public ICacheObject createObject(Serializable key)
+		{
+			return createObject();
+		}
+
+		@Override
+		public void close()
+		{
+			s_cacheStatus.close();
+		}
+	}
+
+	@Test
+	public void testReduce() throws BasicException
+	{
+		String				testName		= logTestName();
+		LocalObjectCache	cache			= createTestObjectCache();
+
+		int					itemCount		= 1000;
+		long				lengthTotal		= 0;
+		byte[][]			keyList			= new byte[itemCount][];
+		for (int i = 0; i < itemCount; i++)
+		{
+			String				value			= String.format("%s-%d", QUICK_FOX_TEXT, i);
+			keyList[i] = BasicSerial.toBytes(testName, String.format("Key-%d", i));
+			cache.writeOnly(keyList[i], BasicSerial.toBytes(testName, new TestWriteRequest(0, 0, false, value)));
+			lengthTotal += value.length();
+		}
+		assertEquals(itemCount, cache.getItemCount());
+
+		// All the objects of the cache, reduced in parallel by bin.
+		byte[]				answerBytes		= cache.reduce(LengthReducer.class.getName(), null, null);
+		assertEquals(lengthTotal, BasicSerial.toObject(testName, answerBytes));
+
+		// Some objects, the duplicate and the missing keys are ignored.
+		byte[][]			keySubList		= new byte[][] { keyList[1], keyList[2], keyList[1],
+				BasicSerial.toBytes(testName, "MissingKey") };
+		long				lengthSub		= String.format("%s-%d", QUICK_FOX_TEXT, 1).length()
+				+ String.format("%s-%d", QUICK_FOX_TEXT, 2).length();
+		answerBytes = cache.reduce(LengthReducer.class.getName(), keySubList, null);
+		assertEquals(lengthSub, BasicSerial.toObject(testName, answerBytes));
+
+		// The reducer failure is reported, with its cause.
+		try
+		{
+			cache.reduce(LengthReducer.class.getName(), null, BasicSerial.toBytes(testName, "Throw"));
+			fail("Expected a BasicException");
+		}
+		catch (BasicException exception)
+		{
+			assertEquals(BasicEvent.EVENT_CACHE_OBJECT_EXCEPTION_REDUCE, exception.getBasicEvent());
+			assertTrue(exception.getCause() instanceof IllegalArgumentException);
+		}
+		try
+		{
+			cache.reduce(String.class.getName(), null, null);
+			fail("Expected a BasicException");
+		}
+		catch (BasicException exception)
+		{
+			assertEquals(BasicEvent.EVENT_NO_REDUCER_CONSTRUCTOR, exception.getBasicEvent());
+		}
+
+		cache.close();
+	}
+
+	// Total length of the values; the request "Throw" makes it fail.
+	public static class LengthReducer implements ITrellisReducer
+	{
+		@Override
+		public Serializable reduceObjectList(ICacheObject[] objectList, Serializable request)
+		{
+			if ("Throw".equals(request))
+			{
+				throw new IllegalArgumentException("Requested failure");
+			}
+			long		length		= 0;
+			for (ICacheObject cacheObject : objectList)
+			{
+				length += cacheObject.getSize();
+			}
+			return length;
+		}
+
+		@Override
+		public Serializable reduceAnswerList(Serializable[] answerList, Serializable request)
+		{
+			long		length		= 0;
+			for (Serializable answer : answerList)
+			{
+				length += (Long) answer;
+			}
+			return length;
+		}
+	}
 }